@@ -0,0 +1,129 @@
+package client;
+
+/**
+ * Histogramm für Latenzen mit festem Speicherbedarf. Werte werden logarithmisch in Zweierpotenzen
+ * und innerhalb jeder Zweierpotenz linear in 32 Teilbereiche einsortiert, der relative Fehler eines
+ * ermittelten Perzentils liegt damit unter 3,2 %. So können auch Dauerläufe mit beliebig vielen
+ * Messwerten ausgewertet werden.
+ * 
+ * Nicht threadsicher, jeder Thread zeichnet in ein eigenes Histogramm auf (siehe {@link #merge}).
+ * 
+ * @author Lars Sander, Alexander Löffler
+ * 
+ */
+class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+    private static final int MAGNITUDES = Long.SIZE - SUB_BUCKET_BITS + 1;
+    private static final double PERCENT = 100.0;
+
+    private final long[] counts = new long[MAGNITUDES * HALF_SUB_BUCKETS + HALF_SUB_BUCKETS];
+    private long total = 0;
+    private long max = 0;
+
+    /**
+     * Zeichnet einen Messwert auf.
+     * 
+     * @pre value größer gleich 0
+     * @param value der Messwert
+     */
+    void record(long value) {
+        assert value >= 0 : "Latenzen können nicht negativ sein.";
+
+        counts[index(value)]++;
+        total++;
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Übernimmt alle Messwerte eines anderen Histogramms.
+     * 
+     * @param other das zu übernehmende Histogramm
+     */
+    void merge(LatencyHistogram other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        total += other.total;
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Liefert die Anzahl der aufgezeichneten Messwerte.
+     * 
+     * @return Anzahl der Messwerte
+     */
+    long getCount() {
+        return total;
+    }
+
+    /**
+     * Liefert den größten aufgezeichneten Messwert.
+     * 
+     * @return das Maximum, 0 falls es keine Messwerte gibt
+     */
+    long getMax() {
+        return max;
+    }
+
+    /**
+     * Liefert eine obere Schranke für das übergebene Perzentil.
+     * 
+     * @pre 0 kleiner percentile kleiner gleich 100
+     * @param percentile das gewünschte Perzentil, z.B. 99.9
+     * @return der Wert, unter dem mindestens percentile Prozent der Messwerte liegen
+     */
+    long getPercentile(double percentile) {
+        assert percentile > 0 && percentile <= PERCENT : "Perzentil muss in (0, 100] liegen.";
+
+        long rank = (long) Math.ceil(percentile / PERCENT * total);
+        long seen = 0;
+
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank && seen > 0) {
+                return Math.min(upperBound(i), max);
+            }
+        }
+
+        return max;
+    }
+
+    /**
+     * Ermittelt den Index des Teilbereiches für einen Wert. Werte kleiner 64 haben einen eigenen
+     * Index, danach teilen sich jeweils 32 Teilbereiche eine Zweierpotenz.
+     * 
+     * @param value der Wert
+     * @return Index in counts
+     */
+    private static int index(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+
+        int magnitude = (Long.SIZE - 1 - Long.numberOfLeadingZeros(value)) - (SUB_BUCKET_BITS - 1);
+        int subBucket = (int) (value >>> magnitude);
+
+        return magnitude * HALF_SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Liefert den größten Wert, der in den Teilbereich mit dem übergebenen Index fällt.
+     * 
+     * @param index Index in counts
+     * @return obere Grenze des Teilbereiches
+     */
+    private static long upperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+
+        int magnitude = index / HALF_SUB_BUCKETS - 1;
+        long subBucket = index % HALF_SUB_BUCKETS + HALF_SUB_BUCKETS;
+
+        return ((subBucket + 1) << magnitude) - 1;
+    }
+
+}
@@ -0,0 +1,331 @@
+package client;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ein Lastgenerator für einen {@link server.PrimeServer}. Es werden mehrere {@link PrimeClient}s
+ * gleichzeitig verbunden, die für eine vorgegebene Dauer Anfragen stellen. Anschließend werden der
+ * Durchsatz und die Perzentile der Antwortzeiten ausgegeben.
+ * 
+ * Ohne Zielrate arbeitet jede Verbindung im Closed-Loop: die nächste Anfrage wird direkt nach der
+ * Antwort gesendet. Mit Zielrate (Open-Loop) werden die Anfragen in festen Abständen eingeplant und
+ * die Antwortzeit ab dem geplanten Sendezeitpunkt gemessen, damit ein langsamer Server seine eigene
+ * Messung nicht schönt.
+ * 
+ * Aufruf: {@code java client.LoadGenerator host=localhost port=8080 connections=8 factors=0.5
+ * max=1000 rate=0 duration=10}
+ * 
+ * @author Lars Sander, Alexander Löffler
+ * 
+ */
+public class LoadGenerator {
+
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final double[] PERCENTILES = { 50, 90, 99, 99.9 };
+
+    private static final int DEFAULT_PORT = 8080;
+    private static final int DEFAULT_CONNECTIONS = 8;
+    private static final double DEFAULT_FACTOR_SHARE = 0.5;
+    private static final long DEFAULT_MAX_VALUE = 1000;
+    private static final long DEFAULT_DURATION_S = 10;
+
+    private final String host;
+    private final int port;
+    private final int connections;
+    private final double factorShare;
+    private final long maxValue;
+    private final double rate;
+    private final long durationMs;
+
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong failedConnections = new AtomicLong();
+
+    /**
+     * Ergebnis eines Lastlaufes.
+     * 
+     * @author Lars Sander, Alexander Löffler
+     * 
+     */
+    public static final class Report {
+
+        private final LatencyHistogram latencies;
+        private final long errors;
+        private final long failedConnections;
+        private final long elapsedNanos;
+
+        private Report(LatencyHistogram latencies, long errors, long failedConnections,
+                long elapsedNanos) {
+            this.latencies = latencies;
+            this.errors = errors;
+            this.failedConnections = failedConnections;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * Liefert die Anzahl der erfolgreich beantworteten Anfragen.
+         * 
+         * @return Anzahl der Anfragen
+         */
+        public long getRequests() {
+            return latencies.getCount();
+        }
+
+        /**
+         * Liefert die Anzahl der fehlgeschlagenen Anfragen.
+         * 
+         * @return Anzahl der Fehler
+         */
+        public long getErrors() {
+            return errors;
+        }
+
+        /**
+         * Liefert die Anzahl der Verbindungen, die nicht aufgebaut werden konnten. Diese
+         * Verbindungen haben keine Anfragen gestellt.
+         * 
+         * @return Anzahl der gescheiterten Verbindungen
+         */
+        public long getFailedConnections() {
+            return failedConnections;
+        }
+
+        /**
+         * Liefert den Durchsatz in Anfragen pro Sekunde.
+         * 
+         * @return Durchsatz
+         */
+        public double getThroughput() {
+            return getRequests() * NANOS_PER_SECOND / elapsedNanos;
+        }
+
+        /**
+         * Liefert eine obere Schranke für das übergebene Perzentil der Antwortzeiten.
+         * 
+         * @pre 0 kleiner percentile kleiner gleich 100
+         * @param percentile das gewünschte Perzentil, z.B. 99.9
+         * @return Antwortzeit in Mikrosekunden
+         */
+        public long getLatencyMicros(double percentile) {
+            return TimeUnit.NANOSECONDS.toMicros(latencies.getPercentile(percentile));
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("requests: %d, errors: %d, failed connections: %d, "
+                    + "throughput: %.1f/s", getRequests(), errors, failedConnections,
+                    getThroughput()));
+            for (double p : PERCENTILES) {
+                String label = p == Math.rint(p) ? String.valueOf((long) p) : String.valueOf(p);
+                sb.append(String.format(", p%s: %dus", label, getLatencyMicros(p)));
+            }
+            sb.append(", max: ").append(TimeUnit.NANOSECONDS.toMicros(latencies.getMax()))
+                    .append("us");
+            return sb.toString();
+        }
+    }
+
+    /**
+     * Ein PrimeClient ohne Log. Bei Dauerläufen würde das Log sonst unbegrenzt wachsen.
+     */
+    private static class QuietClient extends PrimeClient {
+
+        QuietClient(String host, int port) throws IOException {
+            super(host, port);
+        }
+
+        @Override
+        public void addEntry(String e) {
+        }
+    }
+
+    /**
+     * Konstruktor.
+     * 
+     * @pre connections größer gleich 1
+     * @pre 0 kleiner gleich factorShare kleiner gleich 1
+     * @pre maxValue größer gleich 2
+     * @pre rate größer gleich 0
+     * @pre durationMs größer gleich 0
+     * 
+     * @param host Host-Adresse des Servers
+     * @param port Port des Servers
+     * @param connections Anzahl gleichzeitiger Verbindungen
+     * @param factorShare Anteil der primeFactors-Anfragen, der Rest sind nextPrime-Anfragen
+     * @param maxValue größte angefragte Zahl
+     * @param rate Zielrate in Anfragen pro Sekunde über alle Verbindungen, 0 für Closed-Loop
+     * @param durationMs Dauer des Laufes in ms
+     */
+    public LoadGenerator(String host, int port, int connections, double factorShare,
+            long maxValue, double rate, long durationMs) {
+        assert connections >= 1 : "Es wird mindestens eine Verbindung benötigt.";
+        assert factorShare >= 0 && factorShare <= 1 : "Der Anteil muss in [0, 1] liegen.";
+        assert maxValue >= 2 : "Es können nur Zahlen >= 2 zerlegt werden.";
+        assert rate >= 0 : "Die Rate darf nicht negativ sein.";
+        assert durationMs >= 0 : "Die Dauer darf nicht negativ sein.";
+
+        this.host = host;
+        this.port = port;
+        this.connections = connections;
+        this.factorShare = factorShare;
+        this.maxValue = maxValue;
+        this.rate = rate;
+        this.durationMs = durationMs;
+    }
+
+    /**
+     * Führt den Lastlauf durch und kehrt erst zurück, wenn alle Verbindungen beendet wurden.
+     * 
+     * @return die Auswertung des Laufes
+     * @throws InterruptedException falls beim Warten auf die Verbindungen unterbrochen wurde
+     */
+    public Report run() throws InterruptedException {
+        List<Thread> threads = new ArrayList<Thread>();
+        List<LatencyHistogram> histograms = new ArrayList<LatencyHistogram>();
+        errors.set(0);
+        failedConnections.set(0);
+
+        long start = System.nanoTime();
+        long end = start + TimeUnit.MILLISECONDS.toNanos(durationMs);
+        // Abstand zwischen zwei Anfragen einer Verbindung im Open-Loop
+        long interval = rate > 0 ? (long) (connections * NANOS_PER_SECOND / rate) : 0;
+
+        for (int i = 0; i < connections; i++) {
+            LatencyHistogram histogram = new LatencyHistogram();
+            Random random = new Random(i);
+            histograms.add(histogram);
+
+            Thread t = new Thread(() -> drive(histogram, random, start, end, interval));
+            threads.add(t);
+            t.start();
+        }
+
+        for (Thread t : threads) {
+            t.join();
+        }
+
+        LatencyHistogram all = new LatencyHistogram();
+        for (LatencyHistogram histogram : histograms) {
+            all.merge(histogram);
+        }
+
+        return new Report(all, errors.get(), failedConnections.get(), System.nanoTime() - start);
+    }
+
+    /**
+     * Stellt über eine eigene Verbindung so lange Anfragen, bis die Endzeit erreicht ist.
+     * 
+     * @param histogram Histogramm für die Antwortzeiten dieser Verbindung
+     * @param random Zufallsgenerator für die Anfragen dieser Verbindung
+     * @param start Startzeit des Laufes in ns
+     * @param end Endzeit des Laufes in ns
+     * @param interval Abstand zwischen zwei Anfragen in ns, 0 für Closed-Loop
+     */
+    private void drive(LatencyHistogram histogram, Random random, long start, long end,
+            long interval) {
+        PrimeClient client;
+
+        try {
+            client = new QuietClient(host, port);
+            client.connect();
+        } catch (IOException | NumberFormatException e) {
+            // Server nicht erreichbar oder keine gültige ID als Antwort
+            failedConnections.incrementAndGet();
+            System.err.println("Verbindung zu " + host + ":" + port + " gescheitert: " + e);
+            return;
+        }
+
+        // Verbindungen zeitlich versetzt starten, damit die Anfragen gleichmäßig verteilt sind
+        long scheduled = start + (interval > 0 ? random.nextInt((int) Math.min(interval,
+                Integer.MAX_VALUE)) : 0);
+
+        while (scheduled < end) {
+            long now = System.nanoTime();
+            if (scheduled > now) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(scheduled - now);
+                } catch (InterruptedException e) {
+                    break;
+                }
+            }
+
+            long sent = interval > 0 ? scheduled : System.nanoTime();
+            try {
+                if (random.nextDouble() < factorShare) {
+                    client.primeFactors(2 + (long) (random.nextDouble() * (maxValue - 1)));
+                } else {
+                    client.nextPrime((long) (random.nextDouble() * (maxValue + 1)));
+                }
+                histogram.record(System.nanoTime() - sent);
+            } catch (IOException | NumberFormatException e) {
+                errors.incrementAndGet();
+            }
+
+            scheduled = interval > 0 ? scheduled + interval : System.nanoTime();
+        }
+
+        try {
+            client.disconnect();
+        } catch (IOException e) {
+            errors.incrementAndGet();
+        }
+    }
+
+    /**
+     * Startet einen Lastlauf und gibt die Auswertung aus. Parameter werden als key=value übergeben,
+     * nicht angegebene Parameter behalten ihren Standardwert.
+     * 
+     * @param args Parameter host, port, connections, factors, max, rate und duration (in s)
+     * @throws InterruptedException falls der Lauf unterbrochen wurde
+     */
+    public static void main(String[] args) throws InterruptedException {
+        String host = "localhost";
+        int port = DEFAULT_PORT;
+        int connections = DEFAULT_CONNECTIONS;
+        double factors = DEFAULT_FACTOR_SHARE;
+        long max = DEFAULT_MAX_VALUE;
+        double rate = 0;
+        long duration = DEFAULT_DURATION_S;
+
+        for (String arg : args) {
+            String[] kv = arg.split("=", 2);
+            switch (kv[0]) {
+                case "host":
+                    host = kv[1];
+                    break;
+                case "port":
+                    port = Integer.parseInt(kv[1]);
+                    break;
+                case "connections":
+                    connections = Integer.parseInt(kv[1]);
+                    break;
+                case "factors":
+                    factors = Double.parseDouble(kv[1]);
+                    break;
+                case "max":
+                    max = Long.parseLong(kv[1]);
+                    break;
+                case "rate":
+                    rate = Double.parseDouble(kv[1]);
+                    break;
+                case "duration":
+                    duration = Long.parseLong(kv[1]);
+                    break;
+                default:
+                    System.err.println("Unbekannter Parameter: " + arg);
+                    break;
+            }
+        }
+
+        LoadGenerator generator = new LoadGenerator(host, port, connections, factors, max, rate,
+                TimeUnit.SECONDS.toMillis(duration));
+
+        System.out.println(generator.run());
+    }
+
+}
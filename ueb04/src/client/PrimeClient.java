@@ -65,6 +65,7 @@ public class PrimeClient implements Logger {
 
         } catch (IOException e) {
             System.err.println("Client err");
+            throw e;
         }
 
         out.println(MessageType.HALLO);
@@ -0,0 +1,69 @@
+package server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Speichert die Primzahlen als Long-Objekte in einem ConcurrentSkipListSet auf dem Heap. Für
+ * überschaubare Mengen von Primzahlen die einfachste Variante.
+ * 
+ * @author Lars Sander, Alexander Löffler
+ * 
+ */
+class HeapPrimeStore implements PrimeStore {
+
+    private final ConcurrentSkipListSet<Long> primes = new ConcurrentSkipListSet<Long>();
+
+    @Override
+    public void add(long prime) {
+        primes.add(prime);
+    }
+
+    @Override
+    public long last() {
+        return primes.isEmpty() ? -1 : primes.last();
+    }
+
+    @Override
+    public boolean contains(long n) {
+        return primes.contains(n);
+    }
+
+    @Override
+    public long ceiling(long n) {
+        Long prime = primes.ceiling(n);
+        return prime == null ? -1 : prime;
+    }
+
+    @Override
+    public Iterable<Long> upTo(long limit) {
+        return primes.headSet(limit, true);
+    }
+
+    @Override
+    public List<Long> listUpTo(long limit) {
+        return new ArrayList<Long>(primes.headSet(limit, true));
+    }
+
+    @Override
+    public Sequence sequenceUpTo(long limit) {
+        final List<Long> list = listUpTo(limit);
+        return new Sequence() {
+            @Override
+            public long size() {
+                return list.size();
+            }
+
+            @Override
+            public long get(long index) {
+                if (index < 0 || index >= list.size()) {
+                    throw new IndexOutOfBoundsException(
+                            "Index: " + index + ", Size: " + list.size());
+                }
+                return list.get((int) index);
+            }
+        };
+    }
+
+}
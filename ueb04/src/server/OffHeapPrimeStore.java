@@ -0,0 +1,426 @@
+package server;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+/**
+ * Speichert die Primzahlen außerhalb des Heaps als Bitmap über die ungeraden Zahlen (Bit i steht
+ * für die Zahl 2i + 1, die 2 wird gesondert behandelt). Die Bitmap ist in Segmente von je 16 MiB
+ * Direct-ByteBuffern aufgeteilt, die bei Bedarf angelegt werden. Primzahlen bis 10^11 belegen so
+ * etwa 6 GiB außerhalb des Heaps, auf dem Heap bleibt nur ein Eintrag pro Segment. Der
+ * Direct-Speicher ist standardmäßig auf die maximale Heap-Größe begrenzt, für diesen Bereich muss
+ * die JVM daher z.B. mit -XX:MaxDirectMemorySize=7g gestartet werden. Sonst endet der Generator
+ * mit einem OutOfMemoryError, sobald kein Segment mehr angelegt werden kann.
+ * 
+ * Zusätzlich wird ein Rang-Index gepflegt: pro Block von 512 Bit die Anzahl der Primzahlen im
+ * Segment vor diesem Block. Damit sind der Rang (Anzahl der Primzahlen kleiner gleich n) in O(1)
+ * und die i-te Primzahl über eine binäre Suche bestimmbar. {@link #listUpTo} und
+ * {@link #sequenceUpTo} liefern darüber Sichten auf die Primzahlen, ohne sie auf den Heap zu
+ * kopieren. Oberhalb von etwa 4,8 * 10^10 gibt es mehr als Integer.MAX_VALUE Primzahlen, dann
+ * reicht nur noch die Sicht mit long-Index.
+ * 
+ * Sichtbarkeit: der Generator schreibt zuerst die Bits und den Index und veröffentlicht die neue
+ * Primzahl danach über das volatile Feld last. Leser lesen nur Bits bis last.
+ * 
+ * @author Lars Sander, Alexander Löffler
+ * 
+ */
+class OffHeapPrimeStore implements PrimeStore {
+
+    private static final int WORD_BITS_LOG = 6;
+    private static final int WORD_MASK = (1 << WORD_BITS_LOG) - 1;
+    private static final int BLOCK_WORDS_LOG = 3;
+    private static final int BLOCK_BITS_LOG = WORD_BITS_LOG + BLOCK_WORDS_LOG;
+    // 2^27 Bit = 16 MiB pro Segment
+    private static final int DEFAULT_SEGMENT_BITS_LOG = 27;
+
+    private final int segmentBitsLog;
+    private final long segmentMask;
+    private final int wordsPerSegment;
+    private final int blocksPerSegment;
+
+    private volatile LongBuffer[] bitmaps = new LongBuffer[0];
+    // Anzahl der ungeraden Primzahlen im Segment vor dem jeweiligen Block
+    private volatile IntBuffer[] blockRanks = new IntBuffer[0];
+    // Anzahl der ungeraden Primzahlen vor dem jeweiligen Segment
+    private volatile long[] segmentRanks = new long[0];
+
+    private volatile long last = -1;
+    private volatile long oddCount = 0;
+
+    // Nur vom schreibenden Thread verwendet
+    private long lastBlock = -1;
+
+    /**
+     * Konstruktor mit Segmenten von 16 MiB.
+     */
+    OffHeapPrimeStore() {
+        this(DEFAULT_SEGMENT_BITS_LOG);
+    }
+
+    /**
+     * Konstruktor mit wählbarer Segmentgröße. Kleine Segmente sind nur für Tests gedacht, damit
+     * die Übergänge zwischen Segmenten schon mit wenigen Primzahlen erreicht werden.
+     * 
+     * @pre BLOCK_BITS_LOG kleiner gleich segmentBitsLog kleiner 31
+     * @param segmentBitsLog Zweierlogarithmus der Anzahl Bits pro Segment
+     */
+    OffHeapPrimeStore(int segmentBitsLog) {
+        assert segmentBitsLog >= BLOCK_BITS_LOG && segmentBitsLog < Integer.SIZE - 1;
+
+        this.segmentBitsLog = segmentBitsLog;
+        this.segmentMask = (1L << segmentBitsLog) - 1;
+        this.wordsPerSegment = 1 << (segmentBitsLog - WORD_BITS_LOG);
+        this.blocksPerSegment = 1 << (segmentBitsLog - BLOCK_BITS_LOG);
+    }
+
+    @Override
+    public void add(long prime) {
+        assert prime > last : "Primzahlen müssen aufsteigend eingefügt werden.";
+
+        if (prime == 2) {
+            last = prime;
+            return;
+        }
+
+        assert (prime & 1) == 1 : "Außer der 2 gibt es keine geraden Primzahlen.";
+
+        long bit = prime >>> 1;
+        int segment = (int) (bit >>> segmentBitsLog);
+
+        ensureSegments(segment + 1);
+
+        // Alle Blöcke bis einschließlich des neuen sind vollständig bis auf diese Primzahl
+        long block = bit >>> BLOCK_BITS_LOG;
+        for (long b = lastBlock + 1; b <= block; b++) {
+            int s = (int) (b >>> (segmentBitsLog - BLOCK_BITS_LOG));
+            blockRanks[s].put((int) (b & (blocksPerSegment - 1)),
+                    (int) (oddCount - segmentRanks[s]));
+        }
+        lastBlock = block;
+
+        int word = (int) ((bit & segmentMask) >>> WORD_BITS_LOG);
+        LongBuffer bitmap = bitmaps[segment];
+        bitmap.put(word, bitmap.get(word) | (1L << (bit & WORD_MASK)));
+
+        oddCount++;
+        last = prime;
+    }
+
+    /**
+     * Legt fehlende Segmente an. Neue Segmente beginnen hinter allen bisherigen Primzahlen.
+     * 
+     * @param segments benötigte Anzahl an Segmenten
+     */
+    private void ensureSegments(int segments) {
+        if (segments <= bitmaps.length) {
+            return;
+        }
+
+        int old = bitmaps.length;
+        LongBuffer[] newBitmaps = Arrays.copyOf(bitmaps, segments);
+        IntBuffer[] newBlockRanks = Arrays.copyOf(blockRanks, segments);
+        long[] newSegmentRanks = Arrays.copyOf(segmentRanks, segments);
+
+        for (int s = old; s < segments; s++) {
+            newBitmaps[s] = ByteBuffer.allocateDirect(wordsPerSegment * Long.BYTES)
+                    .order(ByteOrder.nativeOrder()).asLongBuffer();
+            newBlockRanks[s] = ByteBuffer.allocateDirect(blocksPerSegment * Integer.BYTES)
+                    .order(ByteOrder.nativeOrder()).asIntBuffer();
+            newSegmentRanks[s] = oddCount;
+        }
+
+        // Reihenfolge beachten: Leser greifen nur auf Segmente bis last zu
+        segmentRanks = newSegmentRanks;
+        blockRanks = newBlockRanks;
+        bitmaps = newBitmaps;
+    }
+
+    @Override
+    public long last() {
+        return last;
+    }
+
+    @Override
+    public boolean contains(long n) {
+        if (n > last || n < 2) {
+            return false;
+        }
+        if (n == 2) {
+            return true;
+        }
+        if ((n & 1) == 0) {
+            return false;
+        }
+
+        long bit = n >>> 1;
+        long word = bitmaps[(int) (bit >>> segmentBitsLog)]
+                .get((int) ((bit & segmentMask) >>> WORD_BITS_LOG));
+
+        return (word & (1L << (bit & WORD_MASK))) != 0;
+    }
+
+    @Override
+    public long ceiling(long n) {
+        long max = last;
+
+        if (n > max) {
+            return -1;
+        }
+        if (n <= 2) {
+            return 2;
+        }
+
+        // n >>> 1 ist für gerade n das Bit von n + 1, für ungerade das von n selbst
+        long bit = nextSetBit(n >>> 1, max >>> 1);
+        return bit < 0 ? -1 : 2 * bit + 1;
+    }
+
+    /**
+     * Sucht das erste gesetzte Bit ab from, höchstens bis einschließlich to.
+     * 
+     * @param from erstes zu prüfendes Bit
+     * @param to letztes zu prüfendes Bit
+     * @return Index des Bits oder -1
+     */
+    private long nextSetBit(long from, long to) {
+        LongBuffer[] maps = bitmaps;
+        long bit = from;
+
+        while (bit <= to) {
+            LongBuffer bitmap = maps[(int) (bit >>> segmentBitsLog)];
+            int wordIndex = (int) ((bit & segmentMask) >>> WORD_BITS_LOG);
+            long word = bitmap.get(wordIndex) & (-1L << (bit & WORD_MASK));
+
+            if (word != 0) {
+                long found = (bit & ~(long) WORD_MASK) + Long.numberOfTrailingZeros(word);
+                return found <= to ? found : -1;
+            }
+
+            bit = (bit | WORD_MASK) + 1;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Liefert die Anzahl der gespeicherten Primzahlen kleiner gleich n.
+     * 
+     * @time O(1)
+     * @param n obere Grenze
+     * @return Rang von n
+     */
+    long rank(long n) {
+        long max = Math.min(n, last);
+
+        if (max < 2) {
+            return 0;
+        }
+        if (max < 3) {
+            return 1;
+        }
+
+        long bit = (max - 1) >>> 1;
+        int segment = (int) (bit >>> segmentBitsLog);
+        int bitInSegment = (int) (bit & segmentMask);
+        int block = bitInSegment >>> BLOCK_BITS_LOG;
+
+        long count = 1 + segmentRanks[segment] + blockRanks[segment].get(block);
+
+        LongBuffer bitmap = bitmaps[segment];
+        int lastWord = bitInSegment >>> WORD_BITS_LOG;
+        for (int w = block << BLOCK_WORDS_LOG; w < lastWord; w++) {
+            count += Long.bitCount(bitmap.get(w));
+        }
+        // -1L >>> 63 - x maskiert die Bits 0 bis x
+        count += Long.bitCount(bitmap.get(lastWord) & (-1L >>> (WORD_MASK - (bit & WORD_MASK))));
+
+        return count;
+    }
+
+    /**
+     * Liefert die index-te gespeicherte Primzahl (beginnend bei 0).
+     * 
+     * @time O(log n)
+     * @pre 0 kleiner gleich index kleiner rank(last())
+     * @param index Position der Primzahl
+     * @return die Primzahl
+     */
+    long select(long index) {
+        if (index == 0) {
+            return 2;
+        }
+
+        long k = index - 1;
+        long[] segRanks = segmentRanks;
+
+        // letztes Segment, vor dem höchstens k ungerade Primzahlen liegen
+        int segment = upperBound(segRanks, k) - 1;
+        long inSegment = k - segRanks[segment];
+
+        IntBuffer ranks = blockRanks[segment];
+        int low = 0;
+        int high = (int) lastBlock(segment);
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (ranks.get(mid) <= inSegment) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+
+        long remaining = inSegment - ranks.get(low);
+        LongBuffer bitmap = bitmaps[segment];
+        int w = low << BLOCK_WORDS_LOG;
+        long word = bitmap.get(w);
+        while (Long.bitCount(word) <= remaining) {
+            remaining -= Long.bitCount(word);
+            word = bitmap.get(++w);
+        }
+        for (long r = 0; r < remaining; r++) {
+            word &= word - 1;
+        }
+
+        long bit = ((long) segment << segmentBitsLog) + ((long) w << WORD_BITS_LOG)
+                + Long.numberOfTrailingZeros(word);
+        return 2 * bit + 1;
+    }
+
+    /**
+     * Liefert den letzten Block des Segmentes, für den der Rang-Index bereits gültig ist.
+     * 
+     * @param segment das Segment
+     * @return Blockindex innerhalb des Segmentes
+     */
+    private long lastBlock(int segment) {
+        long bit = last >>> 1;
+        if ((bit >>> segmentBitsLog) > segment) {
+            return blocksPerSegment - 1;
+        }
+        return (bit & segmentMask) >>> BLOCK_BITS_LOG;
+    }
+
+    /**
+     * Liefert den ersten Index in einem aufsteigend sortierten Array, dessen Wert größer als key
+     * ist.
+     * 
+     * @param values sortiertes Array
+     * @param key Suchschlüssel
+     * @return der gesuchte Index oder values.length
+     */
+    private static int upperBound(long[] values, long key) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] <= key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    @Override
+    public Iterable<Long> upTo(long limit) {
+        final long max = Math.min(limit, last);
+
+        return () -> new Iterator<Long>() {
+            private long next = max >= 2 ? 2 : -1;
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            @Override
+            public Long next() {
+                if (next < 0) {
+                    throw new NoSuchElementException();
+                }
+                long current = next;
+                next = current + 1 > max ? -1 : ceiling(current + 1);
+                if (next > max) {
+                    next = -1;
+                }
+                return current;
+            }
+        };
+    }
+
+    @Override
+    public List<Long> listUpTo(long limit) {
+        long size = rank(limit);
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalStateException(
+                    size + " Primzahlen bis " + limit + " passen nicht in eine Liste");
+        }
+        return new PrimeList((int) size);
+    }
+
+    @Override
+    public Sequence sequenceUpTo(long limit) {
+        return new PrimeSequence(rank(limit));
+    }
+
+    /**
+     * Sicht auf die ersten size Primzahlen über {@link #select}. Es wird nichts kopiert.
+     */
+    private class PrimeList extends AbstractList<Long> implements RandomAccess {
+
+        private final int size;
+
+        PrimeList(int size) {
+            this.size = size;
+        }
+
+        @Override
+        public Long get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            return select(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * Sicht auf die ersten size Primzahlen über {@link #select} mit long-Index.
+     */
+    private class PrimeSequence implements Sequence {
+
+        private final long size;
+
+        PrimeSequence(long size) {
+            this.size = size;
+        }
+
+        @Override
+        public long get(long index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            return select(index);
+        }
+
+        @Override
+        public long size() {
+            return size;
+        }
+    }
+
+}
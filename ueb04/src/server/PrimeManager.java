@@ -1,14 +1,15 @@
 package server;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
 import java.util.Set;
-import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ForkJoinPool;
-import java.util.concurrent.ForkJoinTask;
-import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.PriorityBlockingQueue;
 
 import helper.Logger;
 import helper.MessageType;
@@ -26,22 +27,50 @@ import helper.MessageType;
  * Der PrimeManager muss jederzeit eine beliebige Anzahl von Anfragen gleichzeitig bearbeiten
  * können.
  * 
+ * Liegt eine nextPrime-Anfrage weit oberhalb der bisher berechneten Primzahlen, wird sie zusätzlich
+ * an Sieb-Worker übergeben. Diese sieben ein isoliertes Segment ab der angefragten Zahl, sodass die
+ * Anfrage nicht warten muss, bis der Generator alle Zahlen darunter geprüft hat. Die Sieb-Worker
+ * bearbeiten dabei stets die kleinste (und damit günstigste) wartende Anfrage zuerst. Anfragen
+ * oberhalb von {@link SegmentSieve#MAX_Q} werden nicht gesiebt und warten wie alle anderen auf den
+ * Generator. Scheitert das Sieben, wird die Anfrage trotzdem geweckt und als Fehler beantwortet.
+ * 
+ * Große Primfaktorzerlegungen teilen sich einen Pool und werden in Teilbereiche von höchstens
+ * partitionSize Kandidaten zerlegt. Die Worker vergeben die Teilbereiche reihum über alle laufenden
+ * Zerlegungen, sodass eine Anfrage mit vielen Teilbereichen den Pool nicht vor einer später
+ * gestellten Anfrage belegt. Pro Zerlegung werden höchstens so viele Worker gestartet, wie der Pool
+ * Threads hat. Kleine Zerlegungen (höchstens eine Partition) laufen direkt im anfragenden Thread,
+ * sodass sie nie hinter einer großen Zerlegung warten müssen.
+ * 
  * @author kar, mhe, Lars Sander, Alexander Löffler
  * 
  */
 public class PrimeManager implements Logger {
 
+    // Abstand zur höchsten bekannten Primzahl, ab dem eine Anfrage vorgezogen wird
+    private static final long JUMP_AHEAD_DISTANCE = 100;
+    private static final int SEGMENT_SIZE = 1 << 12;
+
     // Es können mehrere Anfragen gleichzeitig laufen, also könnte auch gleichzeitig geschrieben
     // werden
     private List<String> primeLog = Collections.synchronizedList(new ArrayList<String>());
     // TODO: Korrekter Typ ?
-    private volatile ConcurrentSkipListSet<Long> primeNumbers = new ConcurrentSkipListSet<Long>();
+    private final PrimeStore primeNumbers;
     private Thread workerThread = new Thread(this::calcPrimes);
-    private Set<Long> waitingList = new ConcurrentSkipListSet<Long>();
+    // Jede wartende Anfrage hat einen eigenen Waiter, auch bei gleicher Schwelle
+    private Set<Waiter> waitingList = ConcurrentHashMap.newKeySet();
     private long calcDelay;
     private long currentNumber = 2;
     private volatile boolean isWorking = false;
     private int partitionSize;
+    // Aufsteigend sortiert, damit günstige Anfragen zuerst gesiebt werden
+    private PriorityBlockingQueue<Waiter> pendingRequests = new PriorityBlockingQueue<Waiter>();
+    private List<Thread> sieveWorkers = new ArrayList<Thread>();
+    private SegmentSieve segmentSieve = new SegmentSieve(SEGMENT_SIZE);
+    // Gemeinsamer Pool für alle großen Zerlegungen statt eines neuen Pools pro Anfrage
+    private ForkJoinPool factorPool = new ForkJoinPool();
+    // Große Zerlegungen mit noch nicht vergebenen Teilbereichen. Ein Worker nimmt einen
+    // Teilbereich der ersten Zerlegung und hängt diese danach wieder hinten an
+    private Deque<FactorJob> factorJobs = new ArrayDeque<FactorJob>();
 
     /**
      * Konstruktor.
@@ -54,9 +83,26 @@ public class PrimeManager implements Logger {
      * @param partitionSize Größe der Partition für ForkJoin-Primfaktorenzerlegung
      */
     public PrimeManager(int partitionSize) {
+        this(partitionSize, false);
+    }
+
+    /**
+     * Konstruktor mit wählbarem Speicher für die gefundenen Primzahlen.
+     * 
+     * Mit offHeap werden die Primzahlen als Bitmap über die ungeraden Zahlen außerhalb des Heaps
+     * abgelegt. Das lohnt sich, wenn der Generator sehr lange läuft: der Heap und damit die
+     * GC-Pausen wachsen dann nicht mehr mit der Anzahl der Primzahlen.
+     * 
+     * @pre partitionSize ist größer gleich 1
+     * 
+     * @param partitionSize Größe der Partition für ForkJoin-Primfaktorenzerlegung
+     * @param offHeap true, wenn die Primzahlen außerhalb des Heaps gespeichert werden sollen
+     */
+    public PrimeManager(int partitionSize, boolean offHeap) {
         assert partitionSize >= 1 : "Es können nur Intervalle (>= 1) gebildet werden.";
 
         this.partitionSize = partitionSize;
+        this.primeNumbers = offHeap ? new OffHeapPrimeStore() : new HeapPrimeStore();
     }
 
     /**
@@ -75,28 +121,38 @@ public class PrimeManager implements Logger {
 
         addEntry("requested: " + MessageType.NEXTPRIME.toString().toLowerCase() + "," + q);
 
-        Long waitingLong = q;
+        Waiter waiter = new Waiter(q);
+
+        waitingList.add(waiter);
 
-        waitingList.add(waitingLong);
+        if (q - primeNumbers.last() > JUMP_AHEAD_DISTANCE && q <= SegmentSieve.MAX_Q) {
+            pendingRequests.add(waiter);
+        }
 
-        synchronized (waitingLong) {
-            while (primeNumbers.last() < q) {
+        synchronized (waiter) {
+            while (primeNumbers.last() < q && waiter.segmentPrime < 0 && !waiter.failed) {
                 try {
-                    waitingLong.wait();
+                    waiter.wait();
                 } catch (InterruptedException e) {
                     e.printStackTrace();
                 }
             }
         }
 
-        waitingList.remove(waitingLong);
+        waitingList.remove(waiter);
 
-        for (long prime : primeNumbers) {
-            if (prime >= q) {
-                addEntry("response: " + MessageType.NEXTPRIME.toString().toLowerCase() + "," + q
-                        + "," + prime);
-                return prime;
-            }
+        long segmentPrime = waiter.segmentPrime;
+        if (segmentPrime >= 0) {
+            addEntry("response: " + MessageType.NEXTPRIME.toString().toLowerCase() + "," + q + ","
+                    + segmentPrime);
+            return segmentPrime;
+        }
+
+        long prime = primeNumbers.ceiling(q);
+        if (prime >= 0) {
+            addEntry("response: " + MessageType.NEXTPRIME.toString().toLowerCase() + "," + q + ","
+                    + prime);
+            return prime;
         }
 
         // TODO: Fehlerfall korrekt händeln
@@ -122,22 +178,21 @@ public class PrimeManager implements Logger {
 
         List<Long> resultList = new ArrayList<Long>();
 
-        ForkJoinPool forkJoinPool = new ForkJoinPool();
+        Waiter waiter = new Waiter(q / 2);
 
-        Long waitingLong = q / 2;
+        waitingList.add(waiter);
 
-        synchronized (waitingLong) {
+        synchronized (waiter) {
             while (primeNumbers.last() < q / 2) {
                 try {
-                    waitingList.add(waitingLong);
-                    waitingLong.wait();
+                    waiter.wait();
                 } catch (InterruptedException e) {
                     e.printStackTrace();
                 }
             }
         }
 
-        waitingList.remove(waitingLong);
+        waitingList.remove(waiter);
 
         // TODO: Liste wirklich kopieren ?
         // Eine CopyOnWriteArrayList würde dies überflüssig machen, aber dann wird das schreiben
@@ -146,12 +201,29 @@ public class PrimeManager implements Logger {
         if (isPrimeForList(q)) {
             resultList.add(q);
         } else {
-            List<Long> listDummy = new ArrayList<Long>(primeNumbers);
+            // Nur die tatsächlich benötigten Faktorkandidaten, kleine Anfragen sollen nicht mit
+            // der Anzahl aller bisher gefundenen Primzahlen teurer werden
+            // der Index ist long, da es oberhalb von etwa 4,8 * 10^10 mehr als Integer.MAX_VALUE
+            // Kandidaten gibt
+            PrimeStore.Sequence candidates = primeNumbers.sequenceUpTo(q / 2);
+
+            if (candidates.size() <= partitionSize || factorPool.isShutdown()) {
+                // Passt in eine Partition: direkt im anfragenden Thread rechnen, damit kleine
+                // Anfragen nie hinter den Teilbereichen einer großen Zerlegung warten
+                factorRange(q, candidates, 0, candidates.size(), resultList);
+            } else {
+                FactorJob job = new FactorJob(q, candidates, partitionSize);
+                synchronized (factorJobs) {
+                    factorJobs.addLast(job);
+                }
 
-            PrimeFactorWorker worker =
-                    new PrimeFactorWorker(partitionSize, q, 0, listDummy.size(), listDummy);
+                long workers = Math.min(job.partitions, factorPool.getParallelism());
+                for (long i = 0; i < workers; i++) {
+                    factorPool.execute(this::factorPartitions);
+                }
 
-            resultList = forkJoinPool.invoke(worker);
+                resultList = job.await();
+            }
         }
 
         addEntry("response: " + MessageType.PRIMEFACTORS.toString().toLowerCase() + "," + q + ","
@@ -159,64 +231,151 @@ public class PrimeManager implements Logger {
         return resultList;
     }
 
-    private class PrimeFactorWorker extends RecursiveTask<List<Long>> {
-
-        private final int maxsize;
-        private long number;
-        private final int start;
-        private final int end;
-        private volatile List<Long> copyNumbers = new ArrayList<Long>();
+    /**
+     * Monitor einer wartenden Anfrage. Gleichheit ist bewusst Identität, damit mehrere Anfragen mit
+     * derselben Schwelle jeweils eigene Einträge in waitingList und pendingRequests haben.
+     * 
+     * Das Ergebnis eines gesiebten Segments wird direkt am Waiter abgelegt und verschwindet mit der
+     * Anfrage. Ein gemeinsamer Cache würde bei einem lange laufenden Server mit jeder neuen
+     * Schwelle weiter wachsen.
+     */
+    private static final class Waiter implements Comparable<Waiter> {
 
-        PrimeFactorWorker(int paritionSize, long number, int start, int end,
-                List<Long> copyNumbers) {
+        private final long threshold;
+        // Nächste Primzahl aus einem gesiebten Segment, -1 solange keines gesiebt wurde
+        private volatile long segmentPrime = -1;
+        // Das Sieben ist gescheitert, die Anfrage wartet nicht weiter
+        private volatile boolean failed = false;
 
-            this.maxsize = paritionSize;
-            this.number = number;
-            this.start = start;
-            this.end = end;
-            this.copyNumbers = copyNumbers;
+        Waiter(long threshold) {
+            this.threshold = threshold;
         }
 
         @Override
-        protected List<Long> compute() {
-
-            // TODO: ???
-            // Sollte eine gute Wahl fürs ständige schreiben sein, aber das lesen ist "gefährlich",
-            // sollte aber gehen weil nur nach der Berechnung gelesen wird und dann auch nur mit
-            // einem Thread
-            List<Long> resultList = Collections.synchronizedList(new ArrayList<Long>());
+        public int compareTo(Waiter other) {
+            return Long.compare(threshold, other.threshold);
+        }
+    }
 
-            if (end - start > maxsize) {
+    /**
+     * Eine große Primfaktorzerlegung, aufgeteilt in Teilbereiche von höchstens partitionSize
+     * Kandidaten.
+     */
+    private static final class FactorJob {
+
+        private final long number;
+        private final PrimeStore.Sequence candidates;
+        private final int partitionSize;
+        private final long partitions;
+        // Nächster nicht vergebener Teilbereich, nur unter der Sperre von factorJobs
+        private long nextPartition = 0;
+        // Noch nicht berechnete Teilbereiche und bisher gefundene Faktoren, unter der Sperre des
+        // Jobs
+        private long remaining;
+        private final List<Long> factors = new ArrayList<Long>();
+
+        FactorJob(long number, PrimeStore.Sequence candidates, int partitionSize) {
+            this.number = number;
+            this.candidates = candidates;
+            this.partitionSize = partitionSize;
+            this.partitions = (candidates.size() + partitionSize - 1) / partitionSize;
+            this.remaining = partitions;
+        }
 
-                int mid = (start + (end - start) / 2);
+        /**
+         * Berechnet einen Teilbereich.
+         * 
+         * @param partition Nummer des Teilbereichs
+         */
+        void compute(long partition) {
+            long start = partition * partitionSize;
+            long end = Math.min(start + partitionSize, candidates.size());
+            List<Long> found = new ArrayList<Long>();
 
-                ForkJoinTask<List<Long>> lForkJoinTask =
-                        new PrimeFactorWorker(maxsize, number, start, mid, copyNumbers).fork();
-                ForkJoinTask<List<Long>> rForkJoinTask =
-                        new PrimeFactorWorker(maxsize, number, mid, end, copyNumbers).fork();
+            try {
+                factorRange(number, candidates, start, end, found);
+            } finally {
+                synchronized (this) {
+                    factors.addAll(found);
+                    remaining--;
+                    if (remaining == 0) {
+                        notifyAll();
+                    }
+                }
+            }
+        }
 
-                resultList.addAll(lForkJoinTask.join());
-                resultList.addAll(rForkJoinTask.join());
+        /**
+         * Wartet, bis alle Teilbereiche berechnet sind.
+         * 
+         * @return die aufsteigend sortierten Primfaktoren
+         */
+        synchronized List<Long> await() {
+            while (remaining > 0) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                }
+            }
 
-            } else {
+            List<Long> result = new ArrayList<Long>(factors);
+            Collections.sort(result);
+            return result;
+        }
+    }
 
-                long upperBorder = number / 2;
-                int i = start;
+    /**
+     * Arbeitet Teilbereiche großer Zerlegungen ab, bis keine mehr vergeben werden können. Es wird
+     * jeweils ein Teilbereich der ersten wartenden Zerlegung genommen und diese wieder hinten
+     * angehängt, sodass sich alle laufenden Zerlegungen die Worker reihum teilen.
+     */
+    private void factorPartitions() {
+        while (true) {
+            FactorJob job;
+            long partition;
+
+            synchronized (factorJobs) {
+                job = factorJobs.pollFirst();
+                if (job == null) {
+                    return;
+                }
 
-                while (i < end && copyNumbers.get(i) <= upperBorder) {
-                    if (number % copyNumbers.get(i) == 0) {
-                        resultList.add(copyNumbers.get(i));
-                        number = number / copyNumbers.get(i);
-                        i = start;
-                    } else {
-                        i++;
-                    }
+                partition = job.nextPartition++;
+                if (job.nextPartition < job.partitions) {
+                    factorJobs.addLast(job);
                 }
             }
 
-            return resultList;
+            job.compute(partition);
         }
+    }
 
+    /**
+     * Sucht die Primfaktoren von number unter den Kandidaten mit Index in [start, end). Ein
+     * gefundener Faktor wird so oft eingetragen, wie er in number enthalten ist.
+     * 
+     * @param number die zu zerlegende Zahl
+     * @param candidates die Faktorkandidaten in aufsteigender Reihenfolge
+     * @param start erster Index (inklusive)
+     * @param end letzter Index (exklusive)
+     * @param resultList Ziel der gefundenen Faktoren
+     */
+    private static void factorRange(long number, PrimeStore.Sequence candidates, long start,
+            long end, List<Long> resultList) {
+
+        long upperBorder = number / 2;
+        long i = start;
+
+        while (i < end && candidates.get(i) <= upperBorder) {
+            if (number % candidates.get(i) == 0) {
+                resultList.add(candidates.get(i));
+                number = number / candidates.get(i);
+                i = start;
+            } else {
+                i++;
+            }
+        }
     }
 
     /**
@@ -229,7 +388,7 @@ public class PrimeManager implements Logger {
      */
     public Collection<Long> knownPrimes() {
 
-        List<Long> knownPrimes = new ArrayList<Long>(primeNumbers);
+        List<Long> knownPrimes = new ArrayList<Long>(primeNumbers.listUpTo(Long.MAX_VALUE));
 
         return knownPrimes;
     }
@@ -252,9 +411,50 @@ public class PrimeManager implements Logger {
         isWorking = true;
 
         workerThread.start();
+
+        for (int i = 0; i < Runtime.getRuntime().availableProcessors(); i++) {
+            Thread sieveWorker = new Thread(this::sieveSegments);
+            sieveWorkers.add(sieveWorker);
+            sieveWorker.start();
+        }
+
         System.out.println("Prime Worker hat angefangen zu arbeiten!");
     }
 
+    /**
+     * Arbeitet die vorgezogenen Anfragen ab. Es wird jeweils die kleinste wartende Zahl entnommen,
+     * ab ihr ein isoliertes Segment gesiebt und der wartende Thread benachrichtigt. Ein Fehler
+     * beim Sieben beendet nur die Anfrage, nicht den Worker.
+     */
+    private void sieveSegments() {
+        while (isWorking) {
+            Waiter request;
+            try {
+                request = pendingRequests.take();
+            } catch (InterruptedException e) {
+                break;
+            }
+
+            long q = request.threshold;
+            try {
+                // Der Generator könnte die Anfrage inzwischen selbst beantworten können
+                if (primeNumbers.last() < q) {
+                    long prime = segmentSieve.nextPrime(q);
+                    request.segmentPrime = prime;
+                    addEntry("sieved segment: " + q + "," + prime);
+                }
+            } catch (RuntimeException | Error e) {
+                // Ohne Benachrichtigung würde die Anfrage für immer warten
+                request.failed = true;
+                addEntry("sieve failed: " + q + "," + e);
+            } finally {
+                synchronized (request) {
+                    request.notifyAll();
+                }
+            }
+        }
+    }
+
     private void calcPrimes() {
 
         // Add 2 as first PrimeNumber
@@ -272,8 +472,8 @@ public class PrimeManager implements Logger {
                 if (isPrimeForList(currentNumber)) {
                     primeNumbers.add(currentNumber);
 
-                    for (Long numberToCheck : waitingList) {
-                        if (currentNumber >= numberToCheck) {
+                    for (Waiter numberToCheck : waitingList) {
+                        if (currentNumber >= numberToCheck.threshold) {
                             synchronized (numberToCheck) {
                                 numberToCheck.notifyAll();
                             }
@@ -301,13 +501,9 @@ public class PrimeManager implements Logger {
 
         long upperBorder = (long) Math.sqrt(num);
 
-        for (Long primeNumber : primeNumbers) {
-            if (primeNumber <= upperBorder) {
-                if (num % primeNumber == 0) {
-                    return false;
-                }
-            } else {
-                break;
+        for (Long primeNumber : primeNumbers.upTo(upperBorder)) {
+            if (num % primeNumber == 0) {
+                return false;
             }
         }
 
@@ -322,6 +518,13 @@ public class PrimeManager implements Logger {
         isWorking = false;
         // TODO: Raus oder rein?
         workerThread.interrupt();
+
+        for (Thread sieveWorker : sieveWorkers) {
+            sieveWorker.interrupt();
+        }
+
+        // Laufende Zerlegungen werden noch beendet, neue rechnen im anfragenden Thread
+        factorPool.shutdown();
     }
 
     @Override
@@ -3,14 +3,12 @@ package server;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.io.PrintWriter;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.SocketException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.StringJoiner;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 import helper.Logger;
@@ -26,6 +24,10 @@ import helper.MessageType;
  */
 public class PrimeServer implements Logger {
 
+    private static final String PRIMEFACTORS_LOG =
+            MessageType.PRIMEFACTORS.toString().toLowerCase();
+    private static final String NEXTPRIME_LOG = MessageType.NEXTPRIME.toString().toLowerCase();
+
     protected ServerSocket serverSocket;
     protected volatile boolean openForNewConnections = true;
 
@@ -50,8 +52,9 @@ public class PrimeServer implements Logger {
 
         private Socket clientSocket;
 
-        private PrintWriter out;
+        private ResponseEncoder encoder;
         private BufferedReader in;
+        private final StringBuilder logStr = new StringBuilder();
 
         private int id;
 
@@ -67,7 +70,7 @@ public class PrimeServer implements Logger {
 
             try {
 
-                out = new PrintWriter(clientSocket.getOutputStream(), true);
+                encoder = new ResponseEncoder(clientSocket.getOutputStream());
                 in = new BufferedReader(new InputStreamReader(clientSocket.getInputStream()));
 
                 String msg;
@@ -80,43 +83,45 @@ public class PrimeServer implements Logger {
                     if (arrMsg.length == 1) {
                         if (MessageType.valueOf(arrMsg[0]) == MessageType.HALLO) {
 
-                            out.println(id);
+                            encoder.writeLine(id);
 
                             addEntry("client connected," + id);
                         }
 
                     } else if (arrMsg.length == msgLength) {
 
-                        StringJoiner logStr = new StringJoiner(",");
-                        logStr.add("requested: " + String.valueOf(id));
+                        // Der Logeintrag wird in einem wiederverwendeten Builder zusammengesetzt
+                        logStr.setLength(0);
+                        logStr.append("requested: ").append(id).append(',');
 
                         switch (MessageType.valueOf(arrMsg[1])) {
                             case PRIMEFACTORS:
 
                                 List<Long> primList =
-                                        primeManager.primeFactors(Long.valueOf(arrMsg[2]));
+                                        primeManager.primeFactors(Long.parseLong(arrMsg[2]));
 
-                                String ans = primList.toString();
-                                ans = ans.substring(1, ans.length() - 1);
-                                ans = ans.replace(",", "");
-                                out.println(ans);
-                                System.err.println(ans);
+                                encoder.writeLine(primList);
 
-                                logStr.add(MessageType.PRIMEFACTORS.toString().toLowerCase());
-                                logStr.add(arrMsg[2]);
-                                logStr.add(primList.toString().replaceAll(" ", ""));
+                                logStr.append(PRIMEFACTORS_LOG).append(',').append(arrMsg[2])
+                                        .append(",[");
+                                for (int i = 0; i < primList.size(); i++) {
+                                    if (i > 0) {
+                                        logStr.append(',');
+                                    }
+                                    logStr.append(primList.get(i).longValue());
+                                }
+                                logStr.append(']');
 
                                 addEntry(logStr.toString());
                                 break;
                             case NEXTPRIME:
 
-                                Long prim = primeManager.nextPrime(Long.valueOf(arrMsg[2]));
+                                long prim = primeManager.nextPrime(Long.parseLong(arrMsg[2]));
 
-                                out.println(prim);
+                                encoder.writeLine(prim);
 
-                                logStr.add(MessageType.NEXTPRIME.toString().toLowerCase());
-                                logStr.add(arrMsg[2]);
-                                logStr.add(prim.toString());
+                                logStr.append(NEXTPRIME_LOG).append(',').append(arrMsg[2])
+                                        .append(',').append(prim);
 
                                 addEntry(logStr.toString());
                                 break;
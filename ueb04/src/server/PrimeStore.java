@@ -0,0 +1,98 @@
+package server;
+
+import java.util.List;
+
+/**
+ * Speicher für die vom Generator gefundenen Primzahlen. Es gibt genau einen schreibenden Thread
+ * (den Generator), der die Primzahlen in aufsteigender Reihenfolge einfügt. Beliebig viele Threads
+ * dürfen gleichzeitig lesen.
+ * 
+ * @author Lars Sander, Alexander Löffler
+ * 
+ */
+interface PrimeStore {
+
+    /**
+     * Fügt eine Primzahl hinzu.
+     * 
+     * @pre prime ist größer als alle bisher eingefügten Primzahlen
+     * @pre es wird nur aus einem einzigen Thread eingefügt
+     * @param prime die neue Primzahl
+     */
+    void add(long prime);
+
+    /**
+     * Liefert die größte bisher eingefügte Primzahl.
+     * 
+     * @return die größte Primzahl oder -1, falls noch keine eingefügt wurde
+     */
+    long last();
+
+    /**
+     * Prüft, ob die übergebene Zahl als Primzahl gespeichert ist.
+     * 
+     * @param n die zu prüfende Zahl
+     * @return true, wenn n gespeichert ist
+     */
+    boolean contains(long n);
+
+    /**
+     * Liefert die kleinste gespeicherte Primzahl, die größer gleich n ist.
+     * 
+     * @param n untere Grenze
+     * @return die gesuchte Primzahl oder -1, falls es keine gibt
+     */
+    long ceiling(long n);
+
+    /**
+     * Liefert alle gespeicherten Primzahlen bis einschließlich limit in aufsteigender Reihenfolge.
+     * Das Ergebnis wird erst beim Iterieren ermittelt.
+     * 
+     * @param limit obere Grenze
+     * @return die Primzahlen bis limit
+     */
+    Iterable<Long> upTo(long limit);
+
+    /**
+     * Liefert alle gespeicherten Primzahlen bis einschließlich limit als Liste mit wahlfreiem
+     * Zugriff in aufsteigender Reihenfolge. Spätere Einfügungen verändern die Liste nicht.
+     * 
+     * @param limit obere Grenze
+     * @return die Primzahlen bis limit
+     * @throws IllegalStateException wenn es mehr als Integer.MAX_VALUE Primzahlen bis limit gibt,
+     *             dann ist nur {@link #sequenceUpTo} möglich
+     */
+    List<Long> listUpTo(long limit);
+
+    /**
+     * Wie {@link #listUpTo}, aber mit long-Index, damit auch mehr als Integer.MAX_VALUE Primzahlen
+     * vollständig erreichbar sind.
+     * 
+     * @param limit obere Grenze
+     * @return die Primzahlen bis limit
+     */
+    Sequence sequenceUpTo(long limit);
+
+    /**
+     * Unveränderliche Folge von Primzahlen mit wahlfreiem Zugriff über einen long-Index.
+     */
+    interface Sequence {
+
+        /**
+         * Liefert die Anzahl der Primzahlen.
+         * 
+         * @return die Anzahl
+         */
+        long size();
+
+        /**
+         * Liefert die index-te Primzahl (beginnend bei 0).
+         * 
+         * @param index Position der Primzahl
+         * @return die Primzahl
+         * @throws IndexOutOfBoundsException wenn index nicht in [0, size()) liegt
+         */
+        long get(long index);
+    }
+
+}
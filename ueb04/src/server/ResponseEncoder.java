@@ -0,0 +1,131 @@
+package server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Kodiert die Antworten eines ClientThreads direkt in einen wiederverwendbaren Byte-Puffer. Zahlen
+ * werden ziffernweise geschrieben, sodass pro Antwort keine Zwischen-Strings entstehen. Der Puffer
+ * wird pro Antwort genau einmal an den Stream übergeben.
+ * 
+ * Jede Verbindung besitzt einen eigenen Encoder, er ist daher nicht threadsicher.
+ * 
+ * @author Lars Sander, Alexander Löffler
+ * 
+ */
+class ResponseEncoder {
+
+    private static final int INITIAL_CAPACITY = 64;
+    // Long.MIN_VALUE hat 19 Ziffern plus Vorzeichen
+    private static final int MAX_LONG_CHARS = 20;
+    private static final int RADIX = 10;
+
+    private final OutputStream out;
+    private byte[] buffer = new byte[INITIAL_CAPACITY];
+    private int size = 0;
+
+    /**
+     * Konstruktor.
+     * 
+     * @param out Stream, in den die Antworten geschrieben werden
+     */
+    ResponseEncoder(OutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Schreibt eine einzelne Zahl als Antwortzeile.
+     * 
+     * @param value die zu sendende Zahl
+     * @throws IOException Netzwerkfehler
+     */
+    void writeLine(long value) throws IOException {
+        appendLong(value);
+        endLine();
+    }
+
+    /**
+     * Schreibt eine Liste von Zahlen, getrennt durch Leerzeichen, als Antwortzeile.
+     * 
+     * @param values die zu sendenden Zahlen
+     * @throws IOException Netzwerkfehler
+     */
+    void writeLine(List<Long> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                appendByte(' ');
+            }
+            appendLong(values.get(i));
+        }
+        endLine();
+    }
+
+    /**
+     * Schließt die aktuelle Zeile ab und übergibt den Puffer an den Stream.
+     * 
+     * @throws IOException Netzwerkfehler
+     */
+    private void endLine() throws IOException {
+        appendByte('\n');
+        out.write(buffer, 0, size);
+        out.flush();
+        size = 0;
+    }
+
+    /**
+     * Hängt die Dezimaldarstellung einer Zahl an den Puffer an.
+     * 
+     * @param value anzuhängende Zahl
+     */
+    private void appendLong(long value) {
+        ensureCapacity(MAX_LONG_CHARS);
+
+        if (value == 0) {
+            buffer[size++] = '0';
+            return;
+        }
+
+        if (value < 0) {
+            buffer[size++] = '-';
+        }
+
+        // Ziffern rückwärts schreiben, negativ gerechnet damit auch Long.MIN_VALUE passt
+        int start = size;
+        long rest = value < 0 ? value : -value;
+        while (rest != 0) {
+            buffer[size++] = (byte) ('0' - (rest % RADIX));
+            rest /= RADIX;
+        }
+
+        for (int i = start, j = size - 1; i < j; i++, j--) {
+            byte tmp = buffer[i];
+            buffer[i] = buffer[j];
+            buffer[j] = tmp;
+        }
+    }
+
+    /**
+     * Hängt ein einzelnes ASCII-Zeichen an den Puffer an.
+     * 
+     * @param c anzuhängendes Zeichen
+     */
+    private void appendByte(char c) {
+        ensureCapacity(1);
+        buffer[size++] = (byte) c;
+    }
+
+    /**
+     * Vergrößert den Puffer, falls weniger als additional Bytes frei sind. Im eingeschwungenen
+     * Zustand ist der Puffer groß genug und es wird nichts mehr alloziert.
+     * 
+     * @param additional benötigter freier Platz
+     */
+    private void ensureCapacity(int additional) {
+        if (size + additional > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + additional));
+        }
+    }
+
+}
@@ -0,0 +1,165 @@
+package server;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Segmentiertes Sieb des Eratosthenes. Ermöglicht es, die nächstgrößere Primzahl zu einer Zahl q zu
+ * bestimmen, ohne alle Zahlen unterhalb von q sieben zu müssen. Gesiebt wird nur ein isoliertes
+ * Segment [q, q + segmentSize), als Basis dienen die Primzahlen bis zur Wurzel des Segmentendes.
+ * 
+ * Die Basisprimzahlen werden als int-Array zwischen allen Anfragen geteilt und nur neu berechnet,
+ * wenn eine Anfrage über die bisherige Grenze hinausgeht. Gesiebt wird nur bis {@link #MAX_Q}: bis
+ * dahin belegen die Basisprimzahlen etwa 23 MiB, darüber wächst der Bedarf mit der Wurzel von q
+ * und ist bei 10^18 bereits im Gigabyte-Bereich.
+ * 
+ * @author Lars Sander, Alexander Löffler
+ * 
+ */
+class SegmentSieve {
+
+    /**
+     * Größte Zahl, zu der noch gesiebt wird (10^16).
+     */
+    static final long MAX_Q = 10_000_000_000_000_000L;
+
+    // Basisprimzahlen, die für Segmente bis MAX_Q genügen
+    private static final long MAX_BASE_LIMIT = (long) Math.sqrt(MAX_Q) + 1;
+
+    private final int segmentSize;
+    // Alle Primzahlen bis einschließlich baseLimit, aufsteigend
+    private int[] basePrimes = new int[0];
+    private long baseLimit = 1;
+
+    /**
+     * Konstruktor.
+     * 
+     * @pre segmentSize ist größer gleich 1
+     * 
+     * @param segmentSize Anzahl der Zahlen, die pro Segment gesiebt werden
+     */
+    SegmentSieve(int segmentSize) {
+        assert segmentSize >= 1 : "Segmente müssen mindestens eine Zahl enthalten.";
+
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Liefert zu der übergebenen Zahl die nächstgrößere Primzahl. Es werden so lange aufeinander
+     * folgende Segmente gesiebt, bis eine Primzahl gefunden wurde.
+     * 
+     * @pre q ist größer gleich 0 und kleiner gleich MAX_Q
+     * @param q Die Zahl für die, die nächstgrößere Primzahl ermittelt werden soll
+     * @return die nächstgrößere Primzahl oder die Zahl selbst (falls sie selbst prim ist)
+     */
+    long nextPrime(long q) {
+        assert q >= 0 : "nextPrime muss mit einer positiven Ganzzahl aufgerufen werden.";
+        assert q <= MAX_Q : "Oberhalb von " + MAX_Q + " wird nicht gesiebt.";
+
+        long low = Math.max(q, 2);
+        int[] primes = new int[0];
+        long covered = 0;
+
+        while (true) {
+            long high = low + segmentSize;
+
+            // Nur neu holen, wenn das Segment über das Quadrat der größten Basisprimzahl reicht
+            if (high > covered) {
+                long limit = (long) Math.sqrt(high) + 1;
+                primes = basePrimes(limit);
+                covered = limit * limit;
+            }
+
+            BitSet composite = sieveSegment(low, high, primes);
+
+            int offset = composite.nextClearBit(0);
+            if (offset < segmentSize) {
+                return low + offset;
+            }
+
+            low = high;
+        }
+    }
+
+    /**
+     * Siebt das Segment [low, high). Ein gesetztes Bit an Position i bedeutet, dass low + i
+     * zusammengesetzt ist.
+     * 
+     * @pre 2 kleiner gleich low kleiner high
+     * @pre primes enthält alle Primzahlen bis zur Wurzel von high
+     * @param low untere Grenze (inklusive)
+     * @param high obere Grenze (exklusive)
+     * @param primes die Basisprimzahlen
+     * @return die zusammengesetzten Zahlen des Segmentes relativ zu low
+     */
+    private static BitSet sieveSegment(long low, long high, int[] primes) {
+        assert 2 <= low && low < high;
+
+        BitSet composite = new BitSet((int) (high - low));
+
+        for (int p : primes) {
+            long prime = p;
+            if (prime * prime >= high) {
+                break;
+            }
+
+            // Erstes Vielfaches von prime im Segment, die Primzahl selbst bleibt unmarkiert
+            long start = Math.max(prime * prime, ((low + prime - 1) / prime) * prime);
+
+            for (long multiple = start; multiple < high; multiple += prime) {
+                composite.set((int) (multiple - low));
+            }
+        }
+
+        return composite;
+    }
+
+    /**
+     * Liefert alle Primzahlen bis mindestens limit. Das Ergebnis wird zwischengespeichert, größere
+     * Grenzen berechnen das Array neu.
+     * 
+     * @pre limit ist kleiner als Integer.MAX_VALUE
+     * @param limit obere Grenze
+     * @return aufsteigend sortiertes Array der Primzahlen, ggf. auch über limit hinaus
+     */
+    private synchronized int[] basePrimes(long limit) {
+        assert limit < Integer.MAX_VALUE;
+
+        if (limit <= baseLimit) {
+            return basePrimes;
+        }
+
+        // Mindestens verdoppeln, damit aufeinander folgende Anfragen nicht jedes Mal neu sieben
+        int max = (int) Math.max(limit, Math.min(2 * baseLimit, MAX_BASE_LIMIT));
+        BitSet composite = new BitSet(max + 1);
+        int[] primes = new int[max < 2 ? 0 : primeCountBound(max)];
+        int count = 0;
+
+        for (int i = 2; i <= max; i++) {
+            if (!composite.get(i)) {
+                primes[count++] = i;
+
+                for (long multiple = (long) i * i; multiple <= max; multiple += i) {
+                    composite.set((int) multiple);
+                }
+            }
+        }
+
+        basePrimes = Arrays.copyOf(primes, count);
+        baseLimit = max;
+        return basePrimes;
+    }
+
+    /**
+     * Obere Schranke für die Anzahl der Primzahlen bis n nach Rosser und Schoenfeld.
+     * 
+     * @pre n ist größer gleich 2
+     * @param n obere Grenze
+     * @return mindestens die Anzahl der Primzahlen bis n
+     */
+    private static int primeCountBound(int n) {
+        final double factor = 1.25506;
+        return (int) (factor * n / Math.log(n)) + 1;
+    }
+
+}
@@ -0,0 +1,137 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import server.PrimeManager;
+
+/**
+ * Lasttest für die Primfaktorzerlegung: viele kleine Zerlegungen laufen parallel zu großen. Die
+ * Latenz der kleinen Anfragen soll dabei nicht mit den großen Anfragen wachsen. Ebenso darf eine
+ * große Anfrage nicht hinter früher gestellten großen Anfragen warten.
+ *
+ * Wie die LongTests nicht Teil der TestSuite.
+ */
+public class FactorizationLoadTest {
+
+    private static final int PARTITION_SIZE = 50;
+
+    private static final long BIG_PRIME = 99991;
+
+    private static final int SMALL_CLIENTS = 4;
+
+    private static final int BIG_CLIENTS = 2;
+
+    private static final long DURATION_MS = 3000;
+
+    private static final long MAX_P99_MS = 200;
+
+    private static final long HUGE_PRIME = 999983;
+
+    private static final long MEDIUM_PRIME = 1009;
+
+    private static final int HUGE_CLIENTS = 4;
+
+    @Test
+    public void smallLatencyStaysFlatWhileBigRuns()
+            throws InterruptedException, ExecutionException {
+
+        final PrimeManager g = new PrimeManager(PARTITION_SIZE);
+        g.startWorker(0);
+
+        // Warten bis alle Kandidaten für die großen Zerlegungen vorhanden sind
+        g.primeFactors(2 * BIG_PRIME);
+
+        final List<Long> smallLatencies = Collections.synchronizedList(new ArrayList<Long>());
+        final long end = System.currentTimeMillis() + DURATION_MS;
+
+        ExecutorService exec = Executors.newFixedThreadPool(SMALL_CLIENTS + BIG_CLIENTS);
+        // Über die Futures kommen fehlgeschlagene Prüfungen der Clients im Test an
+        List<Future<?>> clients = new ArrayList<>();
+
+        for (int i = 0; i < BIG_CLIENTS; i++) {
+            clients.add(exec.submit(() -> {
+                while (System.currentTimeMillis() < end) {
+                    Assert.assertEquals(Arrays.asList(2L, BIG_PRIME),
+                            g.primeFactors(2 * BIG_PRIME));
+                }
+            }));
+        }
+
+        for (int i = 0; i < SMALL_CLIENTS; i++) {
+            final Random random = new Random(i);
+            clients.add(exec.submit(() -> {
+                while (System.currentTimeMillis() < end) {
+                    long q = 2 + random.nextInt(200);
+                    long start = System.nanoTime();
+                    List<Long> factors = g.primeFactors(q);
+                    smallLatencies.add(System.nanoTime() - start);
+
+                    long product = 1;
+                    for (long f : factors) {
+                        product *= f;
+                    }
+                    Assert.assertEquals(q, product);
+                }
+            }));
+        }
+
+        exec.shutdown();
+        Assert.assertTrue(exec.awaitTermination(DURATION_MS * 10, TimeUnit.MILLISECONDS));
+        g.stopWorker();
+
+        for (Future<?> client : clients) {
+            client.get();
+        }
+
+        List<Long> sorted = new ArrayList<>(smallLatencies);
+        Collections.sort(sorted);
+        long p50 = sorted.get(sorted.size() / 2);
+        long p99 = sorted.get((int) (sorted.size() * 0.99));
+
+        System.err.println("small requests: " + sorted.size() + ", p50: "
+                + TimeUnit.NANOSECONDS.toMicros(p50) + "us, p99: "
+                + TimeUnit.NANOSECONDS.toMicros(p99) + "us");
+
+        Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(p99) < MAX_P99_MS);
+    }
+
+    @Test
+    public void laterBigRequestIsNotQueuedBehindEarlierOnes()
+            throws InterruptedException, ExecutionException {
+
+        // Ein Kandidat pro Teilbereich: jede große Anfrage hat sehr viele Teilbereiche
+        final PrimeManager g = new PrimeManager(1);
+        g.startWorker(0);
+        g.primeFactors(2 * HUGE_PRIME);
+
+        ExecutorService exec = Executors.newFixedThreadPool(HUGE_CLIENTS);
+        List<Future<List<Long>>> huge = new ArrayList<>();
+        for (int i = 0; i < HUGE_CLIENTS; i++) {
+            huge.add(exec.submit(() -> g.primeFactors(2 * HUGE_PRIME)));
+        }
+        Thread.sleep(10);
+
+        // Bekommt reihum Teilbereiche und ist deshalb lange vor den früheren Anfragen fertig
+        Assert.assertEquals(Arrays.asList(2L, MEDIUM_PRIME), g.primeFactors(2 * MEDIUM_PRIME));
+        for (Future<List<Long>> f : huge) {
+            Assert.assertFalse(f.isDone());
+        }
+
+        for (Future<List<Long>> f : huge) {
+            Assert.assertEquals(Arrays.asList(2L, HUGE_PRIME), f.get());
+        }
+        exec.shutdown();
+        g.stopWorker();
+    }
+
+}
@@ -0,0 +1,71 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import server.PrimeManager;
+
+public class OffHeapPrimeManagerTest {
+
+    private static final int PARTITION_SIZE = 5;
+
+    private static final int RUN_TIME = 500;
+
+    /**
+     * Referenz: alle Primzahlen bis max per einfachem Sieb.
+     */
+    private static List<Long> sieve(long max) {
+        BitSet composite = new BitSet();
+        List<Long> primes = new ArrayList<>();
+        for (int i = 2; i <= max; i++) {
+            if (!composite.get(i)) {
+                primes.add((long) i);
+                for (long j = (long) i * i; j <= max; j += i) {
+                    composite.set((int) j);
+                }
+            }
+        }
+        return primes;
+    }
+
+    @Test
+    public void knownPrimesMatchSieve() throws InterruptedException {
+
+        final PrimeManager g = new PrimeManager(PARTITION_SIZE, true);
+        g.startWorker(0);
+        Thread.sleep(RUN_TIME);
+        g.stopWorker();
+
+        List<Long> known = new ArrayList<>(g.knownPrimes());
+        long max = known.get(known.size() - 1);
+
+        Assert.assertTrue(max > 1000);
+        Assert.assertEquals(sieve(max), known);
+    }
+
+    @Test
+    public void nextPrimeAndFactorsOffHeap() throws InterruptedException {
+
+        final PrimeManager g = new PrimeManager(PARTITION_SIZE, true);
+        g.startWorker(0);
+
+        Assert.assertEquals(2, g.nextPrime(0));
+        Assert.assertEquals(2, g.nextPrime(2));
+        Assert.assertEquals(3, g.nextPrime(3));
+        Assert.assertEquals(5, g.nextPrime(4));
+        Assert.assertEquals(151, g.nextPrime(150));
+        Assert.assertEquals(1009, g.nextPrime(1000));
+
+        Assert.assertEquals(Arrays.asList(2L), g.primeFactors(2));
+        Assert.assertEquals(Arrays.asList(2L, 2L, 5L, 5L), g.primeFactors(100));
+        Assert.assertEquals(Arrays.asList(3L, 3L, 47L), g.primeFactors(423));
+        Assert.assertEquals(Arrays.asList(29L, 43L), g.primeFactors(1247));
+        Assert.assertEquals(Arrays.asList(2L, 997L), g.primeFactors(1994));
+
+        g.stopWorker();
+    }
+
+}
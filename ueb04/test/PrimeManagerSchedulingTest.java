@@ -0,0 +1,135 @@
+import java.util.LinkedList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import server.PrimeManager;
+
+public class PrimeManagerSchedulingTest {
+
+    private static final int DELAY = 10;
+
+    @Test(timeout = 5000)
+    public void nextPrimeFarAboveFrontier() throws InterruptedException {
+
+        final PrimeManager g = new PrimeManager(100);
+
+        g.startWorker(DELAY);
+        Thread.sleep(100);
+
+        // Der Generator bräuchte mit dem Delay mehrere Stunden bis hierhin
+        Assert.assertEquals(1000003, g.nextPrime(1000000));
+        Assert.assertEquals(1000003, g.nextPrime(1000003));
+        Assert.assertEquals(104729, g.nextPrime(104724));
+
+        g.stopWorker();
+
+        Assert.assertTrue(g.getLog().contains("response: nextprime,1000000,1000003"));
+        Assert.assertFalse(g.knownPrimes().contains(1000003L));
+    }
+
+    @Test(timeout = 5000)
+    public void smallRequestsAreNotBlockedByBigOnes() throws InterruptedException {
+
+        final PrimeManager g = new PrimeManager(100);
+
+        g.startWorker(DELAY);
+        Thread.sleep(100);
+
+        final List<Long> results = new LinkedList<>();
+
+        final Thread big = new Thread(() -> {
+            long p = g.nextPrime(2147483600L);
+            synchronized (results) {
+                results.add(p);
+            }
+        });
+        big.start();
+
+        final Thread small = new Thread(() -> {
+            long p = g.nextPrime(4);
+            synchronized (results) {
+                results.add(p);
+            }
+        });
+        small.start();
+
+        big.join();
+        small.join();
+
+        g.stopWorker();
+
+        Assert.assertTrue(results.contains(5L));
+        Assert.assertTrue(results.contains(2147483629L));
+    }
+
+    @Test(timeout = 5000)
+    public void concurrentRequestsWithSameThreshold() throws InterruptedException {
+
+        final PrimeManager g = new PrimeManager(100);
+
+        g.startWorker(1);
+        Assert.assertEquals(53, g.nextPrime(50));
+
+        // Nahe genug am Generator, damit beide Anfragen auf ihn warten und nicht gesiebt werden
+        final List<Long> results = new LinkedList<>();
+        final List<Thread> threads = new LinkedList<>();
+        for (int i = 0; i < 2; i++) {
+            Thread t = new Thread(() -> {
+                long p = g.nextPrime(140);
+                synchronized (results) {
+                    results.add(p);
+                }
+            });
+            threads.add(t);
+            t.start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+
+        g.stopWorker();
+
+        Assert.assertEquals(2, results.size());
+        Assert.assertEquals(Long.valueOf(149), results.get(0));
+        Assert.assertEquals(Long.valueOf(149), results.get(1));
+    }
+
+    @Test(timeout = 20000)
+    public void nextPrimeAtSieveLimit() throws InterruptedException {
+
+        final PrimeManager g = new PrimeManager(100);
+
+        g.startWorker(DELAY);
+
+        // Die Basisprimzahlen bis 10^8 werden einmal berechnet und dann wiederverwendet
+        Assert.assertEquals(10000000000000061L, g.nextPrime(10000000000000000L));
+        Assert.assertEquals(10000000000000061L, g.nextPrime(9999999999999938L));
+
+        g.stopWorker();
+    }
+
+    @Test(timeout = 5000)
+    public void requestsAboveSieveLimitAreNotSieved() throws InterruptedException {
+
+        final PrimeManager g = new PrimeManager(100);
+
+        g.startWorker(DELAY);
+
+        // Wartet auf den Generator und wird nie beantwortet, der Sieb-Worker bleibt frei
+        final Thread huge = new Thread(() -> g.nextPrime(Long.MAX_VALUE - 1));
+        huge.setDaemon(true);
+        huge.start();
+
+        Assert.assertEquals(1000003, g.nextPrime(1000000));
+
+        g.stopWorker();
+
+        Assert.assertTrue(huge.isAlive());
+        for (String entry : g.getLog()) {
+            Assert.assertFalse(entry, entry.startsWith("sieve") && entry.contains(",9223"));
+        }
+    }
+
+}
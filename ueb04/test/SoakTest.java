@@ -0,0 +1,99 @@
+import java.io.IOException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import client.LoadGenerator;
+import server.PrimeServer;
+
+/**
+ * Dauerlauf gegen einen PrimeServer. Prüft, dass nach einem längeren Lastlauf weder Threads (z.B.
+ * ein ForkJoinPool pro Anfrage) noch nennenswert Speicher pro Anfrage zurückbleiben.
+ *
+ * Nicht Teil der TestSuite, Start über das Ant-Target "soak". Die Dauer in Sekunden kann über die
+ * System-Property soak.duration angegeben werden.
+ */
+public class SoakTest {
+
+    private static final int PORT = 6040;
+
+    private static final int PARTITION_SIZE = 50;
+
+    private static final int DELAY = 1;
+
+    private static final int CONNECTIONS = 8;
+
+    private static final long MAX_VALUE = 1000;
+
+    private static final long WARMUP_MS = 3000;
+
+    private static final long SETTLE_MS = 500;
+
+    // Die Logs von Server und PrimeManager wachsen pro Anfrage um einige Einträge
+    private static final long MAX_RETAINED_BYTES_PER_REQUEST = 2048;
+
+    @Test
+    public void soak() throws IOException, InterruptedException {
+
+        final long durationMs = Long.getLong("soak.duration", 10) * 1000;
+
+        final PrimeServer server = new PrimeServer(PORT, PARTITION_SIZE);
+        server.startServer(DELAY);
+
+        // Aufwärmen: Primzahlen bis MAX_VALUE / 2 erzeugen und Pools hochfahren
+        LoadGenerator.Report warmup =
+                new LoadGenerator("localhost", PORT, CONNECTIONS, 0.5, MAX_VALUE, 0, WARMUP_MS)
+                        .run();
+        Thread.sleep(SETTLE_MS);
+
+        final int threadsBefore = Thread.activeCount();
+        final long heapBefore = usedHeapAfterGc();
+
+        LoadGenerator.Report report =
+                new LoadGenerator("localhost", PORT, CONNECTIONS, 0.5, MAX_VALUE, 0, durationMs)
+                        .run();
+        System.err.println("warmup: " + warmup);
+        System.err.println("soak: " + report);
+
+        Thread.sleep(SETTLE_MS);
+
+        final int threadsAfter = Thread.activeCount();
+        final long heapAfter = usedHeapAfterGc();
+
+        server.stopServer();
+
+        System.err.println("threads: " + threadsBefore + " -> " + threadsAfter + ", heap: "
+                + heapBefore + " -> " + heapAfter);
+
+        Assert.assertEquals(0, report.getFailedConnections());
+        Assert.assertEquals(0, report.getErrors());
+        Assert.assertTrue(report.getRequests() > 0);
+        // Der Pool für die Zerlegungen darf bis zu seiner Parallelität nachstarten
+        Assert.assertTrue(
+                threadsAfter <= threadsBefore + Runtime.getRuntime().availableProcessors());
+        Assert.assertTrue((heapAfter - heapBefore)
+                / report.getRequests() < MAX_RETAINED_BYTES_PER_REQUEST);
+    }
+
+    @Test
+    public void unreachableServerCountsFailedConnections() throws InterruptedException {
+
+        // Auf diesem Port läuft kein Server
+        LoadGenerator.Report report =
+                new LoadGenerator("localhost", PORT + 1, CONNECTIONS, 0.5, MAX_VALUE, 0, 100)
+                        .run();
+
+        Assert.assertEquals(CONNECTIONS, report.getFailedConnections());
+        Assert.assertEquals(0, report.getRequests());
+    }
+
+    private static long usedHeapAfterGc() throws InterruptedException {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+
+}
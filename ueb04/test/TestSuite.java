@@ -1,9 +1,13 @@
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 
+import server.OffHeapPrimeStoreTest;
+import server.ResponseEncoderTest;
+
 /* Angabe der Test-Klassen, die zu dieser Test-Suite gehören sollen: */
 @Suite.SuiteClasses({ BeispieltestPrimeManager.class, ClientServerWithDummy.class,
-        BeispieltestClientServer.class })
+        BeispieltestClientServer.class, PrimeManagerSchedulingTest.class,
+        OffHeapPrimeManagerTest.class, OffHeapPrimeStoreTest.class, ResponseEncoderTest.class })
 /* Tests über eine Test-Suite ausführen */
 @RunWith(Suite.class)
 /* Die eigentliche Test-Suite-Klasse für JUnit */
@@ -0,0 +1,125 @@
+package server;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.TreeSet;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Testet den {@link OffHeapPrimeStore} mit sehr kleinen Segmenten gegen ein TreeSet. So werden die
+ * Übergänge zwischen Segmenten (Rang, Auswahl, Blockindex) schon mit wenigen Primzahlen geprüft,
+ * die mit der Standardgröße erst oberhalb von 2^28 erreicht würden.
+ * 
+ * @author Lars Sander, Alexander Löffler
+ * 
+ */
+public class OffHeapPrimeStoreTest {
+
+    // Kleinste mögliche Segmente: ein Block von 512 Bit, also 1024 Zahlen
+    private static final int MIN_SEGMENT_BITS_LOG = 9;
+
+    private static final int SMALL_SEGMENT_BITS_LOG = 10;
+
+    private static final int MAX = 300000;
+
+    /**
+     * Referenz: alle Primzahlen bis max per einfachem Sieb.
+     */
+    private static TreeSet<Long> sieve(int max) {
+        BitSet composite = new BitSet();
+        TreeSet<Long> primes = new TreeSet<>();
+        for (int i = 2; i <= max; i++) {
+            if (!composite.get(i)) {
+                primes.add((long) i);
+                for (long j = (long) i * i; j <= max; j += i) {
+                    composite.set((int) j);
+                }
+            }
+        }
+        return primes;
+    }
+
+    private static OffHeapPrimeStore fill(int segmentBitsLog, TreeSet<Long> primes) {
+        OffHeapPrimeStore store = new OffHeapPrimeStore(segmentBitsLog);
+        for (long p : primes) {
+            store.add(p);
+        }
+        return store;
+    }
+
+    private static void assertMatches(OffHeapPrimeStore store, TreeSet<Long> primes) {
+        List<Long> list = new ArrayList<>(primes);
+        long max = primes.last();
+
+        Assert.assertEquals(max, store.last());
+        long rank = 0;
+        for (long n = 0; n <= max + 1; n++) {
+            if (primes.contains(n)) {
+                rank++;
+            }
+            Assert.assertEquals("contains " + n, primes.contains(n), store.contains(n));
+            Long ceiling = primes.ceiling(n);
+            Assert.assertEquals("ceiling " + n, ceiling == null ? -1 : ceiling, store.ceiling(n));
+            Assert.assertEquals("rank " + n, rank, store.rank(n));
+        }
+        for (int i = 0; i < list.size(); i++) {
+            Assert.assertEquals("select " + i, (long) list.get(i), store.select(i));
+        }
+
+        Assert.assertEquals(list, store.listUpTo(Long.MAX_VALUE));
+        List<Long> iterated = new ArrayList<>();
+        for (long p : store.upTo(max)) {
+            iterated.add(p);
+        }
+        Assert.assertEquals(list, iterated);
+    }
+
+    @Test
+    public void minimalSegmentsMatchTreeSet() {
+        TreeSet<Long> primes = sieve(MAX);
+        assertMatches(fill(MIN_SEGMENT_BITS_LOG, primes), primes);
+    }
+
+    @Test
+    public void smallSegmentsMatchTreeSet() {
+        TreeSet<Long> primes = sieve(MAX);
+        assertMatches(fill(SMALL_SEGMENT_BITS_LOG, primes), primes);
+    }
+
+    @Test
+    public void sequenceCrossesSegments() {
+        TreeSet<Long> primes = sieve(MAX);
+        OffHeapPrimeStore store = fill(MIN_SEGMENT_BITS_LOG, primes);
+
+        for (long limit : new long[] { 1, 2, 1023, 1024, 1025, 2047, 2049, 65536, MAX }) {
+            List<Long> expected = new ArrayList<>(primes.headSet(limit, true));
+            PrimeStore.Sequence sequence = store.sequenceUpTo(limit);
+
+            Assert.assertEquals(expected.size(), sequence.size());
+            for (int i = 0; i < expected.size(); i++) {
+                Assert.assertEquals((long) expected.get(i), sequence.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void rankAndSelectWhileGrowing() {
+        TreeSet<Long> primes = sieve(MAX / 10);
+        OffHeapPrimeStore store = new OffHeapPrimeStore(MIN_SEGMENT_BITS_LOG);
+
+        // Nach jeder Primzahl sind Index und Blockränge bis zu ihr gültig
+        long count = 0;
+        for (long p : primes) {
+            store.add(p);
+            count++;
+            Assert.assertEquals(count, store.rank(p));
+            Assert.assertEquals(count, store.rank(Long.MAX_VALUE));
+            Assert.assertEquals(p, store.select(count - 1));
+            Assert.assertEquals(p, store.ceiling(p));
+        }
+    }
+
+}
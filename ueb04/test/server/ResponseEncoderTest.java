@@ -0,0 +1,141 @@
+package server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import com.sun.management.ThreadMXBean;
+
+/**
+ * Testet den {@link ResponseEncoder} gegen das bisherige Antwortformat des Servers
+ * (PrintWriter.println mit toString der Liste) und prüft, dass im eingeschwungenen Zustand nichts
+ * mehr alloziert wird.
+ * 
+ * @author Lars Sander, Alexander Löffler
+ * 
+ */
+public class ResponseEncoderTest {
+
+    private static final int WARMUP = 20000;
+
+    private static final int RESPONSES = 100000;
+
+    private static final long[] VALUES = { 0, 1, -1, 9, 10, -10, 99, 100, 1000000007,
+        -1000000007, Integer.MAX_VALUE, Integer.MIN_VALUE, 999999999999999999L,
+        1000000000000000000L, Long.MAX_VALUE, Long.MIN_VALUE, Long.MIN_VALUE + 1 };
+
+    /**
+     * Stream, der alles verwirft und dabei selbst nichts alloziert.
+     */
+    private static final class NullStream extends OutputStream {
+
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+
+    /**
+     * Bisheriges Format einer einzelnen Zahl.
+     */
+    private static String oldFormat(long value) {
+        return String.valueOf(value) + "\n";
+    }
+
+    /**
+     * Bisheriges Format einer Liste.
+     */
+    private static String oldFormat(List<Long> values) {
+        String ans = values.toString();
+        ans = ans.substring(1, ans.length() - 1);
+        ans = ans.replace(",", "");
+        return ans + "\n";
+    }
+
+    @Test
+    public void singleValuesMatchOldFormat() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ResponseEncoder encoder = new ResponseEncoder(out);
+
+        StringBuilder expected = new StringBuilder();
+        for (long value : VALUES) {
+            encoder.writeLine(value);
+            expected.append(oldFormat(value));
+        }
+
+        Assert.assertEquals(expected.toString(), out.toString(StandardCharsets.US_ASCII.name()));
+    }
+
+    @Test
+    public void listsMatchOldFormat() throws IOException {
+        List<List<Long>> lists = new ArrayList<>();
+        lists.add(Collections.<Long>emptyList());
+        lists.add(Arrays.asList(2L));
+        lists.add(Arrays.asList(2L, 2L, 5L, 5L));
+        lists.add(Arrays.asList(Long.MIN_VALUE, -1L, 0L, Long.MAX_VALUE));
+        // Größer als der anfängliche Puffer
+        List<Long> many = new ArrayList<>();
+        for (long value : VALUES) {
+            many.add(value);
+        }
+        lists.add(many);
+        lists.add(Arrays.asList(3L, 3L, 47L));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ResponseEncoder encoder = new ResponseEncoder(out);
+
+        StringBuilder expected = new StringBuilder();
+        for (List<Long> list : lists) {
+            encoder.writeLine(list);
+            expected.append(oldFormat(list));
+        }
+
+        Assert.assertEquals(expected.toString(), out.toString(StandardCharsets.US_ASCII.name()));
+    }
+
+    @Test
+    public void steadyStateDoesNotAllocate() throws IOException {
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threads.isThreadAllocatedMemorySupported()
+                && threads.isThreadAllocatedMemoryEnabled());
+
+        NullStream out = new NullStream();
+        ResponseEncoder encoder = new ResponseEncoder(out);
+        List<Long> factors = Arrays.asList(2L, 2L, 5L, 5L, Long.MAX_VALUE);
+
+        for (int i = 0; i < WARMUP; i++) {
+            encoder.writeLine(VALUES[i % VALUES.length]);
+            encoder.writeLine(factors);
+        }
+
+        long thread = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < RESPONSES; i++) {
+            encoder.writeLine(VALUES[i % VALUES.length]);
+            encoder.writeLine(factors);
+        }
+        long bytes = threads.getThreadAllocatedBytes(thread) - before;
+
+        Assert.assertTrue(out.count > 0);
+        // Nur ein konstanter Rest (z.B. durch die Messung selbst), nichts pro Antwort
+        Assert.assertTrue(bytes + " Bytes für " + RESPONSES + " Antworten", bytes < RESPONSES);
+    }
+
+}
@@ -0,0 +1,176 @@
+package wson;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Liest das Binärformat von {@link BinaryWriter}. Das Ergebnis entspricht dem von
+ * {@link JSONTokenizer#readElement}: Objekte werden zu HashMaps, Arrays zu ArrayLists und Zahlen
+ * zu Double, sodass es mit {@link JSONReader#convert} umgewandelt werden kann. Ganze Zahlen, die
+ * ein double nicht exakt darstellen kann, bleiben Long, damit long-Felder exakt gelesen werden.
+ * 
+ * @author Lars Sander, Alexander Löffler
+ * 
+ */
+final class BinaryReader {
+
+    private static final int BYTE_MASK = 0xFF;
+    private static final int BYTE_BITS = 8;
+    private static final int DOUBLE_BYTES = 8;
+    private static final int FLOAT_BYTES = 4;
+    // Größter Betrag, bis zu dem jede ganze Zahl exakt als double darstellbar ist
+    private static final long MAX_EXACT_DOUBLE = 1L << 53;
+
+    private final byte[] data;
+    private int pos;
+
+    /**
+     * Konstruktor
+     * 
+     * @param data die zu lesenden Bytes, werden nicht kopiert
+     */
+    BinaryReader(byte[] data) {
+        this.data = data;
+    }
+
+    /**
+     * Liest einen einzelnen Wert, der die gesamte Eingabe umfasst.
+     * 
+     * @return der Wert
+     * @throws JSONSyntaxException unbekanntes Tag, unvollständige Eingabe oder Bytes nach dem Wert
+     */
+    Object readDocument() throws JSONSyntaxException {
+        Object result = readValue(next());
+        if (pos != data.length) {
+            throw new JSONSyntaxException("Unerwartete Bytes nach dem Wert an Position " + pos);
+        }
+        return result;
+    }
+
+    /**
+     * Liest das nächste Byte.
+     * 
+     * @return das Byte ohne Vorzeichen
+     * @throws JSONSyntaxException Ende der Eingabe
+     */
+    private int next() throws JSONSyntaxException {
+        if (pos >= data.length) {
+            throw new JSONSyntaxException("Unerwartetes Ende der Eingabe");
+        }
+        return data[pos++] & BYTE_MASK;
+    }
+
+    /**
+     * Liest einen Wert.
+     * 
+     * @param tag das bereits gelesene Tag des Wertes
+     * @return der Wert
+     * @throws JSONSyntaxException unbekanntes Tag oder unvollständige Eingabe
+     */
+    private Object readValue(int tag) throws JSONSyntaxException {
+        switch (tag) {
+            case BinaryWriter.NULL:
+                return null;
+            case BinaryWriter.FALSE:
+                return Boolean.FALSE;
+            case BinaryWriter.TRUE:
+                return Boolean.TRUE;
+            case BinaryWriter.LONG:
+                long zigzag = readVarint();
+                long value = (zigzag >>> 1) ^ -(zigzag & 1);
+                if (value < -MAX_EXACT_DOUBLE || value > MAX_EXACT_DOUBLE) {
+                    return value;
+                }
+                return (double) value;
+            case BinaryWriter.DOUBLE:
+                return Double.longBitsToDouble(readFixed(DOUBLE_BYTES));
+            case BinaryWriter.FLOAT:
+                return (double) Float.intBitsToFloat((int) readFixed(FLOAT_BYTES));
+            case BinaryWriter.STRING:
+                return readString(readLength());
+            case BinaryWriter.ARRAY:
+                List<Object> list = new ArrayList<>();
+                for (int t = next(); t != BinaryWriter.END; t = next()) {
+                    list.add(readValue(t));
+                }
+                return list;
+            case BinaryWriter.OBJECT:
+                Map<String, Object> map = new HashMap<>();
+                for (int length = readLength(); length != 0; length = readLength()) {
+                    String name = readString(length - 1);
+                    map.put(name, readValue(next()));
+                }
+                return map;
+            default:
+                throw new JSONSyntaxException("Unbekanntes Tag " + tag + " an Position "
+                        + (pos - 1));
+        }
+    }
+
+    /**
+     * Liest einen Varint.
+     * 
+     * @return die Zahl
+     * @throws JSONSyntaxException unvollständige oder zu lange Zahl
+     */
+    private long readVarint() throws JSONSyntaxException {
+        long result = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += BinaryWriter.VARINT_BITS) {
+            int b = next();
+            result |= (long) (b & (BinaryWriter.VARINT_MORE - 1)) << shift;
+            if ((b & BinaryWriter.VARINT_MORE) == 0) {
+                return result;
+            }
+        }
+        throw new JSONSyntaxException("Zu langer Varint vor Position " + pos);
+    }
+
+    /**
+     * Liest eine Länge und prüft, dass entsprechend viele Bytes folgen können.
+     * 
+     * @return die Länge
+     * @throws JSONSyntaxException ungültige Länge
+     */
+    private int readLength() throws JSONSyntaxException {
+        long length = readVarint();
+        if (length < 0 || length > data.length - pos) {
+            throw new JSONSyntaxException("Ungültige Länge " + length + " vor Position " + pos);
+        }
+        return (int) length;
+    }
+
+    /**
+     * Liest eine Zahl fester Länge in Big Endian.
+     * 
+     * @param bytes Anzahl der Bytes
+     * @return die Bits der Zahl
+     * @throws JSONSyntaxException unvollständige Eingabe
+     */
+    private long readFixed(int bytes) throws JSONSyntaxException {
+        if (bytes > data.length - pos) {
+            throw new JSONSyntaxException("Unerwartetes Ende der Eingabe");
+        }
+        long bits = 0;
+        for (int i = 0; i < bytes; i++) {
+            bits = bits << BYTE_BITS | data[pos++] & BYTE_MASK;
+        }
+        return bits;
+    }
+
+    /**
+     * Liest einen String in UTF-8.
+     * 
+     * @param length Länge in Bytes
+     * @pre length &lt;= verbleibende Bytes
+     * @return der String
+     */
+    private String readString(int length) {
+        String result = new String(data, pos, length, StandardCharsets.UTF_8);
+        pos += length;
+        return result;
+    }
+
+}
@@ -0,0 +1,324 @@
+package wson;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Schreibt Werte im Binärformat von {@link Wson#toBinary} in einen wachsenden Puffer. Das Format
+ * bildet dasselbe Modell wie JSON ab, jeder Wert beginnt mit einem Tag-Byte:
+ * 
+ * <ul>
+ * <li>{@link #NULL}, {@link #FALSE}, {@link #TRUE} ohne weitere Bytes</li>
+ * <li>{@link #LONG} gefolgt von der Zahl als ZigZag-Varint</li>
+ * <li>{@link #DOUBLE} bzw. {@link #FLOAT} gefolgt von 8 bzw. 4 Bytes IEEE 754, Big Endian</li>
+ * <li>{@link #STRING} gefolgt von der Länge in Bytes als Varint und den Bytes in UTF-8</li>
+ * <li>{@link #ARRAY} gefolgt von den Elementen und {@link #END}</li>
+ * <li>{@link #OBJECT} gefolgt von Paaren aus Name und Wert und einer 0. Der Name ist ein Varint
+ * mit Länge + 1 und den Bytes in UTF-8, sodass die 0 das Ende markiert.</li>
+ * </ul>
+ * 
+ * Varints speichern 7 Bit pro Byte, beginnend mit den niederwertigsten, das oberste Bit zeigt an,
+ * dass ein weiteres Byte folgt.
+ * 
+ * @author Lars Sander, Alexander Löffler
+ * 
+ */
+final class BinaryWriter {
+
+    static final int NULL = 0;
+    static final int FALSE = 1;
+    static final int TRUE = 2;
+    static final int LONG = 3;
+    static final int DOUBLE = 4;
+    static final int FLOAT = 5;
+    static final int STRING = 6;
+    static final int ARRAY = 7;
+    static final int OBJECT = 8;
+    static final int END = 9;
+
+    static final int VARINT_BITS = 7;
+    static final int VARINT_MORE = 0x80;
+
+    private static final int INITIAL_CAPACITY = 256;
+    private static final int BYTE_BITS = 8;
+    private static final int DOUBLE_BYTES = 8;
+    private static final int FLOAT_BYTES = 4;
+    private static final int MAX_VARINT_BYTES = 10;
+    private static final int ASCII_LIMIT = 0x80;
+
+    private byte[] buf = new byte[INITIAL_CAPACITY];
+    private int count;
+
+    /**
+     * Wandelt einen String nach UTF-8 um.
+     * 
+     * @param s der String
+     * @return die Bytes
+     */
+    static byte[] utf8(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Stellt sicher, dass noch n Bytes in den Puffer passen.
+     * 
+     * @param n Anzahl der Bytes
+     */
+    private void ensure(int n) {
+        if (count + n > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length * 2, count + n));
+        }
+    }
+
+    /**
+     * Schreibt ein einzelnes Byte.
+     * 
+     * @param b das Byte
+     */
+    private void put(int b) {
+        ensure(1);
+        buf[count++] = (byte) b;
+    }
+
+    /**
+     * Schreibt eine nicht negative Zahl als Varint.
+     * 
+     * @param value die Zahl, als vorzeichenlos betrachtet
+     */
+    private void putVarint(long value) {
+        ensure(MAX_VARINT_BYTES);
+        long v = value;
+        while ((v & ~(long) (VARINT_MORE - 1)) != 0) {
+            buf[count++] = (byte) (v | VARINT_MORE);
+            v >>>= VARINT_BITS;
+        }
+        buf[count++] = (byte) v;
+    }
+
+    /**
+     * Schreibt die Bytes eines Strings mit vorangestellter Länge.
+     * 
+     * @param utf8 die Bytes
+     * @param lengthOffset wird zur Länge addiert
+     */
+    private void putBytes(byte[] utf8, int lengthOffset) {
+        putVarint(utf8.length + lengthOffset);
+        ensure(utf8.length);
+        System.arraycopy(utf8, 0, buf, count, utf8.length);
+        count += utf8.length;
+    }
+
+    /**
+     * Schreibt die Bytes eines Strings mit vorangestellter Länge. Reine ASCII-Strings werden ohne
+     * Zwischenarray übertragen.
+     * 
+     * @param s der String
+     * @param lengthOffset wird zur Länge addiert
+     */
+    private void putString(String s, int lengthOffset) {
+        int length = s.length();
+        for (int i = 0; i < length; i++) {
+            if (s.charAt(i) >= ASCII_LIMIT) {
+                putBytes(utf8(s), lengthOffset);
+                return;
+            }
+        }
+
+        putVarint(length + lengthOffset);
+        ensure(length);
+        for (int i = 0; i < length; i++) {
+            buf[count++] = (byte) s.charAt(i);
+        }
+    }
+
+    /**
+     * Schreibt null.
+     */
+    void writeNull() {
+        put(NULL);
+    }
+
+    /**
+     * Schreibt einen Wahrheitswert.
+     * 
+     * @param value der Wert
+     */
+    void writeBoolean(boolean value) {
+        put(value ? TRUE : FALSE);
+    }
+
+    /**
+     * Schreibt eine ganze Zahl als ZigZag-Varint, kleine negative Zahlen bleiben so kurz.
+     * 
+     * @param value die Zahl
+     */
+    void writeLong(long value) {
+        put(LONG);
+        putVarint((value << 1) ^ (value >> (Long.SIZE - 1)));
+    }
+
+    /**
+     * Schreibt eine double-Zahl ohne Umwandlung in Text.
+     * 
+     * @param value die Zahl
+     */
+    void writeDouble(double value) {
+        put(DOUBLE);
+        ensure(DOUBLE_BYTES);
+        long bits = Double.doubleToRawLongBits(value);
+        for (int shift = Long.SIZE - BYTE_BITS; shift >= 0; shift -= BYTE_BITS) {
+            buf[count++] = (byte) (bits >>> shift);
+        }
+    }
+
+    /**
+     * Schreibt eine float-Zahl ohne Umwandlung in Text.
+     * 
+     * @param value die Zahl
+     */
+    void writeFloat(float value) {
+        put(FLOAT);
+        ensure(FLOAT_BYTES);
+        int bits = Float.floatToRawIntBits(value);
+        for (int shift = Integer.SIZE - BYTE_BITS; shift >= 0; shift -= BYTE_BITS) {
+            buf[count++] = (byte) (bits >>> shift);
+        }
+    }
+
+    /**
+     * Schreibt einen String.
+     * 
+     * @param s der String
+     */
+    void writeString(String s) {
+        put(STRING);
+        putString(s, 0);
+    }
+
+    /**
+     * Schreibt einen bereits umgewandelten String.
+     * 
+     * @param utf8 die Bytes des Strings
+     */
+    void writeString(byte[] utf8) {
+        put(STRING);
+        putBytes(utf8, 0);
+    }
+
+    /**
+     * Schreibt den Namen eines Feldes innerhalb eines Objektes.
+     * 
+     * @param name der Name
+     */
+    void writeName(String name) {
+        putString(name, 1);
+    }
+
+    /**
+     * Schreibt den bereits umgewandelten Namen eines Feldes innerhalb eines Objektes.
+     * 
+     * @param utf8 die Bytes des Namens
+     */
+    void writeName(byte[] utf8) {
+        putBytes(utf8, 1);
+    }
+
+    /**
+     * Beginnt ein Array.
+     */
+    void beginArray() {
+        put(ARRAY);
+    }
+
+    /**
+     * Beendet ein Array.
+     */
+    void endArray() {
+        put(END);
+    }
+
+    /**
+     * Beginnt ein Objekt.
+     */
+    void beginObject() {
+        put(OBJECT);
+    }
+
+    /**
+     * Beendet ein Objekt.
+     */
+    void endObject() {
+        put(0);
+    }
+
+    /**
+     * Schreibt ein eindimensionales Array eines primitiven Typs ohne Boxing. char-Elemente werden
+     * wie Character als Strings der Länge 1 geschrieben.
+     * 
+     * @param array das Array
+     * @pre array.getClass().getComponentType().isPrimitive()
+     */
+    void writePrimitives(Object array) {
+        beginArray();
+        if (array instanceof int[]) {
+            for (int v : (int[]) array) {
+                writeLong(v);
+            }
+        } else if (array instanceof long[]) {
+            for (long v : (long[]) array) {
+                writeLong(v);
+            }
+        } else if (array instanceof double[]) {
+            for (double v : (double[]) array) {
+                writeDouble(v);
+            }
+        } else if (array instanceof float[]) {
+            for (float v : (float[]) array) {
+                writeFloat(v);
+            }
+        } else if (array instanceof short[]) {
+            for (short v : (short[]) array) {
+                writeLong(v);
+            }
+        } else if (array instanceof byte[]) {
+            for (byte v : (byte[]) array) {
+                writeLong(v);
+            }
+        } else if (array instanceof char[]) {
+            for (char v : (char[]) array) {
+                writeString(String.valueOf(v));
+            }
+        } else {
+            for (boolean v : (boolean[]) array) {
+                writeBoolean(v);
+            }
+        }
+        endArray();
+    }
+
+    /**
+     * Verwirft alle bisher geschriebenen Bytes, der Puffer bleibt erhalten.
+     */
+    void reset() {
+        count = 0;
+    }
+
+    /**
+     * Liefert die Größe des Puffers.
+     * 
+     * @return Anzahl Bytes, die ohne Vergrößern Platz haben
+     */
+    int capacity() {
+        return buf.length;
+    }
+
+    /**
+     * Liefert die bisher geschriebenen Bytes.
+     * 
+     * @return Kopie des Puffers
+     */
+    byte[] toByteArray() {
+        return Arrays.copyOf(buf, count);
+    }
+
+}
@@ -0,0 +1,281 @@
+package wson;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+/**
+ * Schneller Zugriff auf ein einzelnes Feld. Für primitive Zahlenfelder werden MethodHandles einmal
+ * pro Feld gebunden und auf feste Signaturen angepasst, sodass sie mit invokeExact ohne Boxing
+ * aufgerufen werden können.
+ * 
+ * Alle übrigen Zugriffe laufen über Field.get und Field.set. Die Handles liegen in Instanzfeldern
+ * und sind für den JIT daher keine Konstanten; der allgemeine Pfad mit Boxing war über ein Handle
+ * langsamer als über Field.get (siehe AccessorBenchmark).
+ * 
+ * invokeExact deklariert Throwable, obwohl ein Feldzugriff keine geprüfte Ausnahme werfen kann.
+ * Ungeprüfte Ausnahmen werden deshalb unverändert weitergegeben, alle anderen in eine
+ * IllegalStateException verpackt.
+ * 
+ * @author Lars Sander, Alexander Löffler
+ * 
+ */
+final class FieldAccessor {
+
+    private static final MethodType GET_LONG = MethodType.methodType(long.class, Object.class);
+    private static final MethodType GET_DOUBLE = MethodType.methodType(double.class, Object.class);
+    private static final MethodType SET_LONG =
+            MethodType.methodType(void.class, Object.class, long.class);
+    private static final MethodType SET_DOUBLE =
+            MethodType.methodType(void.class, Object.class, double.class);
+
+    private final Field field;
+    private final boolean writable;
+    private final MethodHandle longGetter;
+    private final MethodHandle doubleGetter;
+    private final MethodHandle doubleSetter;
+    private final MethodHandle longSetter;
+
+    /**
+     * Bindet die Handles für das übergebene Feld. Nicht öffentliche Felder werden dazu vorher
+     * zugreifbar gemacht.
+     * 
+     * @param field das Feld
+     * @pre field != null
+     * @pre field ist nicht statisch
+     */
+    FieldAccessor(Field field) {
+        assert field != null;
+        assert !Modifier.isStatic(field.getModifiers());
+
+        // Gesicherte Felder verfügbar machen, check auf 0 für default package-private
+        if (Modifier.isPrivate(field.getModifiers())
+                || Modifier.isProtected(field.getModifiers()) || field.getModifiers() == 0) {
+            field.setAccessible(true);
+        }
+        this.field = field;
+
+        Class<?> type = field.getType();
+        this.writable = !Modifier.isFinal(field.getModifiers());
+        boolean integral = isIntegral(type);
+        boolean floating = type == float.class || type == double.class;
+
+        if (!integral && !floating) {
+            this.longGetter = null;
+            this.doubleGetter = null;
+            this.doubleSetter = null;
+            this.longSetter = null;
+            return;
+        }
+
+        MethodHandle get;
+        MethodHandle set;
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            get = lookup.unreflectGetter(field);
+            set = writable ? lookup.unreflectSetter(field) : null;
+        } catch (IllegalAccessException e) {
+            // Sollte nie auftreten, weil das Feld vorher zugreifbar gemacht wurde
+            throw new IllegalStateException("Kein Zugriff auf das Feld " + field, e);
+        }
+
+        this.longGetter = integral ? get.asType(GET_LONG) : null;
+        this.doubleGetter = floating ? get.asType(GET_DOUBLE) : null;
+
+        // Entspricht den Casts (int) d, (byte) d usw. aus JSONReader.convertNumber
+        this.doubleSetter = writable ? MethodHandles.explicitCastArguments(set, SET_DOUBLE) : null;
+
+        // Nur long kann Werte enthalten, die als double nicht exakt darstellbar sind
+        this.longSetter = writable && type == long.class ? set.asType(SET_LONG) : null;
+    }
+
+    /**
+     * Prüft, ob der Typ ein ganzzahliger primitiver Typ ist.
+     * 
+     * @param type der Typ
+     * @return true für byte, short, int und long
+     */
+    private static boolean isIntegral(Class<?> type) {
+        return type == byte.class || type == short.class || type == int.class
+                || type == long.class;
+    }
+
+    /**
+     * Liefert das Feld.
+     * 
+     * @return das Feld
+     */
+    Field getField() {
+        return field;
+    }
+
+    /**
+     * Prüft, ob {@link #getLong} für dieses Feld verwendet werden kann.
+     * 
+     * @return true für Felder vom Typ byte, short, int und long
+     */
+    boolean hasLong() {
+        return longGetter != null;
+    }
+
+    /**
+     * Prüft, ob {@link #getDouble} für dieses Feld verwendet werden kann.
+     * 
+     * @return true für Felder vom Typ float und double
+     */
+    boolean hasDouble() {
+        return doubleGetter != null;
+    }
+
+    /**
+     * Prüft, ob das Feld geschrieben werden kann.
+     * 
+     * @return false für finale Felder
+     */
+    boolean isWritable() {
+        return writable;
+    }
+
+    /**
+     * Prüft, ob {@link #setDouble} für dieses Feld verwendet werden kann.
+     * 
+     * @return true für nicht finale primitive Zahlenfelder
+     */
+    boolean hasDoubleSetter() {
+        return doubleSetter != null;
+    }
+
+    /**
+     * Prüft, ob {@link #setLong} für dieses Feld verwendet werden kann.
+     * 
+     * @return true für nicht finale Felder vom Typ long
+     */
+    boolean hasLongSetter() {
+        return longSetter != null;
+    }
+
+    /**
+     * Liest den Wert des Feldes aus. Primitive Werte werden dabei in ihren Wrapper verpackt.
+     * 
+     * @param src das Objekt
+     * @return der Wert des Feldes
+     */
+    Object get(Object src) {
+        try {
+            return field.get(src);
+        } catch (IllegalAccessException e) {
+            // Sollte nie auftreten, weil das Feld im Konstruktor zugreifbar gemacht wurde
+            throw new IllegalStateException("Kein Zugriff auf das Feld " + field, e);
+        }
+    }
+
+    /**
+     * Liest ein ganzzahliges primitives Feld ohne Boxing aus.
+     * 
+     * @param src das Objekt
+     * @pre hasLong()
+     * @return der Wert des Feldes
+     */
+    long getLong(Object src) {
+        assert hasLong();
+
+        try {
+            return (long) longGetter.invokeExact(src);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw unexpected(e);
+        }
+    }
+
+    /**
+     * Liest ein float- oder double-Feld ohne Boxing aus.
+     * 
+     * @param src das Objekt
+     * @pre hasDouble()
+     * @return der Wert des Feldes
+     */
+    double getDouble(Object src) {
+        assert hasDouble();
+
+        try {
+            return (double) doubleGetter.invokeExact(src);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw unexpected(e);
+        }
+    }
+
+    /**
+     * Setzt den Wert des Feldes. Primitive Felder werden aus ihrem Wrapper entpackt.
+     * 
+     * @param target das Objekt
+     * @param value der neue Wert
+     * @pre isWritable()
+     * @throws IllegalArgumentException wenn value nicht zum Typ des Feldes passt
+     */
+    void set(Object target, Object value) {
+        assert isWritable();
+
+        try {
+            field.set(target, value);
+        } catch (IllegalAccessException e) {
+            // Sollte nie auftreten, weil das Feld im Konstruktor zugreifbar gemacht wurde
+            throw new IllegalStateException("Kein Zugriff auf das Feld " + field, e);
+        }
+    }
+
+    /**
+     * Setzt ein primitives Zahlenfeld ohne Boxing. Der Wert wird wie bei einem Java-Cast in den
+     * Typ des Feldes umgewandelt.
+     * 
+     * @param target das Objekt
+     * @param value der neue Wert
+     * @pre hasDoubleSetter()
+     */
+    void setDouble(Object target, double value) {
+        assert hasDoubleSetter();
+
+        try {
+            doubleSetter.invokeExact(target, value);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw unexpected(e);
+        }
+    }
+
+    /**
+     * Setzt ein long-Feld ohne Boxing und ohne Umweg über double.
+     * 
+     * @param target das Objekt
+     * @param value der neue Wert
+     * @pre hasLongSetter()
+     */
+    void setLong(Object target, long value) {
+        assert hasLongSetter();
+
+        try {
+            longSetter.invokeExact(target, value);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw unexpected(e);
+        }
+    }
+
+    /**
+     * Verpackt eine geprüfte Ausnahme aus invokeExact. Ein Feldzugriff wirft keine, der Fall ist
+     * nur wegen der Signatur von invokeExact nötig.
+     * 
+     * @param e die Ausnahme
+     * @return die verpackte Ausnahme zum Werfen
+     */
+    private IllegalStateException unexpected(Throwable e) {
+        return new IllegalStateException("Unerwartete Ausnahme beim Zugriff auf " + field, e);
+    }
+
+}
@@ -0,0 +1,114 @@
+package wson;
+
+/**
+ * Liefert den Wert eines einzelnen Feldes für {@link TypeAdapter#read}. Zahlen, Strings und
+ * Objekte können direkt gelesen werden, alle anderen Werte liest {@link #field} wie bisher über
+ * Reflection.
+ * 
+ * @author Lars Sander, Alexander Löffler
+ * 
+ */
+public final class FieldReader {
+
+    private final JSONTokenizer in;
+    private final JSONReader reader;
+
+    /**
+     * Konstruktor
+     * 
+     * @param in Tokenizer im Objekt
+     * @param reader liest Werte über Reflection
+     */
+    FieldReader(JSONTokenizer in, JSONReader reader) {
+        this.in = in;
+        this.reader = reader;
+    }
+
+    /**
+     * Prüft, ob als Nächstes eine Zahl folgt.
+     * 
+     * @return true, wenn {@link #nextNumber} aufgerufen werden kann
+     */
+    public boolean isNumber() {
+        int next = in.peekValue();
+        return next == '-' || next >= '0' && next <= '9';
+    }
+
+    /**
+     * Liest eine Zahl.
+     * 
+     * @pre isNumber()
+     * @return die Zahl
+     * @throws JSONSyntaxException Syntaxfehler beim Einlesen
+     */
+    public double nextNumber() throws JSONSyntaxException {
+        return in.readNumber();
+    }
+
+    /**
+     * Liest eine Zahl für ein long-Feld. Ganze Zahlen werden exakt gelesen, andere Schreibweisen
+     * wie bei einem Cast aus {@link #nextNumber}.
+     * 
+     * @pre isNumber()
+     * @return die Zahl
+     * @throws JSONSyntaxException Syntaxfehler beim Einlesen
+     */
+    public long nextLong() throws JSONSyntaxException {
+        return in.readIntegral();
+    }
+
+    /**
+     * Prüft, ob als Nächstes ein String folgt.
+     * 
+     * @return true, wenn {@link #nextString} aufgerufen werden kann
+     */
+    public boolean isString() {
+        return in.peekValue() == '"';
+    }
+
+    /**
+     * Liest einen String.
+     * 
+     * @pre isString()
+     * @return der String
+     * @throws JSONSyntaxException Syntaxfehler beim Einlesen
+     */
+    public String nextString() throws JSONSyntaxException {
+        return in.readString();
+    }
+
+    /**
+     * Prüft, ob als Nächstes ein Objekt folgt.
+     * 
+     * @return true, wenn {@link #nextObject} aufgerufen werden kann
+     */
+    public boolean isObject() {
+        return in.peekValue() == '{';
+    }
+
+    /**
+     * Liest ein Objekt der übergebenen Klasse, über ihren Adapter oder über Reflection.
+     * 
+     * @param <T> die Klasse
+     * @param type die Klasse
+     * @pre isObject()
+     * @return das Objekt oder null, wenn ein Wert nicht zu seinem Feld passt
+     * @throws JSONSyntaxException Syntaxfehler beim Einlesen
+     */
+    public <T> T nextObject(Class<T> type) throws JSONSyntaxException {
+        return reader.read(in, type);
+    }
+
+    /**
+     * Liest den Wert über Reflection in alle beschreibbaren Felder mit dem übergebenen Namen.
+     * 
+     * @param target das zu befüllende Objekt
+     * @param key der Name des Feldes
+     * @throws JSONSyntaxException Syntaxfehler beim Einlesen
+     * @throws IllegalArgumentException wenn der Wert nicht zum Feld passt
+     */
+    public void field(Object target, String key) throws JSONSyntaxException {
+        reader.readField(in, target, key);
+    }
+
+}
@@ -0,0 +1,340 @@
+package wson;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Schreibt die Felder eines einzelnen Objektes für {@link Wson#toJson} bzw.
+ * {@link Wson#toBinary}, ohne Anfang und Ende des Objektes. Wird sowohl von den erzeugten
+ * {@link TypeAdapter}n als auch für die Reflection über {@link SerializationPlan} verwendet,
+ * sodass beide Wege und beide Formate dieselben Felder auslassen.
+ *
+ * Schlüssel werden fertig übergeben, inklusive Anführungszeichen und Doppelpunkt, z.B. "name":
+ *
+ * @author Lars Sander, Alexander Löffler
+ *
+ */
+public abstract class FieldWriter {
+
+    private final Set<Object> above;
+
+    /**
+     * Konstruktor
+     *
+     * @param above alle Objekte, in denen die Felder enthalten sind, inklusive des Objektes selbst
+     */
+    FieldWriter(Set<Object> above) {
+        this.above = above;
+    }
+
+    /**
+     * Liefert alle Objekte, in denen die Felder enthalten sind.
+     *
+     * @return der Pfad für verschachtelte Werte
+     */
+    final Set<Object> getAbove() {
+        return above;
+    }
+
+    /**
+     * Schreibt ein ganzzahliges primitives Feld.
+     *
+     * @param key der fertige Schlüssel
+     * @param value der Wert
+     * @throws IOException Fehler beim Schreiben
+     */
+    public abstract void number(String key, long value) throws IOException;
+
+    /**
+     * Schreibt ein float-Feld.
+     *
+     * @param key der fertige Schlüssel
+     * @param value der Wert
+     * @throws IOException Fehler beim Schreiben
+     */
+    public abstract void number(String key, float value) throws IOException;
+
+    /**
+     * Schreibt ein double-Feld.
+     *
+     * @param key der fertige Schlüssel
+     * @param value der Wert
+     * @throws IOException Fehler beim Schreiben
+     */
+    public abstract void number(String key, double value) throws IOException;
+
+    /**
+     * Schreibt ein Feld ohne StoreAs-Annotation.
+     *
+     * @param key der fertige Schlüssel
+     * @param value der Wert
+     * @throws IOException Fehler beim Schreiben
+     */
+    public void value(String key, Object value) throws IOException {
+        value(key, value, null);
+    }
+
+    /**
+     * Schreibt ein Feld. Zyklische Referenzen und anonyme Klassen werden ausgelassen, null-Werte
+     * nur mit StoreAs-Annotation geschrieben.
+     *
+     * @param key der fertige Schlüssel
+     * @param value der Wert
+     * @param storeAs fertiger JSON-Wert aus der StoreAs-Annotation oder null
+     * @throws IOException Fehler beim Schreiben
+     */
+    public void value(String key, Object value, String storeAs) throws IOException {
+        if (begin(key, value, storeAs)) {
+            nested(value);
+        }
+    }
+
+    /**
+     * Beginnt ein Feld wie {@link #value(String, Object, String)}, schreibt aber keine
+     * verschachtelten Werte. Die Reflection in Wson schreibt sie selbst, um bei tiefen Graphen
+     * keinen zusätzlichen Stack-Frame pro Ebene zu benötigen.
+     *
+     * @param key der fertige Schlüssel
+     * @param value der Wert
+     * @param storeAs fertiger JSON-Wert aus der StoreAs-Annotation oder null
+     * @return true, wenn der Aufrufer value als Nächstes schreiben muss
+     * @throws IOException Fehler beim Schreiben
+     */
+    final boolean begin(String key, Object value, String storeAs) throws IOException {
+        if (above.contains(value)
+                || value != null && value.getClass().isAnonymousClass()
+                || value == null && storeAs == null) {
+            return false;
+        }
+
+        if (storeAs != null) {
+            storeAs(key, storeAs);
+            return false;
+        }
+        name(key);
+        return true;
+    }
+
+    /**
+     * Schreibt den Schlüssel eines Feldes, dessen Wert als Nächstes folgt.
+     *
+     * @param key der fertige Schlüssel
+     * @throws IOException Fehler beim Schreiben
+     */
+    abstract void name(String key) throws IOException;
+
+    /**
+     * Schreibt ein Feld mit dem Wert aus seiner StoreAs-Annotation.
+     *
+     * @param key der fertige Schlüssel
+     * @param json der Wert als JSON-String inklusive Anführungszeichen
+     * @throws IOException Fehler beim Schreiben
+     */
+    abstract void storeAs(String key, String json) throws IOException;
+
+    /**
+     * Schreibt einen verschachtelten Wert nach seinem Schlüssel.
+     *
+     * @param value der Wert
+     * @throws IOException Fehler beim Schreiben
+     */
+    abstract void nested(Object value) throws IOException;
+
+    /**
+     * Schreibt die Felder als JSON, durch Kommas getrennt.
+     */
+    static final class Json extends FieldWriter {
+
+        private final Wson wson;
+        private final JSONWriter w;
+        private boolean first = true;
+
+        /**
+         * Konstruktor
+         *
+         * @param wson schreibt verschachtelte Werte
+         * @param above alle Objekte, in denen die Felder enthalten sind
+         * @param w Ziel der Ausgabe
+         */
+        Json(Wson wson, Set<Object> above, JSONWriter w) {
+            super(above);
+            this.wson = wson;
+            this.w = w;
+        }
+
+        @Override
+        public void number(String key, long value) throws IOException {
+            name(key);
+            w.write(Long.toString(value));
+        }
+
+        @Override
+        public void number(String key, float value) throws IOException {
+            name(key);
+            w.write(Float.toString(value));
+        }
+
+        @Override
+        public void number(String key, double value) throws IOException {
+            name(key);
+            w.writeDouble(value);
+        }
+
+        @Override
+        void name(String key) throws IOException {
+            if (!first) {
+                w.write(',');
+            }
+            first = false;
+            w.write(key);
+        }
+
+        @Override
+        void storeAs(String key, String json) throws IOException {
+            name(key);
+            w.write(json);
+        }
+
+        @Override
+        void nested(Object value) throws IOException {
+            wson.toJsonHelper(value, getAbove(), w);
+        }
+    }
+
+    /**
+     * Schreibt die Felder im Binärformat von {@link BinaryWriter}. Die Namen der Felder und die
+     * Werte aus StoreAs-Annotationen werden einmal pro Schlüssel nach UTF-8 umgewandelt.
+     */
+    static final class Binary extends FieldWriter {
+
+        // Schlüssel stammen nur aus Plänen und Adaptern, die Menge ist daher begrenzt
+        private static final Map<String, byte[]> CONTENTS = new ConcurrentHashMap<>();
+
+        private final Wson wson;
+        private final BinaryWriter out;
+
+        /**
+         * Konstruktor
+         *
+         * @param wson schreibt verschachtelte Werte
+         * @param above alle Objekte, in denen die Felder enthalten sind
+         * @param out Ziel der Ausgabe
+         */
+        Binary(Wson wson, Set<Object> above, BinaryWriter out) {
+            super(above);
+            this.wson = wson;
+            this.out = out;
+        }
+
+        /**
+         * Liefert den Inhalt eines Schlüssels oder JSON-Strings ohne Anführungszeichen und
+         * Doppelpunkt als UTF-8.
+         *
+         * @param json der Schlüssel, z.B. "name": oder der String, z.B. "wert"
+         * @return die Bytes des Inhalts
+         */
+        private static byte[] content(String json) {
+            return CONTENTS.computeIfAbsent(json,
+                    k -> BinaryWriter.utf8(k.substring(1, k.lastIndexOf('"'))));
+        }
+
+        @Override
+        public void number(String key, long value) throws IOException {
+            name(key);
+            out.writeLong(value);
+        }
+
+        @Override
+        public void number(String key, float value) throws IOException {
+            name(key);
+            out.writeFloat(value);
+        }
+
+        @Override
+        public void number(String key, double value) throws IOException {
+            name(key);
+            out.writeDouble(value);
+        }
+
+        @Override
+        void name(String key) throws IOException {
+            out.writeName(content(key));
+        }
+
+        @Override
+        void storeAs(String key, String json) throws IOException {
+            name(key);
+            out.writeString(content(json));
+        }
+
+        @Override
+        void nested(Object value) throws IOException {
+            wson.toBinaryHelper(value, getAbove(), out);
+        }
+    }
+
+    /**
+     * Hält die Felder für {@link JsonPatch} fest: verschachtelte Objekte als eigene Map, alle
+     * anderen Werte als fertiges JSON, wie es {@link Json} schreiben würde.
+     */
+    static final class Snapshot extends FieldWriter {
+
+        private final Wson wson;
+        private final Map<String, Object> fields = new LinkedHashMap<>();
+        private String key;
+
+        /**
+         * Konstruktor
+         *
+         * @param wson schreibt verschachtelte Werte
+         * @param above alle Objekte, in denen die Felder enthalten sind
+         */
+        Snapshot(Wson wson, Set<Object> above) {
+            super(above);
+            this.wson = wson;
+        }
+
+        /**
+         * Liefert die festgehaltenen Felder.
+         *
+         * @return die Werte nach fertigem Schlüssel, in Ausgabereihenfolge
+         */
+        Map<String, Object> getFields() {
+            return fields;
+        }
+
+        @Override
+        public void number(String key, long value) throws IOException {
+            fields.put(key, Long.toString(value));
+        }
+
+        @Override
+        public void number(String key, float value) throws IOException {
+            fields.put(key, Float.toString(value));
+        }
+
+        @Override
+        public void number(String key, double value) throws IOException {
+            fields.put(key, NumberCodec.toString(value));
+        }
+
+        @Override
+        void name(String key) throws IOException {
+            this.key = key;
+        }
+
+        @Override
+        void storeAs(String key, String json) throws IOException {
+            fields.put(key, json);
+        }
+
+        @Override
+        void nested(Object value) throws IOException {
+            fields.put(key, wson.snapshotHelper(value, getAbove()));
+        }
+    }
+
+}
@@ -1,5 +1,6 @@
 package wson;
 
+import java.lang.reflect.Array;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
@@ -7,13 +8,11 @@ import java.lang.reflect.Modifier;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Set;
 
 /**
  * Enthält Hilfsmethoden für {@link Wson#fromJson} zur Konvertierung.
@@ -23,6 +22,329 @@ import java.util.Set;
  */
 class JSONReader {
 
+    /**
+     * Alle beschreibbaren Felder einer Klasse und ihrer Superklassen nach Namen, einmal pro Klasse
+     * ermittelt. Verdeckte Felder der Superklassen erhalten denselben Wert wie das verdeckende.
+     */
+    private static final ClassValue<Map<String, List<FieldAccessor>>> WRITABLE_FIELDS =
+            new ClassValue<Map<String, List<FieldAccessor>>>() {
+                @Override
+                protected Map<String, List<FieldAccessor>> computeValue(Class<?> type) {
+                    Map<String, List<FieldAccessor>> accessors = new HashMap<>();
+
+                    for (Class<?> cl = type; cl != null; cl = cl.getSuperclass()) {
+                        for (Field field : cl.getDeclaredFields()) {
+                            int mod = field.getModifiers();
+                            if (!Modifier.isFinal(mod) && !Modifier.isStatic(mod)) {
+                                accessors.computeIfAbsent(field.getName(), k -> new ArrayList<>())
+                                        .add(new FieldAccessor(field));
+                            }
+                        }
+                    }
+
+                    return Collections.unmodifiableMap(accessors);
+                }
+            };
+
+    /**
+     * Der öffentliche parameterlose Konstruktor einer Klasse, einmal pro Klasse gesucht. null,
+     * wenn die Klasse keinen hat.
+     */
+    private static final ClassValue<Constructor<?>> CONSTRUCTORS =
+            new ClassValue<Constructor<?>>() {
+                @Override
+                protected Constructor<?> computeValue(Class<?> type) {
+                    try {
+                        return type.getConstructor();
+                    } catch (NoSuchMethodException e) {
+                        return null;
+                    }
+                }
+            };
+
+    // Registrierte Untertypen oder null, wenn Typangaben nicht beachtet werden
+    private final SubtypeRegistry subtypes;
+
+    /**
+     * Konstruktor ohne Typangaben, es wird immer der deklarierte Typ erzeugt.
+     */
+    JSONReader() {
+        this(null);
+    }
+
+    /**
+     * Konstruktor
+     * 
+     * @param subtypes registrierte Untertypen, deren Typangaben beachtet werden, oder null
+     */
+    JSONReader(SubtypeRegistry subtypes) {
+        this.subtypes = subtypes;
+    }
+
+    /**
+     * Liest den nächsten Wert direkt aus dem Tokenizer in ein Element vom Typ T, ohne vorher einen
+     * Baum aus Maps und Listen aufzubauen. Objekte werden feldweise befüllt, unbekannte Schlüssel
+     * werden überlesen und primitive Zahlen ohne Boxing gesetzt. Alle Werte, für die es keinen
+     * direkten Weg gibt (Arrays, Listen, Maps, null, ...), werden wie bisher als Baum gelesen und
+     * mit {@link #convert} umgewandelt, das Ergebnis ist in jedem Fall dasselbe. Hat classOfT
+     * einen erzeugten {@link TypeAdapter}, befüllt dieser die Felder ohne Reflection. Beginnt
+     * das Objekt mit einer Typangabe aus der {@link SubtypeRegistry}, wird deren Klasse erzeugt.
+     * 
+     * @param <T> Der Typ des resultierenen Elementes
+     * @param in Tokenizer vor dem zu lesenden Wert
+     * @param classOfT Die Klasse des resultierenden Elementes
+     * @pre in != null
+     * @pre classOfT != null
+     * @return Das gelesene Element
+     * @throws JSONSyntaxException JSON Fehler
+     */
+    public <T> T read(JSONTokenizer in, Class<T> classOfT) throws JSONSyntaxException {
+        assert in != null;
+        assert classOfT != null;
+
+        int next = in.peekValue();
+        if (next == '[' && isPrimitiveArray(classOfT)) {
+            return classOfT.cast(readPrimitiveArray(in, classOfT));
+        }
+        if (next != '{' || !isBean(classOfT) || Iterable.class.isAssignableFrom(classOfT)) {
+            return convert(in.readElement(), classOfT);
+        }
+
+        in.beginObject();
+        String key = in.nextKey(true);
+        if (subtypes != null && subtypes.getProperty().equals(key) && in.peekValue() == '"') {
+            // Die Typangabe steht vor allen Feldern und bestimmt die zu erzeugende Klasse
+            Class<? extends T> type = subtypes.resolve(in.readString(), classOfT);
+            return readObject(in, type, in.nextKey(false));
+        }
+        return readObject(in, classOfT, key);
+    }
+
+    /**
+     * Erzeugt ein Objekt und befüllt es mit den restlichen Elementen des JSON-Objektes.
+     * 
+     * @param <T> Der Typ des resultierenen Elementes
+     * @param in Tokenizer vor dem Wert zum ersten Schlüssel
+     * @param classOfT Die Klasse des zu erzeugenden Objektes
+     * @param first der erste noch nicht gelesene Schlüssel oder null am Ende des Objektes
+     * @return Das gelesene Objekt oder null, wenn es nicht erzeugt werden konnte
+     * @throws JSONSyntaxException JSON Fehler
+     */
+    private <T> T readObject(JSONTokenizer in, Class<T> classOfT, String first)
+            throws JSONSyntaxException {
+        TypeAdapter<T> adapter = TypeAdapter.of(classOfT);
+        T result;
+        try {
+            // Konstruiere ein das result Objekt
+            result = adapter != null ? adapter.create() : newInstance(classOfT);
+        } catch (SecurityException | IllegalArgumentException | IllegalAccessException
+                | NoSuchMethodException | InstantiationException | InvocationTargetException e) {
+
+            e.printStackTrace();
+            for (String key = first; key != null; key = in.nextKey(false)) {
+                in.skipValue();
+            }
+            return null;
+        }
+
+        // Mit Adapter werden die Felder nur bei Bedarf über Reflection gesucht
+        Map<String, List<FieldAccessor>> fields =
+                adapter == null ? WRITABLE_FIELDS.get(classOfT) : null;
+        FieldReader fieldReader = adapter != null ? new FieldReader(in, this) : null;
+        IllegalArgumentException failure = null;
+
+        for (String key = first; key != null; key = in.nextKey(false)) {
+            try {
+                if (adapter == null) {
+                    readEntry(in, result, fields.get(key));
+                } else if (!adapter.read(result, key, fieldReader)) {
+                    in.skipValue();
+                }
+            } catch (IllegalArgumentException e) {
+                // Wie in convert ist das Ergebnis dann null, der Rest des Objektes muss aber
+                // trotzdem gelesen werden
+                failure = e;
+            }
+        }
+
+        if (failure != null) {
+            failure.printStackTrace();
+            return null;
+        }
+        return result;
+    }
+
+    /**
+     * Liest den Wert zu einem Schlüssel über Reflection in alle beschreibbaren Felder des
+     * übergebenen Namens.
+     * 
+     * @param in Tokenizer vor dem Wert
+     * @param target das zu befüllende Objekt
+     * @param key der Name der Felder
+     * @throws JSONSyntaxException JSON Fehler
+     * @throws IllegalArgumentException wenn der Wert nicht zu einem Feld passt
+     */
+    void readField(JSONTokenizer in, Object target, String key) throws JSONSyntaxException {
+        readEntry(in, target, WRITABLE_FIELDS.get(target.getClass()).get(key));
+    }
+
+    /**
+     * Setzt alle beschreibbaren Felder des übergebenen Namens auf null, wie es fromJson für ein
+     * fehlendes Feld eines neuen Objektes ergibt.
+     * 
+     * @param target das zu ändernde Objekt
+     * @param key der Name der Felder
+     * @throws IllegalArgumentException wenn ein Feld einen primitiven Typ hat
+     */
+    void clearField(Object target, String key) {
+        List<FieldAccessor> accessors = WRITABLE_FIELDS.get(target.getClass()).get(key);
+        if (accessors != null) {
+            for (FieldAccessor accessor : accessors) {
+                accessor.set(target, null);
+            }
+        }
+    }
+
+    /**
+     * Liest den Wert zu einem Schlüssel in die übergebenen Felder.
+     * 
+     * @param in Tokenizer vor dem Wert
+     * @param target das zu befüllende Objekt
+     * @param accessors die Felder zum Schlüssel oder null, um den Wert zu überlesen
+     * @throws JSONSyntaxException JSON Fehler
+     * @throws IllegalArgumentException wenn der Wert nicht zu einem Feld passt
+     */
+    private void readEntry(JSONTokenizer in, Object target, List<FieldAccessor> accessors)
+            throws JSONSyntaxException {
+        if (accessors == null) {
+            in.skipValue();
+        } else if (accessors.size() == 1) {
+            readField(in, target, accessors.get(0));
+        } else {
+            // Verdeckte Felder: der Wert wird für jedes Feld einzeln umgewandelt
+            Object entry = in.readElement();
+            for (FieldAccessor accessor : accessors) {
+                Field field = accessor.getField();
+                accessor.set(target, convertEntry(field.getType(), entry, field));
+            }
+        }
+    }
+
+    /**
+     * Liest den Wert eines einzelnen Feldes aus dem Tokenizer und setzt ihn.
+     * 
+     * @param in Tokenizer vor dem Wert
+     * @param target das zu befüllende Objekt
+     * @param accessor das Feld
+     * @throws JSONSyntaxException JSON Fehler
+     */
+    private void readField(JSONTokenizer in, Object target, FieldAccessor accessor)
+            throws JSONSyntaxException {
+        Field field = accessor.getField();
+        Class<?> type = field.getType();
+        int next = in.peekValue();
+
+        boolean number = next == '-' || next >= '0' && next <= '9';
+        if (number && accessor.hasLongSetter()) {
+            // long-Felder exakt, ohne Umweg über double
+            accessor.setLong(target, in.readIntegral());
+        } else if (number && type == Long.class) {
+            accessor.set(target, in.readIntegral());
+        } else if (number && accessor.hasDoubleSetter()) {
+            // Primitive Zahlen direkt aus dem geparsten double setzen
+            accessor.setDouble(target, in.readNumber());
+        } else if (next == '{' && isBean(type)) {
+            accessor.set(target, read(in, type));
+        } else if (next == '"' && (type == String.class || type == Object.class)) {
+            accessor.set(target, in.readString());
+        } else if (next == '[' && isPrimitiveArray(type)) {
+            accessor.set(target, readPrimitiveArray(in, type));
+        } else {
+            accessor.set(target, convertEntry(type, in.readElement(), field));
+        }
+    }
+
+    /**
+     * Liest ein ein- oder mehrdimensionales Array eines primitiven Typs direkt aus dem Tokenizer,
+     * ohne die Elemente als Double zwischenzuspeichern.
+     * 
+     * @param in Tokenizer vor dem Array
+     * @param type Typ des Arrays
+     * @pre isPrimitiveArray(type)
+     * @return das gelesene Array
+     * @throws JSONSyntaxException JSON Fehler
+     */
+    private static Object readPrimitiveArray(JSONTokenizer in, Class<?> type)
+            throws JSONSyntaxException {
+        Class<?> component = type.getComponentType();
+        if (component.isPrimitive()) {
+            return PrimitiveArrays.read(in, component);
+        }
+
+        List<Object> rows = new ArrayList<>();
+        in.beginArray();
+        for (boolean first = true; in.hasNextElement(first); first = false) {
+            rows.add(readPrimitiveArray(in, component));
+        }
+
+        Object result = Array.newInstance(component, rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            Array.set(result, i, rows.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Prüft, ob ein Typ ein ein- oder mehrdimensionales Array eines primitiven Typs ist.
+     * 
+     * @param type der Typ
+     * @return true z.B. für int[] und double[][]
+     */
+    private static boolean isPrimitiveArray(Class<?> type) {
+        if (!type.isArray()) {
+            return false;
+        }
+        Class<?> component = type.getComponentType();
+        while (component.isArray()) {
+            component = component.getComponentType();
+        }
+        return component.isPrimitive();
+    }
+
+    /**
+     * Erzeugt ein Objekt über den zwischengespeicherten parameterlosen Konstruktor.
+     * 
+     * @param <T> Der Typ des Objektes
+     * @param type die Klasse des Objektes
+     * @return das neue Objekt
+     * @throws NoSuchMethodException wenn die Klasse keinen öffentlichen parameterlosen
+     *             Konstruktor hat
+     * @throws InstantiationException wenn die Klasse abstrakt ist
+     * @throws IllegalAccessException wenn der Konstruktor nicht zugreifbar ist
+     * @throws InvocationTargetException wenn der Konstruktor eine Exception wirft
+     */
+    private static <T> T newInstance(Class<T> type) throws NoSuchMethodException,
+            InstantiationException, IllegalAccessException, InvocationTargetException {
+        Constructor<?> constructor = CONSTRUCTORS.get(type);
+        if (constructor == null) {
+            throw new NoSuchMethodException(type.getName() + ".<init>()");
+        }
+        return type.cast(constructor.newInstance());
+    }
+
+    /**
+     * Prüft, ob ein Typ von {@link #convertEntry} als Objekt mit Feldern behandelt wird.
+     * 
+     * @param type der Typ
+     * @return true, wenn die Felder einzeln aus dem JSON-Objekt befüllt werden
+     */
+    static boolean isBean(Class<?> type) {
+        return !type.isPrimitive() && !type.isArray() && type != Object.class
+                && type != String.class && type != Boolean.class && type != Character.class
+                && !Number.class.isAssignableFrom(type) && !List.class.isAssignableFrom(type)
+                && !Map.class.isAssignableFrom(type);
+    }
+
     /**
      * Konvertiert das Übergebene Element in ein Element von Typ T
      * 
@@ -56,24 +378,36 @@ class JSONReader {
 
                 Map<?, ?> newEntrys = (HashMap<?, ?>) value;
 
-                // Konstruiere ein das result Objekt
-                Constructor<T> constructor = classOfT.getConstructor();
-                Object result = constructor.newInstance();
+                Class<? extends T> type = classOfT;
+                Object tag = subtypes != null ? newEntrys.get(subtypes.getProperty()) : null;
+                if (tag instanceof String) {
+                    type = subtypes.resolve((String) tag, classOfT);
+                }
 
-                // Hole alle Felder des result Objektes
-                Set<Field> fields = new HashSet<Field>();
-                fields.addAll(getAllFieldsFiltered(result));
+                // Konstruiere ein das result Objekt
+                Object result = newInstance(type);
 
                 // Wandle für jedes Feld den Eintrag in den gewünschten Typen
-                for (Field field : fields) {
+                for (Entry<String, List<FieldAccessor>> named : WRITABLE_FIELDS.get(type)
+                        .entrySet()) {
+                    if (!newEntrys.containsKey(named.getKey())) {
+                        continue;
+                    }
 
-                    if (newEntrys.containsKey(field.getName())) {
+                    Object newEntry = newEntrys.get(named.getKey());
 
-                        Object newEntry = newEntrys.get(field.getName());
-                        Object newEntryConverted;
+                    for (FieldAccessor accessor : named.getValue()) {
+                        Field field = accessor.getField();
 
-                        newEntryConverted = convertEntry(field.getType(), newEntry, field);
-                        field.set(result, newEntryConverted);
+                        // Primitive Zahlen direkt aus dem geparsten double setzen
+                        if (accessor.hasDoubleSetter() && newEntry instanceof Double) {
+                            accessor.setDouble(result, (Double) newEntry);
+                        } else if (accessor.hasLongSetter() && newEntry instanceof Long) {
+                            // Große ganze Zahlen aus dem Binärformat exakt setzen
+                            accessor.setLong(result, (Long) newEntry);
+                        } else {
+                            accessor.set(result, convertEntry(field.getType(), newEntry, field));
+                        }
                     }
                 }
 
@@ -88,44 +422,6 @@ class JSONReader {
         return null;
     }
 
-    /**
-     * Gibt eine Menge von Felder für das Übergebene Objekt zurück
-     * 
-     * @param src Das Objekt, welche Felder ausgelesen werden sollen
-     * @pre src darf nicht Null sein
-     * @return Ein Set von Feldern
-     */
-    private Set<Field> getAllFieldsFiltered(Object src) {
-        assert (src != null);
-
-        Class<?> cl = src.getClass();
-
-        Set<Field> fieldsSet = new HashSet<Field>();
-        Set<Field> result = new HashSet<Field>();
-
-        fieldsSet.addAll(Arrays.asList(cl.getFields()));
-        fieldsSet.addAll(Arrays.asList(cl.getDeclaredFields()));
-
-        while (cl.getSuperclass() != null) {
-            cl = cl.getSuperclass();
-            fieldsSet.addAll(Arrays.asList(cl.getDeclaredFields()));
-        }
-
-        // Geht alle Felder durch und markiert sie entsprechend und fügt nur die gewünschten Hinzu
-        for (Field field : fieldsSet) {
-            if (!Modifier.isFinal(field.getModifiers())) {
-                if (Modifier.isPrivate(field.getModifiers())
-                        || Modifier.isProtected(field.getModifiers())
-                        || field.getModifiers() == 0) {
-                    field.setAccessible(true);
-                }
-                result.add(field);
-            }
-        }
-
-        return result;
-    }
-
     /**
      * Konvertiert einen Eintrag in das gewünschte Objekt, jeh nach Zieltyp
      * 
@@ -289,14 +585,17 @@ class JSONReader {
 
         if ((1 + desiredType.getName().lastIndexOf('[')) > 1) {
 
-            Object[] result2 = new Object[entryArrayList.size()];
+            // Das Ergebnis muss den Zeilentyp haben, ein Object[] lässt sich nicht z.B. in ein
+            // int[][] casten
+            Object result2 = Array.newInstance(desiredType.getComponentType(),
+                    entryArrayList.size());
 
             for (int i = 0; i < entryArrayList.size(); i++) {
 
                 Object ele =
                         convertArrayListMult(entryArrayList.get(i), desiredType.getComponentType());
 
-                result2[i] = ele;
+                Array.set(result2, i, ele);
             }
             return desiredType.cast(result2);
 
@@ -365,6 +664,30 @@ class JSONReader {
                     result[i] = (int) convertNumber(int.class, entryArrayList.get(i));
                 }
 
+                return result;
+            } else if (arrayType == double.class) {
+
+                double[] result = new double[entryArrayList.size()];
+                for (int i = 0; i < entryArrayList.size(); i++) {
+                    result[i] = (double) convertNumber(double.class, entryArrayList.get(i));
+                }
+
+                return result;
+            } else if (arrayType == char.class) {
+
+                char[] result = new char[entryArrayList.size()];
+                for (int i = 0; i < entryArrayList.size(); i++) {
+                    result[i] = (char) convertString(char.class, entryArrayList.get(i));
+                }
+
+                return result;
+            } else if (arrayType == boolean.class) {
+
+                boolean[] result = new boolean[entryArrayList.size()];
+                for (int i = 0; i < entryArrayList.size(); i++) {
+                    result[i] = (boolean) entryArrayList.get(i);
+                }
+
                 return result;
             } else if (!arrayType.isPrimitive()) {
                 constructor = desiredType.getConstructor();
@@ -396,7 +719,8 @@ class JSONReader {
      * Konvertiert die übergebene Zahl in den gewünschten Typen
      * 
      * @param desiredType Der Typ des resultierenden Objektes
-     * @param doubleNumber Die übergebene Zahl
+     * @param doubleNumber Die übergebene Zahl, ein Double oder ein exakter Long aus
+     *            {@link BinaryReader}
      * @pre desiredType darf nicht null sein
      * @pre doubleNumber darf nicht null sein
      * @return Die Konvertierte Zahl
@@ -405,7 +729,11 @@ class JSONReader {
         assert (desiredType != null);
         assert (doubleNumber != null);
 
-        double number = (double) doubleNumber;
+        if (doubleNumber instanceof Long
+                && (desiredType == long.class || desiredType == Long.class)) {
+            return (Long) doubleNumber;
+        }
+        double number = ((Number) doubleNumber).doubleValue();
 
         if (desiredType == float.class || desiredType == Float.class) {
             return (float) number;
@@ -0,0 +1,473 @@
+package wson;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+/**
+ * Liest JSON Token für Token aus einem Reader, ohne das Dokument als Ganzes aufzubauen. Der
+ * Speicherbedarf hängt nur vom längsten einzelnen Token und der Schachtelungstiefe ab, sodass auch
+ * Dokumente verarbeitet werden können, die nicht in den Speicher passen.
+ * 
+ * Beispiel für ein Array von Objekten mit einem Feld "id":
+ * 
+ * <pre>
+ * r.beginArray();
+ * while (r.hasNext()) {
+ *     r.beginObject();
+ *     while (r.hasNext()) {
+ *         if (r.nextName().equals("id")) {
+ *             sum += r.nextLong();
+ *         } else {
+ *             r.skipValue();
+ *         }
+ *     }
+ *     r.endObject();
+ * }
+ * r.endArray();
+ * </pre>
+ * 
+ * Passt der Aufruf nicht zur Eingabe, z.B. nextName innerhalb eines Arrays, wird eine
+ * JSONSyntaxException geworfen. Danach ist der Zustand des Readers undefiniert.
+ * 
+ * @author Lars Sander, Alexander Löffler
+ * 
+ */
+public final class JSONStreamReader implements Closeable {
+
+    private static final int INITIAL_DEPTH = 32;
+
+    // Zustände der geöffneten Ebenen
+    private static final int DOCUMENT_START = 0;
+    private static final int DOCUMENT_END = 1;
+    private static final int ARRAY_START = 2;
+    private static final int ARRAY_AFTER_VALUE = 3;
+    private static final int ARRAY_AFTER_COMMA = 4;
+    private static final int OBJECT_START = 5;
+    private static final int OBJECT_AFTER_VALUE = 6;
+    private static final int OBJECT_AFTER_COMMA = 7;
+    private static final int OBJECT_AFTER_NAME = 8;
+
+    private final Reader source;
+    private final JSONTokenizer in;
+    private int[] stack = new int[INITIAL_DEPTH];
+    private int depth = 1;
+
+    /**
+     * Konstruktor
+     * 
+     * @param source die Eingabe, wird intern gepuffert
+     * @pre source != null
+     */
+    public JSONStreamReader(Reader source) {
+        assert source != null;
+
+        this.source = source;
+        this.in = new JSONTokenizer(source);
+        stack[0] = DOCUMENT_START;
+    }
+
+    /**
+     * Art des nächsten Tokens, siehe {@link JSONStreamReader#peek}.
+     */
+    public enum Token {
+        /** "[" */
+        BEGIN_ARRAY,
+        /** "]" */
+        END_ARRAY,
+        /** "{" */
+        BEGIN_OBJECT,
+        /** "}" */
+        END_OBJECT,
+        /** Schlüssel innerhalb eines Objektes */
+        NAME,
+        /** String-Wert */
+        STRING,
+        /** Zahl */
+        NUMBER,
+        /** true oder false */
+        BOOLEAN,
+        /** null */
+        NULL,
+        /** Ende der Eingabe */
+        END_DOCUMENT
+    }
+
+    /**
+     * Liefert die Art des nächsten Tokens, ohne es zu verbrauchen.
+     * 
+     * @return die Art des Tokens
+     * @throws IOException Fehler beim Lesen
+     * @throws JSONSyntaxException Syntaxfehler beim Einlesen
+     */
+    public Token peek() throws IOException, JSONSyntaxException {
+        int character = peekChar();
+        int state = stack[depth - 1];
+
+        if (state == DOCUMENT_END) {
+            return Token.END_DOCUMENT;
+        }
+        if (state == OBJECT_START || state == OBJECT_AFTER_COMMA) {
+            return character == '"' ? Token.NAME : Token.END_OBJECT;
+        }
+
+        switch (character) {
+            case '[':
+                return Token.BEGIN_ARRAY;
+            case ']':
+                return Token.END_ARRAY;
+            case '{':
+                return Token.BEGIN_OBJECT;
+            case '}':
+                return Token.END_OBJECT;
+            case '"':
+                return Token.STRING;
+            case 't':
+            case 'f':
+                return Token.BOOLEAN;
+            case 'n':
+                return Token.NULL;
+            case -1:
+                return Token.END_DOCUMENT;
+            default:
+                return Token.NUMBER;
+        }
+    }
+
+    /**
+     * Prüft, ob im aktuellen Array oder Objekt ein weiteres Element folgt.
+     * 
+     * @return false vor "]", "}" und am Ende des Dokumentes
+     * @throws IOException Fehler beim Lesen
+     * @throws JSONSyntaxException Syntaxfehler beim Einlesen
+     */
+    public boolean hasNext() throws IOException, JSONSyntaxException {
+        int character = peekChar();
+        return character != ']' && character != '}' && character != -1
+                && stack[depth - 1] != DOCUMENT_END;
+    }
+
+    /**
+     * Verbraucht den Anfang eines Arrays.
+     * 
+     * @throws IOException Fehler beim Lesen
+     * @throws JSONSyntaxException wenn kein Array folgt
+     */
+    public void beginArray() throws IOException, JSONSyntaxException {
+        beforeValue();
+        try {
+            in.beginArray();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        push(ARRAY_START);
+    }
+
+    /**
+     * Verbraucht das Ende des aktuellen Arrays.
+     * 
+     * @throws IOException Fehler beim Lesen
+     * @throws JSONSyntaxException wenn das Array noch nicht zu Ende ist
+     */
+    public void endArray() throws IOException, JSONSyntaxException {
+        int character = peekChar();
+        int state = stack[depth - 1];
+        if (character != ']' || state != ARRAY_START && state != ARRAY_AFTER_VALUE) {
+            throw new JSONSyntaxException("Expected: ]");
+        }
+        consume(']');
+        depth--;
+    }
+
+    /**
+     * Verbraucht den Anfang eines Objektes.
+     * 
+     * @throws IOException Fehler beim Lesen
+     * @throws JSONSyntaxException wenn kein Objekt folgt
+     */
+    public void beginObject() throws IOException, JSONSyntaxException {
+        beforeValue();
+        try {
+            in.beginObject();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        push(OBJECT_START);
+    }
+
+    /**
+     * Verbraucht das Ende des aktuellen Objektes.
+     * 
+     * @throws IOException Fehler beim Lesen
+     * @throws JSONSyntaxException wenn das Objekt noch nicht zu Ende ist
+     */
+    public void endObject() throws IOException, JSONSyntaxException {
+        int character = peekChar();
+        int state = stack[depth - 1];
+        if (character != '}' || state != OBJECT_START && state != OBJECT_AFTER_VALUE) {
+            throw new JSONSyntaxException("Expected: }");
+        }
+        consume('}');
+        depth--;
+    }
+
+    /**
+     * Liest den nächsten Schlüssel des aktuellen Objektes inklusive des folgenden ":".
+     * 
+     * @return der Schlüssel
+     * @throws IOException Fehler beim Lesen
+     * @throws JSONSyntaxException wenn kein Schlüssel folgt
+     */
+    public String nextName() throws IOException, JSONSyntaxException {
+        int character = peekChar();
+        int state = stack[depth - 1];
+        if (character != '"' || state != OBJECT_START && state != OBJECT_AFTER_COMMA) {
+            throw new JSONSyntaxException("Expected: name");
+        }
+        try {
+            String name = in.readKey();
+            in.expect(':');
+            stack[depth - 1] = OBJECT_AFTER_NAME;
+            return name;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Liest einen String-Wert.
+     * 
+     * @return der String
+     * @throws IOException Fehler beim Lesen
+     * @throws JSONSyntaxException wenn kein String folgt
+     */
+    public String nextString() throws IOException, JSONSyntaxException {
+        if (beforeValue() != '"') {
+            throw new JSONSyntaxException("Expected: string");
+        }
+        try {
+            return in.readString();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Liest eine Zahl als double.
+     * 
+     * @return die Zahl
+     * @throws IOException Fehler beim Lesen
+     * @throws JSONSyntaxException wenn keine Zahl folgt
+     */
+    public double nextDouble() throws IOException, JSONSyntaxException {
+        beforeNumber();
+        try {
+            return in.readNumber();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Liest eine ganze Zahl exakt, auch außerhalb des Bereichs, in dem double exakt ist.
+     * 
+     * @return die Zahl
+     * @throws IOException Fehler beim Lesen
+     * @throws JSONSyntaxException wenn keine ganze Zahl im Bereich von long folgt
+     */
+    public long nextLong() throws IOException, JSONSyntaxException {
+        beforeNumber();
+        try {
+            return in.readLong();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Liest true oder false.
+     * 
+     * @return der Wert
+     * @throws IOException Fehler beim Lesen
+     * @throws JSONSyntaxException wenn kein Boolean folgt
+     */
+    public boolean nextBoolean() throws IOException, JSONSyntaxException {
+        beforeValue();
+        try {
+            return in.readBoolean();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Verbraucht ein null.
+     * 
+     * @throws IOException Fehler beim Lesen
+     * @throws JSONSyntaxException wenn kein null folgt
+     */
+    public void nextNull() throws IOException, JSONSyntaxException {
+        beforeValue();
+        try {
+            in.readNull();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Überliest den nächsten Wert inklusive aller enthaltenen Werte. Steht der Reader vor einem
+     * Schlüssel, werden Schlüssel und Wert überlesen.
+     * 
+     * @throws IOException Fehler beim Lesen
+     * @throws JSONSyntaxException Syntaxfehler beim Einlesen
+     */
+    public void skipValue() throws IOException, JSONSyntaxException {
+        if (peek() == Token.NAME) {
+            nextName();
+        }
+        beforeValue();
+        try {
+            in.skipValue();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Liest den nächsten Wert über {@link JSONReader} als Objekt der übergebenen Klasse ein.
+     * 
+     * @param reader der JSONReader
+     * @param classOfT Klasse des Wertes
+     * @param <T> Typ des Wertes
+     * @return der Wert
+     * @throws JSONSyntaxException Syntaxfehler beim Einlesen
+     */
+    <T> T nextValue(JSONReader reader, Class<T> classOfT) throws JSONSyntaxException {
+        try {
+            beforeValue();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return reader.read(in, classOfT);
+    }
+
+    /**
+     * Schließt den zugrundeliegenden Reader.
+     * 
+     * @throws IOException Fehler beim Schließen
+     */
+    @Override
+    public void close() throws IOException {
+        source.close();
+    }
+
+    /**
+     * Liefert das erste Zeichen des nächsten Tokens. Ein "," zwischen zwei Elementen wird dabei
+     * verbraucht und im Zustand vermerkt.
+     * 
+     * @return das Zeichen oder -1 am Ende der Eingabe
+     * @throws IOException Fehler beim Lesen
+     * @throws JSONSyntaxException wenn nach einem Element weder "," noch das Ende folgt
+     */
+    private int peekChar() throws IOException, JSONSyntaxException {
+        try {
+            int character = in.peekValue();
+            int state = stack[depth - 1];
+
+            if (state == ARRAY_AFTER_VALUE || state == OBJECT_AFTER_VALUE) {
+                char close = state == ARRAY_AFTER_VALUE ? ']' : '}';
+                if (character == ',') {
+                    in.expect(',');
+                    stack[depth - 1] = state == ARRAY_AFTER_VALUE ? ARRAY_AFTER_COMMA
+                            : OBJECT_AFTER_COMMA;
+                    character = in.peekValue();
+                } else if (character != close) {
+                    throw new JSONSyntaxException("Syntax error at: " + (char) character
+                            + ". Expected: " + close);
+                }
+            }
+            if (character == -1 && depth > 1) {
+                throw new JSONSyntaxException("reached file end to soon.");
+            }
+            return character;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Prüft, ob an der aktuellen Stelle ein Wert stehen darf, und aktualisiert den Zustand.
+     * 
+     * @return das erste Zeichen des Wertes
+     * @throws IOException Fehler beim Lesen
+     * @throws JSONSyntaxException wenn hier kein Wert stehen darf
+     */
+    private int beforeValue() throws IOException, JSONSyntaxException {
+        int character = peekChar();
+
+        switch (stack[depth - 1]) {
+            case DOCUMENT_START:
+                stack[depth - 1] = DOCUMENT_END;
+                break;
+            case ARRAY_START:
+            case ARRAY_AFTER_COMMA:
+                if (character == ']') {
+                    throw new JSONSyntaxException("Expected: value");
+                }
+                stack[depth - 1] = ARRAY_AFTER_VALUE;
+                break;
+            case OBJECT_AFTER_NAME:
+                stack[depth - 1] = OBJECT_AFTER_VALUE;
+                break;
+            case DOCUMENT_END:
+                throw new JSONSyntaxException("Expected: end of document");
+            default:
+                throw new JSONSyntaxException("Expected: name");
+        }
+        return character;
+    }
+
+    /**
+     * Wie {@link #beforeValue}, prüft zusätzlich, ob eine Zahl folgt.
+     * 
+     * @throws IOException Fehler beim Lesen
+     * @throws JSONSyntaxException wenn keine Zahl folgt
+     */
+    private void beforeNumber() throws IOException, JSONSyntaxException {
+        int character = beforeValue();
+        if (character != '-' && (character < '0' || character > '9')) {
+            throw new JSONSyntaxException("Expected: number");
+        }
+    }
+
+    /**
+     * Verbraucht das erwartete Zeichen.
+     * 
+     * @param expected das Zeichen
+     * @throws IOException Fehler beim Lesen
+     * @throws JSONSyntaxException wenn ein anderes Zeichen folgt
+     */
+    private void consume(char expected) throws IOException, JSONSyntaxException {
+        try {
+            in.expect(expected);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Öffnet eine neue Ebene.
+     * 
+     * @param state Anfangszustand der Ebene
+     */
+    private void push(int state) {
+        if (depth == stack.length) {
+            stack = Arrays.copyOf(stack, depth * 2);
+        }
+        stack[depth++] = state;
+    }
+
+}
@@ -0,0 +1,851 @@
+package wson;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Schneller Ersatz für {@link JSONParser}, der direkt auf einem char-Array arbeitet. Statt eines
+ * PushbackReaders wird nur ein Index verschoben, Strings ohne Escape-Sequenzen werden in einem
+ * Stück aus dem Array kopiert und Zahlen werden ohne Zwischenstring geparst.
+ * 
+ * Das Ergebnis entspricht dem von {@link JSONParser#readElement}: Objekte werden zu HashMaps,
+ * Arrays zu ArrayLists, Zahlen zu Double. Anders als JSONParser werden leere Arrays akzeptiert.
+ * 
+ * Über einen Reader wird die Eingabe blockweise gelesen. Bereits verarbeitete Zeichen werden beim
+ * Nachladen verworfen, der Puffer wächst nur, wenn ein einzelnes Token nicht hineinpasst. Fehler
+ * beim Lesen werden als UncheckedIOException weitergegeben.
+ * 
+ * @author Lars Sander, Alexander Löffler
+ * 
+ */
+final class JSONTokenizer {
+
+    private static final int RADIX = 10;
+
+    // Bis zu dieser Stellenzahl kann die Mantisse nicht überlaufen
+    private static final int MAX_DIGITS = 18;
+
+    // Ganze Zahlen bis 2^53 sind als double exakt darstellbar
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    private static final int MAX_EXPONENT = 1000;
+
+    // Exakt darstellbare Zehnerpotenzen für den schnellen Pfad beim Parsen von Zahlen
+    private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8,
+        1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private static final double TWO_POW_63 = 0x1p63;
+
+    private final Reader source;
+    private char[] buf;
+    private int limit;
+    private int pos;
+    private boolean exhausted;
+
+    // true, wenn der zuletzt mit stringEnd gefundene String Escape-Sequenzen enthält
+    private boolean escapes;
+
+    /**
+     * Tokenizer über einen Ausschnitt eines char-Arrays. Das Array wird nicht kopiert und darf
+     * während des Parsens nicht verändert werden.
+     * 
+     * @param buf die Zeichen
+     * @param start erstes zu lesendes Zeichen
+     * @param end Index hinter dem letzten zu lesenden Zeichen
+     * @pre buf != null
+     * @pre 0 kleiner gleich start kleiner gleich end kleiner gleich buf.length
+     */
+    JSONTokenizer(char[] buf, int start, int end) {
+        assert buf != null;
+        assert 0 <= start && start <= end && end <= buf.length;
+
+        this.source = null;
+        this.buf = buf;
+        this.pos = start;
+        this.limit = end;
+    }
+
+    /**
+     * Tokenizer über einen Reader. Es werden immer nur so viele Zeichen gepuffert, wie für das
+     * aktuelle Token nötig sind.
+     * 
+     * @param source die Eingabe
+     * @pre source != null
+     */
+    JSONTokenizer(Reader source) {
+        assert source != null;
+
+        this.source = source;
+        this.buf = new char[DEFAULT_BUFFER_SIZE];
+    }
+
+    /**
+     * Tokenizer über einen String.
+     * 
+     * @param json der JSON-String
+     * @pre json != null
+     */
+    JSONTokenizer(String json) {
+        this(json.toCharArray(), 0, json.length());
+    }
+
+    /**
+     * Tokenizer über UTF-8-kodierte Bytes. Die Bytes werden einmal in ein char-Array dekodiert.
+     * 
+     * @param utf8 die Bytes
+     * @pre utf8 != null
+     */
+    JSONTokenizer(byte[] utf8) {
+        this(decode(utf8));
+    }
+
+    /**
+     * Hilfskonstruktor für {@link #JSONTokenizer(byte[])}.
+     * 
+     * @param chars dekodierte Zeichen
+     */
+    private JSONTokenizer(CharBuffer chars) {
+        this(chars.array(), chars.arrayOffset() + chars.position(),
+                chars.arrayOffset() + chars.limit());
+    }
+
+    /**
+     * Dekodiert UTF-8 in einen CharBuffer mit zugänglichem Array.
+     * 
+     * @param utf8 die Bytes
+     * @return die Zeichen
+     */
+    private static CharBuffer decode(byte[] utf8) {
+        return StandardCharsets.UTF_8.decode(ByteBuffer.wrap(utf8));
+    }
+
+    /**
+     * Lädt weitere Zeichen aus dem Reader nach. Alles vor pos wird dabei verworfen und der Rest an
+     * den Anfang des Puffers verschoben; Indizes ab pos müssen danach relativ zu pos neu berechnet
+     * werden. Ist der Puffer schon ab pos voll, wird er vergrößert.
+     * 
+     * @return true, wenn mindestens ein Zeichen hinzugekommen ist
+     */
+    private boolean refill() {
+        if (source == null || exhausted) {
+            return false;
+        }
+
+        if (pos > 0) {
+            System.arraycopy(buf, pos, buf, 0, limit - pos);
+            limit -= pos;
+            pos = 0;
+        }
+        if (limit == buf.length) {
+            buf = Arrays.copyOf(buf, buf.length * 2);
+        }
+
+        try {
+            int n;
+            do {
+                n = source.read(buf, limit, buf.length - limit);
+            } while (n == 0);
+
+            if (n < 0) {
+                exhausted = true;
+                return false;
+            }
+            limit += n;
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Überliest alle Whitespaces.
+     */
+    private void skipWhitespace() {
+        do {
+            while (pos < limit && Character.isWhitespace(buf[pos])) {
+                pos++;
+            }
+        } while (pos == limit && refill());
+    }
+
+    /**
+     * Liefert das nächste Zeichen, ohne es zu verbrauchen.
+     * 
+     * @return das Zeichen oder -1 am Ende der Eingabe
+     */
+    private int peek() {
+        return pos < limit || refill() ? buf[pos] : -1;
+    }
+
+    /**
+     * Liest das nächste Zeichen.
+     * 
+     * @return das Zeichen oder -1 am Ende der Eingabe
+     */
+    private int read() {
+        return pos < limit || refill() ? buf[pos++] : -1;
+    }
+
+    /**
+     * Prüft, ob das Zeichen ein Schlüsselwort oder eine Zahl beendet.
+     * 
+     * @param c das Zeichen
+     * @return true für Whitespace, "}", "]" und ","
+     */
+    private static boolean isDelimiter(char c) {
+        return c == ',' || c == '}' || c == ']' || Character.isWhitespace(c);
+    }
+
+    /**
+     * Liefert das Ende des Schlüsselwortes oder der Zahl ab pos. Das ganze Token liegt danach im
+     * Puffer; pos kann sich durch Nachladen verschoben haben.
+     * 
+     * @return Index des ersten Trennzeichens oder das Ende der Eingabe
+     */
+    private int tokenEnd() {
+        int p = pos;
+        while (true) {
+            while (p < limit && !isDelimiter(buf[p])) {
+                p++;
+            }
+            if (p < limit) {
+                return p;
+            }
+
+            int offset = p - pos;
+            boolean more = refill();
+            p = pos + offset;
+            if (!more) {
+                return p;
+            }
+        }
+    }
+
+    /**
+     * Sucht das schließende Anführungszeichen des Strings ab pos. Der ganze String liegt danach im
+     * Puffer; pos kann sich durch Nachladen verschoben haben. Ob der String Escape-Sequenzen
+     * enthält, steht anschließend in escapes.
+     * 
+     * @pre an pos steht ein "
+     * @return Index des schließenden Anführungszeichens
+     * @throws JSONSyntaxException wenn die Eingabe vor dem Stringende endet
+     */
+    private int stringEnd() throws JSONSyntaxException {
+        int p = pos + 1;
+        boolean escaped = false;
+        while (true) {
+            while (p < limit) {
+                char c = buf[p];
+                if (c == '"') {
+                    escapes = escaped;
+                    return p;
+                }
+                if (c == '\\') {
+                    // Das maskierte Zeichen wird übersprungen
+                    escaped = true;
+                    p++;
+                }
+                p++;
+            }
+
+            int offset = p - pos;
+            boolean more = refill();
+            p = pos + offset;
+            if (!more) {
+                // Dateiende vor Stringende erreicht
+                throw new JSONSyntaxException("Reached file end to soon");
+            }
+        }
+    }
+
+    /**
+     * Liest einen unbekannten Wert ein.
+     * 
+     * @return das eingelesene Element
+     * @throws JSONSyntaxException Syntaxfehler beim Einlesen
+     */
+    Object readElement() throws JSONSyntaxException {
+        skipWhitespace();
+
+        int character = peek();
+        switch (character) {
+            case '{':
+                return readObject();
+            case '[':
+                return readArray();
+            case '"':
+                return readString();
+            case 't':
+            case 'f':
+                return readBoolean();
+            case 'n':
+                readNull();
+                return null;
+            case '0':
+            case '1':
+            case '2':
+            case '3':
+            case '4':
+            case '5':
+            case '6':
+            case '7':
+            case '8':
+            case '9':
+            case '-':
+                return readNumber();
+            default:
+                throw new JSONSyntaxException("no value starts with: " + character);
+        }
+    }
+
+    /**
+     * Liefert das erste Zeichen des nächsten Wertes, ohne es zu verbrauchen. Whitespaces davor
+     * werden überlesen.
+     * 
+     * @return das Zeichen oder -1 am Ende der Eingabe
+     */
+    int peekValue() {
+        skipWhitespace();
+        return peek();
+    }
+
+    /**
+     * Liefert den Index des nächsten ungelesenen Zeichens. Zusammen mit {@link #skipValue} lässt
+     * sich so der Ausschnitt eines Wertes bestimmen, um ihn später mit einem eigenen Tokenizer
+     * zu lesen.
+     * 
+     * @pre der Tokenizer wurde über ein char-Array oder einen String erzeugt
+     * @return der Index im Array
+     */
+    int position() {
+        assert source == null;
+
+        return pos;
+    }
+
+    /**
+     * Liest ein JSON-Object als Java-Map ein.
+     * 
+     * @return die eingelesene Map
+     * @throws JSONSyntaxException Syntaxfehler beim Einlesen
+     */
+    private Map<String, Object> readObject() throws JSONSyntaxException {
+        Map<String, Object> result = new HashMap<>();
+
+        beginObject();
+        for (String key = nextKey(true); key != null; key = nextKey(false)) {
+            result.put(key, readElement());
+        }
+        return result;
+    }
+
+    /**
+     * Verbraucht das "{" am Anfang eines Objektes.
+     * 
+     * @throws JSONSyntaxException wenn kein Objekt folgt
+     */
+    void beginObject() throws JSONSyntaxException {
+        if (peekValue() != '{') {
+            throw new JSONSyntaxException("Syntax error at: " + (char) peek() + ". Expected: {");
+        }
+        pos++;
+    }
+
+    /**
+     * Liest den nächsten Schlüssel eines Objektes inklusive des folgenden ":" ein. Am Ende des
+     * Objektes wird das "}" verbraucht und null geliefert.
+     * 
+     * @param first true für den ersten Schlüssel direkt nach {@link #beginObject}
+     * @return der Schlüssel oder null am Ende des Objektes
+     * @throws JSONSyntaxException Syntaxfehler beim Einlesen
+     */
+    String nextKey(boolean first) throws JSONSyntaxException {
+        skipWhitespace();
+        int character = read();
+
+        if (character == '}') {
+            return null;
+        }
+        if (character == -1) {
+            throw new JSONSyntaxException("reached file end to soon.");
+        }
+        if (!first && character != ',') {
+            throw new JSONSyntaxException("Syntax error at:" + (char) character + ". Expected: }");
+        }
+        if (first) {
+            pos--;
+        }
+
+        if (peekValue() != '"') {
+            throw new JSONSyntaxException("Syntax error at: " + (char) peek() + ". Expected: \"");
+        }
+        String key = readKey();
+
+        skipWhitespace();
+        character = read();
+        if (character != ':') {
+            throw new JSONSyntaxException("Illegal Separator: " + (char) character + " found!");
+        }
+        return key;
+    }
+
+    /**
+     * Liest ein JSON-Array als Java-Liste ein.
+     * 
+     * @return die eingelesene Liste
+     * @throws JSONSyntaxException Syntaxfehler beim Einlesen
+     */
+    private List<Object> readArray() throws JSONSyntaxException {
+        List<Object> list = new ArrayList<>();
+
+        beginArray();
+        for (boolean first = true; hasNextElement(first); first = false) {
+            list.add(readElement());
+        }
+        return list;
+    }
+
+    /**
+     * Verbraucht das "[" am Anfang eines Arrays.
+     * 
+     * @throws JSONSyntaxException wenn kein Array folgt
+     */
+    void beginArray() throws JSONSyntaxException {
+        if (peekValue() != '[') {
+            throw new JSONSyntaxException("Syntax error at: " + (char) peek() + ". Expected: [");
+        }
+        pos++;
+    }
+
+    /**
+     * Prüft, ob im Array ein weiteres Element folgt, und verbraucht das "," davor. Am Ende des
+     * Arrays wird das "]" verbraucht.
+     * 
+     * @param first true für das erste Element direkt nach {@link #beginArray}
+     * @return true, wenn ein Element folgt
+     * @throws JSONSyntaxException Syntaxfehler beim Einlesen
+     */
+    boolean hasNextElement(boolean first) throws JSONSyntaxException {
+        skipWhitespace();
+        int character = read();
+
+        if (character == ']') {
+            return false;
+        }
+        if (character == -1) {
+            throw new JSONSyntaxException("reached file end to soon.");
+        }
+        if (first) {
+            pos--;
+            return true;
+        }
+        if (character == ',') {
+            return true;
+        }
+        throw new JSONSyntaxException("Syntax error at:" + (char) character + ". Expected: ]");
+    }
+
+    /**
+     * Überliest den nächsten Wert, ohne ihn aufzubauen. Die Syntax wird dabei genauso geprüft wie
+     * von {@link #readElement}.
+     * 
+     * @throws JSONSyntaxException Syntaxfehler beim Einlesen
+     */
+    void skipValue() throws JSONSyntaxException {
+        switch (peekValue()) {
+            case '{':
+                beginObject();
+                for (boolean first = true; skipKey(first); first = false) {
+                    skipValue();
+                }
+                break;
+            case '[':
+                beginArray();
+                for (boolean first = true; hasNextElement(first); first = false) {
+                    skipValue();
+                }
+                break;
+            case '"':
+                skipString();
+                break;
+            case '-':
+                readNumber();
+                break;
+            default:
+                if (isDigit((char) peek())) {
+                    readNumber();
+                } else {
+                    readElement();
+                }
+                break;
+        }
+    }
+
+    /**
+     * Wie {@link #nextKey}, aber ohne den Schlüssel als String aufzubauen.
+     * 
+     * @param first true für den ersten Schlüssel
+     * @return false am Ende des Objektes
+     * @throws JSONSyntaxException Syntaxfehler beim Einlesen
+     */
+    private boolean skipKey(boolean first) throws JSONSyntaxException {
+        skipWhitespace();
+        if (peek() == '}') {
+            pos++;
+            return false;
+        }
+        if (!first) {
+            int character = read();
+            if (character != ',') {
+                throw new JSONSyntaxException("Syntax error at:" + (char) character
+                        + ". Expected: }");
+            }
+        }
+        if (peekValue() != '"') {
+            throw new JSONSyntaxException("Syntax error at: " + (char) peek() + ". Expected: \"");
+        }
+        skipString();
+
+        skipWhitespace();
+        int character = read();
+        if (character != ':') {
+            throw new JSONSyntaxException("Illegal Separator: " + (char) character + " found!");
+        }
+        return true;
+    }
+
+    /**
+     * Überliest einen String inklusive der Anführungszeichen.
+     * 
+     * @throws JSONSyntaxException Syntaxfehler beim Einlesen
+     */
+    private void skipString() throws JSONSyntaxException {
+        int end = stringEnd();
+        if (escapes) {
+            for (int i = pos + 1; i < end; i++) {
+                if (buf[i] == '\\') {
+                    unescape(buf[++i]);
+                }
+            }
+        }
+        pos = end + 1;
+    }
+
+    /**
+     * Liest den Schlüssel eines Objektes ein. Schlüssel ohne Escape-Sequenzen werden über den
+     * {@link KeyCache} geliefert und meist nicht neu angelegt.
+     * 
+     * @pre an pos steht ein "
+     * @return eingelesener Schlüssel
+     * @throws JSONSyntaxException Syntaxfehler beim Einlesen
+     */
+    String readKey() throws JSONSyntaxException {
+        int end = stringEnd();
+        if (escapes) {
+            return readString();
+        }
+
+        String key = KeyCache.get(buf, pos + 1, end);
+        pos = end + 1;
+        return key;
+    }
+
+    /**
+     * Liest einen String ein. Strings ohne Escape-Sequenz werden am Stück übernommen.
+     * 
+     * @return eingelesener String
+     * @throws JSONSyntaxException Syntaxfehler beim Einlesen
+     */
+    String readString() throws JSONSyntaxException {
+        int end = stringEnd();
+        int start = pos + 1;
+        pos = end + 1;
+
+        // schneller Pfad: String ohne Escape-Sequenzen
+        if (!escapes) {
+            return new String(buf, start, end - start);
+        }
+
+        StringBuilder res = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            char c = buf[i];
+            if (c == '\\') {
+                c = unescape(buf[++i]);
+            }
+            res.append(c);
+        }
+        return res.toString();
+    }
+
+    /**
+     * Wandelt das Zeichen hinter einem Backslash um.
+     * 
+     * @param c das Zeichen hinter dem Backslash
+     * @return das gemeinte Zeichen
+     * @throws JSONSyntaxException bei unbekannten oder nicht unterstützten Escape-Sequenzen
+     */
+    private static char unescape(int c) throws JSONSyntaxException {
+        switch (c) {
+            case '"':
+            case '\\':
+            case '/':
+                return (char) c;
+            case 'b':
+                return '\b';
+            case 'f':
+                return '\f';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 't':
+                return '\t';
+            case 'u':
+                throw new JSONSyntaxException("escape sequence \\u not allowed");
+            case -1:
+                throw new JSONSyntaxException("Reached file end to soon");
+            default:
+                throw new JSONSyntaxException("illegal escape sequence");
+        }
+    }
+
+    /**
+     * Prüft, ob an der aktuellen Position genau das übergebene Schlüsselwort steht, und überliest
+     * es.
+     * 
+     * @param keyword das Schlüsselwort
+     * @return true, wenn das Schlüsselwort gefunden wurde
+     */
+    private boolean consumeKeyword(String keyword) {
+        int end = tokenEnd();
+        if (end - pos != keyword.length()) {
+            return false;
+        }
+        for (int i = 0; i < keyword.length(); i++) {
+            if (buf[pos + i] != keyword.charAt(i)) {
+                return false;
+            }
+        }
+        pos = end;
+        return true;
+    }
+
+    /**
+     * Liest ein Boolean ein.
+     * 
+     * @return der gelesene Wert
+     * @throws JSONSyntaxException unbekanntes Schlüsselwort
+     */
+    boolean readBoolean() throws JSONSyntaxException {
+        if (consumeKeyword("true")) {
+            return true;
+        }
+        if (consumeKeyword("false")) {
+            return false;
+        }
+        throw unknownValue();
+    }
+
+    /**
+     * Erzeugt den Fehler für ein unbekanntes Schlüsselwort an der aktuellen Position.
+     * 
+     * @return der Fehler
+     */
+    private JSONSyntaxException unknownValue() {
+        int end = tokenEnd();
+        return new JSONSyntaxException("unknown value: " + new String(buf, pos, end - pos));
+    }
+
+    /**
+     * Liest einen null-Wert ein.
+     * 
+     * @throws JSONSyntaxException unbekanntes Schlüsselwort
+     */
+    void readNull() throws JSONSyntaxException {
+        if (!consumeKeyword("null")) {
+            throw unknownValue();
+        }
+    }
+
+    /**
+     * Liest eine Zahl ein. Zahlen mit höchstens 18 Stellen, deren Mantisse und Zehnerpotenz exakt
+     * als double darstellbar sind, werden direkt im Array berechnet; das Ergebnis ist dann korrekt
+     * gerundet wie bei Double.parseDouble. Alle anderen Zahlen gehen an Double.parseDouble.
+     * 
+     * @return die Zahl
+     * @throws JSONSyntaxException Syntaxfehler beim Einlesen
+     */
+    double readNumber() throws JSONSyntaxException {
+        int end = tokenEnd();
+        int start = pos;
+        int p = pos;
+        boolean negative = p < end && buf[p] == '-';
+        if (negative) {
+            p++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean fast;
+
+        int intStart = p;
+        while (p < end && isDigit(buf[p])) {
+            mantissa = mantissa * RADIX + (buf[p++] - '0');
+            digits++;
+        }
+        fast = p > intStart;
+
+        if (p < end && buf[p] == '.') {
+            p++;
+            int fracStart = p;
+            while (p < end && isDigit(buf[p])) {
+                mantissa = mantissa * RADIX + (buf[p++] - '0');
+                digits++;
+                scale++;
+            }
+            fast &= p > fracStart;
+        }
+
+        int exponent = 0;
+        if (p < end && (buf[p] == 'e' || buf[p] == 'E')) {
+            p++;
+            boolean negativeExp = p < end && buf[p] == '-';
+            if (p < end && (buf[p] == '-' || buf[p] == '+')) {
+                p++;
+            }
+            int expStart = p;
+            while (p < end && isDigit(buf[p]) && exponent < MAX_EXPONENT) {
+                exponent = exponent * RADIX + (buf[p++] - '0');
+            }
+            fast &= p > expStart;
+            if (negativeExp) {
+                exponent = -exponent;
+            }
+        }
+
+        fast &= digits <= MAX_DIGITS && mantissa < MAX_EXACT_MANTISSA && p == end;
+
+        pos = end;
+        int power = exponent - scale;
+        if (fast && power >= -(POWERS_OF_TEN.length - 1) && power < POWERS_OF_TEN.length) {
+            double value = power < 0 ? mantissa / POWERS_OF_TEN[-power]
+                    : mantissa * POWERS_OF_TEN[power];
+            return negative ? -value : value;
+        }
+
+        // langsamer Pfad für alle übrigen Schreibweisen
+        try {
+            return Double.parseDouble(new String(buf, start, end - start));
+        } catch (NumberFormatException e) {
+            throw new JSONSyntaxException("wrong number format");
+        }
+    }
+
+    /**
+     * Liest eine ganze Zahl exakt ein. Zahlen in anderer Schreibweise, z.B. 1.0 oder 1e3, werden
+     * akzeptiert, wenn sie ganzzahlig sind und in einen long passen.
+     * 
+     * @return die Zahl
+     * @throws JSONSyntaxException Syntaxfehler oder Zahl ist keine ganze Zahl im Bereich von long
+     */
+    long readLong() throws JSONSyntaxException {
+        return readLong(true);
+    }
+
+    /**
+     * Liest eine Zahl für ein long-Ziel. Ganze Zahlen im Bereich von long werden exakt gelesen,
+     * alle anderen wie bisher über {@link #readNumber} und einen Java-Cast umgewandelt.
+     * 
+     * @return die Zahl
+     * @throws JSONSyntaxException Syntaxfehler beim Einlesen
+     */
+    long readIntegral() throws JSONSyntaxException {
+        return readLong(false);
+    }
+
+    /**
+     * Liest eine ganze Zahl ohne Umweg über double direkt aus den Ziffern.
+     * 
+     * @param exact true, um für Zahlen außerhalb von long oder mit Nachkommastellen einen Fehler
+     *            zu werfen, false, um sie wie (long) d umzuwandeln
+     * @return die Zahl
+     * @throws JSONSyntaxException Syntaxfehler oder bei exact keine ganze Zahl im Bereich von long
+     */
+    private long readLong(boolean exact) throws JSONSyntaxException {
+        int end = tokenEnd();
+        int p = pos;
+        boolean negative = p < end && buf[p] == '-';
+        if (negative) {
+            p++;
+        }
+
+        // Negativ aufsummieren, damit auch Long.MIN_VALUE darstellbar ist
+        long value = 0;
+        int digitsStart = p;
+        boolean overflow = false;
+        while (p < end && isDigit(buf[p])) {
+            int digit = buf[p] - '0';
+            if (value < (Long.MIN_VALUE + digit) / RADIX) {
+                overflow = true;
+                break;
+            }
+            value = value * RADIX - digit;
+            p++;
+        }
+
+        if (p == end && p > digitsStart) {
+            overflow |= !negative && value == Long.MIN_VALUE;
+            if (!overflow) {
+                pos = end;
+                return negative ? value : -value;
+            }
+        }
+        if (exact && overflow) {
+            throw new JSONSyntaxException("not a long: " + new String(buf, pos, end - pos));
+        }
+
+        double d = readNumber();
+        if (exact && (d < -TWO_POW_63 || d >= TWO_POW_63 || d != Math.rint(d))) {
+            throw new JSONSyntaxException("not a long: " + d);
+        }
+        return (long) d;
+    }
+
+    /**
+     * Verbraucht das nächste Zeichen nach eventuellen Whitespaces.
+     * 
+     * @param expected das erwartete Zeichen
+     * @throws JSONSyntaxException wenn ein anderes Zeichen folgt
+     */
+    void expect(char expected) throws JSONSyntaxException {
+        skipWhitespace();
+        int character = read();
+        if (character != expected) {
+            throw new JSONSyntaxException("Syntax error at: " + (char) character + ". Expected: "
+                    + expected);
+        }
+    }
+
+    /**
+     * Prüft, ob das Zeichen eine Ziffer von 0 bis 9 ist.
+     * 
+     * @param c das Zeichen
+     * @return true für Ziffern
+     */
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+}
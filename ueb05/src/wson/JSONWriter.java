@@ -1,101 +1,300 @@
 package wson;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.lang.reflect.Array;
-import java.lang.reflect.Field;
 import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Set;
-import java.util.StringJoiner;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
- * Enthält Hilfsmethoden für {@link Wson#toJson}.
+ * Enthält Hilfsmethoden für {@link Wson#toJson}. Alle Methoden schreiben direkt in das beim
+ * Erzeugen übergebene Ziel, es werden keine Zwischenstrings für verschachtelte Werte gebaut.
+ * 
+ * Listen und Arrays ab einer einstellbaren Größe werden in Abschnitte zerlegt, die parallel im
+ * gemeinsamen ForkJoinPool in eigene Puffer geschrieben und danach in Reihenfolge ausgegeben
+ * werden. Die Ausgabe ist dabei identisch zur sequentiellen.
  * 
  * @author kar, mhe, Lars Sander, Alexander Löffler
  *
  */
 class JSONWriter {
+
+    // Abschnitte pro Thread, damit ungleich teure Elemente die Threads gleichmäßig auslasten
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    // Anzahl primitiver Elemente, die vor der Ausgabe in einem Puffer gesammelt werden
+    private static final int BLOCK_SIZE = 4096;
+
+    private final Appendable out;
+    private final int parallelThreshold;
+
+    /**
+     * Konstruktor für sequentielles Schreiben.
+     * 
+     * @param out Ziel der Ausgabe
+     * @pre out != null
+     */
+    JSONWriter(Appendable out) {
+        this(out, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Konstruktor
+     * 
+     * @param out Ziel der Ausgabe
+     * @param parallelThreshold Mindestanzahl an Elementen, ab der Listen und Arrays parallel
+     *            geschrieben werden
+     * @pre out != null
+     * @pre parallelThreshold größer 0
+     */
+    JSONWriter(Appendable out, int parallelThreshold) {
+        assert out != null;
+        assert parallelThreshold > 0;
+
+        this.out = out;
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * Schreibt den übergebenen Text unverändert.
+     * 
+     * @param s der Text
+     * @throws IOException Fehler beim Schreiben
+     */
+    public void write(CharSequence s) throws IOException {
+        out.append(s);
+    }
+
     /**
-     * Maskiert Zeichen im übergebenen String gemäß der Vorgaben von JSON.
+     * Schreibt das übergebene Zeichen unverändert.
+     * 
+     * @param c das Zeichen
+     * @throws IOException Fehler beim Schreiben
+     */
+    public void write(char c) throws IOException {
+        out.append(c);
+    }
+
+    /**
+     * Schreibt einen double-Wert mit der kürzesten Ziffernfolge, siehe {@link NumberCodec}.
+     * 
+     * @param d der Wert
+     * @throws IOException Fehler beim Schreiben
+     */
+    public void writeDouble(double d) throws IOException {
+        if (out instanceof StringBuilder) {
+            NumberCodec.append((StringBuilder) out, d);
+        } else {
+            out.append(NumberCodec.toString(d));
+        }
+    }
+
+    /**
+     * Schreibt einen String in Anführungszeichen und maskiert dabei Zeichen gemäß der Vorgaben von
+     * JSON. Nicht maskierte Abschnitte werden am Stück geschrieben.
      * 
      * @param s Quellstring
-     * @return String mit maskierten Zeichen
+     * @throws IOException Fehler beim Schreiben
      */
-    private String escapeString(String s) {
-        s = s.replace("\\", "\\\\");
-        s = s.replace("\"", "\\\"");
-        // s = s.replace("/", "\\/"); // nur bei Rückübersetzung relevant, hier nicht nötig
-        s = s.replace("\b", "\\b");
-        s = s.replace("\f", "\\f");
-        s = s.replace("\n", "\\n");
-        s = s.replace("\r", "\\r");
-        s = s.replace("\t", "\\t");
-        // nicht-druckbare Zeichen werden ignoriert
+    public void writeString(String s) throws IOException {
+        out.append('"');
 
-        return s;
+        int start = 0;
+        for (int i = 0; i < s.length(); i++) {
+            String escaped = escape(s.charAt(i));
+            if (escaped != null) {
+                out.append(s, start, i).append(escaped);
+                start = i + 1;
+            }
+        }
+        out.append(s, start, s.length()).append('"');
     }
 
     /**
-     * Sorgt für korrektes JSON bei Strings
+     * Liefert die Maskierung eines Zeichens. "/" wird nicht maskiert, weil es nur bei der
+     * Rückübersetzung relevant ist, nicht-druckbare Zeichen werden ignoriert.
      * 
-     * @param str Quelle
-     * @return String in JSON
+     * @param c das Zeichen
+     * @return die Maskierung oder null, wenn das Zeichen unverändert bleibt
      */
-    public String strToJson(String str) {
-        return escapeString(str);
+    static String escape(char c) {
+        switch (c) {
+            case '\\':
+                return "\\\\";
+            case '"':
+                return "\\\"";
+            case '\b':
+                return "\\b";
+            case '\f':
+                return "\\f";
+            case '\n':
+                return "\\n";
+            case '\r':
+                return "\\r";
+            case '\t':
+                return "\\t";
+            default:
+                return null;
+        }
     }
 
     /**
-     * Parst den Inhalt von mehrdimensionalen Arrays zur einem JSON String
+     * Schreibt den Inhalt von ein- und mehrdimensionalen Arrays als JSON.
      * 
      * @param src Array
-     * @return JSON-String
-     */
-    public String multiArrToJson(Object src) {
-        String arrName = src.getClass().getName();
-        // Mehrdimensionale Arrays rekursiv aufrufen
-        if (arrName.contains("[[")) {
-            String[] arrRes = new String[Array.getLength(src)];
-            String res = "";
-            for (int i = 0; i < Array.getLength(src); i++) {
-                arrRes[i] = arrToJson(Array.get(src, i));
-            }
-            // Mehrere Arrays werden mit ", " getrennt
-            return Arrays.toString(arrRes).replace(" ", "");
+     * @throws IOException Fehler beim Schreiben
+     */
+    public void writeMultiArr(Object src) throws IOException {
+        // Mehrdimensionale Arrays zeilenweise schreiben
+        if (src.getClass().getName().contains("[[")) {
+            out.append('[');
+            writeElements(Array.getLength(src), (w, i) -> w.writeArr(Array.get(src, i), true));
+            out.append(']');
         } else {
-            return arrToJson(src);
+            writeArr(src, false);
         }
-
     }
 
     /**
-     * Parst den Inhalt von eindimensionalen Arrays zu JSON
+     * Schreibt den Inhalt von eindimensionalen Arrays als JSON.
      * 
      * @param obj Array
-     * @return JSON-String
+     * @param stripSpaces Leerzeichen aus den Elementen von Objekt-Arrays entfernen, wie es für
+     *            die Zeilen von mehrdimensionalen Arrays schon immer der Fall war
+     * @throws IOException Fehler beim Schreiben
      */
-    public String arrToJson(Object obj) {
-        StringJoiner sj = new StringJoiner(",");
-
-        for (int i = 0; i < Array.getLength(obj); i++) {
-            sj.add(Array.get(obj, i).toString());
+    private void writeArr(Object obj, boolean stripSpaces) throws IOException {
+        if (obj.getClass().getComponentType().isPrimitive()) {
+            writePrimitives(obj);
+            return;
         }
 
-        return "[" + sj.toString() + "]";
+        out.append('[');
+        writeElements(Array.getLength(obj), (w, i) -> {
+            String element = Array.get(obj, i).toString();
+            w.write(stripSpaces ? element.replace(" ", "") : element);
+        });
+        out.append(']');
     }
 
     /**
-     * Parst Listen und Sets als JSON String
+     * Schreibt ein Array eines primitiven Typs ohne Boxing. Die Zahlen werden direkt in einen
+     * StringBuilder formatiert, der bei anderen Zielen blockweise ausgegeben wird.
+     * 
+     * @param array eindimensionales Array eines primitiven Typs
+     * @throws IOException Fehler beim Schreiben
+     */
+    private void writePrimitives(Object array) throws IOException {
+        int length = Array.getLength(array);
+        RangeWriter range = (sb, from, to) -> PrimitiveArrays.append(sb, array, from, to);
+
+        out.append('[');
+        if (length >= parallelThreshold) {
+            writeParallel(length, range);
+        } else if (out instanceof StringBuilder) {
+            range.write((StringBuilder) out, 0, length);
+        } else {
+            StringBuilder block = new StringBuilder();
+            for (int from = 0; from < length; from += BLOCK_SIZE) {
+                block.setLength(0);
+                if (from > 0) {
+                    block.append(',');
+                }
+                range.write(block, from, Math.min(length, from + BLOCK_SIZE));
+                out.append(block);
+            }
+        }
+        out.append(']');
+    }
+
+    /**
+     * Schreibt Listen und Sets als JSON.
      * 
      * @param obj Liste oder Set
-     * @return JSON-String
+     * @throws IOException Fehler beim Schreiben
      */
-    public String iterableToJson(Object obj) {
-        StringJoiner sj = new StringJoiner(",");
+    public void writeIterable(Iterable<?> obj) throws IOException {
+        if (obj instanceof List && ((List<?>) obj).size() >= parallelThreshold) {
+            // Für die Aufteilung wird wahlfreier Zugriff gebraucht
+            List<?> list = obj instanceof RandomAccess ? (List<?>) obj
+                    : Arrays.asList(((List<?>) obj).toArray());
+            out.append('[');
+            writeElements(list.size(), (w, i) -> w.write(list.get(i).toString()));
+            out.append(']');
+            return;
+        }
 
-        for (Object o : Iterable.class.cast(obj)) {
-            sj.add(o.toString());
+        out.append('[');
+        boolean first = true;
+        for (Object o : obj) {
+            if (!first) {
+                out.append(',');
+            }
+            out.append(o.toString());
+            first = false;
+        }
+        out.append(']');
+    }
+
+    /**
+     * Schreibt count Elemente durch Kommas getrennt. Ab parallelThreshold Elementen werden
+     * zusammenhängende Abschnitte parallel in eigene Puffer geschrieben und in Reihenfolge
+     * ausgegeben.
+     * 
+     * @param count Anzahl der Elemente
+     * @param element schreibt das Element mit dem übergebenen Index
+     * @throws IOException Fehler beim Schreiben
+     */
+    private void writeElements(int count, ElementWriter element) throws IOException {
+        if (count < parallelThreshold) {
+            for (int i = 0; i < count; i++) {
+                if (i > 0) {
+                    out.append(',');
+                }
+                element.write(this, i);
+            }
+            return;
+        }
+
+        writeParallel(count, (sb, from, to) -> {
+            JSONWriter w = new JSONWriter(sb);
+            try {
+                for (int i = from; i < to; i++) {
+                    if (i > from) {
+                        sb.append(',');
+                    }
+                    element.write(w, i);
+                }
+            } catch (IOException e) {
+                // Ein StringBuilder wirft keine IOException
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Schreibt count Elemente, indem zusammenhängende Abschnitte parallel in eigene Puffer
+     * geschrieben und in Reihenfolge durch Kommas getrennt ausgegeben werden.
+     * 
+     * @param count Anzahl der Elemente
+     * @param range schreibt einen Abschnitt
+     * @throws IOException Fehler beim Schreiben
+     */
+    private void writeParallel(int count, RangeWriter range) throws IOException {
+        int chunks = Math.min(count,
+                ForkJoinPool.getCommonPoolParallelism() * CHUNKS_PER_THREAD);
+        String[] parts = new String[chunks];
+        ForkJoinPool.commonPool().invoke(new ChunkTask(count, range, parts, 0, chunks));
+
+        for (int c = 0; c < chunks; c++) {
+            if (c > 0) {
+                out.append(',');
+            }
+            out.append(parts[c]);
         }
-        return "[" + sj.toString() + "]";
     }
 
     /**
@@ -112,25 +311,84 @@ class JSONWriter {
     }
 
     /**
-     * Findet alle Felder des übergebenen Objektes und seiner Superklassen
-     * 
-     * @param src Objekt das Felder enthält
-     * @return Alle Felder
+     * Schreibt ein einzelnes Element einer Liste oder eines Arrays.
+     */
+    @FunctionalInterface
+    private interface ElementWriter {
+
+        /**
+         * Schreibt das Element.
+         * 
+         * @param w Ziel der Ausgabe
+         * @param index Index des Elementes
+         * @throws IOException Fehler beim Schreiben
+         */
+        void write(JSONWriter w, int index) throws IOException;
+    }
+
+    /**
+     * Schreibt einen zusammenhängenden Abschnitt einer Liste oder eines Arrays.
+     */
+    @FunctionalInterface
+    private interface RangeWriter {
+
+        /**
+         * Hängt die Elemente from bis ausschließlich to durch Kommas getrennt an.
+         * 
+         * @param sb Ziel der Ausgabe
+         * @param from erstes Element
+         * @param to Index hinter dem letzten Element
+         */
+        void write(StringBuilder sb, int from, int to);
+    }
+
+    /**
+     * Schreibt die Abschnitte from bis to eines Arrays oder einer Liste, jeden in einen eigenen
+     * String. Abschnitt c umfasst die Elemente von count * c / chunks bis ausschließlich
+     * count * (c + 1) / chunks.
      */
-    public Set<Field> getAllFields(Object src) {
-        Class<?> cl = src.getClass();
+    private static final class ChunkTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
 
-        Set<Field> fieldsSet = new HashSet<Field>();
-        fieldsSet.addAll(Arrays.asList(cl.getFields()));
-        fieldsSet.addAll(Arrays.asList(cl.getDeclaredFields()));
+        private final int count;
+        private final transient RangeWriter range;
+        private final String[] parts;
+        private final int from;
+        private final int to;
 
-        // Private Felder aus Superklassen lesen
-        while (cl.getSuperclass() != null) {
-            cl = cl.getSuperclass();
-            fieldsSet.addAll(Arrays.asList(cl.getDeclaredFields()));
+        /**
+         * Konstruktor
+         * 
+         * @param count Anzahl aller Elemente
+         * @param range schreibt einen Abschnitt
+         * @param parts Ziel der fertigen Abschnitte
+         * @param from erster Abschnitt
+         * @param to Index hinter dem letzten Abschnitt
+         */
+        ChunkTask(int count, RangeWriter range, String[] parts, int from, int to) {
+            this.count = count;
+            this.range = range;
+            this.parts = parts;
+            this.from = from;
+            this.to = to;
         }
 
-        return fieldsSet;
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new ChunkTask(count, range, parts, from, mid),
+                        new ChunkTask(count, range, parts, mid, to));
+                return;
+            }
+
+            int start = (int) ((long) count * from / parts.length);
+            int end = (int) ((long) count * to / parts.length);
+            StringBuilder sb = new StringBuilder();
+            range.write(sb, start, end);
+            parts[from] = sb.toString();
+        }
     }
 
 }
@@ -0,0 +1,248 @@
+package wson;
+
+import java.util.Map;
+
+/**
+ * Erstellt und wendet JSON Patches nach RFC 6902 für {@link Wson#diff} und {@link Wson#apply}
+ * an.
+ * 
+ * Verglichen werden die mit {@link FieldWriter.Snapshot} festgehaltenen Zustände zweier Objekte.
+ * Verschachtelte Objekte werden feldweise verglichen, alle anderen Werte (Zahlen, Strings,
+ * Arrays, Listen und Maps) als Ganzes über ihr JSON. Ein Feld, das nur in einem der beiden
+ * Zustände geschrieben wird, ergibt ein "add" bzw. "remove", ein geändertes Feld ein "replace".
+ * Welche Felder geschrieben werden, entscheidet wie bei toJson der {@link FieldWriter}, Zyklen
+ * und null-Werte ohne StoreAs-Annotation fehlen also auch im Patch.
+ * 
+ * @author Lars Sander, Alexander Löffler
+ * 
+ */
+final class JsonPatch {
+
+    private static final String EMPTY = "[]";
+
+    /**
+     * Kein Konstruktor für Hilfsklasse.
+     */
+    private JsonPatch() {
+    }
+
+    /**
+     * Erstellt den Patch, der einen Zustand in einen anderen überführt.
+     * 
+     * @param before Zustand vorher, Map der Felder oder JSON-String
+     * @param after Zustand nachher, Map der Felder oder JSON-String
+     * @return der Patch als JSON-Array, "[]" ohne Änderungen
+     */
+    static String diff(Object before, Object after) {
+        StringBuilder out = new StringBuilder();
+        compare(before, after, "", out);
+        return out.length() == 0 ? EMPTY : out.append(']').toString();
+    }
+
+    /**
+     * Hängt die Operationen für einen Wert an. Die erste Operation beginnt das Array.
+     * 
+     * @param before Zustand vorher
+     * @param after Zustand nachher
+     * @param path JSON Pointer des Wertes
+     * @param out Ziel der Operationen
+     */
+    @SuppressWarnings("unchecked")
+    private static void compare(Object before, Object after, String path, StringBuilder out) {
+        if (!(before instanceof Map) || !(after instanceof Map)) {
+            if (!before.equals(after)) {
+                operation("replace", path, after, out);
+            }
+            return;
+        }
+
+        // Beide Maps enthalten die Schlüssel in der Reihenfolge des Plans
+        Map<String, Object> from = (Map<String, Object>) before;
+        Map<String, Object> to = (Map<String, Object>) after;
+        for (Map.Entry<String, Object> entry : from.entrySet()) {
+            String child = path + '/' + escape(entry.getKey());
+            Object value = to.get(entry.getKey());
+            if (value == null) {
+                operation("remove", child, null, out);
+            } else {
+                compare(entry.getValue(), value, child, out);
+            }
+        }
+        for (Map.Entry<String, Object> entry : to.entrySet()) {
+            if (!from.containsKey(entry.getKey())) {
+                operation("add", path + '/' + escape(entry.getKey()), entry.getValue(), out);
+            }
+        }
+    }
+
+    /**
+     * Hängt eine einzelne Operation an.
+     * 
+     * @param op Name der Operation
+     * @param path JSON Pointer des Wertes
+     * @param value neuer Wert oder null für "remove"
+     * @param out Ziel der Operationen
+     */
+    private static void operation(String op, String path, Object value, StringBuilder out) {
+        out.append(out.length() == 0 ? '[' : ',');
+        out.append("{\"op\":\"").append(op).append("\",\"path\":\"").append(path).append('"');
+        if (value != null) {
+            out.append(",\"value\":");
+            appendValue(value, out);
+        }
+        out.append('}');
+    }
+
+    /**
+     * Hängt einen festgehaltenen Wert als JSON an, identisch zu toJson.
+     * 
+     * @param value Map der Felder oder JSON-String
+     * @param out Ziel der Ausgabe
+     */
+    @SuppressWarnings("unchecked")
+    private static void appendValue(Object value, StringBuilder out) {
+        if (!(value instanceof Map)) {
+            out.append((String) value);
+            return;
+        }
+
+        boolean first = true;
+        out.append('{');
+        for (Map.Entry<String, Object> entry : ((Map<String, Object>) value).entrySet()) {
+            if (!first) {
+                out.append(',');
+            }
+            first = false;
+            out.append(entry.getKey());
+            appendValue(entry.getValue(), out);
+        }
+        out.append('}');
+    }
+
+    /**
+     * Wandelt einen fertigen Schlüssel in ein Segment eines JSON Pointers um.
+     * 
+     * @param key der Schlüssel, z.B. "name":
+     * @return das Segment, z.B. name
+     */
+    private static String escape(String key) {
+        return key.substring(1, key.lastIndexOf('"')).replace("~", "~0").replace("/", "~1");
+    }
+
+    /**
+     * Wendet einen Patch auf ein Objekt an. Unterstützt werden die Operationen "add", "replace"
+     * und "remove", wie sie {@link #diff} erzeugt. Neue Werte werden wie bei fromJson in die
+     * Felder gelesen, "remove" setzt das Feld auf null.
+     * 
+     * @param reader liest die neuen Werte
+     * @param patch der Patch als JSON-Array
+     * @param target das zu ändernde Objekt
+     * @throws JSONSyntaxException Syntaxfehler im Patch oder Operation ohne op oder path
+     * @throws IllegalArgumentException unbekannte Operation oder Pfad ohne passendes Feld
+     */
+    static void apply(JSONReader reader, String patch, Object target) throws JSONSyntaxException {
+        char[] buf = patch.toCharArray();
+        JSONTokenizer in = new JSONTokenizer(buf, 0, buf.length);
+
+        in.beginArray();
+        for (boolean first = true; in.hasNextElement(first); first = false) {
+            String op = null;
+            String path = null;
+            int start = -1;
+            int end = -1;
+
+            // Die Reihenfolge der Schlüssel ist beliebig, der Wert wird daher erst gelesen,
+            // wenn das Ziel feststeht
+            in.beginObject();
+            for (String key = in.nextKey(true); key != null; key = in.nextKey(false)) {
+                switch (key) {
+                    case "op":
+                        op = in.readString();
+                        break;
+                    case "path":
+                        path = in.readString();
+                        break;
+                    case "value":
+                        in.peekValue();
+                        start = in.position();
+                        in.skipValue();
+                        end = in.position();
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            if (op == null || path == null) {
+                throw new JSONSyntaxException("patch operation without op or path");
+            }
+
+            if (!"add".equals(op) && !"replace".equals(op) && !"remove".equals(op)) {
+                throw new IllegalArgumentException("unsupported operation: " + op);
+            }
+            int last = path.lastIndexOf('/');
+            if (last < 0) {
+                throw new IllegalArgumentException("cannot replace the target itself: " + path);
+            }
+            Object parent = resolve(target, path.substring(0, last));
+            if (!JSONReader.isBean(parent.getClass())) {
+                throw new IllegalArgumentException("not an object with fields: " + path);
+            }
+            String name = unescape(path.substring(last + 1));
+
+            if ("remove".equals(op)) {
+                reader.clearField(parent, name);
+            } else if (start < 0) {
+                throw new JSONSyntaxException(op + " without value");
+            } else {
+                reader.readField(new JSONTokenizer(buf, start, end), parent, name);
+            }
+        }
+    }
+
+    /**
+     * Folgt einem JSON Pointer über die Felder der Objekte.
+     * 
+     * @param target Anfang des Pfades
+     * @param pointer der Pointer, "" für target selbst
+     * @return das Objekt am Ende des Pfades
+     * @throws IllegalArgumentException wenn ein Feld nicht existiert oder null ist
+     */
+    private static Object resolve(Object target, String pointer) {
+        Object current = target;
+        int from = 0;
+        while (from < pointer.length()) {
+            int next = pointer.indexOf('/', from + 1);
+            if (next < 0) {
+                next = pointer.length();
+            }
+            String key = "\"" + unescape(pointer.substring(from + 1, next)) + "\":";
+
+            Object child = null;
+            for (SerializationPlan.Property prop : SerializationPlan.of(current.getClass())
+                    .getProperties()) {
+                if (prop.getKey().equals(key)) {
+                    child = prop.get(current);
+                    break;
+                }
+            }
+            if (child == null) {
+                throw new IllegalArgumentException("no object at " + pointer.substring(0, next));
+            }
+            current = child;
+            from = next;
+        }
+        return current;
+    }
+
+    /**
+     * Wandelt ein Segment eines JSON Pointers in den Namen eines Feldes um.
+     * 
+     * @param segment das Segment
+     * @return der Name
+     */
+    private static String unescape(String segment) {
+        return segment.replace("~1", "/").replace("~0", "~");
+    }
+
+}
@@ -0,0 +1,88 @@
+package wson;
+
+/**
+ * Liefert für die Schlüssel von JSON-Objekten kanonische String-Instanzen. Bei einem großen Array
+ * von Objekten derselben Klasse werden so nicht für jedes Objekt dieselben Schlüssel neu
+ * angelegt, sondern nur die Werte. Da der hashCode eines kanonischen Strings nur einmal berechnet
+ * wird, werden auch die Zugriffe auf Maps mit den Namen der Felder schneller.
+ * 
+ * Der Cache ist direkt adressiert: Jeder Schlüssel hat genau einen Platz, bei einer Kollision
+ * wird der alte Schlüssel verdrängt. Der Speicher bleibt so unabhängig von der Eingabe begrenzt.
+ * Alle Tokenizer teilen sich einen Cache; gleichzeitige Zugriffe sind ohne Synchronisierung
+ * sicher, weil Strings unveränderlich sind und ein verlorener Eintrag nur eine zusätzliche
+ * Allokation kostet.
+ * 
+ * @author Lars Sander, Alexander Löffler
+ * 
+ */
+final class KeyCache {
+
+    // Zweierpotenz, damit der Platz über eine Maske bestimmt werden kann
+    private static final int SIZE = 4096;
+
+    // Längere Schlüssel sind selten wiederkehrende Feldnamen und werden nicht gespeichert
+    private static final int MAX_LENGTH = 64;
+
+    // Wie in String.hashCode
+    private static final int HASH_MULTIPLIER = 31;
+
+    private static final int HASH_SPREAD = 16;
+
+    private static final String[] KEYS = new String[SIZE];
+
+    private KeyCache() {
+    }
+
+    /**
+     * Liefert den String aus den Zeichen buf[start] bis buf[end - 1]. Ist er bereits im Cache,
+     * wird ohne Allokation die gespeicherte Instanz geliefert.
+     * 
+     * @param buf die Zeichen
+     * @param start erstes Zeichen des Schlüssels
+     * @param end Index hinter dem letzten Zeichen
+     * @pre 0 kleiner gleich start kleiner gleich end kleiner gleich buf.length
+     * @return der Schlüssel
+     */
+    static String get(char[] buf, int start, int end) {
+        int length = end - start;
+        if (length > MAX_LENGTH) {
+            return new String(buf, start, length);
+        }
+
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = HASH_MULTIPLIER * hash + buf[i];
+        }
+        int index = (hash ^ hash >>> HASH_SPREAD) & (SIZE - 1);
+
+        String key = KEYS[index];
+        if (key != null && matches(key, buf, start, length)) {
+            return key;
+        }
+        key = new String(buf, start, length);
+        KEYS[index] = key;
+        return key;
+    }
+
+    /**
+     * Vergleicht einen String mit einem Ausschnitt eines char-Arrays.
+     * 
+     * @param key der String
+     * @param buf die Zeichen
+     * @param start erstes Zeichen
+     * @param length Anzahl der Zeichen
+     * @return true, wenn beide gleich sind
+     */
+    private static boolean matches(String key, char[] buf, int start, int length) {
+        if (key.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (key.charAt(i) != buf[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,383 @@
+package wson;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Ein JSON-Objekt, dessen Werte erst beim ersten Zugriff gelesen werden. Beim Erzeugen werden wie
+ * beim parallelen Lesen von Arrays in einem schnellen Durchlauf nur Anführungszeichen,
+ * Escape-Sequenzen und Klammern verfolgt, um Schlüssel und Grenzen der Werte zu finden. Erst ein
+ * Zugriff liest den Wert mit einem eigenen {@link JSONTokenizer} über seinem Ausschnitt; der
+ * Aufwand richtet sich so nach dem, was tatsächlich gelesen wird. Verschachtelte Objekte werden
+ * wieder als LazyJsonObject geliefert und teilen sich die Zeichen mit dem äußeren Objekt.
+ * 
+ * Gelesene Werte werden pro Schlüssel zwischengespeichert. Die vollständige Syntaxprüfung
+ * übernimmt der Tokenizer beim Zugriff, Fehler in nie gelesenen Werten werden nicht gemeldet.
+ * Bei doppelten Schlüsseln gilt wie bei {@link Wson#fromJson(String, Class)} der letzte.
+ * 
+ * Instanzen sind nicht threadsicher.
+ * 
+ * @author Lars Sander, Alexander Löffler
+ * 
+ */
+public final class LazyJsonObject {
+
+    // Pro Eintrag Anfang und Ende des Schlüssels und des Wertes
+    private static final int SLOTS = 4;
+    private static final int VALUE_START = 2;
+    private static final int VALUE_END = 3;
+
+    private static final int INITIAL_MEMBERS = 8;
+
+    private final JSONReader reader;
+    private final char[] buf;
+    private final int start;
+    private final int end;
+    private final int[] bounds;
+    private final Map<String, Integer> index = new LinkedHashMap<>();
+    private final Object[] values;
+
+    /**
+     * Sucht die Einträge des Objektes im übergebenen Ausschnitt.
+     * 
+     * @param reader liest die Werte beim Zugriff
+     * @param buf die Zeichen, werden nicht kopiert
+     * @param start Anfang des Objektes
+     * @param end Index hinter dem letzten Zeichen
+     * @throws JSONSyntaxException wenn kein vollständiges Objekt folgt
+     */
+    LazyJsonObject(JSONReader reader, char[] buf, int start, int end) throws JSONSyntaxException {
+        this.reader = reader;
+        this.buf = buf;
+        this.start = start;
+        this.end = end;
+        this.bounds = scan(buf, start, end);
+
+        int count = bounds.length / SLOTS;
+        for (int i = 0; i < count; i++) {
+            String key = new JSONTokenizer(buf, bounds[SLOTS * i], bounds[SLOTS * i + 1])
+                    .readKey();
+            index.put(key, i);
+        }
+        this.values = new Object[count];
+    }
+
+    /**
+     * Sucht Schlüssel und Werte eines Objektes. Innerhalb von Strings werden Klammern, Kommas und
+     * Doppelpunkte ignoriert, Escape-Sequenzen werden nur übersprungen.
+     * 
+     * @param buf die Zeichen
+     * @param start Anfang des Objektes
+     * @param end Index hinter dem letzten Zeichen
+     * @return für jeden Eintrag Anfang und Ende des Schlüssels inklusive Anführungszeichen und
+     *         Anfang und Ende des Wertes hintereinander
+     * @throws JSONSyntaxException wenn kein vollständiges Objekt folgt
+     */
+    private static int[] scan(char[] buf, int start, int end) throws JSONSyntaxException {
+        int p = skipWhitespace(buf, start, end);
+        expect(buf, p, end, '{');
+        p = skipWhitespace(buf, p + 1, end);
+
+        int[] bounds = new int[INITIAL_MEMBERS * SLOTS];
+        int count = 0;
+        boolean more = p >= end || buf[p] != '}';
+        if (!more) {
+            p++;
+        }
+        while (more) {
+            expect(buf, p, end, '"');
+            int keyStart = p;
+            p = stringEnd(buf, p, end) + 1;
+            int keyEnd = p;
+            p = skipWhitespace(buf, p, end);
+            expect(buf, p, end, ':');
+
+            int valueStart = ++p;
+            int depth = 0;
+            for (; p < end && (depth > 0 || buf[p] != ',' && buf[p] != '}'); p++) {
+                switch (buf[p]) {
+                    case '"':
+                        p = stringEnd(buf, p, end);
+                        break;
+                    case '[':
+                    case '{':
+                        depth++;
+                        break;
+                    case ']':
+                    case '}':
+                        depth--;
+                        break;
+                    default:
+                        break;
+                }
+            }
+            if (p >= end) {
+                throw new JSONSyntaxException("reached file end to soon.");
+            }
+
+            if (SLOTS * count + SLOTS > bounds.length) {
+                bounds = Arrays.copyOf(bounds, bounds.length * 2);
+            }
+            bounds[SLOTS * count] = keyStart;
+            bounds[SLOTS * count + 1] = keyEnd;
+            bounds[SLOTS * count + VALUE_START] = valueStart;
+            bounds[SLOTS * count + VALUE_END] = p;
+            count++;
+
+            more = buf[p] == ',';
+            p = skipWhitespace(buf, p + 1, end);
+        }
+
+        p = skipWhitespace(buf, p, end);
+        if (p < end) {
+            throw new JSONSyntaxException("Syntax error at: " + buf[p] + ". Expected: end");
+        }
+        return Arrays.copyOf(bounds, SLOTS * count);
+    }
+
+    /**
+     * Überliest Whitespaces.
+     * 
+     * @param buf die Zeichen
+     * @param from erstes zu prüfendes Zeichen
+     * @param end Index hinter dem letzten Zeichen
+     * @return Index des ersten anderen Zeichens oder end
+     */
+    private static int skipWhitespace(char[] buf, int from, int end) {
+        int p = from;
+        while (p < end && Character.isWhitespace(buf[p])) {
+            p++;
+        }
+        return p;
+    }
+
+    /**
+     * Prüft ein erwartetes Zeichen.
+     * 
+     * @param buf die Zeichen
+     * @param p Index des Zeichens
+     * @param end Index hinter dem letzten Zeichen
+     * @param expected das erwartete Zeichen
+     * @throws JSONSyntaxException wenn ein anderes Zeichen oder das Ende folgt
+     */
+    private static void expect(char[] buf, int p, int end, char expected)
+            throws JSONSyntaxException {
+        if (p >= end || buf[p] != expected) {
+            throw new JSONSyntaxException("Syntax error at: " + (p >= end ? "end" : buf[p])
+                    + ". Expected: " + expected);
+        }
+    }
+
+    /**
+     * Sucht das schließende Anführungszeichen eines Strings.
+     * 
+     * @param buf die Zeichen
+     * @param p Index des öffnenden Anführungszeichens
+     * @param end Index hinter dem letzten Zeichen
+     * @return Index des schließenden Anführungszeichens
+     * @throws JSONSyntaxException wenn der String nicht endet
+     */
+    private static int stringEnd(char[] buf, int p, int end) throws JSONSyntaxException {
+        int i = p + 1;
+        while (i < end && buf[i] != '"') {
+            if (buf[i] == '\\') {
+                i++;
+            }
+            i++;
+        }
+        if (i >= end) {
+            throw new JSONSyntaxException("Reached file end to soon");
+        }
+        return i;
+    }
+
+    /**
+     * Liefert die Schlüssel in der Reihenfolge des Dokumentes.
+     * 
+     * @return unveränderliche Menge der Schlüssel
+     */
+    public Set<String> keys() {
+        return Collections.unmodifiableSet(index.keySet());
+    }
+
+    /**
+     * Prüft, ob es einen Eintrag zum Schlüssel gibt.
+     * 
+     * @param key der Schlüssel
+     * @return true, wenn der Schlüssel vorkommt, auch mit dem Wert null
+     */
+    public boolean has(String key) {
+        return index.containsKey(key);
+    }
+
+    /**
+     * Liest einen Wert wie {@link Wson#fromJson(String, Class)} in den übergebenen Typ. Für
+     * LazyJsonObject wird das verschachtelte Objekt ebenfalls erst bei Zugriff gelesen. Das
+     * Ergebnis wird gespeichert und bei weiteren Zugriffen mit passendem Typ direkt geliefert.
+     * 
+     * @param <T> Typ des Wertes
+     * @param key der Schlüssel
+     * @param type Klasse des Wertes
+     * @pre type != null
+     * @return der Wert oder null, wenn der Schlüssel fehlt oder der Wert null ist
+     * @throws JSONSyntaxException Syntaxfehler im Wert
+     */
+    public <T> T get(String key, Class<T> type) throws JSONSyntaxException {
+        assert type != null;
+
+        Integer i = index.get(key);
+        if (i == null) {
+            return null;
+        }
+        if (type.isInstance(values[i])) {
+            return type.cast(values[i]);
+        }
+
+        JSONTokenizer in = tokenizer(i);
+        if (in.peekValue() == 'n') {
+            in.readNull();
+            finish(in);
+            return null;
+        }
+
+        T result;
+        if (type == LazyJsonObject.class) {
+            result = type.cast(new LazyJsonObject(reader, buf, bounds[SLOTS * i + VALUE_START],
+                    bounds[SLOTS * i + VALUE_END]));
+        } else {
+            result = reader.read(in, type);
+            finish(in);
+        }
+        values[i] = result;
+        return result;
+    }
+
+    /**
+     * Liefert ein verschachteltes Objekt, das wiederum erst bei Zugriff gelesen wird.
+     * 
+     * @param key der Schlüssel
+     * @return das Objekt oder null, wenn der Schlüssel fehlt oder der Wert null ist
+     * @throws JSONSyntaxException wenn der Wert kein Objekt ist
+     */
+    public LazyJsonObject getObject(String key) throws JSONSyntaxException {
+        return get(key, LazyJsonObject.class);
+    }
+
+    /**
+     * Liefert einen String-Wert.
+     * 
+     * @param key der Schlüssel
+     * @return der String oder null, wenn der Schlüssel fehlt oder der Wert null ist
+     * @throws JSONSyntaxException Syntaxfehler im Wert
+     */
+    public String getString(String key) throws JSONSyntaxException {
+        return get(key, String.class);
+    }
+
+    /**
+     * Liefert eine Zahl.
+     * 
+     * @param key der Schlüssel
+     * @return die Zahl
+     * @throws JSONSyntaxException wenn der Wert keine Zahl ist
+     * @throws IllegalArgumentException wenn der Schlüssel fehlt
+     */
+    public double getDouble(String key) throws JSONSyntaxException {
+        JSONTokenizer in = tokenizer(require(key));
+        in.peekValue();
+        double result = in.readNumber();
+        finish(in);
+        return result;
+    }
+
+    /**
+     * Liefert eine ganze Zahl, ohne Umweg über double exakt gelesen.
+     * 
+     * @param key der Schlüssel
+     * @return die Zahl
+     * @throws JSONSyntaxException wenn der Wert keine Zahl ist
+     * @throws IllegalArgumentException wenn der Schlüssel fehlt
+     */
+    public long getLong(String key) throws JSONSyntaxException {
+        JSONTokenizer in = tokenizer(require(key));
+        in.peekValue();
+        long result = in.readIntegral();
+        finish(in);
+        return result;
+    }
+
+    /**
+     * Liefert einen Wahrheitswert.
+     * 
+     * @param key der Schlüssel
+     * @return der Wert
+     * @throws JSONSyntaxException wenn der Wert weder true noch false ist
+     * @throws IllegalArgumentException wenn der Schlüssel fehlt
+     */
+    public boolean getBoolean(String key) throws JSONSyntaxException {
+        JSONTokenizer in = tokenizer(require(key));
+        in.peekValue();
+        boolean result = in.readBoolean();
+        finish(in);
+        return result;
+    }
+
+    /**
+     * Liefert den Eintrag zu einem Schlüssel, der vorhanden sein muss.
+     * 
+     * @param key der Schlüssel
+     * @return Nummer des Eintrags
+     * @throws IllegalArgumentException wenn der Schlüssel fehlt
+     */
+    private int require(String key) {
+        Integer i = index.get(key);
+        if (i == null) {
+            throw new IllegalArgumentException("no value for key: " + key);
+        }
+        return i;
+    }
+
+    /**
+     * Erzeugt einen Tokenizer über dem Wert eines Eintrags.
+     * 
+     * @param i Nummer des Eintrags
+     * @return der Tokenizer
+     */
+    private JSONTokenizer tokenizer(int i) {
+        return new JSONTokenizer(buf, bounds[SLOTS * i + VALUE_START],
+                bounds[SLOTS * i + VALUE_END]);
+    }
+
+    /**
+     * Prüft, dass nach dem gelesenen Wert nichts mehr folgt.
+     * 
+     * @param in Tokenizer über dem Wert
+     * @throws JSONSyntaxException wenn noch Zeichen folgen
+     */
+    private static void finish(JSONTokenizer in) throws JSONSyntaxException {
+        int character = in.peekValue();
+        if (character != -1) {
+            throw new JSONSyntaxException("Syntax error at:" + (char) character
+                    + ". Expected: , or }");
+        }
+    }
+
+    /**
+     * Liefert das Objekt als JSON, so wie es im Dokument steht.
+     * 
+     * @return der JSON-String
+     */
+    @Override
+    public String toString() {
+        int from = skipWhitespace(buf, start, end);
+        int to = end;
+        while (to > from && Character.isWhitespace(buf[to - 1])) {
+            to--;
+        }
+        return new String(buf, from, to - from);
+    }
+
+}
@@ -0,0 +1,118 @@
+package wson;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Liest eine UTF-8-kodierte Datei über {@link FileChannel#map} als Zeichen. Die Datei wird in
+ * Fenstern von höchstens {@link #WINDOW} Bytes eingeblendet, weil ein einzelner MappedByteBuffer
+ * auf 2 GB begrenzt ist; Dateien beliebiger Größe werden so Fenster für Fenster gelesen. Dekodiert
+ * wird direkt aus dem eingeblendeten Speicher in einen kleinen Puffer, die Datei liegt also nie
+ * als Ganzes auf dem Heap, weder als Bytes noch als String.
+ * 
+ * Ein Zeichen, dessen Bytes über das Ende eines Fensters hinausreichen, wird vollständig im
+ * nächsten Fenster dekodiert, das beim ersten noch nicht dekodierten Byte beginnt. Ungültiges
+ * UTF-8 wird als MalformedInputException gemeldet.
+ * 
+ * @author Lars Sander, Alexander Löffler
+ * 
+ */
+final class MappedUtf8Reader extends Reader {
+
+    /**
+     * Größe der eingeblendeten Fenster in Bytes.
+     */
+    static final int WINDOW = 1 << 30;
+
+    // Längste Kodierung eines Zeichens in UTF-8
+    private static final int MAX_CHAR_BYTES = 4;
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final FileChannel channel;
+    private final long size;
+    private final int window;
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPORT)
+            .onUnmappableCharacter(CodingErrorAction.REPORT);
+    private final CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+
+    // Position des aktuellen Fensters in der Datei
+    private long offset;
+    private ByteBuffer bytes;
+    private boolean flushed;
+
+    /**
+     * Konstruktor
+     * 
+     * @param channel geöffneter Kanal auf die Datei, wird mit dem Reader geschlossen
+     * @param window Größe der Fenster in Bytes
+     * @pre window größer gleich 4, damit jedes Zeichen in ein Fenster passt
+     * @throws IOException Fehler beim Bestimmen der Dateigröße
+     */
+    MappedUtf8Reader(FileChannel channel, int window) throws IOException {
+        assert window >= MAX_CHAR_BYTES;
+
+        this.channel = channel;
+        this.size = channel.size();
+        this.window = window;
+        this.bytes = ByteBuffer.allocate(0);
+        this.chars.flip();
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        if (!chars.hasRemaining() && !fill()) {
+            return -1;
+        }
+
+        int n = Math.min(len, chars.remaining());
+        chars.get(cbuf, off, n);
+        return n;
+    }
+
+    /**
+     * Dekodiert die nächsten Zeichen in den internen Puffer. Ein eigener Puffer statt dem des
+     * Aufrufers stellt sicher, dass immer Platz für beide Hälften eines Surrogat-Paares ist.
+     * 
+     * @return false am Ende der Datei
+     * @throws IOException ungültiges UTF-8 oder Fehler beim Einblenden
+     */
+    private boolean fill() throws IOException {
+        chars.clear();
+        while (chars.position() == 0 && !flushed) {
+            boolean last = offset + bytes.limit() >= size;
+            CoderResult result = decoder.decode(bytes, chars, last);
+            if (result.isError()) {
+                result.throwException();
+            }
+
+            if (chars.position() == 0) {
+                if (last) {
+                    decoder.flush(chars);
+                    flushed = true;
+                } else {
+                    // Das nächste Fenster beginnt beim ersten nicht dekodierten Byte
+                    offset += bytes.position();
+                    bytes = channel.map(FileChannel.MapMode.READ_ONLY, offset,
+                            Math.min(window, size - offset));
+                }
+            }
+        }
+        chars.flip();
+        return chars.hasRemaining();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+}
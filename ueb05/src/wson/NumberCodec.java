@@ -0,0 +1,336 @@
+package wson;
+
+import java.math.BigInteger;
+
+/**
+ * Formatiert double-Werte mit der kürzesten Ziffernfolge, die beim Einlesen wieder genau denselben
+ * Wert ergibt. Verwendet wird das Schubfach-Verfahren von R. Giulietti ("The Schubfach way to
+ * render doubles", 2020), das ohne Schleifen über einzelne Ziffern und ohne BigInteger auskommt.
+ * Nur die Tabelle der Zehnerpotenzen wird einmalig beim Laden der Klasse mit BigInteger berechnet.
+ * 
+ * Die Schreibweise entspricht Double.toString: zwischen 10^-3 und 10^7 als Dezimalzahl mit
+ * mindestens einer Nachkommastelle, sonst wissenschaftlich wie 1.0E7. Anders als Double.toString
+ * bis Java 18 werden nie mehr Ziffern als nötig geschrieben, z.B. 2.82879384806159E17 statt
+ * 2.82879384806159008E17, und unter gleich langen Kandidaten immer der nächstgelegene.
+ * 
+ * @author Lars Sander, Alexander Löffler
+ * 
+ */
+final class NumberCodec {
+
+    // Anzahl der Bits des Signifikanden inklusive der impliziten 1
+    private static final int P = 53;
+    private static final int EXPONENT_MASK = 0x7FF;
+    private static final long SIGNIFICAND_MASK = (1L << (P - 1)) - 1;
+    private static final long C_MIN = 1L << (P - 1);
+
+    // Binärer Exponent der subnormalen Zahlen
+    private static final int Q_MIN = -1074;
+
+    // Subnormale Signifikanden darunter brauchen eine Stelle mehr Genauigkeit
+    private static final int C_TINY = 3;
+
+    // Bereich der dezimalen Exponenten k in der Tabelle
+    private static final int K_MIN = -324;
+    private static final int K_MAX = 292;
+
+    // Die Zehnerpotenzen der Tabelle liegen zwischen 2^125 und 2^126
+    private static final int G_BITS = 125;
+    private static final int HALF_BITS = 63;
+    private static final long MASK_63 = Long.MAX_VALUE;
+
+    // Konstanten der Abschätzungen floor(e log10(2)), floor(e log10(3/4 2)) und floor(e log2(10))
+    private static final long LOG10_2 = 661_971_961_083L;
+    private static final long LOG10_3_4 = -274_743_187_321L;
+    private static final int LOG10_2_SHIFT = 41;
+    private static final long LOG2_10 = 913_124_641_741L;
+    private static final int LOG2_10_SHIFT = 38;
+
+    // Etwas mehr als 2^64 / 10, damit s / 10 als Multiplikation berechnet werden kann
+    private static final long ONE_TENTH = 1_844_674_407_370_955_168L;
+
+    private static final int RADIX = 10;
+    private static final int TWO_DIGITS = 100;
+    private static final int MAX_DIGITS = 20;
+
+    // Vorzeichen, 17 Ziffern, Punkt und Exponent wie E-324
+    private static final int MAX_LENGTH = 25;
+    private static final int LOW_32 = 32;
+    private static final long MASK_32 = 0xFFFF_FFFFL;
+
+    // Grenzen der Dezimalschreibweise von Double.toString als Exponent von 0.d1d2... * 10^e
+    private static final int PLAIN_MIN = -2;
+    private static final int PLAIN_MAX = 7;
+
+    // Paare aus den oberen und unteren 63 Bits der Zehnerpotenzen, siehe g
+    private static final long[] G = table();
+
+    /**
+     * Kein Konstruktor für Hilfsklasse.
+     */
+    private NumberCodec() {
+    }
+
+    /**
+     * Formatiert einen double-Wert wie Double.toString, aber immer mit der kürzesten Ziffernfolge.
+     * 
+     * @param v der Wert
+     * @return der Wert als String
+     */
+    static String toString(double v) {
+        StringBuilder sb = new StringBuilder(MAX_LENGTH);
+        append(sb, v);
+        return sb.toString();
+    }
+
+    /**
+     * Hängt einen double-Wert wie {@link #toString(double)} an.
+     * 
+     * @param sb Ziel der Ausgabe
+     * @param v der Wert
+     */
+    static void append(StringBuilder sb, double v) {
+        long bits = Double.doubleToRawLongBits(v);
+        long t = bits & SIGNIFICAND_MASK;
+        int bq = (int) (bits >>> (P - 1)) & EXPONENT_MASK;
+
+        if (bq == EXPONENT_MASK) {
+            sb.append(v);
+            return;
+        }
+        if (bits < 0) {
+            sb.append('-');
+        }
+
+        if (bq != 0) {
+            // normale Zahl c * 2^-mq
+            int mq = -Q_MIN + 1 - bq;
+            long c = C_MIN | t;
+
+            // Ganze Zahlen direkt übernehmen
+            if (0 < mq && mq < P) {
+                long f = c >> mq;
+                if (f << mq == c) {
+                    appendDecimal(sb, f, 0);
+                    return;
+                }
+            }
+            toDecimal(sb, -mq, c, 0);
+        } else if (t != 0) {
+            if (t < C_TINY) {
+                toDecimal(sb, Q_MIN, RADIX * t, -1);
+            } else {
+                toDecimal(sb, Q_MIN, t, 0);
+            }
+        } else {
+            sb.append("0.0");
+        }
+    }
+
+    /**
+     * Bestimmt die kürzeste Dezimaldarstellung von c * 2^q und hängt sie an.
+     * 
+     * @param sb Ziel der Ausgabe
+     * @param q binärer Exponent
+     * @param c Signifikand
+     * @param dk Korrektur des dezimalen Exponenten für die C_TINY-Fälle
+     */
+    private static void toDecimal(StringBuilder sb, int q, long c, int dk) {
+        // Grenzen des Rundungsintervalls um v, alles in Vierteln von 2^q
+        int out = (int) c & 1;
+        long cb = c << 2;
+        long cbr = cb + 2;
+        long cbl;
+        int k;
+        if (c != C_MIN || q == Q_MIN) {
+            cbl = cb - 2;
+            k = flog10pow2(q);
+        } else {
+            // Unterhalb einer Zweierpotenz ist das Intervall asymmetrisch
+            cbl = cb - 1;
+            k = flog10threeQuartersPow2(q);
+        }
+        int h = q + flog2pow10(-k) + 2;
+
+        long g1 = G[(k - K_MIN) << 1];
+        long g0 = G[((k - K_MIN) << 1) + 1];
+
+        long vb = rop(g1, g0, cb << h);
+        long vbl = rop(g1, g0, cbl << h);
+        long vbr = rop(g1, g0, cbr << h);
+
+        // Zuerst eine Stelle weniger versuchen
+        long s = vb >> 2;
+        if (s >= TWO_DIGITS) {
+            long sp10 = RADIX * multiplyHigh(s, ONE_TENTH);
+            long tp10 = sp10 + RADIX;
+            boolean upin = vbl + out <= sp10 << 2;
+            boolean wpin = (tp10 << 2) + out <= vbr;
+            if (upin != wpin) {
+                appendDecimal(sb, upin ? sp10 : tp10, k);
+                return;
+            }
+        }
+
+        long t = s + 1;
+        boolean uin = vbl + out <= s << 2;
+        boolean win = (t << 2) + out <= vbr;
+        if (uin != win) {
+            appendDecimal(sb, uin ? s : t, k + dk);
+            return;
+        }
+
+        // Beide Kandidaten liegen im Intervall, der nähere gewinnt, bei Gleichstand der gerade
+        long cmp = vb - ((s + t) << 1);
+        appendDecimal(sb, cmp < 0 || cmp == 0 && (s & 1) == 0 ? s : t, k + dk);
+    }
+
+    /**
+     * Berechnet g * cp / 2^127 mit Rundung auf ungerade (round to odd), wobei g = g1 2^63 + g0.
+     * 
+     * @param g1 obere Bits von g
+     * @param g0 untere Bits von g
+     * @param cp der zweite Faktor
+     * @return das gerundete Produkt
+     */
+    private static long rop(long g1, long g0, long cp) {
+        long x1 = multiplyHigh(g0, cp);
+        long y0 = g1 * cp;
+        long y1 = multiplyHigh(g1, cp);
+        long z = (y0 >>> 1) + x1;
+        long vbp = y1 + (z >>> HALF_BITS);
+        return vbp | ((z & MASK_63) + MASK_63) >>> HALF_BITS;
+    }
+
+    /**
+     * Liefert die oberen 64 Bits des 128-Bit-Produktes zweier longs, wie Math.multiplyHigh ab
+     * Java 9.
+     * 
+     * @param x erster Faktor
+     * @param y zweiter Faktor
+     * @return obere 64 Bits von x * y
+     */
+    static long multiplyHigh(long x, long y) {
+        long x1 = x >> LOW_32;
+        long x2 = x & MASK_32;
+        long y1 = y >> LOW_32;
+        long y2 = y & MASK_32;
+        long z2 = x2 * y2;
+        long t = x1 * y2 + (z2 >>> LOW_32);
+        long z1 = (t & MASK_32) + x2 * y1;
+        long z0 = t >> LOW_32;
+        return x1 * y1 + z0 + (z1 >> LOW_32);
+    }
+
+    /**
+     * floor(e log10(2)) für |e| kleiner gleich 5456721.
+     * 
+     * @param e der Exponent
+     * @return der Logarithmus
+     */
+    private static int flog10pow2(int e) {
+        return (int) (e * LOG10_2 >> LOG10_2_SHIFT);
+    }
+
+    /**
+     * floor(e log10(3/4 2)) für |e| kleiner gleich 2114495.
+     * 
+     * @param e der Exponent
+     * @return der Logarithmus
+     */
+    private static int flog10threeQuartersPow2(int e) {
+        return (int) (e * LOG10_2 + LOG10_3_4 >> LOG10_2_SHIFT);
+    }
+
+    /**
+     * floor(e log2(10)) für |e| kleiner gleich 1838394.
+     * 
+     * @param e der Exponent
+     * @return der Logarithmus
+     */
+    private static int flog2pow10(int e) {
+        return (int) (e * LOG2_10 >> LOG2_10_SHIFT);
+    }
+
+    /**
+     * Berechnet für jedes k die Zahl g = floor(10^-k 2^-r) + 1, wobei r so gewählt ist, dass
+     * 2^125 kleiner gleich 10^-k 2^-r kleiner 2^126 gilt.
+     * 
+     * @return g für k von K_MIN bis K_MAX, jeweils obere und untere 63 Bits
+     */
+    private static long[] table() {
+        long[] g = new long[(K_MAX - K_MIN + 1) << 1];
+        BigInteger mask = BigInteger.valueOf(MASK_63);
+        for (int k = K_MIN; k <= K_MAX; k++) {
+            int e = -k;
+            int r = flog2pow10(e) - G_BITS;
+            BigInteger beta;
+            if (e >= 0) {
+                BigInteger pow = BigInteger.TEN.pow(e);
+                beta = r >= 0 ? pow.shiftRight(r) : pow.shiftLeft(-r);
+            } else {
+                beta = BigInteger.ONE.shiftLeft(-r).divide(BigInteger.TEN.pow(-e));
+            }
+            BigInteger gk = beta.add(BigInteger.ONE);
+            g[(k - K_MIN) << 1] = gk.shiftRight(HALF_BITS).longValue();
+            g[((k - K_MIN) << 1) + 1] = gk.and(mask).longValue();
+        }
+        return g;
+    }
+
+    /**
+     * Hängt f * 10^e in der Schreibweise von Double.toString an.
+     * 
+     * @param sb Ziel der Ausgabe
+     * @param f Ziffern, größer 0
+     * @param e dezimaler Exponent
+     */
+    private static void appendDecimal(StringBuilder sb, long f, int e) {
+        char[] digits = new char[MAX_DIGITS];
+        long rest = f;
+        int exponent = e;
+        while (rest % RADIX == 0) {
+            rest /= RADIX;
+            exponent++;
+        }
+        int n = 0;
+        for (int i = MAX_DIGITS - 1; rest != 0; i--, n++) {
+            digits[i] = (char) ('0' + rest % RADIX);
+            rest /= RADIX;
+        }
+        int first = MAX_DIGITS - n;
+
+        // Der Wert ist 0.d1d2...dn * 10^point
+        int point = exponent + n;
+        if (point >= PLAIN_MIN && point <= PLAIN_MAX) {
+            if (point <= 0) {
+                sb.append("0.");
+                for (int i = point; i < 0; i++) {
+                    sb.append('0');
+                }
+                sb.append(digits, first, n);
+            } else if (point >= n) {
+                sb.append(digits, first, n);
+                for (int i = n; i < point; i++) {
+                    sb.append('0');
+                }
+                sb.append(".0");
+            } else {
+                sb.append(digits, first, point);
+                sb.append('.');
+                sb.append(digits, first + point, n - point);
+            }
+        } else {
+            sb.append(digits[first]);
+            sb.append('.');
+            if (n > 1) {
+                sb.append(digits, first + 1, n - 1);
+            } else {
+                sb.append('0');
+            }
+            sb.append('E');
+            sb.append(point - 1);
+        }
+    }
+
+}
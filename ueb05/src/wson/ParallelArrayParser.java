@@ -0,0 +1,295 @@
+package wson;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Liest die Elemente eines JSON-Arrays auf oberster Ebene in zwei Phasen. Zuerst werden in einem
+ * schnellen Durchlauf nur Anführungszeichen, Escape-Sequenzen und Klammern verfolgt, um die
+ * Grenzen der einzelnen Elemente zu finden. Danach wird jedes Element mit einem eigenen
+ * {@link JSONTokenizer} über seinem Ausschnitt gelesen, wahlweise parallel im gemeinsamen
+ * ForkJoinPool. Die Ergebnisse stehen in jedem Fall in der Reihenfolge des Arrays.
+ * 
+ * Die vollständige Syntaxprüfung übernimmt der Tokenizer der Elemente. Bei mehreren fehlerhaften
+ * Elementen wird wie beim sequentiellen Lesen der Fehler des ersten gemeldet.
+ * 
+ * @author Lars Sander, Alexander Löffler
+ * 
+ */
+final class ParallelArrayParser {
+
+    // Abschnitte pro Thread, damit ungleich große Elemente die Threads gleichmäßig auslasten
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private static final int INITIAL_BOUNDS = 16;
+
+    /**
+     * Kein Konstruktor für Hilfsklasse.
+     */
+    private ParallelArrayParser() {
+    }
+
+    /**
+     * Liest ein einzelnes Element aus seinem Tokenizer.
+     * 
+     * @param <R> Typ des Ergebnisses
+     */
+    @FunctionalInterface
+    interface ElementParser<R> {
+
+        /**
+         * Liest das Element.
+         * 
+         * @param in Tokenizer über genau einem Element
+         * @return das Element
+         * @throws JSONSyntaxException Syntaxfehler beim Einlesen
+         */
+        R parse(JSONTokenizer in) throws JSONSyntaxException;
+    }
+
+    /**
+     * Liest alle Elemente des Arrays.
+     * 
+     * @param <R> Typ der Elemente
+     * @param buf die Zeichen
+     * @param start Anfang des Arrays
+     * @param end Index hinter dem letzten Zeichen
+     * @param parser liest ein Element; muss bei parallel threadsicher sein
+     * @param parallel true, um die Elemente parallel zu lesen
+     * @pre buf != null
+     * @pre parser != null
+     * @return die Elemente in Reihenfolge des Arrays
+     * @throws JSONSyntaxException Syntaxfehler beim Einlesen
+     */
+    static <R> List<R> parse(char[] buf, int start, int end, ElementParser<R> parser,
+            boolean parallel) throws JSONSyntaxException {
+        assert buf != null;
+        assert parser != null;
+
+        int[] bounds = scan(buf, start, end);
+        int count = bounds.length / 2;
+        Object[] results = new Object[count];
+
+        if (parallel && count > 1) {
+            int chunks = Math.min(count,
+                    ForkJoinPool.getCommonPoolParallelism() * CHUNKS_PER_THREAD);
+            JSONSyntaxException[] errors = new JSONSyntaxException[chunks];
+            ForkJoinPool.commonPool()
+                    .invoke(new ChunkTask(buf, bounds, parser, results, errors, 0, chunks));
+
+            // Der Fehler im vordersten Abschnitt ist der des ersten fehlerhaften Elementes
+            for (JSONSyntaxException e : errors) {
+                if (e != null) {
+                    throw e;
+                }
+            }
+        } else {
+            parseRange(buf, bounds, parser, results, 0, count);
+        }
+
+        List<R> list = new ArrayList<>(count);
+        for (Object result : results) {
+            @SuppressWarnings("unchecked")
+            R element = (R) result;
+            list.add(element);
+        }
+        return list;
+    }
+
+    /**
+     * Liest die Elemente from bis ausschließlich to.
+     * 
+     * @param buf die Zeichen
+     * @param bounds Anfang und Ende aller Elemente
+     * @param parser liest ein Element
+     * @param results Ziel der Elemente
+     * @param from erstes Element
+     * @param to Index hinter dem letzten Element
+     * @throws JSONSyntaxException Syntaxfehler beim Einlesen
+     */
+    private static void parseRange(char[] buf, int[] bounds, ElementParser<?> parser,
+            Object[] results, int from, int to) throws JSONSyntaxException {
+        for (int i = from; i < to; i++) {
+            JSONTokenizer in = new JSONTokenizer(buf, bounds[2 * i], bounds[2 * i + 1]);
+            results[i] = parser.parse(in);
+
+            int character = in.peekValue();
+            if (character != -1) {
+                throw new JSONSyntaxException("Syntax error at:" + (char) character
+                        + ". Expected: ]");
+            }
+        }
+    }
+
+    /**
+     * Sucht die Grenzen der Elemente eines Arrays. Innerhalb von Strings werden Klammern und
+     * Kommas ignoriert, Escape-Sequenzen werden nur übersprungen.
+     * 
+     * @param buf die Zeichen
+     * @param start Anfang des Arrays
+     * @param end Index hinter dem letzten Zeichen
+     * @return für jedes Element Anfang und Ende hintereinander
+     * @throws JSONSyntaxException wenn kein vollständiges Array folgt
+     */
+    static int[] scan(char[] buf, int start, int end) throws JSONSyntaxException {
+        int p = start;
+        while (p < end && Character.isWhitespace(buf[p])) {
+            p++;
+        }
+        if (p == end || buf[p] != '[') {
+            throw new JSONSyntaxException("Syntax error at: " + (p == end ? "end" : buf[p])
+                    + ". Expected: [");
+        }
+        p++;
+
+        int[] bounds = new int[INITIAL_BOUNDS];
+        int count = 0;
+        int elementStart = p;
+        int depth = 0;
+
+        for (; p < end; p++) {
+            char c = buf[p];
+            switch (c) {
+                case '"':
+                    p++;
+                    while (p < end && buf[p] != '"') {
+                        if (buf[p] == '\\') {
+                            p++;
+                        }
+                        p++;
+                    }
+                    if (p >= end) {
+                        throw new JSONSyntaxException("Reached file end to soon");
+                    }
+                    break;
+                case '[':
+                case '{':
+                    depth++;
+                    break;
+                case ']':
+                case '}':
+                    if (depth > 0) {
+                        depth--;
+                        break;
+                    }
+                    if (c != ']') {
+                        throw new JSONSyntaxException("Syntax error at:}. Expected: ]");
+                    }
+                    // Ein leeres Array hat kein Element, sonst zählt auch ein leeres letztes
+                    // Element, damit der Tokenizer es als Fehler meldet
+                    if (count > 0 || !isBlank(buf, elementStart, p)) {
+                        bounds = add(bounds, count++, elementStart, p);
+                    }
+                    return Arrays.copyOf(bounds, 2 * count);
+                case ',':
+                    if (depth == 0) {
+                        bounds = add(bounds, count++, elementStart, p);
+                        elementStart = p + 1;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        throw new JSONSyntaxException("reached file end to soon.");
+    }
+
+    /**
+     * Trägt die Grenzen eines Elementes ein und vergrößert das Array bei Bedarf.
+     * 
+     * @param bounds bisherige Grenzen
+     * @param index Nummer des Elementes
+     * @param start Anfang des Elementes
+     * @param end Ende des Elementes
+     * @return das Array mit den Grenzen
+     */
+    private static int[] add(int[] bounds, int index, int start, int end) {
+        int[] result = bounds;
+        if (2 * index + 1 >= result.length) {
+            result = Arrays.copyOf(result, result.length * 2);
+        }
+        result[2 * index] = start;
+        result[2 * index + 1] = end;
+        return result;
+    }
+
+    /**
+     * Prüft, ob der Ausschnitt nur aus Whitespaces besteht.
+     * 
+     * @param buf die Zeichen
+     * @param start Anfang
+     * @param end Ende
+     * @return true, wenn nur Whitespaces enthalten sind
+     */
+    private static boolean isBlank(char[] buf, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!Character.isWhitespace(buf[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Liest die Abschnitte from bis to. Abschnitt c umfasst die Elemente von count * c / chunks
+     * bis ausschließlich count * (c + 1) / chunks. Ein Syntaxfehler wird im Abschnitt vermerkt
+     * und beendet nur diesen.
+     */
+    private static final class ChunkTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final char[] buf;
+        private final int[] bounds;
+        private final transient ElementParser<?> parser;
+        private final Object[] results;
+        private final JSONSyntaxException[] errors;
+        private final int from;
+        private final int to;
+
+        /**
+         * Konstruktor
+         * 
+         * @param buf die Zeichen
+         * @param bounds Anfang und Ende aller Elemente
+         * @param parser liest ein Element
+         * @param results Ziel der Elemente
+         * @param errors Ziel der Fehler pro Abschnitt
+         * @param from erster Abschnitt
+         * @param to Index hinter dem letzten Abschnitt
+         */
+        ChunkTask(char[] buf, int[] bounds, ElementParser<?> parser, Object[] results,
+                JSONSyntaxException[] errors, int from, int to) {
+            this.buf = buf;
+            this.bounds = bounds;
+            this.parser = parser;
+            this.results = results;
+            this.errors = errors;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new ChunkTask(buf, bounds, parser, results, errors, from, mid),
+                        new ChunkTask(buf, bounds, parser, results, errors, mid, to));
+                return;
+            }
+
+            int count = results.length;
+            int chunks = errors.length;
+            try {
+                parseRange(buf, bounds, parser, results, (int) ((long) count * from / chunks),
+                        (int) ((long) count * to / chunks));
+            } catch (JSONSyntaxException e) {
+                errors[from] = e;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,318 @@
+package wson;
+
+import java.util.Arrays;
+
+/**
+ * Schreibt und liest eindimensionale Arrays primitiver Typen ohne Boxing. Für jeden Typ gibt es
+ * eine eigene Schleife, die Zahlen direkt in einen StringBuilder formatiert bzw. direkt aus dem
+ * {@link JSONTokenizer} liest.
+ * 
+ * Die Ausgabe entspricht toString der jeweiligen Wrapper, char-Werte werden wie ein einzelner
+ * Character als maskierter String geschrieben. Beim Lesen werden Zahlen wie in
+ * JSONReader.convertNumber per Java-Cast in den Elementtyp umgewandelt, char-Werte aus dem ersten
+ * Zeichen eines Strings.
+ * 
+ * @author Lars Sander, Alexander Löffler
+ * 
+ */
+final class PrimitiveArrays {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Kein Konstruktor für Hilfsklasse.
+     */
+    private PrimitiveArrays() {
+    }
+
+    /**
+     * Hängt die Elemente from bis ausschließlich to durch Kommas getrennt an.
+     * 
+     * @param sb Ziel der Ausgabe
+     * @param array eindimensionales Array eines primitiven Typs
+     * @param from erstes Element
+     * @param to Index hinter dem letzten Element
+     */
+    static void append(StringBuilder sb, Object array, int from, int to) {
+        if (array instanceof int[]) {
+            int[] a = (int[]) array;
+            for (int i = from; i < to; i++) {
+                if (i > from) {
+                    sb.append(',');
+                }
+                sb.append(a[i]);
+            }
+        } else if (array instanceof long[]) {
+            long[] a = (long[]) array;
+            for (int i = from; i < to; i++) {
+                if (i > from) {
+                    sb.append(',');
+                }
+                sb.append(a[i]);
+            }
+        } else if (array instanceof double[]) {
+            double[] a = (double[]) array;
+            for (int i = from; i < to; i++) {
+                if (i > from) {
+                    sb.append(',');
+                }
+                NumberCodec.append(sb, a[i]);
+            }
+        } else if (array instanceof float[]) {
+            float[] a = (float[]) array;
+            for (int i = from; i < to; i++) {
+                if (i > from) {
+                    sb.append(',');
+                }
+                sb.append(a[i]);
+            }
+        } else if (array instanceof short[]) {
+            short[] a = (short[]) array;
+            for (int i = from; i < to; i++) {
+                if (i > from) {
+                    sb.append(',');
+                }
+                sb.append(a[i]);
+            }
+        } else if (array instanceof byte[]) {
+            byte[] a = (byte[]) array;
+            for (int i = from; i < to; i++) {
+                if (i > from) {
+                    sb.append(',');
+                }
+                sb.append(a[i]);
+            }
+        } else if (array instanceof char[]) {
+            char[] a = (char[]) array;
+            for (int i = from; i < to; i++) {
+                if (i > from) {
+                    sb.append(',');
+                }
+                String escaped = JSONWriter.escape(a[i]);
+                sb.append('"');
+                if (escaped != null) {
+                    sb.append(escaped);
+                } else {
+                    sb.append(a[i]);
+                }
+                sb.append('"');
+            }
+        } else {
+            boolean[] a = (boolean[]) array;
+            for (int i = from; i < to; i++) {
+                if (i > from) {
+                    sb.append(',');
+                }
+                sb.append(a[i]);
+            }
+        }
+    }
+
+    /**
+     * Liest ein JSON-Array direkt in ein Array des übergebenen primitiven Typs.
+     * 
+     * @param in Tokenizer vor dem Array
+     * @param componentType primitiver Elementtyp
+     * @pre componentType.isPrimitive()
+     * @return das gelesene Array
+     * @throws JSONSyntaxException Syntaxfehler oder Element passt nicht zum Typ
+     */
+    static Object read(JSONTokenizer in, Class<?> componentType) throws JSONSyntaxException {
+        assert componentType.isPrimitive();
+
+        in.beginArray();
+        if (componentType == int.class) {
+            return readInts(in);
+        } else if (componentType == long.class) {
+            return readLongs(in);
+        } else if (componentType == double.class) {
+            return readDoubles(in);
+        } else if (componentType == float.class) {
+            return readFloats(in);
+        } else if (componentType == short.class) {
+            return readShorts(in);
+        } else if (componentType == byte.class) {
+            return readBytes(in);
+        } else if (componentType == char.class) {
+            return readChars(in);
+        } else {
+            return readBooleans(in);
+        }
+    }
+
+    /**
+     * Liest eine Zahl nach eventuellen Whitespaces.
+     * 
+     * @param in der Tokenizer
+     * @return die Zahl
+     * @throws JSONSyntaxException Syntaxfehler beim Einlesen
+     */
+    private static double number(JSONTokenizer in) throws JSONSyntaxException {
+        in.peekValue();
+        return in.readNumber();
+    }
+
+    /**
+     * Liest die Elemente eines int-Arrays nach dem "[".
+     * 
+     * @param in der Tokenizer
+     * @return das Array
+     * @throws JSONSyntaxException Syntaxfehler beim Einlesen
+     */
+    private static int[] readInts(JSONTokenizer in) throws JSONSyntaxException {
+        int[] a = new int[INITIAL_CAPACITY];
+        int n = 0;
+        for (boolean first = true; in.hasNextElement(first); first = false) {
+            if (n == a.length) {
+                a = Arrays.copyOf(a, n * 2);
+            }
+            a[n++] = (int) number(in);
+        }
+        return Arrays.copyOf(a, n);
+    }
+
+    /**
+     * Liest die Elemente eines long-Arrays nach dem "[".
+     * 
+     * @param in der Tokenizer
+     * @return das Array
+     * @throws JSONSyntaxException Syntaxfehler beim Einlesen
+     */
+    private static long[] readLongs(JSONTokenizer in) throws JSONSyntaxException {
+        long[] a = new long[INITIAL_CAPACITY];
+        int n = 0;
+        for (boolean first = true; in.hasNextElement(first); first = false) {
+            if (n == a.length) {
+                a = Arrays.copyOf(a, n * 2);
+            }
+            in.peekValue();
+            a[n++] = in.readIntegral();
+        }
+        return Arrays.copyOf(a, n);
+    }
+
+    /**
+     * Liest die Elemente eines double-Arrays nach dem "[".
+     * 
+     * @param in der Tokenizer
+     * @return das Array
+     * @throws JSONSyntaxException Syntaxfehler beim Einlesen
+     */
+    private static double[] readDoubles(JSONTokenizer in) throws JSONSyntaxException {
+        double[] a = new double[INITIAL_CAPACITY];
+        int n = 0;
+        for (boolean first = true; in.hasNextElement(first); first = false) {
+            if (n == a.length) {
+                a = Arrays.copyOf(a, n * 2);
+            }
+            a[n++] = number(in);
+        }
+        return Arrays.copyOf(a, n);
+    }
+
+    /**
+     * Liest die Elemente eines float-Arrays nach dem "[".
+     * 
+     * @param in der Tokenizer
+     * @return das Array
+     * @throws JSONSyntaxException Syntaxfehler beim Einlesen
+     */
+    private static float[] readFloats(JSONTokenizer in) throws JSONSyntaxException {
+        float[] a = new float[INITIAL_CAPACITY];
+        int n = 0;
+        for (boolean first = true; in.hasNextElement(first); first = false) {
+            if (n == a.length) {
+                a = Arrays.copyOf(a, n * 2);
+            }
+            a[n++] = (float) number(in);
+        }
+        return Arrays.copyOf(a, n);
+    }
+
+    /**
+     * Liest die Elemente eines short-Arrays nach dem "[".
+     * 
+     * @param in der Tokenizer
+     * @return das Array
+     * @throws JSONSyntaxException Syntaxfehler beim Einlesen
+     */
+    private static short[] readShorts(JSONTokenizer in) throws JSONSyntaxException {
+        short[] a = new short[INITIAL_CAPACITY];
+        int n = 0;
+        for (boolean first = true; in.hasNextElement(first); first = false) {
+            if (n == a.length) {
+                a = Arrays.copyOf(a, n * 2);
+            }
+            a[n++] = (short) number(in);
+        }
+        return Arrays.copyOf(a, n);
+    }
+
+    /**
+     * Liest die Elemente eines byte-Arrays nach dem "[".
+     * 
+     * @param in der Tokenizer
+     * @return das Array
+     * @throws JSONSyntaxException Syntaxfehler beim Einlesen
+     */
+    private static byte[] readBytes(JSONTokenizer in) throws JSONSyntaxException {
+        byte[] a = new byte[INITIAL_CAPACITY];
+        int n = 0;
+        for (boolean first = true; in.hasNextElement(first); first = false) {
+            if (n == a.length) {
+                a = Arrays.copyOf(a, n * 2);
+            }
+            a[n++] = (byte) number(in);
+        }
+        return Arrays.copyOf(a, n);
+    }
+
+    /**
+     * Liest die Elemente eines char-Arrays nach dem "[". Jedes Element ist ein String, von dem
+     * das erste Zeichen übernommen wird.
+     * 
+     * @param in der Tokenizer
+     * @return das Array
+     * @throws JSONSyntaxException Syntaxfehler oder leerer String
+     */
+    private static char[] readChars(JSONTokenizer in) throws JSONSyntaxException {
+        char[] a = new char[INITIAL_CAPACITY];
+        int n = 0;
+        for (boolean first = true; in.hasNextElement(first); first = false) {
+            if (in.peekValue() != '"') {
+                throw new JSONSyntaxException("Syntax error at: " + (char) in.peekValue()
+                        + ". Expected: \"");
+            }
+            String s = in.readString();
+            if (s.isEmpty()) {
+                throw new JSONSyntaxException("empty string is not a char");
+            }
+            if (n == a.length) {
+                a = Arrays.copyOf(a, n * 2);
+            }
+            a[n++] = s.charAt(0);
+        }
+        return Arrays.copyOf(a, n);
+    }
+
+    /**
+     * Liest die Elemente eines boolean-Arrays nach dem "[".
+     * 
+     * @param in der Tokenizer
+     * @return das Array
+     * @throws JSONSyntaxException Syntaxfehler beim Einlesen
+     */
+    private static boolean[] readBooleans(JSONTokenizer in) throws JSONSyntaxException {
+        boolean[] a = new boolean[INITIAL_CAPACITY];
+        int n = 0;
+        for (boolean first = true; in.hasNextElement(first); first = false) {
+            if (n == a.length) {
+                a = Arrays.copyOf(a, n * 2);
+            }
+            in.peekValue();
+            a[n++] = in.readBoolean();
+        }
+        return Arrays.copyOf(a, n);
+    }
+
+}
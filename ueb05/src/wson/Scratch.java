@@ -0,0 +1,117 @@
+package wson;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * Puffer, die {@link Wson} zwischen zwei Aufrufen im selben Thread wiederverwendet: der
+ * StringBuilder für toJson, das char-Array für fromJson, der {@link BinaryWriter} für toBinary und
+ * die Menge für den Pfad der Objekte.
+ * 
+ * Jeder Thread hat höchstens einen freien Satz Puffer. {@link #acquire} nimmt ihn aus dem Thread
+ * heraus und {@link #release} legt ihn zurück. Ruft ein Konstruktor oder Adapter während eines
+ * Aufrufs erneut Wson auf, findet er keinen freien Satz und bekommt neue Puffer, sodass sich
+ * verschachtelte Aufrufe nie einen Puffer teilen. Puffer, die für ein einzelnes großes Dokument
+ * über {@link #MAX_RETAINED} gewachsen sind, werden nicht behalten.
+ * 
+ * @author Lars Sander, Alexander Löffler
+ * 
+ */
+final class Scratch {
+
+    // Größere Puffer würden pro Thread dauerhaft Speicher belegen
+    static final int MAX_RETAINED = 1 << 20;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private static final ThreadLocal<Scratch> FREE = new ThreadLocal<>();
+
+    private StringBuilder text = new StringBuilder(INITIAL_CAPACITY);
+    private char[] chars = new char[INITIAL_CAPACITY];
+    private BinaryWriter binary = new BinaryWriter();
+    private final Set<Object> path = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /**
+     * Nur über {@link #acquire}.
+     */
+    private Scratch() {
+    }
+
+    /**
+     * Liefert den freien Satz Puffer des aktuellen Threads oder einen neuen, wenn er gerade
+     * verwendet wird.
+     * 
+     * @return die Puffer, nach Gebrauch mit {@link #release} zurückzugeben
+     */
+    static Scratch acquire() {
+        Scratch scratch = FREE.get();
+        if (scratch == null) {
+            return new Scratch();
+        }
+        FREE.set(null);
+        return scratch;
+    }
+
+    /**
+     * Gibt die Puffer an den aktuellen Thread zurück. Danach dürfen sie nicht mehr verwendet
+     * werden.
+     */
+    void release() {
+        if (text.capacity() > MAX_RETAINED) {
+            text = new StringBuilder(INITIAL_CAPACITY);
+        }
+        if (chars.length > MAX_RETAINED) {
+            chars = new char[INITIAL_CAPACITY];
+        }
+        if (binary.capacity() > MAX_RETAINED) {
+            binary = new BinaryWriter();
+        }
+        // Nach einer Ausnahme können noch Objekte im Pfad stehen
+        path.clear();
+        FREE.set(this);
+    }
+
+    /**
+     * Liefert den leeren StringBuilder.
+     * 
+     * @return der StringBuilder
+     */
+    StringBuilder text() {
+        text.setLength(0);
+        return text;
+    }
+
+    /**
+     * Liefert ein char-Array mit mindestens der übergebenen Länge. Der Inhalt ist undefiniert.
+     * 
+     * @param length benötigte Länge
+     * @return das Array
+     */
+    char[] chars(int length) {
+        if (chars.length < length) {
+            chars = new char[Math.max(length, chars.length * 2)];
+        }
+        return chars;
+    }
+
+    /**
+     * Liefert den leeren BinaryWriter.
+     * 
+     * @return der BinaryWriter
+     */
+    BinaryWriter binary() {
+        binary.reset();
+        return binary;
+    }
+
+    /**
+     * Liefert die leere Menge für den Pfad der Objekte, verglichen über die Identität.
+     * 
+     * @return die Menge
+     */
+    Set<Object> path() {
+        return path;
+    }
+
+}
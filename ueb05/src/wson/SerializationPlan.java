@@ -0,0 +1,170 @@
+package wson;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import wson.annotations.StoreAs;
+
+/**
+ * Serialisierungsplan einer Klasse für {@link Wson#toJson}. Enthält alle nicht-statischen Felder
+ * der Klasse und ihrer Superklassen, bereits zugreifbar gemacht und nach ihrem Namen sortiert,
+ * zusammen mit dem fertigen JSON-Schlüssel und einer eventuellen {@link StoreAs}-Ersetzung.
+ * 
+ * Pläne werden pro Klasse genau einmal erstellt und in einem {@link ClassValue} gehalten, sodass
+ * wiederholte Serialisierungen desselben Typs ohne Reflection-Suche auskommen.
+ * 
+ * @author Lars Sander, Alexander Löffler
+ * 
+ */
+final class SerializationPlan {
+
+    private static final ClassValue<SerializationPlan> PLANS = new ClassValue<SerializationPlan>() {
+        @Override
+        protected SerializationPlan computeValue(Class<?> type) {
+            return new SerializationPlan(type);
+        }
+    };
+
+    private final List<Property> properties;
+
+    /**
+     * Erstellt den Plan für die übergebene Klasse.
+     * 
+     * @param type die Klasse
+     */
+    private SerializationPlan(Class<?> type) {
+        List<Property> props = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+
+        // Von der Klasse aufwärts, verdeckte Felder der Superklassen werden übersprungen
+        for (Class<?> cl = type; cl != null; cl = cl.getSuperclass()) {
+            for (Field field : cl.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers()) && names.add(field.getName())) {
+                    props.add(new Property(field));
+                }
+            }
+        }
+
+        props.sort(Comparator.comparing(p -> p.key));
+        this.properties = Collections.unmodifiableList(props);
+    }
+
+    /**
+     * Liefert den Plan für die übergebene Klasse und erstellt ihn beim ersten Aufruf.
+     * 
+     * @param type die Klasse
+     * @pre type != null
+     * @return der Plan
+     */
+    static SerializationPlan of(Class<?> type) {
+        assert type != null;
+
+        return PLANS.get(type);
+    }
+
+    /**
+     * Liefert die Felder in Ausgabereihenfolge.
+     * 
+     * @return unveränderliche Liste der Felder
+     */
+    List<Property> getProperties() {
+        return properties;
+    }
+
+    /**
+     * Ein einzelnes Feld eines Plans.
+     */
+    static final class Property {
+
+        private final FieldAccessor accessor;
+        private final Class<?> type;
+        private final String key;
+        private final String storeAs;
+
+        /**
+         * Konstruktor
+         * 
+         * @param field das Feld
+         */
+        private Property(Field field) {
+            this.accessor = new FieldAccessor(field);
+            this.type = field.getType();
+            this.key = "\"" + field.getName() + "\":";
+
+            // StoreAs nur an Feldern beachten, denen ein String zugewiesen werden kann
+            StoreAs rep = field.getAnnotation(StoreAs.class);
+            if (rep != null && field.getType().isAssignableFrom(String.class)) {
+                this.storeAs = "\"" + rep.value() + "\"";
+            } else {
+                this.storeAs = null;
+            }
+        }
+
+        /**
+         * Liefert den Schlüssel inklusive Anführungszeichen und Doppelpunkt, z.B. "name":
+         * 
+         * @return der JSON-Schlüssel
+         */
+        String getKey() {
+            return key;
+        }
+
+        /**
+         * Liefert den fertigen JSON-Wert aus der StoreAs-Annotation.
+         * 
+         * @return der Ersatzwert oder null, wenn das Feld nicht ersetzt wird
+         */
+        String getStoreAs() {
+            return storeAs;
+        }
+
+        /**
+         * Liest den Wert des Feldes aus.
+         * 
+         * @param src das Objekt
+         * @return der Wert des Feldes
+         */
+        Object get(Object src) {
+            return accessor.get(src);
+        }
+
+        /**
+         * Prüft, ob das Feld einen primitiven Zahlentyp hat und über {@link #writeNumber}
+         * ohne Boxing geschrieben werden kann.
+         * 
+         * @return true für byte, short, int, long, float und double
+         */
+        boolean isNumber() {
+            return accessor.hasLong() || accessor.hasDouble();
+        }
+
+        /**
+         * Schreibt den Wert eines primitiven Zahlenfeldes. Als JSON ist er identisch zu toString
+         * des zugehörigen Wrappers.
+         * 
+         * @param src das Objekt
+         * @param out Ziel des Feldes
+         * @pre isNumber()
+         * @throws IOException Fehler beim Schreiben
+         */
+        void writeNumber(Object src, FieldWriter out) throws IOException {
+            assert isNumber();
+
+            if (accessor.hasLong()) {
+                out.number(key, accessor.getLong(src));
+            } else if (type == float.class) {
+                out.number(key, (float) accessor.getDouble(src));
+            } else {
+                out.number(key, accessor.getDouble(src));
+            }
+        }
+    }
+
+}
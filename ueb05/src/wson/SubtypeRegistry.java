@@ -0,0 +1,125 @@
+package wson;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Registrierte Klassen für polymorphe Felder. Objekte dieser Klassen erhalten in
+ * {@link Wson#toJson} als erstes Element eine Typangabe, z.B. {"@type":"EChild","child":3}, und
+ * {@link Wson#fromJson} erzeugt anhand dieser Angabe die Unterklasse statt des deklarierten Typs.
+ * So bleiben Objekte in Feldern einer (auch abstrakten) Basisklasse oder eines Interfaces erhalten.
+ * 
+ * Die Typangabe ist der einfache Klassenname. Beide Richtungen werden beim Erstellen einmal
+ * berechnet und danach nur noch in einer HashMap nachgeschlagen; eine Registry ist unveränderlich
+ * und kann von beliebig vielen Wson-Instanzen geteilt werden. Klassen werden nur aus der Registry
+ * erzeugt, nie über ihren Namen geladen.
+ * 
+ * Die Typangabe muss das erste Element des Objektes sein, wie toJson sie schreibt. Steht sie an
+ * anderer Stelle, wird sie wie ein unbekanntes Feld überlesen.
+ * 
+ * @author Lars Sander, Alexander Löffler
+ * 
+ */
+public final class SubtypeRegistry {
+
+    /**
+     * Name der Typangabe, wenn keiner übergeben wird.
+     */
+    public static final String DEFAULT_PROPERTY = "@type";
+
+    private final String property;
+    private final String key;
+    private final Map<String, Class<?>> types;
+    private final Map<Class<?>, String> tags;
+
+    /**
+     * Konstruktor mit der Typangabe {@link #DEFAULT_PROPERTY}.
+     * 
+     * @param types alle Klassen, deren Objekte polymorph geschrieben und gelesen werden
+     * @throws IllegalArgumentException wenn zwei Klassen denselben einfachen Namen haben
+     */
+    public SubtypeRegistry(Class<?>... types) {
+        this(DEFAULT_PROPERTY, types);
+    }
+
+    /**
+     * Konstruktor
+     * 
+     * @param property Name der Typangabe, darf keinem Feld der Klassen entsprechen
+     * @param types alle Klassen, deren Objekte polymorph geschrieben und gelesen werden
+     * @pre property != null
+     * @pre types enthält keine anonymen Klassen
+     * @throws IllegalArgumentException wenn zwei Klassen denselben einfachen Namen haben
+     */
+    public SubtypeRegistry(String property, Class<?>... types) {
+        assert property != null;
+
+        Map<String, Class<?>> byName = new HashMap<>();
+        Map<Class<?>, String> byType = new HashMap<>();
+        for (Class<?> type : types) {
+            assert !type.isAnonymousClass();
+
+            String name = type.getSimpleName();
+            Class<?> other = byName.put(name, type);
+            if (other != null && other != type) {
+                throw new IllegalArgumentException("Typangabe " + name + " für " + other.getName()
+                        + " und " + type.getName());
+            }
+            byType.put(type, "\"" + name + "\"");
+        }
+
+        this.property = property;
+        this.key = "\"" + property + "\":";
+        this.types = Collections.unmodifiableMap(byName);
+        this.tags = Collections.unmodifiableMap(byType);
+    }
+
+    /**
+     * Liefert den Namen der Typangabe.
+     * 
+     * @return der Name, z.B. @type
+     */
+    public String getProperty() {
+        return property;
+    }
+
+    /**
+     * Liefert den Schlüssel der Typangabe inklusive Anführungszeichen und Doppelpunkt.
+     * 
+     * @return der fertige Schlüssel, z.B. "@type":
+     */
+    String getKey() {
+        return key;
+    }
+
+    /**
+     * Liefert die Typangabe einer Klasse als fertigen JSON-String.
+     * 
+     * @param type die Klasse eines zu schreibenden Objektes
+     * @return der Name inklusive Anführungszeichen oder null, wenn type nicht registriert ist
+     */
+    String tag(Class<?> type) {
+        return tags.get(type);
+    }
+
+    /**
+     * Liefert die Klasse zu einer gelesenen Typangabe.
+     * 
+     * @param <T> der deklarierte Typ
+     * @param name die Typangabe
+     * @param declared der deklarierte Typ des Wertes
+     * @return die registrierte Klasse
+     * @throws JSONSyntaxException wenn name nicht registriert ist oder die Klasse nicht zum
+     *             deklarierten Typ passt
+     */
+    <T> Class<? extends T> resolve(String name, Class<T> declared) throws JSONSyntaxException {
+        Class<?> type = types.get(name);
+        if (type == null || !declared.isAssignableFrom(type)) {
+            throw new JSONSyntaxException(
+                    "Typangabe " + name + " ist kein registrierter Untertyp von " + declared);
+        }
+        return type.asSubclass(declared);
+    }
+
+}
@@ -0,0 +1,132 @@
+package wson;
+
+import java.io.IOException;
+
+import wson.annotations.GenerateAdapter;
+
+/**
+ * Liest und schreibt die Felder einer Klasse ohne Reflection. Unterklassen werden vom
+ * Annotationsprozessor wson.processor.AdapterProcessor für jede mit {@link GenerateAdapter}
+ * annotierte Klasse erzeugt und greifen direkt auf die Felder zu.
+ * 
+ * Der Adapter einer Klasse heißt wie ihr binärer Name ohne Paket, mit "_" statt "$" und der Endung
+ * {@value #SUFFIX}, und liegt im Paket der Klasse. Wird er nicht gefunden, weil der Prozessor
+ * nicht lief, verwenden {@link Wson#toJson} und {@link Wson#fromJson} wie bisher Reflection.
+ * 
+ * Die geschweiften Klammern, den Pfad für Zyklen und das Überlesen unbekannter Schlüssel
+ * übernimmt Wson, der Adapter liefert nur die Felder.
+ * 
+ * @param <T> die Klasse des Adapters
+ * 
+ * @author Lars Sander, Alexander Löffler
+ * 
+ */
+public abstract class TypeAdapter<T> {
+
+    /**
+     * Endung der Namen erzeugter Adapter.
+     */
+    public static final String SUFFIX = "_WsonAdapter";
+
+    private static final ClassValue<TypeAdapter<?>> ADAPTERS = new ClassValue<TypeAdapter<?>>() {
+        @Override
+        protected TypeAdapter<?> computeValue(Class<?> type) {
+            return load(type);
+        }
+    };
+
+    /**
+     * Erzeugt ein neues, leeres Objekt.
+     * 
+     * @return das Objekt
+     */
+    protected abstract T create();
+
+    /**
+     * Schreibt alle Felder in der Reihenfolge von {@link SerializationPlan}.
+     * 
+     * @param src das Objekt
+     * @param out Ziel der Felder
+     * @throws IOException Fehler beim Schreiben
+     */
+    protected abstract void write(T src, FieldWriter out) throws IOException;
+
+    /**
+     * Liest den Wert zu einem Schlüssel in das passende Feld.
+     * 
+     * @param target das zu befüllende Objekt
+     * @param key der Schlüssel
+     * @param in Quelle des Wertes
+     * @return false, wenn es kein beschreibbares Feld zum Schlüssel gibt und der Wert nicht
+     *         gelesen wurde
+     * @throws JSONSyntaxException Syntaxfehler beim Einlesen
+     */
+    protected abstract boolean read(T target, String key, FieldReader in)
+            throws JSONSyntaxException;
+
+    /**
+     * Liefert den Namen des Adapters zu einer Klasse.
+     * 
+     * @param binaryName binärer Name der Klasse, z.B. pkg.Outer$Inner
+     * @return binärer Name des Adapters, z.B. pkg.Outer_Inner_WsonAdapter
+     */
+    public static String adapterName(String binaryName) {
+        int dot = binaryName.lastIndexOf('.');
+        return binaryName.substring(0, dot + 1)
+                + binaryName.substring(dot + 1).replace('$', '_') + SUFFIX;
+    }
+
+    /**
+     * Liefert den Adapter der übergebenen Klasse und sucht ihn beim ersten Aufruf.
+     * 
+     * @param <T> die Klasse
+     * @param type die Klasse
+     * @pre type != null
+     * @return der Adapter oder null, wenn Reflection verwendet werden muss
+     */
+    @SuppressWarnings("unchecked")
+    static <T> TypeAdapter<T> of(Class<T> type) {
+        assert type != null;
+
+        return (TypeAdapter<T>) ADAPTERS.get(type);
+    }
+
+    /**
+     * Schreibt die Felder eines Objektes, dessen Klasse nur zur Laufzeit bekannt ist.
+     * 
+     * @param src das Objekt
+     * @param out Ziel der Felder
+     * @pre src ist eine Instanz der Klasse des Adapters
+     * @throws IOException Fehler beim Schreiben
+     */
+    @SuppressWarnings("unchecked")
+    final void writeFields(Object src, FieldWriter out) throws IOException {
+        write((T) src, out);
+    }
+
+    /**
+     * Lädt den erzeugten Adapter einer Klasse.
+     * 
+     * @param type die Klasse
+     * @return der Adapter oder null, wenn die Klasse nicht annotiert ist oder kein Adapter
+     *         erzeugt wurde
+     * @throws IllegalStateException wenn der Adapter nicht erzeugt werden kann
+     */
+    private static TypeAdapter<?> load(Class<?> type) {
+        if (!type.isAnnotationPresent(GenerateAdapter.class)) {
+            return null;
+        }
+
+        try {
+            Class<?> adapter =
+                    Class.forName(adapterName(type.getName()), true, type.getClassLoader());
+            return adapter.asSubclass(TypeAdapter.class).getConstructor().newInstance();
+        } catch (ClassNotFoundException e) {
+            // Ohne Annotationsprozessor übersetzt
+            return null;
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new IllegalStateException("Adapter für " + type + " ungültig", e);
+        }
+    }
+
+}
@@ -1,28 +1,110 @@
 package wson;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
-import java.io.PushbackReader;
-import java.io.StringReader;
-import java.lang.reflect.Field;
-import java.lang.reflect.Modifier;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
-
-import wson.annotations.StoreAs;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Eine Klasse zur Serialisierung und Deserialisierung von Java-Werten mittels JSON.
  *
+ * Instanzen sind threadsicher und sollen wiederverwendet werden: Wson selbst ist unveränderlich,
+ * die Caches für Klassen (Pläne, Felder, Adapter, Schlüssel) vertragen gleichzeitige Zugriffe, und
+ * alle Zustände eines Aufrufs liegen in Objekten, die nur dieser Aufruf sieht. Puffer für
+ * toJson, fromJson und toBinary werden pro Thread wiederverwendet, siehe {@link Scratch}.
+ *
  * @author kar, mhe, Lars Sander, Alexander Löffler
  */
 public class Wson {
+
+    /**
+     * Empfohlene Mindestgröße für das parallele Schreiben. Darunter überwiegt der Aufwand für das
+     * Verteilen der Abschnitte.
+     */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 10000;
+
+    private final int parallelThreshold;
+
+    // Registrierte Untertypen oder null, wenn keine Typangaben geschrieben werden
+    private final SubtypeRegistry subtypes;
+
+    // Ohne veränderlichen Zustand, kann daher von allen Aufrufen geteilt werden
+    private final JSONReader reader;
+
     /**
      * Konstruktor
      */
     public Wson() {
+        this(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Konstruktor mit Typangaben für polymorphe Felder. Objekte der registrierten Klassen werden
+     * von {@link #toJson} mit ihrer Typangabe geschrieben und von {@link #fromJson} als diese
+     * Klasse gelesen, auch wenn das Feld eine Basisklasse deklariert. Das Binärformat enthält
+     * keine Typangaben.
+     *
+     * @param subtypes die registrierten Klassen
+     * @pre subtypes != null
+     */
+    public Wson(SubtypeRegistry subtypes) {
+        this(Integer.MAX_VALUE, subtypes);
+    }
+
+    /**
+     * Konstruktor mit parallelem Schreiben großer Listen und Arrays in {@link #toJson}. Die
+     * Elemente werden in Abschnitten auf dem gemeinsamen ForkJoinPool geschrieben und in
+     * Reihenfolge zusammengesetzt, die Ausgabe ist identisch zum sequentiellen Schreiben.
+     *
+     * @param parallelThreshold Mindestanzahl an Elementen, ab der parallel geschrieben wird, z.B.
+     *            {@link #DEFAULT_PARALLEL_THRESHOLD}. Integer.MAX_VALUE schreibt immer
+     *            sequentiell.
+     * @pre parallelThreshold größer 0
+     */
+    public Wson(int parallelThreshold) {
+        assert parallelThreshold > 0;
+
+        this.parallelThreshold = parallelThreshold;
+        this.subtypes = null;
+        this.reader = new JSONReader();
+    }
+
+    /**
+     * Konstruktor mit parallelem Schreiben wie {@link #Wson(int)} und Typangaben wie
+     * {@link #Wson(SubtypeRegistry)}.
+     *
+     * @param parallelThreshold Mindestanzahl an Elementen, ab der parallel geschrieben wird
+     * @param subtypes die registrierten Klassen
+     * @pre parallelThreshold größer 0
+     * @pre subtypes != null
+     */
+    public Wson(int parallelThreshold, SubtypeRegistry subtypes) {
+        assert parallelThreshold > 0;
+        assert subtypes != null;
+
+        this.parallelThreshold = parallelThreshold;
+        this.subtypes = subtypes;
+        this.reader = new JSONReader(subtypes);
     }
 
     /**
@@ -42,120 +124,376 @@ public class Wson {
         assert json != null;
         assert classOfT != null;
 
+        Scratch scratch = Scratch.acquire();
         try {
-            JSONReader r = new JSONReader();
-            PushbackReader pbr = new PushbackReader(new StringReader(json));
+            char[] buf = scratch.chars(json.length());
+            json.getChars(0, json.length(), buf, 0);
+            return reader.read(new JSONTokenizer(buf, 0, json.length()), classOfT);
+        } finally {
+            scratch.release();
+        }
+    }
 
-            return r.convert(JSONParser.readElement(pbr), classOfT);
-        } catch (IOException e) {
-            throw new RuntimeException("not supposed to happen", e);
+    /**
+     * Deserialisiert eine UTF-8-kodierte JSON-Datei, ohne sie vorher als String einzulesen. Die
+     * Datei wird über {@link MappedUtf8Reader} in den Speicher eingeblendet und beim Parsen
+     * stückweise dekodiert, auch bei Dateien über 2 GB. Das Ergebnis ist dasselbe wie bei
+     * {@link #fromJson(String, Class)} mit dem Inhalt der Datei.
+     *
+     * @param json Pfad der Datei
+     * @param classOfT Klasse des deserialisierten (Wurzel-)Wertes
+     * @param <T> Typ des deserialisierten (Wurzel-)Wertes
+     * @pre json != null
+     * @pre classOfT != null
+     * @return Der deserialisierte (Wurzel-)Wert
+     * @throws IOException Fehler beim Lesen oder ungültiges UTF-8
+     * @throws JSONSyntaxException Syntax-Fehler bei der JSON-Verarbeitung
+     */
+    public <T> T fromJson(Path json, Class<T> classOfT) throws IOException, JSONSyntaxException {
+        assert json != null;
+        assert classOfT != null;
+
+        try (FileChannel channel = FileChannel.open(json, StandardOpenOption.READ)) {
+            JSONTokenizer in =
+                    new JSONTokenizer(new MappedUtf8Reader(channel, MappedUtf8Reader.WINDOW));
+            return reader.read(in, classOfT);
+        } catch (UncheckedIOException e) {
+            // Der Tokenizer meldet Fehler des Readers ungeprüft
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Deserialisiert die Elemente eines JSON-Arrays auf oberster Ebene. Jedes Element wird wie
+     * mit {@link #fromJson(String, Class)} in ein Objekt der übergebenen Klasse umgewandelt.
+     *
+     * Parallel werden zuerst in einem schnellen Durchlauf die Grenzen der Elemente gesucht und die
+     * Elemente danach auf dem gemeinsamen ForkJoinPool gelesen. Das lohnt sich nur für große
+     * Arrays; das Ergebnis ist dasselbe wie beim sequentiellen Lesen.
+     *
+     * @param json JSON-Array. Muss gültig sein.
+     * @param classOfT Klasse der Elemente
+     * @param parallel true, um die Elemente parallel zu lesen
+     * @param <T> Typ der Elemente
+     * @pre json != null
+     * @pre classOfT != null
+     * @return Liste der deserialisierten Elemente in Reihenfolge des Arrays
+     * @throws JSONSyntaxException Syntax-Fehler bei der JSON-Verarbeitung
+     */
+    public <T> List<T> fromJsonArray(String json, Class<T> classOfT, boolean parallel)
+            throws JSONSyntaxException {
+        assert json != null;
+        assert classOfT != null;
+
+        if (parallel) {
+            char[] buf = json.toCharArray();
+            return ParallelArrayParser.parse(buf, 0, buf.length, in -> reader.read(in, classOfT),
+                    true);
         }
+
+        Scratch scratch = Scratch.acquire();
+        try {
+            char[] buf = scratch.chars(json.length());
+            json.getChars(0, json.length(), buf, 0);
+            JSONTokenizer in = new JSONTokenizer(buf, 0, json.length());
+            List<T> result = new ArrayList<>();
+            in.beginArray();
+            for (boolean first = true; in.hasNextElement(first); first = false) {
+                result.add(reader.read(in, classOfT));
+            }
+            return result;
+        } finally {
+            scratch.release();
+        }
+    }
+
+    /**
+     * Liefert ein JSON-Objekt, dessen Werte erst beim Zugriff gelesen werden. Beim Aufruf werden
+     * nur Schlüssel und Grenzen der Werte auf oberster Ebene gesucht; lohnt sich für große
+     * Dokumente, von denen nur wenige Felder benötigt werden.
+     *
+     * @param json JSON-Objekt
+     * @pre json != null
+     * @return das Objekt
+     * @throws JSONSyntaxException wenn json kein vollständiges Objekt ist
+     */
+    public LazyJsonObject fromJsonLazy(String json) throws JSONSyntaxException {
+        assert json != null;
+
+        return new LazyJsonObject(reader, json.toCharArray(), 0, json.length());
+    }
+
+    /**
+     * Deserialisiert die Elemente eines JSON-Arrays nacheinander, ohne das Array als Ganzes
+     * einzulesen. Es wird erst beim Verarbeiten des Streams gelesen und immer nur ein Element im
+     * Speicher gehalten. Schließen des Streams schließt auch json.
+     *
+     * Fehler beim Lesen werden als UncheckedIOException geworfen, Syntaxfehler als
+     * IllegalStateException mit der JSONSyntaxException als Ursache.
+     *
+     * @param json Reader, der ein JSON-Array liefert
+     * @param classOfT Klasse der Elemente
+     * @param <T> Typ der Elemente
+     * @pre json != null
+     * @pre classOfT != null
+     * @return Stream der deserialisierten Elemente in Reihenfolge des Arrays
+     */
+    public <T> Stream<T> fromJsonStream(Reader json, Class<T> classOfT) {
+        assert json != null;
+        assert classOfT != null;
+
+        JSONStreamReader in = new JSONStreamReader(json);
+        ArrayElements<T> elements = new ArrayElements<>(in, reader, classOfT);
+        return StreamSupport.stream(elements, false).onClose(() -> {
+            try {
+                in.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
     }
 
-    private String toJsonHelper(Object src, Set<ReferenceWrapper> above) {
-        final JSONWriter w = new JSONWriter();
-        final Map<Object, String> jsonMap = new HashMap<>();
+    /**
+     * Schreibt einen Java-Wert als JSON. Die Felder von Objekten werden über ihren erzeugten
+     * {@link TypeAdapter} geschrieben, sonst über Reflection.
+     *
+     * @param src Zu serialisierender Wert
+     * @param above Alle Objekte, in denen src enthalten ist. Wird während des Aufrufs um src
+     *            ergänzt und danach wiederhergestellt.
+     * @param w Ziel der Ausgabe
+     * @throws IOException Fehler beim Schreiben
+     */
+    void toJsonHelper(Object src, Set<Object> above, JSONWriter w) throws IOException {
 
         if (Iterable.class.isAssignableFrom(src.getClass())) {
-            return w.iterableToJson(src);
+            w.writeIterable((Iterable<?>) src);
+            return;
         }
 
         if (src.getClass().isArray()) {
-            return w.multiArrToJson(src);
+            w.writeMultiArr(src);
+            return;
         }
 
         if (src.getClass() == String.class) {
-            return "\"" + w.strToJson(src.toString()) + "\"";
+            w.writeString(src.toString());
+            return;
         }
 
         if (src.getClass() == Character.class) {
-            return "\"" + src.toString() + "\"";
+            w.write('"');
+            w.write(src.toString());
+            w.write('"');
+            return;
+        }
+
+        if (src.getClass() == Double.class) {
+            w.writeDouble((Double) src);
+            return;
         }
 
         if (w.isPrimWrapper(src)) {
-            return src.toString();
+            w.write(src.toString());
+            return;
         }
 
         if (Map.class.isAssignableFrom(src.getClass())) {
-            for (Object key : ((Map) src).keySet()) {
-                // String muss über toJson gebaut weren, weil alle Objekte erlaubt sind
-                jsonMap.put(key, toJson(((Map) src).get(key)));
-            }
-            // Problem: In einer RawMap können Strings als Keys gespeichert werden, die beim
-            // umwandeln zu Strings die Natürlicheordnung brechen.
+            // Die Reihenfolge der Schlüssel entspricht der einer HashMap, auch wenn src eine
+            // andere Map ist. Kopiert werden nur die Referenzen, nicht die Werte.
             // sorted() ist an dieser Stelle nicht möglich, weil entweder die Objekte nicht
             // verglichen werden können oder weil die String Form die Ordnung stört.
-            return jsonMap.keySet().stream()
-                    .map(k -> "\"" + w.strToJson(k.toString()) + "\":" + jsonMap.get(k))
-                    .collect(Collectors.joining(",", "{", "}"));
-
-        }
-
-        above.add(new ReferenceWrapper(src));
-        Set<Field> fieldsSet = w.getAllFields(src);
-
-        /*
-         * for (Field cur : fieldsSet) {
-         * 
-         * // Gesicherte Felder verfügbar machen, check auf 0 für default package-private if
-         * (Modifier.isPrivate(cur.getModifiers()) || Modifier.isProtected(cur.getModifiers()) ||
-         * cur.getModifiers() == 0) { cur.setAccessible(true); }
-         * 
-         * try { // Statische Felder,Anonymeklassen und cyclische referenzen ignorieren if
-         * (!Modifier.isStatic(cur.getModifiers()) && !above.contains(new
-         * ReferenceWrapper(cur.get(src)))) { if (cur.get(src) == null ||
-         * !cur.get(src).getClass().isAnonymousClass()) { String fValue;
-         * 
-         * // Felder mit StoreAs Annotation überschreiben, wenn möglich StoreAs rep =
-         * cur.getAnnotation(StoreAs.class); if (rep != null &&
-         * cur.getType().isAssignableFrom(String.class)) { fValue = "\"" + rep.value() + "\"";
-         * jsonMap.put(cur.getName(), fValue); } else if (cur.get(src) != null) { fValue =
-         * toJsonHelper(cur.get(src), new HashSet<>(above)); jsonMap.put(cur.getName(), fValue); }
-         * 
-         * } }
-         * 
-         * } catch (IllegalArgumentException | IllegalAccessException e) { throw new
-         * RuntimeException("Fehler beim erstellen der JSON Darstellung. Object: " + src.toString()
-         * + " Feld: " + cur.toString()); }
-         * 
-         * }
-         */
-        fieldsSet.stream()
-                .filter(cur -> Modifier.isPrivate(cur.getModifiers())
-                        || Modifier.isProtected(cur.getModifiers()) || cur.getModifiers() == 0)
-                .forEach(cur -> cur.setAccessible(true));
+            Map<?, ?> map = inHashOrder((Map<?, ?>) src);
+            boolean first = true;
+
+            w.write('{');
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                if (!first) {
+                    w.write(',');
+                }
+                first = false;
+                w.writeString(entry.getKey().toString());
+                w.write(':');
+                // Werte werden unabhängig von den umgebenden Objekten serialisiert
+                toJsonHelper(entry.getValue(), newPath(), w);
+            }
+            w.write('}');
+            return;
+        }
 
-        // Für jedes Feld den Inhalt in einer Map speichern, damit in den Filtern und dem Stream
-        // später keine try/catch Blöcke geben muss. Die IllegalAccessException sollte eh niemals
-        // geworfen werden, weil wir vorher wenn nötig setAccessible(true) aufgerufen haben
-        Map<Object, Object> getMap = new HashMap<>();
+        // src gehört nur während des Schreibens seiner Felder zum Pfad
+        above.add(src);
+        FieldWriter out = new FieldWriter.Json(this, above, w);
+        TypeAdapter<?> adapter = TypeAdapter.of(src.getClass());
 
-        fieldsSet.stream().filter(cur -> !Modifier.isStatic(cur.getModifiers())).forEach(o -> {
-            try {
-                getMap.put(o, o.get(src));
-            } catch (IllegalAccessException e) {
-                throw new RuntimeException(e);
+        w.write('{');
+        String tag = subtypes != null ? subtypes.tag(src.getClass()) : null;
+        if (tag != null) {
+            // Vor allen Feldern, damit fromJson die Klasse vor dem ersten Feld kennt
+            out.storeAs(subtypes.getKey(), tag);
+        }
+        if (adapter != null) {
+            adapter.writeFields(src, out);
+        } else {
+            // Die Felder liegen im Plan bereits sortiert vor
+            for (SerializationPlan.Property prop : SerializationPlan.of(src.getClass())
+                    .getProperties()) {
+                // Primitive Zahlen ohne Boxing schreiben, sie können keine Zyklen bilden
+                if (prop.isNumber()) {
+                    prop.writeNumber(src, out);
+                } else {
+                    Object value = prop.get(src);
+                    if (out.begin(prop.getKey(), value, prop.getStoreAs())) {
+                        toJsonHelper(value, above, w);
+                    }
+                }
             }
-        });
+        }
+        w.write('}');
+        above.remove(src);
+    }
 
-        fieldsSet.stream().filter(cur -> !Modifier.isStatic(cur.getModifiers()))
-                .filter(cur -> !above.contains(new ReferenceWrapper(getMap.get(cur))))
-                .filter(cur -> getMap.get(cur) == null
-                        || !getMap.get(cur).getClass().isAnonymousClass())
-                .forEach(cur -> {
-                    String fValue;
-                    StoreAs rep = cur.getAnnotation(StoreAs.class);
-                    if (rep != null && cur.getType().isAssignableFrom(String.class)) {
-                        fValue = "\"" + rep.value() + "\"";
-                        jsonMap.put(cur.getName(), fValue);
-                    } else if (getMap.get(cur) != null) {
-                        fValue = toJsonHelper(getMap.get(cur), new HashSet<>(above));
-                        jsonMap.put(cur.getName(), fValue);
+    /**
+     * Schreibt einen Java-Wert im Binärformat von {@link BinaryWriter}. Die Auswahl der Felder,
+     * das Auslassen von Zyklen und StoreAs-Annotationen entsprechen {@link #toJsonHelper}.
+     * Elemente von Listen und Arrays, die null sind oder zum Pfad gehören, werden als null
+     * geschrieben.
+     *
+     * @param src Zu serialisierender Wert
+     * @param above Alle Objekte, in denen src enthalten ist. Wird während des Aufrufs um src
+     *            ergänzt und danach wiederhergestellt.
+     * @param out Ziel der Ausgabe
+     * @throws IOException Fehler beim Schreiben
+     */
+    void toBinaryHelper(Object src, Set<Object> above, BinaryWriter out) throws IOException {
+        Class<?> type = src.getClass();
+
+        if (src instanceof Iterable || type.isArray() && !type.getComponentType().isPrimitive()) {
+            out.beginArray();
+            Iterable<?> elements = src instanceof Iterable ? (Iterable<?>) src
+                    : Arrays.asList((Object[]) src);
+            for (Object element : elements) {
+                if (element == null || above.contains(element)) {
+                    out.writeNull();
+                } else {
+                    toBinaryHelper(element, above, out);
+                }
+            }
+            out.endArray();
+        } else if (type.isArray()) {
+            out.writePrimitives(src);
+        } else if (type == String.class || type == Character.class) {
+            out.writeString(src.toString());
+        } else if (type == Boolean.class) {
+            out.writeBoolean((Boolean) src);
+        } else if (type == Double.class) {
+            out.writeDouble((Double) src);
+        } else if (type == Float.class) {
+            out.writeFloat((Float) src);
+        } else if (type == Long.class || type == Integer.class || type == Short.class
+                || type == Byte.class) {
+            out.writeLong(((Number) src).longValue());
+        } else if (src instanceof Map) {
+            // Reihenfolge wie in toJsonHelper
+            out.beginObject();
+            for (Map.Entry<?, ?> entry : inHashOrder((Map<?, ?>) src).entrySet()) {
+                out.writeName(entry.getKey().toString());
+                if (entry.getValue() == null) {
+                    out.writeNull();
+                } else {
+                    toBinaryHelper(entry.getValue(), newPath(), out);
+                }
+            }
+            out.endObject();
+        } else {
+            above.add(src);
+            FieldWriter fields = new FieldWriter.Binary(this, above, out);
+            TypeAdapter<?> adapter = TypeAdapter.of(type);
+
+            out.beginObject();
+            if (adapter != null) {
+                adapter.writeFields(src, fields);
+            } else {
+                for (SerializationPlan.Property prop : SerializationPlan.of(type).getProperties()) {
+                    if (prop.isNumber()) {
+                        prop.writeNumber(src, fields);
+                    } else {
+                        Object value = prop.get(src);
+                        if (fields.begin(prop.getKey(), value, prop.getStoreAs())) {
+                            toBinaryHelper(value, above, out);
+                        }
                     }
-                });
+                }
+            }
+            out.endObject();
+            above.remove(src);
+        }
+    }
+
+    /**
+     * Hält einen Java-Wert für {@link #diff} fest. Objekte mit Feldern werden über
+     * {@link FieldWriter.Snapshot} zu einer Map ihrer Felder, alle anderen Werte zu ihrem JSON wie
+     * von {@link #toJsonHelper}.
+     *
+     * @param src festzuhaltender Wert
+     * @param above Alle Objekte, in denen src enthalten ist. Wird während des Aufrufs um src
+     *            ergänzt und danach wiederhergestellt.
+     * @return Map der Felder nach fertigem Schlüssel oder JSON-String
+     * @throws IOException Fehler beim Schreiben
+     */
+    Object snapshotHelper(Object src, Set<Object> above) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        JSONWriter w = new JSONWriter(sb, parallelThreshold);
+        Class<?> type = src.getClass();
 
-        return jsonMap.keySet().stream().map(k -> "\"" + k + "\":" + jsonMap.get(k)).sorted()
-                .collect(Collectors.joining(",", "{", "}"));
+        if (src instanceof Iterable || type.isArray() || type == String.class
+                || w.isPrimWrapper(src) || src instanceof Map) {
+            toJsonHelper(src, above, w);
+            return sb.toString();
+        }
+
+        above.add(src);
+        FieldWriter.Snapshot out = new FieldWriter.Snapshot(this, above);
+        TypeAdapter<?> adapter = TypeAdapter.of(type);
+        if (adapter != null) {
+            adapter.writeFields(src, out);
+        } else {
+            for (SerializationPlan.Property prop : SerializationPlan.of(type).getProperties()) {
+                if (prop.isNumber()) {
+                    prop.writeNumber(src, out);
+                } else {
+                    out.value(prop.getKey(), prop.get(src), prop.getStoreAs());
+                }
+            }
+        }
+        above.remove(src);
+        return out.getFields();
+    }
+
+    /**
+     * Erzeugt eine leere Menge für den Pfad der Objekte, in denen der aktuelle Wert enthalten ist.
+     * Verglichen wird über die Identität, hashCode und equals der Objekte werden nicht aufgerufen.
+     *
+     * @return die leere Menge
+     */
+    private static Set<Object> newPath() {
+        return Collections.newSetFromMap(new IdentityHashMap<>());
+    }
+
+    /**
+     * Kopiert eine Map in eine HashMap, deren Iterationsreihenfolge die Reihenfolge der Schlüssel
+     * in der Ausgabe bestimmt. Die Einträge werden einzeln in eine HashMap mit Standardgröße
+     * eingefügt. new HashMap<>(src) würde die Tabelle passend zu src anlegen und bei manchen
+     * Größen (z.B. 4, 5, 24 oder 48 Einträge) eine andere Reihenfolge liefern.
+     *
+     * @param src die zu schreibende Map
+     * @return die Kopie
+     */
+    private static Map<Object, Object> inHashOrder(Map<?, ?> src) {
+        Map<Object, Object> map = new HashMap<>();
+        for (Map.Entry<?, ?> entry : src.entrySet()) {
+            map.put(entry.getKey(), entry.getValue());
+        }
+        return map;
     }
 
     /**
@@ -165,10 +503,192 @@ public class Wson {
      * @return JSON-String (ohne unnötige Whitespaces)
      */
     public String toJson(Object src) {
+        Scratch scratch = Scratch.acquire();
 
-        Set<ReferenceWrapper> cycle = new HashSet<>();
+        try {
+            StringBuilder sb = scratch.text();
+            toJsonHelper(src, scratch.path(), new JSONWriter(sb, parallelThreshold));
+            return sb.toString();
+        } catch (IOException e) {
+            throw new RuntimeException("not supposed to happen", e);
+        } finally {
+            scratch.release();
+        }
+    }
 
-        return toJsonHelper(src, cycle);
+    /**
+     * Serialisiert einen Java-Wert direkt in das übergebene Ziel. Die Ausgabe ist identisch zu
+     * {@link #toJson(Object)}, verschachtelte Werte werden aber nicht als eigene Strings gebaut.
+     *
+     * @param src Zu serialisierender Wert
+     * @param out Ziel der Ausgabe
+     * @pre out != null
+     * @throws IOException Fehler beim Schreiben in out
+     */
+    public void toJson(Object src, Appendable out) throws IOException {
+        assert out != null;
 
+        toJsonHelper(src, newPath(), new JSONWriter(out, parallelThreshold));
+    }
+
+    /**
+     * Serialisiert einen Java-Wert als UTF-8 direkt in den übergebenen Stream. Der Stream wird
+     * geleert, aber nicht geschlossen.
+     *
+     * @param src Zu serialisierender Wert
+     * @param out Ziel der Ausgabe
+     * @pre out != null
+     * @throws IOException Fehler beim Schreiben in out
+     */
+    public void toJson(Object src, OutputStream out) throws IOException {
+        assert out != null;
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        toJson(src, writer);
+        writer.flush();
+    }
+
+    /**
+     * Serialisiert einen Java-Wert in ein kompaktes Binärformat. Es enthält dieselben Werte wie
+     * {@link #toJson(Object)}, speichert Zahlen aber als Varint bzw. IEEE 754 und Strings mit
+     * vorangestellter Länge, sodass beim Lesen nichts gesucht oder umgewandelt werden muss.
+     *
+     * @param src Zu serialisierender Wert
+     * @return die Bytes, lesbar mit {@link #fromBinary}
+     */
+    public byte[] toBinary(Object src) {
+        Scratch scratch = Scratch.acquire();
+
+        try {
+            BinaryWriter out = scratch.binary();
+            if (src == null) {
+                out.writeNull();
+            } else {
+                toBinaryHelper(src, scratch.path(), out);
+            }
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new RuntimeException("not supposed to happen", e);
+        } finally {
+            scratch.release();
+        }
+    }
+
+    /**
+     * Deserialisiert einen mit {@link #toBinary} erzeugten Wert. Felder werden wie bei
+     * {@link #fromJson(String, Class)} befüllt.
+     *
+     * @param data die Bytes
+     * @param classOfT Klasse des deserialisierten (Wurzel-)Wertes
+     * @param <T> Typ des deserialisierten (Wurzel-)Wertes
+     * @pre data != null
+     * @pre classOfT != null
+     * @return Der deserialisierte (Wurzel-)Wert
+     * @throws JSONSyntaxException ungültige oder unvollständige Eingabe
+     */
+    public <T> T fromBinary(byte[] data, Class<T> classOfT) throws JSONSyntaxException {
+        assert data != null;
+        assert classOfT != null;
+
+        Object value = new BinaryReader(data).readDocument();
+
+        return value == null ? null : reader.convert(value, classOfT);
+    }
+
+    /**
+     * Beschreibt die Änderungen zwischen zwei Zuständen eines Objektes als JSON Patch nach
+     * RFC 6902. Der Patch enthält nur die Felder, deren JSON sich geändert hat; verschachtelte
+     * Objekte werden feldweise verglichen, Arrays, Listen und Maps als Ganzes ersetzt. Felder
+     * werden wie bei {@link #toJson(Object)} ausgewählt, inklusive Zyklen und StoreAs.
+     *
+     * @param before Zustand vorher
+     * @param after Zustand nachher
+     * @pre before != null
+     * @pre after != null
+     * @return der Patch als JSON-Array, "[]" wenn beide gleich serialisiert werden
+     */
+    public String diff(Object before, Object after) {
+        assert before != null;
+        assert after != null;
+
+        try {
+            return JsonPatch.diff(snapshotHelper(before, newPath()),
+                    snapshotHelper(after, newPath()));
+        } catch (IOException e) {
+            throw new RuntimeException("not supposed to happen", e);
+        }
+    }
+
+    /**
+     * Wendet einen mit {@link #diff} erzeugten Patch direkt auf ein Objekt an. Neue Werte werden
+     * wie bei {@link #fromJson(String, Class)} in die Felder gelesen, entfernte Felder auf null
+     * gesetzt. Unterstützt werden die Operationen "add", "replace" und "remove" auf Feldern; das
+     * Objekt selbst kann nicht ersetzt werden.
+     *
+     * @param patch der Patch als JSON-Array
+     * @param target das zu ändernde Objekt
+     * @pre patch != null
+     * @pre target != null
+     * @throws JSONSyntaxException Syntaxfehler im Patch
+     * @throws IllegalArgumentException unbekannte Operation oder Pfad ohne passendes Feld
+     */
+    public void apply(String patch, Object target) throws JSONSyntaxException {
+        assert patch != null;
+        assert target != null;
+
+        JsonPatch.apply(reader, patch, target);
+    }
+
+    /**
+     * Liefert die Elemente eines JSON-Arrays einzeln für {@link Wson#fromJsonStream}.
+     *
+     * @param <T> Typ der Elemente
+     */
+    private static final class ArrayElements<T> extends Spliterators.AbstractSpliterator<T> {
+
+        private final JSONStreamReader in;
+        private final Class<T> classOfT;
+        private final JSONReader reader;
+        private boolean started;
+        private boolean finished;
+
+        /**
+         * Konstruktor
+         *
+         * @param in Quelle der Elemente
+         * @param reader liest die Elemente
+         * @param classOfT Klasse der Elemente
+         */
+        private ArrayElements(JSONStreamReader in, JSONReader reader, Class<T> classOfT) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED);
+            this.in = in;
+            this.reader = reader;
+            this.classOfT = classOfT;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (finished) {
+                return false;
+            }
+
+            try {
+                if (!started) {
+                    in.beginArray();
+                    started = true;
+                }
+                if (!in.hasNext()) {
+                    in.endArray();
+                    finished = true;
+                    return false;
+                }
+                action.accept(in.nextValue(reader, classOfT));
+                return true;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (JSONSyntaxException e) {
+                throw new IllegalStateException(e);
+            }
+        }
     }
 }
@@ -0,0 +1,23 @@
+package wson.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Markiert eine Klasse, für die der Annotationsprozessor wson.processor.AdapterProcessor beim
+ * Übersetzen einen wson.TypeAdapter erzeugt. Wson verwendet den Adapter statt Reflection, solange
+ * er gefunden wird.
+ * 
+ * Alle nicht statischen Felder der Klasse und ihrer Superklassen müssen vom Paket der Klasse aus
+ * zugreifbar sein, also nicht privat. Außerdem wird ein nicht privater Konstruktor ohne Parameter
+ * benötigt.
+ * 
+ * @author Lars Sander, Alexander Löffler
+ * 
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface GenerateAdapter {
+}
@@ -0,0 +1,409 @@
+package wson.processor;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+
+import wson.TypeAdapter;
+import wson.annotations.GenerateAdapter;
+import wson.annotations.StoreAs;
+
+/**
+ * Annotationsprozessor, der für jede mit {@link GenerateAdapter} annotierte Klasse einen
+ * {@link TypeAdapter} erzeugt. Der Adapter schreibt die Felder in derselben Reihenfolge und mit
+ * denselben Regeln wie die Reflection in Wson, aber ohne Schleife und Feldsuche. Beim Lesen
+ * werden Zahlen, Strings und Objekte direkt gesetzt, alle anderen Werte über
+ * {@link wson.FieldReader#field} wie bisher umgewandelt.
+ * 
+ * Felder, die vom Paket der Klasse aus nicht zugreifbar sind, werden als Fehler gemeldet, damit
+ * der Adapter ohne setAccessible auskommt.
+ * 
+ * Aufruf: javac -processor wson.processor.AdapterProcessor
+ * 
+ * @author Lars Sander, Alexander Löffler
+ * 
+ */
+@SupportedAnnotationTypes("wson.annotations.GenerateAdapter")
+public final class AdapterProcessor extends AbstractProcessor {
+
+    // Typen, die JSONReader.isBean nicht als Objekt mit Feldern behandelt
+    private static final List<Class<?>> NO_BEANS =
+            Arrays.asList(Boolean.class, Character.class, Number.class, List.class, Map.class);
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(GenerateAdapter.class)) {
+            if (element.getKind() != ElementKind.CLASS) {
+                error(element, "@GenerateAdapter ist nur an Klassen erlaubt");
+                continue;
+            }
+
+            TypeElement type = (TypeElement) element;
+            List<Property> properties = collect(type);
+            if (properties != null) {
+                generate(type, properties);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Sammelt die Felder der Klasse und ihrer Superklassen wie wson.SerializationPlan und prüft,
+     * ob der Adapter auf sie zugreifen kann.
+     * 
+     * @param type die Klasse
+     * @return die Felder sortiert nach Schlüssel oder null, wenn Fehler gemeldet wurden
+     */
+    private List<Property> collect(TypeElement type) {
+        boolean valid = checkClass(type);
+        PackageElement pkg = processingEnv.getElementUtils().getPackageOf(type);
+        TypeMirror string = processingEnv.getElementUtils()
+                .getTypeElement(String.class.getCanonicalName()).asType();
+
+        List<Property> properties = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+
+        // Von der Klasse aufwärts, verdeckte Felder der Superklassen werden übersprungen
+        for (TypeElement cl = type; cl != null; cl = superclass(cl)) {
+            boolean samePackage = processingEnv.getElementUtils().getPackageOf(cl).equals(pkg);
+
+            for (VariableElement field : ElementFilter.fieldsIn(cl.getEnclosedElements())) {
+                Set<Modifier> mods = field.getModifiers();
+                if (mods.contains(Modifier.STATIC)) {
+                    continue;
+                }
+                String name = field.getSimpleName().toString();
+                if (!names.add(name)) {
+                    // Verdeckte Felder setzt nur die Reflection mit
+                    for (Property p : properties) {
+                        p.shadowing |= p.name.equals(name);
+                    }
+                    continue;
+                }
+
+                if (mods.contains(Modifier.PRIVATE)
+                        || !samePackage && !mods.contains(Modifier.PUBLIC)) {
+                    error(field, "Feld " + name + " ist für den Adapter von "
+                            + type.getQualifiedName() + " nicht zugreifbar");
+                    valid = false;
+                    continue;
+                }
+
+                Property p = new Property(name, field.asType());
+                p.writable = !mods.contains(Modifier.FINAL);
+                StoreAs rep = field.getAnnotation(StoreAs.class);
+                if (rep != null && processingEnv.getTypeUtils().isAssignable(string, p.type)) {
+                    p.storeAs = rep.value();
+                }
+                properties.add(p);
+            }
+        }
+
+        properties.sort(Comparator.comparing(Property::key));
+        return valid ? properties : null;
+    }
+
+    /**
+     * Prüft, ob der Adapter die Klasse erzeugen und verwenden kann.
+     * 
+     * @param type die Klasse
+     * @return true, wenn keine Fehler gemeldet wurden
+     */
+    private boolean checkClass(TypeElement type) {
+        boolean valid = true;
+
+        if (type.getModifiers().contains(Modifier.ABSTRACT) || !type.getTypeParameters().isEmpty()
+                || type.getNestingKind() != NestingKind.TOP_LEVEL
+                        && !type.getModifiers().contains(Modifier.STATIC)) {
+            error(type, "@GenerateAdapter erfordert eine nicht abstrakte, nicht generische und "
+                    + "statische Klasse");
+            valid = false;
+        }
+
+        for (Element e = type; e instanceof TypeElement; e = e.getEnclosingElement()) {
+            if (e.getModifiers().contains(Modifier.PRIVATE)) {
+                error(type, e.getSimpleName() + " ist privat");
+                valid = false;
+            }
+        }
+
+        boolean constructor = false;
+        for (ExecutableElement c : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            constructor |= c.getParameters().isEmpty()
+                    && !c.getModifiers().contains(Modifier.PRIVATE);
+        }
+        if (!constructor) {
+            error(type, "@GenerateAdapter erfordert einen nicht privaten Konstruktor ohne "
+                    + "Parameter");
+            valid = false;
+        }
+        return valid;
+    }
+
+    /**
+     * Liefert die Superklasse, solange sie nicht Object ist.
+     * 
+     * @param type die Klasse
+     * @return die Superklasse oder null
+     */
+    private static TypeElement superclass(TypeElement type) {
+        TypeMirror sup = type.getSuperclass();
+        if (sup.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        TypeElement element = (TypeElement) ((DeclaredType) sup).asElement();
+        return element.getQualifiedName().contentEquals(Object.class.getName()) ? null : element;
+    }
+
+    /**
+     * Schreibt die Quelldatei des Adapters.
+     * 
+     * @param type die Klasse
+     * @param properties ihre Felder in Ausgabereihenfolge
+     */
+    private void generate(TypeElement type, List<Property> properties) {
+        String binary = processingEnv.getElementUtils().getBinaryName(type).toString();
+        String adapter = TypeAdapter.adapterName(binary);
+        String pkg = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName()
+                .toString();
+        String simple = adapter.substring(adapter.lastIndexOf('.') + 1);
+        String name = type.getQualifiedName().toString();
+
+        try (PrintWriter out = new PrintWriter(
+                processingEnv.getFiler().createSourceFile(adapter, type).openWriter())) {
+            out.println("// Erzeugt von " + getClass().getName() + ", nicht bearbeiten");
+            if (!pkg.isEmpty()) {
+                out.println("package " + pkg + ";");
+                out.println();
+            }
+            out.println("/**");
+            out.println(" * Adapter für {@link " + name + "}.");
+            out.println(" */");
+            out.println("public final class " + simple);
+            out.println("        extends wson.TypeAdapter<" + name + "> {");
+            out.println();
+            out.println("    @Override");
+            out.println("    protected " + name + " create() {");
+            out.println("        return new " + name + "();");
+            out.println("    }");
+            out.println();
+            out.println("    @Override");
+            out.println("    protected void write(" + name + " src, wson.FieldWriter out)");
+            out.println("            throws java.io.IOException {");
+            for (Property p : properties) {
+                out.println("        " + writeStatement(p));
+            }
+            out.println("    }");
+            out.println();
+            out.println("    @Override");
+            out.println("    protected boolean read(" + name + " target, java.lang.String key,");
+            out.println("            wson.FieldReader in) throws wson.JSONSyntaxException {");
+            out.println("        switch (key) {");
+            for (Property p : properties) {
+                if (p.writable || p.shadowing) {
+                    out.println("            case " + literal(p.name) + ":");
+                    for (String line : readStatements(p)) {
+                        out.println("                " + line);
+                    }
+                    out.println("                return true;");
+                }
+            }
+            out.println("            default:");
+            out.println("                return false;");
+            out.println("        }");
+            out.println("    }");
+            out.println("}");
+        } catch (IOException e) {
+            error(type, "Adapter kann nicht geschrieben werden: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Liefert die Anweisung, die ein Feld in write schreibt.
+     * 
+     * @param p das Feld
+     * @return die Anweisung
+     */
+    private String writeStatement(Property p) {
+        String key = literal("\"" + p.name + "\":");
+        switch (p.type.getKind()) {
+            case BYTE:
+            case SHORT:
+            case INT:
+            case LONG:
+            case FLOAT:
+            case DOUBLE:
+                return "out.number(" + key + ", src." + p.name + ");";
+            default:
+                if (p.storeAs != null) {
+                    return "out.value(" + key + ", src." + p.name + ", "
+                            + literal("\"" + p.storeAs + "\"") + ");";
+                }
+                return "out.value(" + key + ", src." + p.name + ");";
+        }
+    }
+
+    /**
+     * Liefert die Anweisungen, die ein Feld in read setzen. Wie in JSONReader.readField werden
+     * primitive Zahlen per Cast aus dem double gesetzt, Strings nur für String- und Object-Felder
+     * und Objekte nur für Klassen im Sinne von isBean direkt gelesen.
+     * 
+     * @param p das Feld
+     * @return die Anweisungen
+     */
+    private List<String> readStatements(Property p) {
+        List<String> lines = new ArrayList<>();
+        String direct = null;
+        String test = null;
+
+        if (p.shadowing) {
+            lines.add("in.field(target, key);");
+            return lines;
+        }
+
+        switch (p.type.getKind()) {
+            case BYTE:
+            case SHORT:
+            case INT:
+            case FLOAT:
+                test = "in.isNumber()";
+                direct = "(" + p.type + ") in.nextNumber()";
+                break;
+            case LONG:
+                test = "in.isNumber()";
+                direct = "in.nextLong()";
+                break;
+            case DOUBLE:
+                test = "in.isNumber()";
+                direct = "in.nextNumber()";
+                break;
+            case DECLARED:
+                String typeName = ((TypeElement) ((DeclaredType) p.type).asElement())
+                        .getQualifiedName().toString();
+                if (typeName.equals(String.class.getName())
+                        || typeName.equals(Object.class.getName())) {
+                    test = "in.isString()";
+                    direct = "in.nextString()";
+                } else if (isBean(p.type)) {
+                    test = "in.isObject()";
+                    direct = "in.nextObject(" + typeName + ".class)";
+                }
+                break;
+            default:
+                break;
+        }
+
+        if (test == null) {
+            lines.add("in.field(target, key);");
+        } else {
+            lines.add("if (" + test + ") {");
+            lines.add("    target." + p.name + " = " + direct + ";");
+            lines.add("} else {");
+            lines.add("    in.field(target, key);");
+            lines.add("}");
+        }
+        return lines;
+    }
+
+    /**
+     * Prüft wie JSONReader.isBean, ob ein Feldtyp aus einem JSON-Objekt feldweise befüllt wird.
+     * 
+     * @param type Typ des Feldes, weder String noch Object
+     * @return true für Klassen, die keine Zahlen, Wrapper, Listen oder Maps sind
+     */
+    private boolean isBean(TypeMirror type) {
+        Types types = processingEnv.getTypeUtils();
+        TypeMirror erased = types.erasure(type);
+        for (Class<?> cl : NO_BEANS) {
+            TypeMirror other = types.erasure(
+                    processingEnv.getElementUtils().getTypeElement(cl.getName()).asType());
+            if (types.isAssignable(erased, other)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Liefert ein String-Literal für den erzeugten Quelltext.
+     * 
+     * @param s der Inhalt
+     * @return das Literal inklusive Anführungszeichen
+     */
+    private String literal(String s) {
+        return processingEnv.getElementUtils().getConstantExpression(s);
+    }
+
+    /**
+     * Meldet einen Fehler am übergebenen Element.
+     * 
+     * @param element das Element
+     * @param message die Meldung
+     */
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    /**
+     * Ein Feld der Klasse.
+     */
+    private static final class Property {
+
+        private final String name;
+        private final TypeMirror type;
+        private boolean writable;
+        private boolean shadowing;
+        private String storeAs;
+
+        /**
+         * Konstruktor
+         * 
+         * @param name Name des Feldes
+         * @param type Typ des Feldes
+         */
+        private Property(String name, TypeMirror type) {
+            this.name = name;
+            this.type = type;
+        }
+
+        /**
+         * Liefert den Schlüssel, nach dem wie in wson.SerializationPlan sortiert wird.
+         * 
+         * @return der Schlüssel
+         */
+        private String key() {
+            return "\"" + name + "\":";
+        }
+    }
+
+}
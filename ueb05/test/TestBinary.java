@@ -0,0 +1,180 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import examples.EAnnotation;
+import examples.EArray;
+import examples.EBooleanNull;
+import examples.ECharString;
+import examples.ECycle;
+import examples.EInheritance.EChild;
+import examples.EList;
+import examples.EMapObject;
+import examples.ENumber;
+import wson.JSONSyntaxException;
+import wson.Wson;
+
+/**
+ * Testet das Binärformat von Wson.toBinary und Wson.fromBinary. Erwartet wird jeweils dasselbe
+ * Ergebnis wie über toJson und fromJson.
+ * 
+ * @author Lars Sander, Alexander Löffler
+ * 
+ */
+public class TestBinary {
+
+    private final Wson wson = new Wson();
+
+    /**
+     * Schreibt einen Wert binär und als JSON, liest ihn auf beiden Wegen wieder ein und
+     * vergleicht die Ergebnisse.
+     * 
+     * @param <T> die Klasse
+     * @param value der Wert
+     * @param type die Klasse
+     * @return der binär gelesene Wert
+     * @throws JSONSyntaxException sollte nicht auftreten
+     */
+    private <T> T roundTrip(T value, Class<T> type) throws JSONSyntaxException {
+        T binary = wson.fromBinary(wson.toBinary(value), type);
+        Assert.assertEquals(type.getSimpleName(), wson.fromJson(wson.toJson(value), type),
+                binary);
+        return binary;
+    }
+
+    @Test
+    public void examples() throws JSONSyntaxException {
+        Assert.assertEquals(new ENumber().init(), roundTrip(new ENumber().init(), ENumber.class));
+        Assert.assertEquals(new EBooleanNull().init(),
+                roundTrip(new EBooleanNull().init(), EBooleanNull.class));
+        Assert.assertEquals(new ECharString().init(),
+                roundTrip(new ECharString().init(), ECharString.class));
+        Assert.assertEquals(new EChild().init(), roundTrip(new EChild().init(), EChild.class));
+        Assert.assertEquals(new EArray().init(), roundTrip(new EArray().init(), EArray.class));
+        Assert.assertEquals(new EList().init(), roundTrip(new EList().init(), EList.class));
+
+        // EMapObject hat kein equals
+        EMapObject map = new EMapObject().init();
+        EMapObject json = wson.fromJson(wson.toJson(map), EMapObject.class);
+        EMapObject binary = wson.fromBinary(wson.toBinary(map), EMapObject.class);
+        Assert.assertEquals(json._obj, binary._obj);
+        Assert.assertEquals(json._map, binary._map);
+        Assert.assertEquals(json._raw_map, binary._raw_map);
+    }
+
+    @Test
+    public void topLevelValues() throws JSONSyntaxException {
+        Assert.assertEquals(Boolean.TRUE, wson.fromBinary(wson.toBinary(true), boolean.class));
+        Assert.assertEquals(36.2, wson.fromBinary(wson.toBinary(36.2), double.class), 0.0);
+        Assert.assertEquals("Grüße \"FHW\"",
+                wson.fromBinary(wson.toBinary("Grüße \"FHW\""), String.class));
+        Assert.assertArrayEquals(new int[] { 4, -2, Integer.MIN_VALUE },
+                wson.fromBinary(wson.toBinary(new int[] { 4, -2, Integer.MIN_VALUE }),
+                        int[].class));
+        Assert.assertNull(wson.fromBinary(wson.toBinary(null), String.class));
+    }
+
+    @Test
+    public void cyclesAreSkipped() throws JSONSyntaxException {
+        ECycle e = wson.fromBinary(wson.toBinary(new ECycle().init()), ECycle.class);
+
+        Assert.assertNull(e.other1);
+        Assert.assertNotNull(e.other2);
+        Assert.assertNull(e.other2.other2);
+        Assert.assertEquals(new EBooleanNull(), e.b1);
+        Assert.assertEquals(new EBooleanNull(), e.b2);
+        Assert.assertNotSame(e.b1, e.b2);
+    }
+
+    @Test
+    public void storeAs() throws JSONSyntaxException {
+        EAnnotation e = roundTrip(new EAnnotation().init(), EAnnotation.class);
+
+        Assert.assertEquals("new", e._string);
+        Assert.assertEquals("new", e._object);
+        Assert.assertEquals(-1, e._int);
+    }
+
+    /**
+     * Klasse mit einer Map ohne Typparameter, ihre Werte bleiben beim Lesen unverändert.
+     */
+    @SuppressWarnings("rawtypes")
+    public static class MapHolder {
+        public Map map;
+    }
+
+    @Test
+    public void mapValues() throws JSONSyntaxException {
+        Map<String, Object> map = new HashMap<>();
+        map.put("a", 1);
+        map.put("b", Arrays.asList(1.5, "x"));
+        map.put("c", null);
+        MapHolder holder = new MapHolder();
+        holder.map = map;
+
+        Map<?, ?> read = wson.fromBinary(wson.toBinary(holder), MapHolder.class).map;
+        Assert.assertEquals(1.0, read.get("a"));
+        Assert.assertEquals(Arrays.asList(1.5, "x"), read.get("b"));
+        Assert.assertTrue(read.containsKey("c"));
+        Assert.assertNull(read.get("c"));
+    }
+
+    /**
+     * Ganze Zahlen, die ein double nicht exakt darstellen kann.
+     */
+    public static class LongHolder {
+        public long max;
+        public long beyondDouble;
+        public Long boxed;
+        public long[] values;
+    }
+
+    @Test
+    public void largeLongs() throws JSONSyntaxException {
+        LongHolder holder = new LongHolder();
+        holder.max = Long.MAX_VALUE;
+        holder.beyondDouble = (1L << 53) + 1;
+        holder.boxed = Long.MIN_VALUE + 1;
+        holder.values = new long[] { Long.MAX_VALUE, (1L << 53) + 1, -(1L << 53) - 1, 1 };
+
+        for (LongHolder read : new LongHolder[] {
+            wson.fromBinary(wson.toBinary(holder), LongHolder.class),
+            wson.fromJson(wson.toJson(holder), LongHolder.class) }) {
+            Assert.assertEquals(Long.MAX_VALUE, read.max);
+            Assert.assertEquals((1L << 53) + 1, read.beyondDouble);
+            Assert.assertEquals(Long.valueOf(Long.MIN_VALUE + 1), read.boxed);
+            Assert.assertArrayEquals(holder.values, read.values);
+        }
+    }
+
+    @Test
+    public void smallerThanJson() {
+        ENumber e = new ENumber().init();
+        Assert.assertTrue(wson.toBinary(e).length < wson.toJson(e).length());
+
+        List<Integer> numbers = Arrays.asList(100000, 200000, 300000);
+        Assert.assertTrue(wson.toBinary(numbers).length < wson.toJson(numbers).length());
+    }
+
+    @Test
+    public void malformedInput() {
+        byte[] valid = wson.toBinary(new ENumber().init());
+        byte[][] invalid = { {}, { 42 }, Arrays.copyOf(valid, valid.length - 1),
+            Arrays.copyOf(valid, valid.length + 1), { 6, 5, 'a' },
+            { 3, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 1 } };
+
+        for (byte[] data : invalid) {
+            try {
+                wson.fromBinary(data, Object.class);
+                Assert.fail(Arrays.toString(data));
+            } catch (JSONSyntaxException e) {
+                // erwartet
+            }
+        }
+    }
+
+}
@@ -0,0 +1,100 @@
+import org.junit.Assert;
+import org.junit.Test;
+
+import wson.Wson;
+
+/**
+ * Testet die Erkennung von Zirkelschlüssen in toJson über die Identität der Objekte.
+ * 
+ * @author Lars Sander, Alexander Löffler
+ * 
+ */
+public class TestCycleTracking {
+
+    private static final int DEPTH = 2000;
+
+    private static final int TIMEOUT = 10000;
+
+    private final Wson wson = new Wson();
+
+    /**
+     * Knoten mit Verweis auf den Vorgänger. hashCode und equals dürfen von toJson nicht
+     * aufgerufen werden.
+     */
+    public static class Node {
+        private Node next;
+        private Node parent;
+        private Node shared;
+        private int id;
+
+        /**
+         * Konstruktor
+         * 
+         * @param id Nummer des Knotens
+         */
+        public Node(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public int hashCode() {
+            throw new UnsupportedOperationException("hashCode");
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            throw new UnsupportedOperationException("equals");
+        }
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void deepChainWithBackReferences() {
+        Node root = new Node(0);
+        Node last = root;
+        for (int i = 1; i < DEPTH; i++) {
+            Node node = new Node(i);
+            node.parent = last;
+            last.next = node;
+            last = node;
+        }
+
+        String json = wson.toJson(root);
+
+        // Verweise auf Vorgänger werden wie bei ECycle weggelassen
+        Assert.assertFalse(json.contains("parent"));
+        Assert.assertTrue(json.startsWith("{\"id\":0,\"next\":{\"id\":1,\"next\":"));
+        Assert.assertTrue(json.endsWith("{\"id\":" + (DEPTH - 1) + "}" + repeat('}', DEPTH - 1)));
+    }
+
+    @Test
+    public void siblingsAreNotAncestors() {
+        Node a = new Node(1);
+        Node b = new Node(2);
+        Node c = new Node(3);
+        a.next = b;
+        a.shared = c;
+        b.shared = c;
+        c.parent = a;
+
+        Assert.assertEquals("{\"id\":1,\"next\":{\"id\":2,\"shared\":{\"id\":3}},"
+                + "\"shared\":{\"id\":3}}", wson.toJson(a));
+    }
+
+    @Test
+    public void selfReference() {
+        Node a = new Node(1);
+        a.next = a;
+        a.shared = new Node(2);
+        a.shared.shared = a;
+        Assert.assertEquals("{\"id\":1,\"shared\":{\"id\":2}}", wson.toJson(a));
+    }
+
+    private static String repeat(char c, int n) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < n; i++) {
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+
+}
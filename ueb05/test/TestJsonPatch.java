@@ -0,0 +1,165 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import examples.EBooleanNull;
+import examples.ECycle;
+import wson.JSONSyntaxException;
+import wson.Wson;
+import wson.annotations.GenerateAdapter;
+import wson.annotations.StoreAs;
+
+/**
+ * Testet Wson.diff und Wson.apply. Nach dem Anwenden des Patches auf eine Kopie des alten
+ * Zustands muss toJson dasselbe liefern wie für den neuen Zustand.
+ * 
+ * @author Lars Sander, Alexander Löffler
+ * 
+ */
+public class TestJsonPatch {
+
+    private final Wson wson = new Wson();
+
+    /**
+     * Zustand mit verschachteltem Objekt, Liste und optionalen Feldern.
+     */
+    public static class State {
+        private int count;
+        private double load;
+        private String name;
+        private Position position = new Position();
+        private List<String> tags = new ArrayList<>();
+        @StoreAs("hidden")
+        private String secret;
+    }
+
+    /**
+     * Verschachteltes Objekt, geschrieben über einen erzeugten Adapter.
+     */
+    @GenerateAdapter
+    public static class Position {
+        int x;
+        int y;
+        String label;
+    }
+
+    /**
+     * Erstellt den Patch zwischen zwei Zuständen, wendet ihn auf eine Kopie des ersten an und
+     * vergleicht das Ergebnis mit dem zweiten.
+     * 
+     * @param <T> die Klasse
+     * @param before Zustand vorher
+     * @param after Zustand nachher
+     * @param type die Klasse
+     * @return der Patch
+     * @throws JSONSyntaxException sollte nicht auftreten
+     */
+    private <T> String roundTrip(T before, T after, Class<T> type) throws JSONSyntaxException {
+        String patch = wson.diff(before, after);
+        T copy = wson.fromJson(wson.toJson(before), type);
+        wson.apply(patch, copy);
+        Assert.assertEquals(patch, wson.toJson(after), wson.toJson(copy));
+        return patch;
+    }
+
+    @Test
+    public void unchangedIsEmpty() throws JSONSyntaxException {
+        Assert.assertEquals("[]", roundTrip(new State(), new State(), State.class));
+        Assert.assertEquals("[]", wson.diff(new ECycle().init(), new ECycle().init()));
+    }
+
+    @Test
+    public void onlyChangedFields() throws JSONSyntaxException {
+        State before = new State();
+        before.name = "a";
+        State after = new State();
+        after.name = "a";
+        after.count = 2;
+        after.load = 0.5;
+
+        Assert.assertEquals("[{\"op\":\"replace\",\"path\":\"/count\",\"value\":2},"
+                + "{\"op\":\"replace\",\"path\":\"/load\",\"value\":0.5}]",
+                roundTrip(before, after, State.class));
+    }
+
+    @Test
+    public void nestedObjectsFieldByField() throws JSONSyntaxException {
+        State before = new State();
+        before.position.label = "start";
+        State after = new State();
+        after.position.y = -1;
+
+        Assert.assertEquals("[{\"op\":\"remove\",\"path\":\"/position/label\"},"
+                + "{\"op\":\"replace\",\"path\":\"/position/y\",\"value\":-1}]",
+                roundTrip(before, after, State.class));
+    }
+
+    @Test
+    public void addAndRemoveWholeValues() throws JSONSyntaxException {
+        State before = new State();
+        before.name = "old";
+        State after = new State();
+        after.position = null;
+        after.tags = Arrays.asList("x", "y");
+        after.secret = "anything";
+
+        Assert.assertEquals("[{\"op\":\"remove\",\"path\":\"/name\"},"
+                + "{\"op\":\"remove\",\"path\":\"/position\"},"
+                + "{\"op\":\"replace\",\"path\":\"/tags\",\"value\":[x,y]}]",
+                wson.diff(before, after));
+
+        // Umgekehrt wird das ganze Objekt hinzugefügt
+        after.tags = new ArrayList<>();
+        after.position = new Position();
+        after.position.x = 1;
+        before.position = null;
+        Assert.assertEquals("[{\"op\":\"remove\",\"path\":\"/name\"},{\"op\":\"add\","
+                + "\"path\":\"/position\",\"value\":{\"x\":1,\"y\":0}}]",
+                roundTrip(before, after, State.class));
+    }
+
+    @Test
+    public void cyclesAreSkipped() {
+        ECycle before = new ECycle().init();
+        ECycle after = new ECycle().init();
+        after.other2.b1 = new EBooleanNull();
+
+        // other1 und other2.other2 gehören zum Pfad und fehlen auch im Patch
+        Assert.assertEquals("[{\"op\":\"add\",\"path\":\"/other2/b1\",\"value\":"
+                + "{\"_boolean_false\":false,\"_boolean_true\":false}}]",
+                wson.diff(before, after));
+    }
+
+    @Test
+    public void applyAcceptsAnyMemberOrder() throws JSONSyntaxException {
+        State target = new State();
+        wson.apply("[{\"value\":{\"x\":3,\"label\":\"a/b\"},\"path\":\"/position\",\"op\":\"add\"},"
+                + "{\"op\":\"replace\",\"path\":\"/name\",\"value\":\"n\",\"from\":\"/x\"}]",
+                target);
+
+        Assert.assertEquals(3, target.position.x);
+        Assert.assertEquals("a/b", target.position.label);
+        Assert.assertEquals("n", target.name);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unsupportedOperation() throws JSONSyntaxException {
+        wson.apply("[{\"op\":\"move\",\"from\":\"/a\",\"path\":\"/b\"}]", new State());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void missingParent() throws JSONSyntaxException {
+        State target = new State();
+        target.position = null;
+        wson.apply("[{\"op\":\"replace\",\"path\":\"/position/x\",\"value\":1}]", target);
+    }
+
+    @Test(expected = JSONSyntaxException.class)
+    public void operationWithoutPath() throws JSONSyntaxException {
+        wson.apply("[{\"op\":\"remove\"}]", new State());
+    }
+
+}
@@ -0,0 +1,115 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import examples.ENumber;
+import wson.JSONSyntaxException;
+import wson.LazyJsonObject;
+import wson.Wson;
+
+/**
+ * Testet {@link LazyJsonObject} aus Wson.fromJsonLazy.
+ * 
+ * @author Lars Sander, Alexander Löffler
+ * 
+ */
+public class TestLazyJson {
+
+    private static final String DOCUMENT = "{ \"name\" : \"lazy, {not} [a] \\\"key\\\"\","
+            + "\"count\":9007199254740993,\"ratio\":-0.25,\"flag\":true,\"none\":null,"
+            + "\"values\":[1,2,3],\"words\":[\"a\",\"b\"],"
+            + "\"nested\":{\"inner\":{\"deep\":\"x\"},\"list\":[{},{\"a\":[]}]},"
+            + "\"esc\\taped\":1,\"broken\":[1,,2]}";
+
+    private final Wson wson = new Wson();
+
+    @Test
+    public void readsValuesOnDemand() throws JSONSyntaxException {
+        LazyJsonObject doc = wson.fromJsonLazy(DOCUMENT);
+
+        Assert.assertEquals(Arrays.asList("name", "count", "ratio", "flag", "none", "values",
+                "words", "nested", "esc\taped", "broken"), new ArrayList<>(doc.keys()));
+        Assert.assertEquals("lazy, {not} [a] \"key\"", doc.getString("name"));
+        Assert.assertEquals((1L << 53) + 1, doc.getLong("count"));
+        Assert.assertEquals(-0.25, doc.getDouble("ratio"), 0);
+        Assert.assertTrue(doc.getBoolean("flag"));
+        Assert.assertTrue(doc.has("none"));
+        Assert.assertNull(doc.getString("none"));
+        Assert.assertNull(doc.getObject("none"));
+        Assert.assertEquals(1, doc.getLong("esc\taped"));
+        Assert.assertArrayEquals(new int[] { 1, 2, 3 }, doc.get("values", int[].class));
+    }
+
+    @Test
+    public void nestedObjectsAreLazyToo() throws JSONSyntaxException {
+        LazyJsonObject doc = wson.fromJsonLazy(DOCUMENT);
+        LazyJsonObject nested = doc.getObject("nested");
+
+        Assert.assertSame(nested, doc.getObject("nested"));
+        Assert.assertEquals("x", nested.getObject("inner").getString("deep"));
+        Assert.assertEquals("{\"deep\":\"x\"}", nested.getObject("inner").toString());
+        Assert.assertEquals(Arrays.asList("inner", "list"), new ArrayList<>(nested.keys()));
+    }
+
+    @Test
+    public void readsBeans() throws JSONSyntaxException {
+        String json = "{\"number\":" + wson.toJson(new ENumber().init()) + "}";
+
+        Assert.assertEquals(new ENumber().init(),
+                wson.fromJsonLazy(json).get("number", ENumber.class));
+    }
+
+    @Test
+    public void missingKeys() throws JSONSyntaxException {
+        LazyJsonObject doc = wson.fromJsonLazy("{}");
+
+        Assert.assertTrue(doc.keys().isEmpty());
+        Assert.assertFalse(doc.has("a"));
+        Assert.assertNull(doc.getString("a"));
+        try {
+            doc.getLong("a");
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            // erwartet
+        }
+    }
+
+    @Test
+    public void errorsOnlyWhenRead() throws JSONSyntaxException {
+        LazyJsonObject doc = wson.fromJsonLazy(DOCUMENT);
+        try {
+            doc.get("broken", int[].class);
+            Assert.fail();
+        } catch (JSONSyntaxException e) {
+            // erwartet
+        }
+        try {
+            doc.getObject("values");
+            Assert.fail();
+        } catch (JSONSyntaxException e) {
+            // erwartet
+        }
+        try {
+            wson.fromJsonLazy("{\"a\":1 2}").getLong("a");
+            Assert.fail();
+        } catch (JSONSyntaxException e) {
+            // erwartet
+        }
+    }
+
+    @Test
+    public void structureIsChecked() {
+        for (String json : new String[] { "", "[1]", "{\"a\":1", "{\"a\" 1}", "{\"a\":1} x",
+            "{\"a\":\"1}", "{a:1}" }) {
+            try {
+                wson.fromJsonLazy(json);
+                Assert.fail(json);
+            } catch (JSONSyntaxException e) {
+                // erwartet
+            }
+        }
+    }
+
+}
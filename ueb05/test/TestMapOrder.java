@@ -0,0 +1,113 @@
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import wson.Wson;
+
+/**
+ * Testet die Reihenfolge der Schlüssel von Maps in toJson und toBinary. Sie entspricht der einer
+ * HashMap mit Standardgröße, in die die Einträge der Map einzeln eingefügt werden, unabhängig von
+ * der Klasse und Größe der geschriebenen Map.
+ * 
+ * @author Lars Sander, Alexander Löffler
+ * 
+ */
+public class TestMapOrder {
+
+    private static final int MAX_SIZE = 100;
+
+    private final Wson wson = new Wson();
+
+    /**
+     * Eine Map mit size Einträgen k000=v000 usw. in aufsteigender Reihenfolge.
+     */
+    private static Map<String, String> linked(int size) {
+        Map<String, String> map = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            map.put(String.format("k%03d", i), String.format("v%03d", i));
+        }
+        return map;
+    }
+
+    /**
+     * Referenz: Einträge in der Reihenfolge von src einzeln in eine HashMap mit Standardgröße
+     * einfügen. Bei Kollisionen hängt die Reihenfolge auch von der Einfügereihenfolge ab.
+     */
+    private static Map<String, String> inHashOrder(Map<String, String> src) {
+        Map<String, String> map = new HashMap<>();
+        for (Map.Entry<String, String> entry : src.entrySet()) {
+            map.put(entry.getKey(), entry.getValue());
+        }
+        return map;
+    }
+
+    private static String expectedJson(Map<String, String> src) {
+        StringBuilder sb = new StringBuilder("{");
+        for (Map.Entry<String, String> entry : inHashOrder(src).entrySet()) {
+            if (sb.length() > 1) {
+                sb.append(',');
+            }
+            sb.append('"').append(entry.getKey()).append("\":\"").append(entry.getValue())
+                    .append('"');
+        }
+        return sb.append('}').toString();
+    }
+
+    @Test
+    public void pinnedSmallMap() {
+        Map<String, Double> map = new HashMap<>();
+        for (int i = 0; i < 4; i++) {
+            map.put("k" + i, (double) i);
+        }
+        Assert.assertEquals("{\"k0\":0.0,\"k1\":1.0,\"k2\":2.0,\"k3\":3.0}", wson.toJson(map));
+    }
+
+    @Test
+    public void jsonKeysInHashOrderForAllSizes() {
+        for (int size = 0; size <= MAX_SIZE; size++) {
+            Map<String, String> linked = linked(size);
+            Map<String, String> hash = new HashMap<>(linked);
+            Map<String, String> tree = new TreeMap<>(linked);
+
+            Assert.assertEquals("LinkedHashMap " + size, expectedJson(linked),
+                    wson.toJson(linked));
+            Assert.assertEquals("HashMap " + size, expectedJson(hash), wson.toJson(hash));
+            Assert.assertEquals("TreeMap " + size, expectedJson(tree), wson.toJson(tree));
+        }
+    }
+
+    @Test
+    public void binaryKeysInHashOrderForAllSizes() {
+        for (int size = 1; size <= MAX_SIZE; size++) {
+            Map<String, String> src = new HashMap<>(linked(size));
+            byte[] binary = wson.toBinary(src);
+
+            // Die Schlüssel stehen als UTF-8 im Binärformat, ihre Positionen müssen steigen
+            int last = -1;
+            for (String key : inHashOrder(src).keySet()) {
+                int pos = indexOf(binary, key.getBytes(StandardCharsets.UTF_8));
+                Assert.assertTrue(size + ": " + key, pos > last);
+                last = pos;
+            }
+        }
+    }
+
+    private static int indexOf(byte[] data, byte[] part) {
+        for (int i = 0; i + part.length <= data.length; i++) {
+            int j = 0;
+            while (j < part.length && data[i + j] == part[j]) {
+                j++;
+            }
+            if (j == part.length) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+}
@@ -0,0 +1,96 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import examples.EAccessibility;
+import examples.EAnnotation;
+import examples.EArray;
+import examples.EBooleanNull;
+import examples.ECharString;
+import examples.ECycle;
+import examples.EInheritance.EChild;
+import examples.EList;
+import examples.EMapObject;
+import examples.ENumber;
+import wson.Wson;
+
+/**
+ * Testet, dass das parallele Schreiben von Listen und Arrays dieselbe Ausgabe liefert wie das
+ * sequentielle.
+ * 
+ * @author Lars Sander, Alexander Löffler
+ * 
+ */
+public class TestParallelToJson {
+
+    private static final int SIZE = 100003;
+
+    private final Wson sequential = new Wson();
+
+    /**
+     * Klasse mit großen Listen und Arrays als Feldern.
+     */
+    public static class Holder {
+        private List<String> names = new ArrayList<>();
+        private LinkedList<Double> values = new LinkedList<>();
+        private int[] ids = new int[SIZE];
+        private double[][] grid = new double[SIZE][2];
+        private Set<Integer> small = new HashSet<>(Arrays.asList(1, 2, 3));
+
+        /**
+         * Füllt alle Felder.
+         * 
+         * @return this
+         */
+        public Holder init() {
+            for (int i = 0; i < SIZE; i++) {
+                names.add("n" + i);
+                values.add(i / 7.0);
+                ids[i] = i * 31;
+                grid[i][0] = i;
+                grid[i][1] = -i / 3.0;
+            }
+            return this;
+        }
+    }
+
+    @Test
+    public void examplesMatchSequential() {
+        Wson parallel = new Wson(1);
+        for (Object example : Arrays.asList(new EAccessibility().init(), new EAnnotation().init(),
+                new EArray().init(), new EBooleanNull().init(), new ECharString().init(),
+                new EChild().init(), new ECycle().init(), new EList().init(),
+                new EMapObject().init(), new ENumber().init(), new int[] { 4, 2 },
+                new int[0], new ArrayList<>())) {
+            Assert.assertEquals(sequential.toJson(example), parallel.toJson(example));
+        }
+    }
+
+    @Test
+    public void largeCollectionsMatchSequential() {
+        Holder holder = new Holder().init();
+        String expected = sequential.toJson(holder);
+        for (int threshold : new int[] { 1, 2, Wson.DEFAULT_PARALLEL_THRESHOLD, SIZE,
+            SIZE + 1 }) {
+            Assert.assertEquals(expected, new Wson(threshold).toJson(holder));
+        }
+    }
+
+    @Test
+    public void topLevelListMatchesSequential() {
+        List<Integer> list = new ArrayList<>();
+        for (int i = 0; i < SIZE; i++) {
+            list.add(i);
+        }
+        Wson parallel = new Wson(Wson.DEFAULT_PARALLEL_THRESHOLD);
+        Assert.assertEquals(sequential.toJson(list), parallel.toJson(list));
+        Assert.assertEquals(sequential.toJson(list.toArray()), parallel.toJson(list.toArray()));
+    }
+
+}
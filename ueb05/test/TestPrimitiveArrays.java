@@ -0,0 +1,169 @@
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.StringJoiner;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import wson.JSONSyntaxException;
+import wson.Wson;
+
+/**
+ * Testet das Schreiben und Lesen von Arrays primitiver Typen ohne Boxing.
+ *
+ * @author Lars Sander, Alexander Löffler
+ *
+ */
+public class TestPrimitiveArrays {
+
+    private static final int SIZE = 10007;
+
+    private final Wson wson = new Wson();
+
+    /**
+     * Klasse mit Arrays aller primitiven Typen.
+     */
+    public static class Holder {
+        private int[] i;
+        private long[] l;
+        private double[] d;
+        private float[] f;
+        private short[] s;
+        private byte[] b;
+        private char[] c;
+        private boolean[] z;
+        private char[][] text;
+        private int[][] grid;
+        private double[][][] cube;
+    }
+
+    /**
+     * Liefert zufällige Arrays aller primitiven Typen.
+     *
+     * @return die Arrays
+     */
+    private static List<Object> randomArrays() {
+        Random random = new Random(7);
+        int[] i = new int[SIZE];
+        long[] l = new long[SIZE];
+        double[] d = new double[SIZE];
+        float[] f = new float[SIZE];
+        short[] s = new short[SIZE];
+        byte[] b = new byte[SIZE];
+        char[] c = new char[SIZE];
+        boolean[] z = new boolean[SIZE];
+        for (int k = 0; k < SIZE; k++) {
+            i[k] = random.nextInt();
+            l[k] = random.nextLong();
+            d[k] = random.nextGaussian() * Math.pow(10, random.nextInt(40) - 20);
+            f[k] = (float) random.nextGaussian();
+            s[k] = (short) random.nextInt();
+            b[k] = (byte) random.nextInt();
+            c[k] = (char) ('a' + random.nextInt(26));
+            z[k] = random.nextBoolean();
+        }
+        return Arrays.asList(i, l, d, f, s, b, c, z);
+    }
+
+    /**
+     * Schreibt das Array so, wie es vor den schnellen Pfaden geschrieben wurde. double- und
+     * char-Werte werden wie einzeln mit toJson geschrieben, also mit der kürzesten Ziffernfolge
+     * bzw. als String.
+     *
+     * @param array das Array
+     * @return JSON des Arrays
+     */
+    private String boxed(Object array) {
+        StringJoiner joiner = new StringJoiner(",", "[", "]");
+        for (int k = 0; k < Array.getLength(array); k++) {
+            Object element = Array.get(array, k);
+            joiner.add(element instanceof Double || element instanceof Character
+                    ? wson.toJson(element) : element.toString());
+        }
+        return joiner.toString();
+    }
+
+    @Test
+    public void writeMatchesBoxed() throws IOException {
+        Wson parallel = new Wson(Wson.DEFAULT_PARALLEL_THRESHOLD);
+        for (Object array : randomArrays()) {
+            String expected = boxed(array);
+            Assert.assertEquals(expected, wson.toJson(array));
+            Assert.assertEquals(expected, parallel.toJson(array));
+
+            StringWriter writer = new StringWriter();
+            wson.toJson(array, writer);
+            Assert.assertEquals(expected, writer.toString());
+        }
+    }
+
+    @Test
+    public void multiDimensional() {
+        Assert.assertEquals("[[1,2],[],[3]]", wson.toJson(new int[][] { { 1, 2 }, {}, { 3 } }));
+        Assert.assertEquals("[[\"a\",\" \"],[\"b\"]]",
+                wson.toJson(new char[][] { { 'a', ' ' }, { 'b' } }));
+        Assert.assertEquals("[\"a\",\"\\\"\",\"\\n\"]",
+                wson.toJson(new char[] { 'a', '"', '\n' }));
+    }
+
+    @Test
+    public void readAllTypes() throws JSONSyntaxException {
+        Holder h = wson.fromJson("{\"i\":[1, -2.7, 3e2], \"l\":[9007199254740992, -1],"
+                + " \"d\":[0.1, -1e-300, 5], \"f\":[1.5], \"s\":[70000], \"b\":[255, -1],"
+                + " \"c\":[\"a\", \"xyz\"], \"z\":[true,false], \"grid\":[[1],[],[2,3]],"
+                + " \"cube\":[[[1.5]],[]]}", Holder.class);
+
+        Assert.assertArrayEquals(new int[] { 1, -2, 300 }, h.i);
+        Assert.assertArrayEquals(new long[] { 9007199254740992L, -1 }, h.l);
+        Assert.assertArrayEquals(new double[] { 0.1, -1e-300, 5 }, h.d, 0);
+        Assert.assertArrayEquals(new float[] { 1.5f }, h.f, 0);
+        Assert.assertArrayEquals(new short[] { (short) 70000 }, h.s);
+        Assert.assertArrayEquals(new byte[] { -1, -1 }, h.b);
+        Assert.assertArrayEquals(new char[] { 'a', 'x' }, h.c);
+        Assert.assertArrayEquals(new boolean[] { true, false }, h.z);
+        Assert.assertArrayEquals(new int[][] { { 1 }, {}, { 2, 3 } }, h.grid);
+        Assert.assertArrayEquals(new double[][][] { { { 1.5 } }, {} }, h.cube);
+    }
+
+    @Test
+    public void roundTrip() throws JSONSyntaxException {
+        List<Object> arrays = randomArrays();
+        Holder h = new Holder();
+        h.i = (int[]) arrays.get(0);
+        h.l = new long[] { 1L << 52, -3, Long.MAX_VALUE, Long.MIN_VALUE, (1L << 53) + 1 };
+        h.d = (double[]) arrays.get(2);
+        h.f = (float[]) arrays.get(3);
+        h.s = (short[]) arrays.get(4);
+        h.b = (byte[]) arrays.get(5);
+        h.c = ((char[]) arrays.get(6)).clone();
+        h.c[0] = ' ';
+        h.c[1] = '"';
+        h.c[2] = '\\';
+        h.c[3] = '\t';
+        h.z = (boolean[]) arrays.get(7);
+        h.text = new char[][] { { 'a', ' ', '"' }, {}, h.c };
+        h.grid = new int[][] { h.i, {}, h.i };
+
+        Holder back = wson.fromJson(wson.toJson(h), Holder.class);
+        Assert.assertArrayEquals(h.i, back.i);
+        Assert.assertArrayEquals(h.l, back.l);
+        Assert.assertArrayEquals(h.d, back.d, 0);
+        Assert.assertArrayEquals(h.f, back.f, 0);
+        Assert.assertArrayEquals(h.s, back.s);
+        Assert.assertArrayEquals(h.b, back.b);
+        Assert.assertArrayEquals(h.c, back.c);
+        Assert.assertArrayEquals(h.z, back.z);
+        Assert.assertArrayEquals(h.text, back.text);
+        Assert.assertArrayEquals(h.grid, back.grid);
+    }
+
+    @Test(expected = JSONSyntaxException.class)
+    public void illegalElement() throws JSONSyntaxException {
+        wson.fromJson("{\"i\":[1, \"2\"]}", Holder.class);
+    }
+
+}
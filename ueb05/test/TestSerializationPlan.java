@@ -0,0 +1,62 @@
+import org.junit.Assert;
+import org.junit.Test;
+
+import examples.EAnnotation;
+import examples.EInheritance.EChild;
+import examples.EInheritance.EParent;
+import wson.Wson;
+
+/**
+ * Testet die pro Klasse zwischengespeicherten Serialisierungspläne von toJson.
+ * 
+ * @author Lars Sander, Alexander Löffler
+ *
+ */
+public class TestSerializationPlan {
+    private final Wson wson = new Wson();
+
+    /**
+     * Klasse, die ein Feld der Superklasse verdeckt.
+     */
+    public static class EShadow extends EParent {
+        public String parent = "shadow";
+        private int b = 2;
+        protected int a = 1;
+    }
+
+    @Test
+    public void repeatedCallsAreStable() {
+        EChild child = new EChild().init();
+        String first = wson.toJson(child);
+
+        for (int i = 0; i < 100; i++) {
+            Assert.assertEquals(first, wson.toJson(child));
+        }
+        Assert.assertEquals("{\"child\":3,\"parent\":2,\"top\":1}", first);
+    }
+
+    @Test
+    public void plansArePerClass() {
+        EParent parent = new EParent();
+        parent.parent = 5;
+
+        Assert.assertEquals("{\"parent\":5,\"top\":0}", wson.toJson(parent));
+        Assert.assertEquals("{\"child\":3,\"parent\":2,\"top\":1}",
+                wson.toJson(new EChild().init()));
+    }
+
+    @Test
+    public void shadowedFieldsAndOrder() {
+        Assert.assertEquals("{\"a\":1,\"b\":2,\"parent\":\"shadow\",\"top\":0}",
+                wson.toJson(new EShadow()));
+    }
+
+    @Test
+    public void storeAsFromPlan() {
+        EAnnotation a = new EAnnotation().init();
+
+        Assert.assertEquals(wson.toJson(a), wson.toJson(a));
+        Assert.assertEquals("{\"_int\":-1,\"_object\":\"new\",\"_string\":\"new\"}",
+                wson.toJson(a));
+    }
+}
@@ -0,0 +1,140 @@
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import examples.EInheritance;
+import examples.EInheritance.EChild;
+import examples.EInheritance.EParent;
+import wson.JSONSyntaxException;
+import wson.SubtypeRegistry;
+import wson.Wson;
+import wson.annotations.GenerateAdapter;
+
+/**
+ * Testet Typangaben für polymorphe Felder über {@link SubtypeRegistry}.
+ * 
+ * @author Lars Sander, Alexander Löffler
+ * 
+ */
+public class TestSubtypes {
+
+    private final Wson wson =
+            new Wson(new SubtypeRegistry(EParent.class, EChild.class, Circle.class, Square.class));
+
+    /**
+     * Abstrakte Basisklasse, von der nie ein Objekt erzeugt werden kann.
+     */
+    public abstract static class Shape {
+        protected String name;
+    }
+
+    /**
+     * Ein Untertyp mit Reflection.
+     */
+    public static class Circle extends Shape {
+        private double radius;
+    }
+
+    /**
+     * Ein Untertyp mit erzeugtem Adapter.
+     */
+    @GenerateAdapter
+    public static class Square extends Shape {
+        int side;
+    }
+
+    /**
+     * Eine zweite Klasse mit dem einfachen Namen Circle.
+     */
+    public static final class Other {
+        /**
+         * Gleicher einfacher Name wie {@link TestSubtypes.Circle}.
+         */
+        public static class Circle {
+        }
+
+        private Other() {
+        }
+    }
+
+    /**
+     * Felder mit Basistypen.
+     */
+    public static class Drawing {
+        private Shape main;
+        private EInheritance base;
+        private Map<String, Shape> layers;
+    }
+
+    @Test
+    public void writesTagFirst() {
+        Assert.assertEquals("{\"@type\":\"EChild\",\"child\":3,\"parent\":2,\"top\":1}",
+                wson.toJson(new EChild().init()));
+        Assert.assertEquals("{\"child\":3,\"parent\":2,\"top\":1}",
+                new Wson().toJson(new EChild().init()));
+
+        Square square = new Square();
+        square.side = 2;
+        Assert.assertEquals("{\"@type\":\"Square\",\"side\":2}", wson.toJson(square));
+        Assert.assertEquals("{\"$\":\"Square\",\"side\":2}",
+                new Wson(new SubtypeRegistry("$", Square.class)).toJson(square));
+    }
+
+    @Test
+    public void readsSubtypes() throws JSONSyntaxException {
+        Drawing drawing = new Drawing();
+        Circle circle = new Circle();
+        circle.name = "c";
+        circle.radius = 1.5;
+        Square square = new Square();
+        square.name = "s";
+        square.side = 2;
+        drawing.main = circle;
+        drawing.base = new EChild().init();
+        drawing.layers = new HashMap<>();
+        drawing.layers.put("top", square);
+
+        Drawing copy = wson.fromJson(wson.toJson(drawing), Drawing.class);
+
+        Assert.assertEquals(Circle.class, copy.main.getClass());
+        Assert.assertEquals(1.5, ((Circle) copy.main).radius, 0);
+        Assert.assertEquals("c", copy.main.name);
+        Assert.assertEquals(new EChild().init(), copy.base);
+        Assert.assertEquals(Square.class, copy.layers.get("top").getClass());
+        Assert.assertEquals(2, ((Square) copy.layers.get("top")).side);
+        Assert.assertEquals(EParent.class,
+                wson.fromJson("{\"@type\":\"EParent\",\"parent\":2}", EInheritance.class)
+                        .getClass());
+    }
+
+    @Test
+    public void withoutTagTheDeclaredTypeIsUsed() throws JSONSyntaxException {
+        Assert.assertEquals(EInheritance.class,
+                wson.fromJson("{\"top\":1}", EInheritance.class).getClass());
+        Assert.assertEquals(EInheritance.class,
+                wson.fromJson("{\"top\":1,\"@type\":\"EChild\"}", EInheritance.class).getClass());
+        Assert.assertEquals(EInheritance.class,
+                new Wson().fromJson("{\"@type\":\"EChild\"}", EInheritance.class).getClass());
+    }
+
+    @Test
+    public void rejectsUnknownTags() {
+        for (String json : new String[] { "{\"@type\":\"Triangle\"}", "{\"@type\":\"Circle\"}",
+            "{\"@type\":\"EChild\"}" }) {
+            try {
+                wson.fromJson(json, Square.class);
+                Assert.fail(json);
+            } catch (JSONSyntaxException e) {
+                // erwartet
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsDuplicateNames() {
+        new SubtypeRegistry(Circle.class, Other.Circle.class);
+    }
+
+}
@@ -1,10 +1,35 @@
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 
+import wson.TestJSONBinding;
+import wson.TestJSONStreamReader;
+import wson.TestJSONTokenizer;
+import wson.TestMappedInput;
+import wson.TestNumberCodec;
+import wson.TestParallelArrayParser;
+
 /* Angabe der Test-Klassen die zu dieser Test-Suite gehören sollen: */
 @Suite.SuiteClasses({
     TestToJson.class,
-    TestFromJson.class
+    TestFromJson.class,
+    TestSerializationPlan.class,
+    TestToJsonStream.class,
+    TestParallelToJson.class,
+    TestPrimitiveArrays.class,
+    TestCycleTracking.class,
+    TestTypeAdapters.class,
+    TestBinary.class,
+    TestThreadSafety.class,
+    TestJsonPatch.class,
+    TestLazyJson.class,
+    TestSubtypes.class,
+    TestMapOrder.class,
+    TestJSONTokenizer.class,
+    TestJSONBinding.class,
+    TestNumberCodec.class,
+    TestJSONStreamReader.class,
+    TestMappedInput.class,
+    TestParallelArrayParser.class
 })
 /* Tests über eine Test-Suite ausführen */
 @RunWith(Suite.class)
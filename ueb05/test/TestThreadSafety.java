@@ -0,0 +1,193 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import wson.JSONSyntaxException;
+import wson.Wson;
+
+/**
+ * Testet, dass eine Wson-Instanz von mehreren Threads gleichzeitig verwendet werden kann, ohne
+ * dass sich die wiederverwendeten Puffer der Aufrufe gegenseitig beeinflussen.
+ * 
+ * @author Lars Sander, Alexander Löffler
+ * 
+ */
+public class TestThreadSafety {
+
+    private static final int THREADS = 8;
+
+    private static final int ROUNDS = 500;
+
+    private static final int TIMEOUT = 60000;
+
+    // Groß genug, dass die Puffer mehrfach wachsen müssen
+    private static final int MAX_VALUES = 2000;
+
+    private static final Wson WSON = new Wson();
+
+    /**
+     * Werte, die sich für jeden Thread und jede Runde unterscheiden.
+     */
+    public static class Payload {
+        private String name;
+        private int[] values;
+        private double ratio;
+        private Payload child;
+
+        /**
+         * Konstruktor
+         */
+        public Payload() {
+        }
+
+        /**
+         * Konstruktor
+         * 
+         * @param thread Nummer des Threads
+         * @param round Nummer der Runde
+         */
+        public Payload(int thread, int round) {
+            name = "thread " + thread + " round " + round;
+            values = new int[(thread * ROUNDS + round) % MAX_VALUES];
+            Arrays.fill(values, thread);
+            ratio = thread + round / (double) ROUNDS;
+            child = new Payload();
+            child.name = name.toUpperCase();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Payload)) {
+                return false;
+            }
+            Payload other = (Payload) obj;
+            return name.equals(other.name) && Arrays.equals(values, other.values)
+                    && ratio == other.ratio
+                    && (child == null ? other.child == null : child.equals(other.child));
+        }
+
+        @Override
+        public int hashCode() {
+            return name.hashCode();
+        }
+    }
+
+    /**
+     * Ruft beim Einlesen im Konstruktor selbst Wson auf, während der äußere Aufruf seine Puffer
+     * noch verwendet.
+     */
+    public static class Nested {
+        private String inner;
+        private transient String echo;
+
+        /**
+         * Konstruktor
+         * 
+         * @throws JSONSyntaxException sollte nicht auftreten
+         */
+        public Nested() throws JSONSyntaxException {
+            echo = WSON.fromJson(WSON.toJson(new Payload(1, 1)), Payload.class).name;
+        }
+    }
+
+    /**
+     * Wirft beim Schreiben eine Ausnahme, solange fail gesetzt ist. Listenelemente werden über
+     * toString geschrieben.
+     */
+    public static class Bomb {
+        private boolean fail = true;
+
+        @Override
+        public String toString() {
+            if (fail) {
+                throw new IllegalStateException("bomb");
+            }
+            return "defused";
+        }
+    }
+
+    /**
+     * Enthält die Bombe in einem Kind.
+     */
+    public static class Outer {
+        private Inner inner = new Inner();
+    }
+
+    /**
+     * Enthält die Bombe in einer Liste.
+     */
+    public static class Inner {
+        private List<Bomb> bombs = new ArrayList<>(Arrays.asList(new Bomb()));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void concurrentCallsDoNotInterfere() throws InterruptedException, ExecutionException {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                results.add(pool.submit((Callable<Integer>) () -> run(thread)));
+            }
+            for (Future<Integer> result : results) {
+                Assert.assertEquals(Integer.valueOf(ROUNDS), result.get());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Schreibt und liest in jeder Runde einen eigenen Wert auf allen Wegen.
+     * 
+     * @param thread Nummer des Threads
+     * @return Anzahl der erfolgreichen Runden
+     * @throws JSONSyntaxException sollte nicht auftreten
+     */
+    private static int run(int thread) throws JSONSyntaxException {
+        for (int round = 0; round < ROUNDS; round++) {
+            Payload payload = new Payload(thread, round);
+
+            String json = WSON.toJson(payload);
+            Assert.assertEquals(payload, WSON.fromJson(json, Payload.class));
+            Assert.assertEquals(payload, WSON.fromBinary(WSON.toBinary(payload), Payload.class));
+
+            String array = "[" + json + "," + json + "]";
+            List<Payload> list = WSON.fromJsonArray(array, Payload.class, false);
+            Assert.assertEquals(Arrays.asList(payload, payload), list);
+        }
+        return ROUNDS;
+    }
+
+    @Test
+    public void nestedCallsGetOwnBuffers() throws JSONSyntaxException {
+        Nested nested = WSON.fromJson("{\"inner\":\"outer value\"}", Nested.class);
+
+        Assert.assertEquals("outer value", nested.inner);
+        Assert.assertEquals("thread 1 round 1", nested.echo);
+    }
+
+    @Test
+    public void buffersAreCleanAfterException() {
+        Outer outer = new Outer();
+        try {
+            WSON.toJson(outer);
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            // erwartet
+        }
+
+        // Ein Rest des Pfads aus dem abgebrochenen Aufruf würde inner als Zirkelschluss auslassen
+        outer.inner.bombs.get(0).fail = false;
+        Assert.assertEquals("{\"inner\":{\"bombs\":[defused]}}", WSON.toJson(outer));
+    }
+
+}
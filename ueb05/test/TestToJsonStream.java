@@ -0,0 +1,81 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import examples.EAccessibility;
+import examples.EAnnotation;
+import examples.EArray;
+import examples.EBooleanNull;
+import examples.ECharString;
+import examples.ECycle;
+import examples.EInheritance.EChild;
+import examples.EList;
+import examples.EMapObject;
+import examples.ENumber;
+import wson.Wson;
+
+/**
+ * Testet die Methoden toJson(Object, Appendable) und toJson(Object, OutputStream).
+ * 
+ * @author Lars Sander, Alexander Löffler
+ *
+ */
+public class TestToJsonStream {
+    private final Wson wson = new Wson();
+
+    private final List<Object> examples = Arrays.asList(new EAccessibility().init(),
+            new EAnnotation().init(), new EArray().init(), new EBooleanNull().init(),
+            new ECharString().init(), new EChild().init(), new ECycle().init(), new EList().init(),
+            new EMapObject().init(), new ENumber().init(), "ä\"\\\n", 'x', 42, new int[] { 4, 2 });
+
+    @Test
+    public void appendableMatchesString() throws IOException {
+        for (Object example : examples) {
+            StringWriter sw = new StringWriter();
+            wson.toJson(example, sw);
+            Assert.assertEquals(wson.toJson(example), sw.toString());
+        }
+    }
+
+    @Test
+    public void outputStreamMatchesString() throws IOException {
+        for (Object example : examples) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            wson.toJson(example, out);
+            Assert.assertArrayEquals(wson.toJson(example).getBytes(StandardCharsets.UTF_8),
+                    out.toByteArray());
+        }
+    }
+
+    @Test
+    public void examplesUnchanged() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        wson.toJson(new ENumber().init(), sb);
+        Assert.assertEquals(FileReader.readExampleJson("ENumber"), sb.toString());
+
+        sb.setLength(0);
+        wson.toJson(new EMapObject().init(), sb);
+        Assert.assertEquals(FileReader.readExampleJson("EMapObject"), sb.toString());
+    }
+
+    @Test
+    public void largeMap() throws IOException {
+        Map<String, Integer> map = new HashMap<>();
+        for (int i = 0; i < 10000; i++) {
+            map.put("key" + i, i);
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        wson.toJson(map, out);
+        Assert.assertEquals(wson.toJson(map), new String(out.toByteArray(),
+                StandardCharsets.UTF_8));
+    }
+}
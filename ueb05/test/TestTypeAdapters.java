@@ -0,0 +1,213 @@
+import java.net.URI;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import wson.JSONSyntaxException;
+import wson.TypeAdapter;
+import wson.Wson;
+import wson.annotations.GenerateAdapter;
+import wson.annotations.StoreAs;
+
+/**
+ * Testet die vom Annotationsprozessor erzeugten Adapter gegen die Reflection. Beide Klassen haben
+ * dieselben Felder, nur {@link Adapted} ist annotiert.
+ * 
+ * @author Lars Sander, Alexander Löffler
+ * 
+ */
+public class TestTypeAdapters {
+
+    private static final int INT = -42;
+    private static final double DOUBLE = 0.1;
+
+    private final Wson wson = new Wson();
+
+    /**
+     * Superklasse mit einem verdeckten Feld.
+     */
+    public static class Base {
+        protected int top = 1;
+        String hidden = "base";
+    }
+
+    /**
+     * Klasse mit erzeugtem Adapter.
+     */
+    @GenerateAdapter
+    public static class Adapted extends Base {
+        int i;
+        long l;
+        float f;
+        double d;
+        byte b;
+        short s;
+        boolean z;
+        char c;
+        String str;
+        Object obj;
+        protected final int fin = 7;
+        @StoreAs("new")
+        String store;
+        @StoreAs("x y")
+        Object storeNull;
+        List<String> list;
+        int[] arr;
+        Map<String, String> map;
+        Adapted child;
+        Adapted parent;
+        String hidden = "child";
+    }
+
+    /**
+     * Dieselbe Klasse ohne Adapter.
+     */
+    public static class Reflected extends Base {
+        int i;
+        long l;
+        float f;
+        double d;
+        byte b;
+        short s;
+        boolean z;
+        char c;
+        String str;
+        Object obj;
+        protected final int fin = 7;
+        @StoreAs("new")
+        String store;
+        @StoreAs("x y")
+        Object storeNull;
+        List<String> list;
+        int[] arr;
+        Map<String, String> map;
+        Reflected child;
+        Reflected parent;
+        String hidden = "child";
+    }
+
+    private static Adapted adapted() {
+        Adapted a = new Adapted();
+        a.i = INT;
+        a.l = Long.MIN_VALUE;
+        a.f = (float) DOUBLE;
+        a.d = DOUBLE;
+        a.b = -1;
+        a.s = Short.MAX_VALUE;
+        a.z = true;
+        a.c = 'c';
+        a.str = "s\"\n";
+        a.obj = "o";
+        a.store = "old";
+        a.list = Arrays.asList("a", "b");
+        a.arr = new int[] { 1, 2 };
+        a.map = new HashMap<>();
+        a.map.put("k", "v");
+        a.child = new Adapted();
+        a.child.parent = a;
+        a.child.i = 1;
+        return a;
+    }
+
+    private static Reflected reflected() {
+        Reflected r = new Reflected();
+        r.i = INT;
+        r.l = Long.MIN_VALUE;
+        r.f = (float) DOUBLE;
+        r.d = DOUBLE;
+        r.b = -1;
+        r.s = Short.MAX_VALUE;
+        r.z = true;
+        r.c = 'c';
+        r.str = "s\"\n";
+        r.obj = "o";
+        r.store = "old";
+        r.list = Arrays.asList("a", "b");
+        r.arr = new int[] { 1, 2 };
+        r.map = new HashMap<>();
+        r.map.put("k", "v");
+        r.child = new Reflected();
+        r.child.parent = r;
+        r.child.i = 1;
+        return r;
+    }
+
+    @Test
+    public void adapterIsGenerated() throws ClassNotFoundException {
+        Class<?> adapter = Class.forName(TypeAdapter.adapterName(Adapted.class.getName()));
+        Assert.assertEquals("TestTypeAdapters_Adapted_WsonAdapter", adapter.getName());
+        Assert.assertEquals(TypeAdapter.class, adapter.getSuperclass());
+    }
+
+    @Test
+    public void writeMatchesReflection() {
+        String expected = wson.toJson(reflected());
+
+        Assert.assertEquals(expected, wson.toJson(adapted()));
+        Assert.assertTrue(expected.contains("\"child\":{\"b\":0,"));
+        Assert.assertFalse(expected.contains("parent"));
+        Assert.assertTrue(expected.contains("\"storeNull\":\"x y\""));
+    }
+
+    @Test
+    public void readMatchesReflection() throws JSONSyntaxException {
+        String json = "{\"i\":-42, \"l\":-9007199254740993, \"f\":0.1, \"d\":0.1, \"b\":255,"
+                + " \"s\":-1.9, \"z\":true, \"c\":\"cd\", \"str\":\"s\\\"\\n\", \"obj\":\"o\","
+                + " \"fin\":3, \"store\":\"old\", \"storeNull\":\"x y\", \"list\":[\"a\",\"b\"],"
+                + " \"arr\":[1,2], \"map\":{\"k\":\"v\"}, \"child\":{\"i\":1, \"child\":{}},"
+                + " \"hidden\":\"read\", \"top\":2.5, \"unknown\":[{}]}";
+
+        Reflected r = wson.fromJson(json, Reflected.class);
+        Adapted a = wson.fromJson(json, Adapted.class);
+
+        Assert.assertEquals(wson.toJson(r), wson.toJson(a));
+        Assert.assertEquals(INT, a.i);
+        Assert.assertEquals(DOUBLE, a.d, 0);
+        Assert.assertEquals(7, a.fin);
+        Assert.assertEquals(2, a.top);
+        Assert.assertEquals("read", a.hidden);
+        Assert.assertEquals("read", ((Base) a).hidden);
+        Assert.assertEquals(Arrays.asList("a", "b"), a.list);
+        Assert.assertEquals(-1, a.b);
+        Assert.assertEquals(-1, a.s);
+        Assert.assertEquals('c', a.c);
+        Assert.assertEquals("s\"\n", a.str);
+        Assert.assertEquals("old", a.store);
+        Assert.assertEquals(1, a.child.i);
+    }
+
+    @Test
+    public void processorRejectsPrivateFields() {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        Assume.assumeNotNull(compiler);
+
+        JavaFileObject source = new SimpleJavaFileObject(URI.create("string:///Bad.java"),
+                JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return "@wson.annotations.GenerateAdapter public class Bad { private int x; }";
+            }
+        };
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        boolean ok = compiler.getTask(null, null, diagnostics,
+                Arrays.asList("-proc:only", "-processor", "wson.processor.AdapterProcessor",
+                        "-classpath", System.getProperty("java.class.path")),
+                null, Arrays.asList(source)).call();
+
+        Assert.assertFalse(ok);
+        Assert.assertEquals(1, diagnostics.getDiagnostics().size());
+        Assert.assertTrue(diagnostics.getDiagnostics().get(0).getMessage(null).contains("x"));
+    }
+
+}
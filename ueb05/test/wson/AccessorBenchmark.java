@@ -0,0 +1,146 @@
+package wson;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+
+import examples.EInheritance.EChild;
+import examples.ENumber;
+
+/**
+ * Vergleicht die Feldzugriffe über {@link FieldAccessor} mit Field.get und Field.set. Kein JMH,
+ * sondern ein einfacher Messlauf mit Aufwärmphase: jede Variante wird mehrfach für eine feste
+ * Anzahl an Durchläufen gemessen und der beste Lauf ausgegeben.
+ * 
+ * Aufruf: ant benchmark -Dbench.class=wson.AccessorBenchmark
+ * 
+ * @author Lars Sander, Alexander Löffler
+ *
+ */
+public final class AccessorBenchmark {
+
+    private static final int ROUNDS = 10;
+    private static final int ITERATIONS = 2_000_000;
+    private static final double NANOS_PER_OP = 1.0;
+
+    private AccessorBenchmark() {
+    }
+
+    /**
+     * Eine messbare Variante.
+     */
+    private interface Variant {
+        long run(Object target);
+    }
+
+    /**
+     * Startet den Benchmark.
+     * 
+     * @param args wird nicht verwendet
+     */
+    public static void main(String[] args) {
+        benchmark("ENumber", new ENumber().init());
+        benchmark("EChild", new EChild().init());
+    }
+
+    /**
+     * Misst alle Varianten für ein Objekt.
+     * 
+     * @param name Name für die Ausgabe
+     * @param target das Objekt
+     */
+    private static void benchmark(String name, Object target) {
+        List<Field> fields = new ArrayList<>();
+        List<FieldAccessor> accessors = new ArrayList<>();
+        for (Class<?> cl = target.getClass(); cl != null; cl = cl.getSuperclass()) {
+            for (Field f : cl.getDeclaredFields()) {
+                f.setAccessible(true);
+                fields.add(f);
+                accessors.add(new FieldAccessor(f));
+            }
+        }
+        Field[] fieldArr = fields.toArray(new Field[0]);
+        FieldAccessor[] accArr = accessors.toArray(new FieldAccessor[0]);
+
+        report(name, "Field.get", target, fieldArr.length, t -> {
+            long sum = 0;
+            for (Field f : fieldArr) {
+                try {
+                    Object v = f.get(t);
+                    sum += v == null ? 0 : v.hashCode();
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            return sum;
+        });
+
+        report(name, "FieldAccessor.get", target, accArr.length, t -> {
+            long sum = 0;
+            for (FieldAccessor a : accArr) {
+                Object v = a.get(t);
+                sum += v == null ? 0 : v.hashCode();
+            }
+            return sum;
+        });
+
+        report(name, "FieldAccessor.getLong/getDouble", target, accArr.length, t -> {
+            long sum = 0;
+            for (FieldAccessor a : accArr) {
+                if (a.hasLong()) {
+                    sum += a.getLong(t);
+                } else if (a.hasDouble()) {
+                    sum += (long) a.getDouble(t);
+                } else {
+                    Object v = a.get(t);
+                    sum += v == null ? 0 : v.hashCode();
+                }
+            }
+            return sum;
+        });
+
+        report(name, "Field.set", target, fieldArr.length, t -> {
+            for (Field f : fieldArr) {
+                try {
+                    f.set(t, f.get(t));
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            return 0;
+        });
+
+        report(name, "FieldAccessor.set", target, accArr.length, t -> {
+            for (FieldAccessor a : accArr) {
+                a.set(t, a.get(t));
+            }
+            return 0;
+        });
+    }
+
+    /**
+     * Misst eine Variante und gibt die Zeit pro Feldzugriff aus.
+     * 
+     * @param name Name des Objektes
+     * @param variant Name der Variante
+     * @param target das Objekt
+     * @param fieldCount Anzahl der Felder pro Durchlauf
+     * @param v die Variante
+     */
+    private static void report(String name, String variant, Object target, int fieldCount,
+            Variant v) {
+        long best = Long.MAX_VALUE;
+        long sink = 0;
+
+        for (int r = 0; r < ROUNDS; r++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                sink += v.run(target);
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+
+        double perOp = NANOS_PER_OP * best / ((long) ITERATIONS * fieldCount);
+        System.out.printf("%-8s %-32s %6.2f ns/Feld (%d)%n", name, variant, perOp, sink & 1);
+    }
+}
@@ -0,0 +1,169 @@
+package wson;
+
+import java.util.Arrays;
+import java.util.List;
+
+import wson.annotations.GenerateAdapter;
+
+/**
+ * Vergleicht erzeugte {@link TypeAdapter} mit der Reflection in {@link Wson}. Gemessen werden der
+ * erste Aufruf pro Klasse (Plan bzw. Adapter suchen, Felder zugreifbar machen) und der Durchsatz
+ * danach. Alle Klassen haben dieselben Felder aus {@link Fields}, nur die Adapted-Varianten sind
+ * annotiert. Der erste Aufruf wird erst gemessen, nachdem je eine andere Klasse beider Varianten
+ * die gemeinsamen Klassen geladen hat.
+ * 
+ * Aufruf: ant benchmark -Dbench.class=wson.AdapterBenchmark
+ * 
+ * @author Lars Sander, Alexander Löffler
+ * 
+ */
+public final class AdapterBenchmark {
+
+    private static final int ROUNDS = 10;
+    private static final int ITERATIONS = 100_000;
+    private static final double NANOS_PER_MICRO = 1000.0;
+
+    private AdapterBenchmark() {
+    }
+
+    /**
+     * Gemeinsame Felder aller Varianten.
+     */
+    static class Fields {
+        int id;
+        long stamp;
+        double weight;
+        float ratio;
+        short level;
+        boolean active;
+        String name;
+        String description;
+        List<Integer> scores;
+        int[] values;
+
+        /**
+         * Befüllt die Felder.
+         * 
+         * @param <T> die Variante
+         * @return dieses Objekt
+         */
+        @SuppressWarnings("unchecked")
+        <T extends Fields> T init() {
+            id = 42;
+            stamp = 1_600_000_000_000L;
+            weight = 72.5;
+            ratio = 0.25f;
+            level = 3;
+            active = true;
+            name = "Benchmark";
+            description = "Ein Objekt mit einigen Feldern";
+            scores = Arrays.asList(7, 8, 9);
+            values = new int[] { 1, 2, 3, 4 };
+            return (T) this;
+        }
+    }
+
+    /**
+     * Variante mit Reflection.
+     */
+    public static class Reflected extends Fields {
+    }
+
+    /**
+     * Variante mit Adapter.
+     */
+    @GenerateAdapter
+    public static class Adapted extends Fields {
+    }
+
+    /**
+     * Lädt die gemeinsamen Klassen der Reflection.
+     */
+    public static class WarmReflected extends Fields {
+    }
+
+    /**
+     * Lädt die gemeinsamen Klassen der Adapter.
+     */
+    @GenerateAdapter
+    public static class WarmAdapted extends Fields {
+    }
+
+    /**
+     * Startet den Benchmark.
+     * 
+     * @param args wird nicht verwendet
+     * @throws JSONSyntaxException sollte nicht auftreten
+     */
+    public static void main(String[] args) throws JSONSyntaxException {
+        Wson wson = new Wson();
+        if (TypeAdapter.of(Adapted.class) == null) {
+            System.out.println("Kein Adapter gefunden, Tests ohne AdapterProcessor übersetzt?");
+            return;
+        }
+
+        firstCall(wson, WarmReflected.class, new WarmReflected().init());
+        firstCall(wson, WarmAdapted.class, new WarmAdapted().init());
+        System.out.printf("erster Aufruf Reflection %8.1f us%n",
+                firstCall(wson, Reflected.class, new Reflected().init()) / NANOS_PER_MICRO);
+        System.out.printf("erster Aufruf Adapter    %8.1f us%n",
+                firstCall(wson, Adapted.class, new Adapted().init()) / NANOS_PER_MICRO);
+
+        // Abwechselnd, damit keine Variante vom Aufwärmen der anderen profitiert
+        for (int r = 0; r < 2; r++) {
+            throughput(wson, "Reflection", Reflected.class, new Reflected().init());
+            throughput(wson, "Adapter", Adapted.class, new Adapted().init());
+        }
+    }
+
+    /**
+     * Misst den ersten toJson- und fromJson-Aufruf einer Klasse.
+     * 
+     * @param <T> die Klasse
+     * @param wson die Instanz
+     * @param type die Klasse
+     * @param value ein Objekt der Klasse
+     * @return die Zeit in Nanosekunden
+     * @throws JSONSyntaxException sollte nicht auftreten
+     */
+    private static <T> long firstCall(Wson wson, Class<T> type, T value)
+            throws JSONSyntaxException {
+        long start = System.nanoTime();
+        wson.fromJson(wson.toJson(value), type);
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Misst toJson und fromJson getrennt und gibt den besten Lauf aus.
+     * 
+     * @param <T> die Klasse
+     * @param wson die Instanz
+     * @param name Name für die Ausgabe
+     * @param type die Klasse
+     * @param value ein Objekt der Klasse
+     * @throws JSONSyntaxException sollte nicht auftreten
+     */
+    private static <T> void throughput(Wson wson, String name, Class<T> type, T value)
+            throws JSONSyntaxException {
+        String json = wson.toJson(value);
+        long bestWrite = Long.MAX_VALUE;
+        long bestRead = Long.MAX_VALUE;
+        long sink = 0;
+
+        for (int r = 0; r < ROUNDS; r++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                sink += wson.toJson(value).length();
+            }
+            long middle = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                sink += wson.fromJson(json, type) == null ? 0 : 1;
+            }
+            bestWrite = Math.min(bestWrite, middle - start);
+            bestRead = Math.min(bestRead, System.nanoTime() - middle);
+        }
+
+        System.out.printf("%-10s toJson %7.1f ns, fromJson %7.1f ns (%d)%n", name,
+                (double) bestWrite / ITERATIONS, (double) bestRead / ITERATIONS, sink & 1);
+    }
+}
@@ -0,0 +1,122 @@
+package wson;
+
+import java.util.Random;
+
+/**
+ * Vergleicht Größe und Geschwindigkeit von {@link Wson#toBinary} und {@link Wson#fromBinary} mit
+ * JSON. Die Daten sind eine Messreihe aus Arrays primitiver Typen mit einigen Strings und einem
+ * verschachtelten Objekt.
+ * 
+ * Aufruf: ant benchmark -Dbench.class=wson.BinaryBenchmark
+ * 
+ * @author Lars Sander, Alexander Löffler
+ * 
+ */
+public final class BinaryBenchmark {
+
+    private static final int ROUNDS = 10;
+    private static final int ITERATIONS = 200;
+    private static final int SAMPLES = 2000;
+    private static final int MAX_ID = 100_000;
+    private static final double NANOS_PER_MICRO = 1000.0;
+
+    private BinaryBenchmark() {
+    }
+
+    /**
+     * Eine Messreihe mit ihren Metadaten.
+     */
+    public static class Series {
+        String name;
+        String unit;
+        Sensor sensor;
+        int[] ids;
+        long[] stamps;
+        double[] values;
+        float[] errors;
+        boolean[] valid;
+    }
+
+    /**
+     * Metadaten des Sensors.
+     */
+    public static class Sensor {
+        int id;
+        String location;
+        double calibration;
+    }
+
+    /**
+     * Startet den Benchmark.
+     * 
+     * @param args wird nicht verwendet
+     * @throws JSONSyntaxException sollte nicht auftreten
+     */
+    public static void main(String[] args) throws JSONSyntaxException {
+        Random random = new Random(1);
+        Series series = new Series();
+        series.name = "Messreihe";
+        series.unit = "°C";
+        series.sensor = new Sensor();
+        series.sensor.id = random.nextInt(MAX_ID);
+        series.sensor.location = "Halle 3";
+        series.sensor.calibration = random.nextGaussian();
+        series.ids = new int[SAMPLES];
+        series.stamps = new long[SAMPLES];
+        series.values = new double[SAMPLES];
+        series.errors = new float[SAMPLES];
+        series.valid = new boolean[SAMPLES];
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < SAMPLES; i++) {
+            series.ids[i] = random.nextInt(MAX_ID);
+            series.stamps[i] = now + i;
+            series.values[i] = random.nextGaussian();
+            series.errors[i] = random.nextFloat();
+            series.valid[i] = random.nextBoolean();
+        }
+
+        Wson wson = new Wson();
+        String json = wson.toJson(series);
+        byte[] binary = wson.toBinary(series);
+        System.out.printf("Größe JSON %d Zeichen, binär %d Bytes (%.0f %%)%n", json.length(),
+                binary.length, 100.0 * binary.length / json.length());
+
+        long bestJsonWrite = Long.MAX_VALUE;
+        long bestJsonRead = Long.MAX_VALUE;
+        long bestBinaryWrite = Long.MAX_VALUE;
+        long bestBinaryRead = Long.MAX_VALUE;
+        long sink = 0;
+
+        for (int r = 0; r < ROUNDS; r++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                sink += wson.toJson(series).length();
+            }
+            long t1 = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                sink += wson.fromJson(json, Series.class).ids.length;
+            }
+            long t2 = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                sink += wson.toBinary(series).length;
+            }
+            long t3 = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                sink += wson.fromBinary(binary, Series.class).ids.length;
+            }
+            long t4 = System.nanoTime();
+
+            bestJsonWrite = Math.min(bestJsonWrite, t1 - start);
+            bestJsonRead = Math.min(bestJsonRead, t2 - t1);
+            bestBinaryWrite = Math.min(bestBinaryWrite, t3 - t2);
+            bestBinaryRead = Math.min(bestBinaryRead, t4 - t3);
+        }
+
+        System.out.printf("JSON   schreiben %8.1f us, lesen %8.1f us%n",
+                bestJsonWrite / NANOS_PER_MICRO / ITERATIONS,
+                bestJsonRead / NANOS_PER_MICRO / ITERATIONS);
+        System.out.printf("binär  schreiben %8.1f us, lesen %8.1f us (%d)%n",
+                bestBinaryWrite / NANOS_PER_MICRO / ITERATIONS,
+                bestBinaryRead / NANOS_PER_MICRO / ITERATIONS, sink & 1);
+    }
+}
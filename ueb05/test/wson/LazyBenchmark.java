@@ -0,0 +1,100 @@
+package wson;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Vergleicht das vollständige Lesen eines großen Dokumentes mit {@link Wson#fromJson} und das
+ * Lesen eines einzelnen Feldes über {@link LazyJsonObject}. Das Dokument enthält ein großes Array
+ * aus Zahlen und viele verschachtelte Objekte; gelesen wird nur der Name am Ende. Ausgegeben wird
+ * der beste Lauf.
+ * 
+ * Aufruf: ant benchmark -Dbench.class=wson.LazyBenchmark -Dbench.args=size
+ * 
+ * @author Lars Sander, Alexander Löffler
+ * 
+ */
+public final class LazyBenchmark {
+
+    private static final int DEFAULT_SIZE = 200_000;
+    private static final int ROUNDS = 15;
+    private static final int ITEMS_PER_SAMPLE = 10;
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    private LazyBenchmark() {
+    }
+
+    /**
+     * Ein großes Dokument.
+     */
+    public static class Document {
+        private double[] samples;
+        private Map<String, Item> items;
+        private String name;
+    }
+
+    /**
+     * Ein Eintrag des Dokumentes.
+     */
+    public static class Item {
+        private int id;
+        private String label;
+    }
+
+    /**
+     * Eine messbare Variante.
+     */
+    private interface Variant {
+        String run() throws JSONSyntaxException;
+    }
+
+    /**
+     * Startet den Benchmark.
+     * 
+     * @param args optional die Anzahl der Zahlen und Einträge
+     * @throws JSONSyntaxException sollte nicht auftreten
+     */
+    public static void main(String[] args) throws JSONSyntaxException {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_SIZE;
+
+        Document doc = new Document();
+        doc.samples = new double[size];
+        Arrays.setAll(doc.samples, i -> i / 7.0);
+        doc.name = "document";
+
+        doc.items = new HashMap<>();
+        for (int i = 0; i < size / ITEMS_PER_SAMPLE; i++) {
+            Item item = new Item();
+            item.id = i;
+            item.label = "item " + i;
+            doc.items.put("k" + i, item);
+        }
+        Wson wson = new Wson();
+        String json = wson.toJson(doc);
+        System.out.printf("Eingabe: %d Zeichen%n", json.length());
+
+        report("fromJson", () -> wson.fromJson(json, Document.class).name);
+        report("fromJsonLazy", () -> wson.fromJsonLazy(json).getString("name"));
+        report("fromJsonLazy + samples",
+                () -> wson.fromJsonLazy(json).get("samples", double[].class).length + "");
+    }
+
+    /**
+     * Misst eine Variante und gibt die beste Zeit aus.
+     * 
+     * @param name Name der Variante
+     * @param v die Variante
+     * @throws JSONSyntaxException sollte nicht auftreten
+     */
+    private static void report(String name, Variant v) throws JSONSyntaxException {
+        long best = Long.MAX_VALUE;
+        int sink = 0;
+        for (int r = 0; r < ROUNDS; r++) {
+            long start = System.nanoTime();
+            sink += v.run().hashCode();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("%-24s %8.2f ms (%d)%n", name, best / NANOS_PER_MILLI, sink & 1);
+    }
+}
@@ -0,0 +1,124 @@
+package wson;
+
+import java.util.Random;
+import java.util.StringJoiner;
+
+/**
+ * Vergleicht {@link NumberCodec} und das Lesen von long-Werten in {@link JSONTokenizer} mit den
+ * Routinen des JDK. Gemessen wird jeweils ein Array aus zufälligen Werten, ausgegeben wird der
+ * beste Lauf pro Wert.
+ * 
+ * Aufruf: ant benchmark -Dbench.class=wson.NumberBenchmark
+ * 
+ * @author Lars Sander, Alexander Löffler
+ * 
+ */
+public final class NumberBenchmark {
+
+    private static final int VALUES = 200_000;
+    private static final int ROUNDS = 15;
+    private static final int MAX_EXPONENT = 40;
+
+    private NumberBenchmark() {
+    }
+
+    /**
+     * Eine messbare Variante, liefert einen Wert gegen Dead Code Elimination.
+     */
+    private interface Variant {
+        long run() throws JSONSyntaxException;
+    }
+
+    /**
+     * Startet den Benchmark.
+     * 
+     * @param args wird nicht verwendet
+     * @throws JSONSyntaxException sollte nicht auftreten
+     */
+    public static void main(String[] args) throws JSONSyntaxException {
+        Random random = new Random(1);
+        double[] doubles = new double[VALUES];
+        long[] longs = new long[VALUES];
+        int shorter = 0;
+        for (int i = 0; i < VALUES; i++) {
+            doubles[i] = random.nextGaussian()
+                    * Math.pow(2, random.nextInt(MAX_EXPONENT) - MAX_EXPONENT / 2);
+            longs[i] = random.nextLong();
+            if (NumberCodec.toString(doubles[i]).length() < Double.toString(doubles[i]).length()) {
+                shorter++;
+            }
+        }
+        System.out.printf("kürzer als Double.toString: %d von %d%n", shorter, VALUES);
+
+        StringBuilder sb = new StringBuilder();
+        report("StringBuilder.append(double)", () -> {
+            sb.setLength(0);
+            for (double d : doubles) {
+                sb.append(d).append(',');
+            }
+            return sb.length();
+        });
+        report("NumberCodec.append", () -> {
+            sb.setLength(0);
+            for (double d : doubles) {
+                NumberCodec.append(sb, d);
+                sb.append(',');
+            }
+            return sb.length();
+        });
+
+        String[] longText = new String[VALUES];
+        StringJoiner joiner = new StringJoiner(",", "[", "]");
+        for (int i = 0; i < VALUES; i++) {
+            longText[i] = Long.toString(longs[i]);
+            joiner.add(longText[i]);
+        }
+        char[] json = joiner.toString().toCharArray();
+
+        report("Long.parseLong", () -> {
+            long sum = 0;
+            for (String s : longText) {
+                sum += Long.parseLong(s);
+            }
+            return sum;
+        });
+        report("(long) readNumber", () -> {
+            long sum = 0;
+            JSONTokenizer in = new JSONTokenizer(json, 0, json.length);
+            in.beginArray();
+            for (boolean first = true; in.hasNextElement(first); first = false) {
+                in.peekValue();
+                sum += (long) in.readNumber();
+            }
+            return sum;
+        });
+        report("readIntegral", () -> {
+            long sum = 0;
+            JSONTokenizer in = new JSONTokenizer(json, 0, json.length);
+            in.beginArray();
+            for (boolean first = true; in.hasNextElement(first); first = false) {
+                in.peekValue();
+                sum += in.readIntegral();
+            }
+            return sum;
+        });
+    }
+
+    /**
+     * Misst eine Variante und gibt die beste Zeit pro Wert aus.
+     * 
+     * @param name Name der Variante
+     * @param v die Variante
+     * @throws JSONSyntaxException sollte nicht auftreten
+     */
+    private static void report(String name, Variant v) throws JSONSyntaxException {
+        long best = Long.MAX_VALUE;
+        long sink = 0;
+        for (int r = 0; r < ROUNDS; r++) {
+            long start = System.nanoTime();
+            sink += v.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("%-30s %6.1f ns (%d)%n", name, (double) best / VALUES, sink & 1);
+    }
+}
@@ -0,0 +1,93 @@
+package wson;
+
+import java.io.IOException;
+import java.io.PushbackReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * Vergleicht {@link JSONTokenizer} mit dem vorgegebenen {@link JSONParser} auf den
+ * Beispieldateien aus test/examples/json. Die Dateien werden zu einem großen JSON-Array
+ * zusammengesetzt, das jede Datei copies-mal enthält. Kein JMH, sondern ein einfacher Messlauf
+ * mit Aufwärmphase, ausgegeben wird der beste Lauf.
+ * 
+ * Aufruf: ant benchmark -Dbench.class=wson.ParserBenchmark -Dbench.args=copies
+ * 
+ * @author Lars Sander, Alexander Löffler
+ *
+ */
+public final class ParserBenchmark {
+
+    private static final int DEFAULT_COPIES = 5000;
+    private static final int ROUNDS = 10;
+    private static final double MB = 1024 * 1024;
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    private ParserBenchmark() {
+    }
+
+    /**
+     * Eine messbare Variante.
+     */
+    private interface Variant {
+        Object parse() throws IOException, JSONSyntaxException;
+    }
+
+    /**
+     * Startet den Benchmark.
+     * 
+     * @param args optional die Anzahl der Kopien jeder Beispieldatei
+     * @throws IOException Fehler beim Einlesen der Beispiele
+     * @throws JSONSyntaxException Fehler beim Parsen
+     */
+    public static void main(String[] args) throws IOException, JSONSyntaxException {
+        int copies = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_COPIES;
+
+        List<String> corpus = TestJSONTokenizer.corpus();
+        StringJoiner sj = new StringJoiner(",", "[", "]");
+        for (int i = 0; i < copies; i++) {
+            corpus.forEach(sj::add);
+        }
+        String json = sj.toString();
+        byte[] utf8 = json.getBytes(StandardCharsets.UTF_8);
+
+        System.out.printf("Eingabe: %.1f MB%n", json.length() / MB);
+
+        Object expected = new JSONTokenizer(json).readElement();
+        if (!expected.equals(JSONParser.readElement(new PushbackReader(new StringReader(json))))) {
+            throw new IllegalStateException("Ergebnisse unterscheiden sich");
+        }
+
+        report("JSONParser", json.length(),
+                () -> JSONParser.readElement(new PushbackReader(new StringReader(json))));
+        report("JSONTokenizer(String)", json.length(), () -> new JSONTokenizer(json).readElement());
+        report("JSONTokenizer(byte[])", json.length(), () -> new JSONTokenizer(utf8).readElement());
+    }
+
+    /**
+     * Misst eine Variante und gibt den Durchsatz aus.
+     * 
+     * @param name Name der Variante
+     * @param chars Länge der Eingabe
+     * @param v die Variante
+     * @throws IOException Fehler beim Lesen
+     * @throws JSONSyntaxException Fehler beim Parsen
+     */
+    private static void report(String name, int chars, Variant v)
+            throws IOException, JSONSyntaxException {
+        long best = Long.MAX_VALUE;
+        int sink = 0;
+
+        for (int r = 0; r < ROUNDS; r++) {
+            long start = System.nanoTime();
+            sink += v.parse().hashCode();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+
+        double seconds = best / NANOS_PER_SECOND;
+        System.out.printf("%-24s %8.1f ms %8.1f MB/s (%d)%n", name, seconds * 1000,
+                chars / MB / seconds, sink & 1);
+    }
+}
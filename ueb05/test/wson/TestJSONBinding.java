@@ -0,0 +1,100 @@
+package wson;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import examples.EAccessibility;
+import examples.EBooleanNull;
+import examples.ECharString;
+import examples.ECycle;
+import examples.EInheritance.EChild;
+import examples.EList;
+import examples.EMapObject;
+import examples.ENumber;
+
+/**
+ * Vergleicht das direkte Befüllen über {@link JSONReader#read} mit dem Umweg über den Baum aus
+ * {@link JSONTokenizer#readElement} und {@link JSONReader#convert}.
+ * 
+ * @author Lars Sander, Alexander Löffler
+ *
+ */
+public class TestJSONBinding {
+
+    private final JSONReader reader = new JSONReader();
+    private final Wson wson = new Wson();
+
+    /**
+     * Eine Klasse mit verschachtelten Objekten und Listen.
+     */
+    public static class ENested {
+        public int id;
+        public ENumber number;
+        public ENested next;
+        public List<Integer> values;
+        public String name;
+    }
+
+    private <T> void assertSameResult(String json, Class<T> type) throws JSONSyntaxException {
+        T direct = reader.read(new JSONTokenizer(json), type);
+        T viaTree = reader.convert(new JSONTokenizer(json).readElement(), type);
+
+        Assert.assertEquals(json, wson.toJson(viaTree), wson.toJson(direct));
+    }
+
+    private static String example(String name) throws IOException {
+        return new String(Files.readAllBytes(Paths.get("test/examples/json/" + name + ".json")),
+                StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void examples() throws IOException, JSONSyntaxException {
+        assertSameResult(example("EAccessibility"), EAccessibility.class);
+        assertSameResult(example("EBooleanNull"), EBooleanNull.class);
+        assertSameResult(example("ECharString"), ECharString.class);
+        assertSameResult(example("ECycle"), ECycle.class);
+        assertSameResult(example("EInheritance"), EChild.class);
+        assertSameResult(example("EList"), EList.class);
+        assertSameResult(example("EMapObject"), EMapObject.class);
+        assertSameResult(example("EMapObject_whitespace_unordered"), EMapObject.class);
+        assertSameResult(example("ENumber"), ENumber.class);
+    }
+
+    @Test
+    public void nestedObjects() throws JSONSyntaxException {
+        String json = "{\"id\":1,\"name\":\"a\",\"values\":[1,2,3],\"number\":"
+                + wson.toJson(new ENumber().init()) + ",\"next\":{\"id\":2,\"next\":{\"id\":3}}}";
+        assertSameResult(json, ENested.class);
+
+        ENested e = reader.read(new JSONTokenizer(json), ENested.class);
+        Assert.assertEquals(3, e.next.next.id);
+        Assert.assertEquals(new ENumber().init(), e.number);
+    }
+
+    @Test
+    public void unknownKeysAreSkipped() throws JSONSyntaxException {
+        String json = " { \"unknown\" : { \"a\" : [ 1, \"x\\\"}\", { } , [ ] ], \"b\" : null },"
+                + " \"id\" : 7 , \"other\" : -1.5e3 , \"flag\" : true } ";
+        assertSameResult(json, ENested.class);
+        Assert.assertEquals(7, reader.read(new JSONTokenizer(json), ENested.class).id);
+    }
+
+    @Test
+    public void topLevelValues() throws JSONSyntaxException {
+        Assert.assertEquals(Boolean.TRUE, reader.read(new JSONTokenizer("true"), boolean.class));
+        Assert.assertEquals("FHW", reader.read(new JSONTokenizer("\"FHW\""), String.class));
+        Assert.assertArrayEquals(new int[] { 4, 2 },
+                reader.read(new JSONTokenizer("[4,2]"), int[].class));
+    }
+
+    @Test(expected = JSONSyntaxException.class)
+    public void syntaxErrorInSkippedValue() throws JSONSyntaxException {
+        reader.read(new JSONTokenizer("{\"unknown\":[1,,2],\"id\":1}"), ENested.class);
+    }
+}
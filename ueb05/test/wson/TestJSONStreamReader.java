@@ -0,0 +1,276 @@
+package wson;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.PushbackReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import wson.JSONStreamReader.Token;
+
+/**
+ * Tests für {@link JSONStreamReader}, {@link Wson#fromJsonStream} und das Nachladen im
+ * {@link JSONTokenizer}.
+ * 
+ * @author Lars Sander, Alexander Löffler
+ * 
+ */
+public class TestJSONStreamReader {
+
+    private static final int MANY = 200000;
+
+    /**
+     * Reader, der bei jedem Aufruf höchstens ein paar Zeichen liefert, damit jede Stelle eines
+     * Tokens einmal an einer Puffergrenze liegt.
+     */
+    private static final class ChoppyReader extends FilterReader {
+
+        private int calls;
+
+        ChoppyReader(String s) {
+            super(new StringReader(s));
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) throws IOException {
+            calls++;
+            return super.read(cbuf, off, Math.min(len, 1 + calls % 3));
+        }
+    }
+
+    /**
+     * Reader, der ein Array mit count Objekten erzeugt, ohne es im Speicher zu halten.
+     */
+    private static final class GeneratingReader extends Reader {
+
+        private final int count;
+        private int next;
+        private String pending = "[";
+        private int pendingPos;
+        private long produced;
+
+        GeneratingReader(int count) {
+            this.count = count;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) {
+            if (pendingPos == pending.length()) {
+                if (next > count) {
+                    return -1;
+                }
+                pending = next == count ? "]"
+                        : (next > 0 ? "," : "") + "{\"id\":" + next + ",\"name\":\"p" + next
+                                + "\",\"tags\":[1,2,{\"x\":null}]}";
+                pendingPos = 0;
+                next++;
+            }
+            int n = Math.min(len, pending.length() - pendingPos);
+            pending.getChars(pendingPos, pendingPos + n, cbuf, off);
+            pendingPos += n;
+            produced += n;
+            return n;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * Einfache Klasse für fromJsonStream.
+     */
+    public static class Item {
+        private long id;
+        private String name;
+    }
+
+    private static Object parseOld(String json) throws IOException, JSONSyntaxException {
+        return JSONParser.readElement(new PushbackReader(new StringReader(json)));
+    }
+
+    @Test
+    public void refillMatchesParser() throws IOException, JSONSyntaxException {
+        for (String json : TestJSONTokenizer.corpus()) {
+            Assert.assertEquals(parseOld(json),
+                    new JSONTokenizer(new ChoppyReader(json)).readElement());
+        }
+    }
+
+    @Test
+    public void longTokensGrowBuffer() throws JSONSyntaxException {
+        StringBuilder sb = new StringBuilder("[\"");
+        for (int i = 0; i < MANY; i++) {
+            sb.append(i % 10);
+        }
+        sb.append("\\n\",1.25e2]");
+        List<?> result = (List<?>) new JSONTokenizer(new StringReader(sb.toString()))
+                .readElement();
+        Assert.assertEquals(MANY + 1, ((String) result.get(0)).length());
+        Assert.assertEquals(125.0, result.get(1));
+    }
+
+    @Test
+    public void walkDocument() throws IOException, JSONSyntaxException {
+        String json = "{\"a\": [1, \"x\", true, null, {}], \"b\" : {\"c\": false}, \"d\": -2.5}";
+        JSONStreamReader r = new JSONStreamReader(new ChoppyReader(json));
+
+        r.beginObject();
+        Assert.assertEquals(Token.NAME, r.peek());
+        Assert.assertEquals("a", r.nextName());
+        r.beginArray();
+        Assert.assertEquals(Token.NUMBER, r.peek());
+        Assert.assertEquals(1, r.nextLong());
+        Assert.assertEquals(Token.STRING, r.peek());
+        Assert.assertEquals("x", r.nextString());
+        Assert.assertTrue(r.nextBoolean());
+        Assert.assertEquals(Token.NULL, r.peek());
+        r.nextNull();
+        Assert.assertTrue(r.hasNext());
+        r.beginObject();
+        Assert.assertFalse(r.hasNext());
+        r.endObject();
+        Assert.assertFalse(r.hasNext());
+        Assert.assertEquals(Token.END_ARRAY, r.peek());
+        r.endArray();
+        Assert.assertTrue(r.hasNext());
+        r.skipValue();
+        Assert.assertEquals("d", r.nextName());
+        Assert.assertEquals(-2.5, r.nextDouble(), 0);
+        Assert.assertEquals(Token.END_OBJECT, r.peek());
+        r.endObject();
+        Assert.assertEquals(Token.END_DOCUMENT, r.peek());
+        Assert.assertFalse(r.hasNext());
+    }
+
+    @Test
+    public void nextLongIsExact() throws IOException, JSONSyntaxException {
+        String json = "[9007199254740993, -9223372036854775808, 9223372036854775807, 1e3, -0, 2.0]";
+        JSONStreamReader r = new JSONStreamReader(new StringReader(json));
+        r.beginArray();
+        Assert.assertEquals(9007199254740993L, r.nextLong());
+        Assert.assertEquals(Long.MIN_VALUE, r.nextLong());
+        Assert.assertEquals(Long.MAX_VALUE, r.nextLong());
+        Assert.assertEquals(1000L, r.nextLong());
+        Assert.assertEquals(0L, r.nextLong());
+        Assert.assertEquals(2L, r.nextLong());
+        r.endArray();
+    }
+
+    @Test
+    public void illegalLongs() throws IOException {
+        for (String json : Arrays.asList("1.5", "9223372036854775808", "-9223372036854775809",
+                "1e19", "\"1\"", "true")) {
+            JSONStreamReader r = new JSONStreamReader(new StringReader(json));
+            try {
+                r.nextLong();
+                Assert.fail(json);
+            } catch (JSONSyntaxException e) {
+                // erwartet
+            }
+        }
+    }
+
+    @Test
+    public void syntaxErrors() throws IOException {
+        List<String> documents = Arrays.asList("[1 2]", "[1,]", "{\"a\":1 \"b\":2}", "[1",
+                "{\"a\" 1}");
+        for (String json : documents) {
+            JSONStreamReader r = new JSONStreamReader(new StringReader(json));
+            try {
+                skipAll(r);
+                Assert.fail(json);
+            } catch (JSONSyntaxException e) {
+                // erwartet
+            }
+        }
+    }
+
+    @Test(expected = JSONSyntaxException.class)
+    public void nameInsideArray() throws IOException, JSONSyntaxException {
+        JSONStreamReader r = new JSONStreamReader(new StringReader("[\"a\"]"));
+        r.beginArray();
+        r.nextName();
+    }
+
+    /**
+     * Liest das ganze Dokument Token für Token.
+     * 
+     * @param r der Reader
+     * @throws IOException Fehler beim Lesen
+     * @throws JSONSyntaxException Syntaxfehler
+     */
+    private static void skipAll(JSONStreamReader r) throws IOException, JSONSyntaxException {
+        while (r.peek() != Token.END_DOCUMENT) {
+            switch (r.peek()) {
+                case BEGIN_ARRAY:
+                    r.beginArray();
+                    break;
+                case END_ARRAY:
+                    r.endArray();
+                    break;
+                case BEGIN_OBJECT:
+                    r.beginObject();
+                    break;
+                case END_OBJECT:
+                    r.endObject();
+                    break;
+                case NAME:
+                    r.nextName();
+                    break;
+                default:
+                    r.skipValue();
+                    break;
+            }
+        }
+    }
+
+    @Test
+    public void streamElements() {
+        Wson wson = new Wson();
+        String json = "[{\"id\":1,\"name\":\"a\"}, {\"name\":\"b\",\"id\":2,\"x\":[1]}]";
+        List<Item> items = wson.fromJsonStream(new ChoppyReader(json), Item.class)
+                .collect(Collectors.toList());
+        Assert.assertEquals(2, items.size());
+        Assert.assertEquals(1, items.get(0).id);
+        Assert.assertEquals("b", items.get(1).name);
+
+        Assert.assertEquals(0, wson.fromJsonStream(new StringReader(" [ ] "), Item.class)
+                .count());
+        Assert.assertEquals(Arrays.asList("x", "y"), wson
+                .fromJsonStream(new StringReader("[\"x\", \"y\"]"), String.class)
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    public void streamManyElements() {
+        GeneratingReader source = new GeneratingReader(MANY);
+        long sum;
+        try (Stream<Item> items = new Wson().fromJsonStream(source, Item.class)) {
+            sum = items.mapToLong(item -> item.id).sum();
+        }
+        Assert.assertEquals((long) MANY * (MANY - 1) / 2, sum);
+    }
+
+    @Test
+    public void streamIsLazy() {
+        GeneratingReader source = new GeneratingReader(MANY);
+        List<Item> first = new Wson().fromJsonStream(source, Item.class).limit(2)
+                .collect(Collectors.toList());
+        Assert.assertEquals("p1", first.get(1).name);
+        Assert.assertTrue(source.produced < MANY);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void streamSyntaxError() {
+        new Wson().fromJsonStream(new StringReader("[\"a\" \"b\"]"), String.class).count();
+    }
+
+}
@@ -0,0 +1,150 @@
+package wson;
+
+import java.io.IOException;
+import java.io.PushbackReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Vergleicht {@link JSONTokenizer} mit dem vorgegebenen {@link JSONParser}.
+ * 
+ * @author Lars Sander, Alexander Löffler
+ *
+ */
+public class TestJSONTokenizer {
+
+    private static final int RANDOM_NUMBERS = 100000;
+
+    /**
+     * Liest alle Beispieldateien ein.
+     * 
+     * @return Inhalte der Dateien
+     * @throws IOException Fehler beim Einlesen
+     */
+    static List<String> corpus() throws IOException {
+        try (Stream<Path> files = Files.list(Paths.get("test/examples/json"))) {
+            List<String> result = new ArrayList<>();
+            for (Path p : files.sorted().collect(Collectors.toList())) {
+                result.add(new String(Files.readAllBytes(p), StandardCharsets.UTF_8));
+            }
+            return result;
+        }
+    }
+
+    private static Object parseOld(String json) throws IOException, JSONSyntaxException {
+        return JSONParser.readElement(new PushbackReader(new StringReader(json)));
+    }
+
+    @Test
+    public void corpusMatchesParser() throws IOException, JSONSyntaxException {
+        for (String json : corpus()) {
+            Assert.assertEquals(parseOld(json), new JSONTokenizer(json).readElement());
+            Assert.assertEquals(parseOld(json),
+                    new JSONTokenizer(json.getBytes(StandardCharsets.UTF_8)).readElement());
+        }
+    }
+
+    @Test
+    public void valuesMatchParser() throws IOException, JSONSyntaxException {
+        List<String> values = Arrays.asList("true", " false ", "null", "\"\"", "\"ä ß\"",
+                "\"\\\"\\\\\\/\\b\\f\\n\\r\\t x\"", "{}", "{ \"a\" : [1, {\"b\":null}] }",
+                "[[1],[2,[3]]]", "0", "-0", "1.", "1.5e3", "1E-3", "-12.25", "1e400", "1e-400",
+                "123456789012345678901234567890", "0.1", "3.141592653589793", "4.9e-324",
+                "1.7976931348623157E308", "9007199254740993", "[1,2]x");
+        for (String json : values) {
+            Object expected = parseOld(json);
+            Object actual = new JSONTokenizer(json).readElement();
+            Assert.assertEquals(json, expected, actual);
+            if (expected instanceof Double) {
+                Assert.assertEquals(json, Double.doubleToRawLongBits((Double) expected),
+                        Double.doubleToRawLongBits((Double) actual));
+            }
+        }
+    }
+
+    @Test
+    public void numbersAreCorrectlyRounded() throws JSONSyntaxException {
+        Random random = new Random(42);
+        for (int i = 0; i < RANDOM_NUMBERS; i++) {
+            String s;
+            switch (i % 3) {
+                case 0:
+                    s = Double.toString(random.nextDouble() * random.nextInt());
+                    break;
+                case 1:
+                    s = Long.toString(random.nextLong() >> (i % Long.SIZE));
+                    break;
+                default:
+                    s = (random.nextInt() % 100000) + "." + Math.abs(random.nextInt() % 1000);
+                    break;
+            }
+            Assert.assertEquals(s, Double.parseDouble(s), new JSONTokenizer(s).readNumber(), 0);
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void keysAreCanonical() throws JSONSyntaxException {
+        String longKey = String.join("", Collections.nCopies(100, "k"));
+        List<Object> list = (List<Object>) new JSONTokenizer("[{\"alpha\":1,\"a\\\"b\":2,\""
+                + longKey + "\":3},{\"alpha\":4}]").readElement();
+        Map<String, Object> first = (Map<String, Object>) list.get(0);
+        Map<String, Object> second = (Map<String, Object>) list.get(1);
+
+        Assert.assertSame(key(first, "alpha"), key(second, "alpha"));
+        Assert.assertEquals(2.0, first.get("a\"b"));
+        Assert.assertEquals(3.0, first.get(longKey));
+        Assert.assertSame(key(first, "alpha"),
+                key((Map<String, Object>) new JSONTokenizer("{ \"alpha\" : 5 }").readElement(),
+                        "alpha"));
+    }
+
+    /**
+     * Liefert die Instanz eines Schlüssels aus einer Map.
+     * 
+     * @param map die Map
+     * @param key ein gleicher Schlüssel
+     * @return der Schlüssel aus der Map
+     */
+    private static String key(Map<String, Object> map, String key) {
+        for (String k : map.keySet()) {
+            if (k.equals(key)) {
+                return k;
+            }
+        }
+        throw new AssertionError(key);
+    }
+
+    @Test
+    public void emptyArray() throws JSONSyntaxException {
+        Assert.assertEquals(new ArrayList<>(), new JSONTokenizer(" [ ] ").readElement());
+    }
+
+    @Test
+    public void syntaxErrors() {
+        List<String> invalid = Arrays.asList("", "[1,", "{\"a\" 1}", "{\"a\":1", "{a:1}", "\"abc",
+                "\"\\u0041\"", "\"\\x\"", "tru", "nul", "-", "1.2.3", "[1;2]", "}");
+        for (String json : invalid) {
+            try {
+                new JSONTokenizer(json).readElement();
+                Assert.fail("Kein Fehler bei: " + json);
+            } catch (JSONSyntaxException e) {
+                // erwartet
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package wson;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.MalformedInputException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import examples.ECharString;
+import examples.ENumber;
+
+/**
+ * Tests für {@link MappedUtf8Reader} und {@link Wson#fromJson(Path, Class)}. Kleine Fenster
+ * legen jede Stelle der Mehrbyte-Zeichen einmal an eine Fenstergrenze.
+ *
+ * @author Lars Sander, Alexander Löffler
+ *
+ */
+public class TestMappedInput {
+
+    private static final int MAX_WINDOW = 9;
+
+    private static final String TEXT = "{\"a\":\"ä ß € 𝄞 x\",\"b\":[1,2,3]}";
+
+    private final Wson wson = new Wson();
+
+    /**
+     * Schreibt Bytes in eine temporäre Datei.
+     *
+     * @param content der Inhalt
+     * @return Pfad der Datei
+     * @throws IOException Fehler beim Schreiben
+     */
+    private static Path write(byte[] content) throws IOException {
+        Path file = Files.createTempFile("wson", ".json");
+        file.toFile().deleteOnExit();
+        return Files.write(file, content);
+    }
+
+    /**
+     * Liest eine Datei vollständig über einen MappedUtf8Reader.
+     *
+     * @param file die Datei
+     * @param window Größe der Fenster
+     * @return der Inhalt
+     * @throws IOException Fehler beim Lesen
+     */
+    private static String readAll(Path file, int window) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        char[] buf = new char[3];
+        try (MappedUtf8Reader in =
+                new MappedUtf8Reader(FileChannel.open(file, StandardOpenOption.READ), window)) {
+            for (int n = in.read(buf); n != -1; n = in.read(buf)) {
+                sb.append(buf, 0, n);
+            }
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void charactersAcrossWindows() throws IOException {
+        Path file = write(TEXT.getBytes(StandardCharsets.UTF_8));
+
+        for (int window = 4; window <= MAX_WINDOW; window++) {
+            Assert.assertEquals("window " + window, TEXT, readAll(file, window));
+        }
+        Assert.assertEquals("", readAll(write(new byte[0]), MappedUtf8Reader.WINDOW));
+    }
+
+    @Test
+    public void fromJsonPath() throws IOException, JSONSyntaxException {
+        Path examples = Paths.get("test/examples/json");
+
+        Assert.assertEquals(new ENumber().init(),
+                wson.fromJson(examples.resolve("ENumber.json"), ENumber.class));
+        Assert.assertEquals(new ECharString().init(),
+                wson.fromJson(examples.resolve("ECharString.json"), ECharString.class));
+    }
+
+    @Test(expected = MalformedInputException.class)
+    public void malformedUtf8() throws IOException, JSONSyntaxException {
+        byte[] bytes = "{\"s\":\"xx\"}".getBytes(StandardCharsets.UTF_8);
+        bytes[bytes.length - 3] = (byte) 0xC3;
+        wson.fromJson(write(bytes), ECharString.class);
+    }
+
+    @Test(expected = JSONSyntaxException.class)
+    public void truncatedJson() throws IOException, JSONSyntaxException {
+        wson.fromJson(write("{\"_char_a\":".getBytes(StandardCharsets.UTF_8)), ECharString.class);
+    }
+
+}
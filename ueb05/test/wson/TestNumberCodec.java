@@ -0,0 +1,131 @@
+package wson;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import wson.annotations.GenerateAdapter;
+
+/**
+ * Testet das Formatieren von double-Werten mit {@link NumberCodec} und das exakte Lesen von
+ * long-Werten.
+ * 
+ * @author Lars Sander, Alexander Löffler
+ * 
+ */
+public class TestNumberCodec {
+
+    private static final int RANDOM_VALUES = 200_000;
+
+    private final Wson wson = new Wson();
+
+    /**
+     * Klasse mit long-Werten, gelesen über Reflection.
+     */
+    public static class Longs {
+        private long value;
+        private long[] values;
+        private Long boxed;
+    }
+
+    /**
+     * Klasse mit double-Werten.
+     */
+    public static class Doubles {
+        private double[] d;
+        private double x;
+    }
+
+    /**
+     * Klasse mit long-Werten, gelesen über den erzeugten Adapter.
+     */
+    @GenerateAdapter
+    public static class AdaptedLongs {
+        long value;
+    }
+
+    @Test
+    public void roundTripIsExactAndShortest() {
+        Random random = new Random(3);
+        for (int i = 0; i < RANDOM_VALUES; i++) {
+            double d = i % 2 == 0 ? Double.longBitsToDouble(random.nextLong())
+                    : random.nextGaussian() * Math.pow(10, random.nextInt(40) - 20);
+            if (Double.isNaN(d)) {
+                continue;
+            }
+            String s = NumberCodec.toString(d);
+            Assert.assertEquals(s, Double.doubleToRawLongBits(d),
+                    Double.doubleToRawLongBits(Double.parseDouble(s)));
+            Assert.assertTrue(s, s.length() <= Double.toString(d).length());
+        }
+    }
+
+    @Test
+    public void formatMatchesDoubleToString() {
+        double[] values = { 0.0, -0.0, 1.0, -1.5, 0.1, 100.0, 123456.789, 9999999.0, 1e7, 0.001,
+            9.99e-4, 1e22, 1e-5, Double.MAX_VALUE, Double.MIN_VALUE, Double.MIN_NORMAL,
+            Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, 4.35, 1L << 53 };
+        for (double d : values) {
+            Assert.assertEquals(Double.toString(d), NumberCodec.toString(d));
+        }
+    }
+
+    @Test
+    public void shorterThanDoubleToString() {
+        Assert.assertEquals("2.82879384806159E17", NumberCodec.toString(2.82879384806159E17));
+        Assert.assertEquals("2.0E23", NumberCodec.toString(2e23));
+        Assert.assertEquals("9.9E-324", NumberCodec.toString(2 * Double.MIN_VALUE));
+
+        Doubles doubles = new Doubles();
+        doubles.d = new double[] { 2e23, 0.1 };
+        doubles.x = 2e23;
+        Assert.assertEquals("{\"d\":[2.0E23,0.1],\"x\":2.0E23}", wson.toJson(doubles));
+        Assert.assertEquals("2.0E23", wson.toJson(2e23));
+    }
+
+    @Test
+    public void multiplyHighMatchesBigInteger() {
+        Random random = new Random(5);
+        for (int i = 0; i < RANDOM_VALUES; i++) {
+            long x = random.nextLong();
+            long y = random.nextLong();
+            Assert.assertEquals(BigInteger.valueOf(x).multiply(BigInteger.valueOf(y))
+                    .shiftRight(Long.SIZE).longValue(), NumberCodec.multiplyHigh(x, y));
+        }
+    }
+
+    @Test
+    public void longsAreExact() throws JSONSyntaxException {
+        Longs longs = wson.fromJson("{\"value\":9223372036854775807,"
+                + "\"values\":[-9223372036854775808,9007199254740993],"
+                + "\"boxed\":9007199254740993}", Longs.class);
+
+        Assert.assertEquals(Long.MAX_VALUE, longs.value);
+        Assert.assertArrayEquals(new long[] { Long.MIN_VALUE, (1L << 53) + 1 }, longs.values);
+        Assert.assertEquals(Long.valueOf((1L << 53) + 1), longs.boxed);
+
+        AdaptedLongs adapted =
+                wson.fromJson("{\"value\":9007199254740993}", AdaptedLongs.class);
+        Assert.assertEquals((1L << 53) + 1, adapted.value);
+    }
+
+    @Test
+    public void longsFromOtherNotations() throws JSONSyntaxException {
+        Assert.assertEquals(1, new JSONTokenizer("1.9").readIntegral());
+        Assert.assertEquals(-1000, new JSONTokenizer("-1e3").readIntegral());
+        Assert.assertEquals(Long.MAX_VALUE, new JSONTokenizer("1e30").readIntegral());
+        Assert.assertEquals(Long.MAX_VALUE,
+                new JSONTokenizer("9223372036854775808").readIntegral());
+        Assert.assertEquals(Long.MIN_VALUE, wson.fromJson("{\"value\":-1e19}", Longs.class).value);
+
+        try {
+            new JSONTokenizer("1.5").readLong();
+            Assert.fail();
+        } catch (JSONSyntaxException e) {
+            // erwartet
+        }
+    }
+
+}
@@ -0,0 +1,130 @@
+package wson;
+
+import java.io.IOException;
+import java.io.PushbackReader;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Vergleicht das parallele Lesen von Arrays in {@link ParallelArrayParser} mit dem vorgegebenen
+ * {@link JSONParser}.
+ * 
+ * @author Lars Sander, Alexander Löffler
+ * 
+ */
+public class TestParallelArrayParser {
+
+    private static final int COPIES = 50;
+
+    private static final int ITEMS = 20000;
+
+    /**
+     * Einfache Klasse für fromJsonArray.
+     */
+    public static class Item {
+        private int id;
+        private String name;
+        private int[] values;
+    }
+
+    private static Object parseOld(String json) throws IOException, JSONSyntaxException {
+        return JSONParser.readElement(new PushbackReader(new StringReader(json)));
+    }
+
+    private static List<Object> parse(String json, boolean parallel) throws JSONSyntaxException {
+        char[] buf = json.toCharArray();
+        return ParallelArrayParser.parse(buf, 0, buf.length, JSONTokenizer::readElement,
+                parallel);
+    }
+
+    @Test
+    public void corpusMatchesParser() throws IOException, JSONSyntaxException {
+        List<String> corpus = TestJSONTokenizer.corpus();
+        StringBuilder all = new StringBuilder("[");
+        for (int i = 0; i < COPIES; i++) {
+            for (String json : corpus) {
+                Assert.assertEquals(parseOld("[" + json + "]"), parse("[" + json + "]", true));
+                all.append(all.length() > 1 ? ",\n" : "").append(json);
+            }
+        }
+        all.append(" ]");
+
+        Object expected = parseOld(all.toString());
+        Assert.assertEquals(expected, parse(all.toString(), true));
+        Assert.assertEquals(expected, parse(all.toString(), false));
+    }
+
+    @Test
+    public void structuralCharactersInStrings() throws IOException, JSONSyntaxException {
+        String json = " [\"a,]\\\"\" , {\"b\":\"}\\\\\"}, [1,[2, \"[\"]] ,true,null,-1.5e3]x";
+        Assert.assertEquals(parseOld(json), parse(json, true));
+        Assert.assertEquals(6, ParallelArrayParser.scan(json.toCharArray(), 0, json.length())
+                .length / 2);
+    }
+
+    @Test
+    public void emptyArray() throws JSONSyntaxException {
+        Assert.assertTrue(parse("[]", true).isEmpty());
+        Assert.assertTrue(parse(" [ \n ] ", true).isEmpty());
+    }
+
+    @Test
+    public void syntaxErrors() {
+        for (String json : Arrays.asList("[1 2]", "[1,]", "[,1]", "[1,,2]", "[1", "{\"a\":1}",
+                "[{]}", "[\"abc", "[{\"a\" 1}]", "[1}", "")) {
+            for (boolean parallel : new boolean[] { true, false }) {
+                try {
+                    parse(json, parallel);
+                    Assert.fail(json);
+                } catch (JSONSyntaxException e) {
+                    // erwartet
+                }
+            }
+        }
+    }
+
+    @Test
+    public void firstErrorIsReported() {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < ITEMS; i++) {
+            json.append(i == ITEMS / 3 ? "x" : i == ITEMS / 2 ? "y" : Integer.toString(i))
+                    .append(',');
+        }
+        json.append("0]");
+
+        try {
+            parse(json.toString(), true);
+            Assert.fail();
+        } catch (JSONSyntaxException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().endsWith(": " + (int) 'x'));
+        }
+    }
+
+    @Test
+    public void bindMatchesSequential() throws JSONSyntaxException {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < ITEMS; i++) {
+            json.append(i > 0 ? "," : "").append("{\"id\":").append(i)
+                    .append(",\"name\":\"n\\\"").append(i).append("\",\"values\":[").append(i)
+                    .append(",5],\"unknown\":{\"x\":[]}}");
+        }
+        json.append("]");
+
+        Wson wson = new Wson();
+        List<Item> sequential = wson.fromJsonArray(json.toString(), Item.class, false);
+        List<Item> parallel = wson.fromJsonArray(json.toString(), Item.class, true);
+
+        Assert.assertEquals(ITEMS, parallel.size());
+        for (int i = 0; i < ITEMS; i++) {
+            Assert.assertEquals(i, parallel.get(i).id);
+            Assert.assertEquals(sequential.get(i).name, parallel.get(i).name);
+            Assert.assertArrayEquals(sequential.get(i).values, parallel.get(i).values);
+        }
+        Assert.assertEquals("n\"7", parallel.get(7).name);
+    }
+
+}
@@ -0,0 +1,216 @@
+package wson;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.sun.management.ThreadMXBean;
+
+import examples.EAccessibility;
+import examples.EAnnotation;
+import examples.EArray;
+import examples.EBooleanNull;
+import examples.ECharString;
+import examples.ECycle;
+import examples.EInheritance.EChild;
+import examples.EList;
+import examples.EMapObject;
+import examples.ENumber;
+
+/**
+ * Leistungsbasis für {@link Wson#toJson} und {@link Wson#fromJson}. Gemessen werden alle Klassen
+ * aus test/examples mit ihren Beispieldateien sowie synthetische Bäume der Tiefe und Breite N
+ * für N = 1 bis maxN. Kein JMH, sondern ein einfacher Messlauf mit Aufwärmphase: ausgegeben wird
+ * je Fall die beste Runde in ns pro Aufruf, dazu die im aufrufenden Thread allokierten Bytes pro
+ * Aufruf. Die Ergebnisse werden zusätzlich mit Wson als JSON-Datei geschrieben, damit sich
+ * Läufe verschiedener Stände vergleichen lassen.
+ * 
+ * Aufruf: ant benchmark -Dbench.class=wson.WsonBenchmark -Dbench.args="maxN datei"
+ * 
+ * @author Lars Sander, Alexander Löffler
+ * 
+ */
+public final class WsonBenchmark {
+
+    private static final int DEFAULT_MAX_N = 5;
+    private static final String DEFAULT_FILE = "benchmark-results.json";
+    private static final int WARMUP = 5;
+    private static final int ROUNDS = 10;
+    // Zeichen, die eine Runde ungefähr verarbeitet; bestimmt die Aufrufe pro Runde
+    private static final int CHARS_PER_ROUND = 2_000_000;
+    private static final Path EXAMPLES = Paths.get("test/examples/json");
+
+    private static final ThreadMXBean THREADS =
+            (ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private WsonBenchmark() {
+    }
+
+    /**
+     * Knoten der synthetischen Bäume.
+     */
+    public static class Node {
+        private int id;
+        private String label;
+        private double weight;
+        private Map<String, Node> children;
+    }
+
+    /**
+     * Ergebnis eines Falles.
+     */
+    public static class Result {
+        private int chars;
+        private int operations;
+        private double nanosPerOp;
+        private long bytesPerOp;
+    }
+
+    /**
+     * Alle Ergebnisse eines Laufes, so wie sie in die Datei geschrieben werden.
+     */
+    public static class Results {
+        private String jvm;
+        private Map<String, Result> cases = new LinkedHashMap<>();
+    }
+
+    /**
+     * Ein messbarer Aufruf.
+     */
+    private interface Operation {
+        Object run() throws JSONSyntaxException;
+    }
+
+    /**
+     * Startet den Benchmark.
+     * 
+     * @param args optional das größte N der synthetischen Bäume und die Ergebnisdatei
+     * @throws IOException Fehler beim Lesen der Beispiele oder Schreiben der Ergebnisse
+     * @throws JSONSyntaxException sollte nicht auftreten
+     */
+    public static void main(String[] args) throws IOException, JSONSyntaxException {
+        int maxN = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_MAX_N;
+        Path file = Paths.get(args.length > 1 ? args[1] : DEFAULT_FILE);
+
+        Wson wson = new Wson();
+        Results results = new Results();
+        results.jvm = System.getProperty("java.vm.name") + " " + System.getProperty("java.version");
+
+        System.out.printf("%-28s %8s %12s %12s%n", "Fall", "Zeichen", "ns/Aufruf", "B/Aufruf");
+        example(wson, results, "EAccessibility", EAccessibility.class, new EAccessibility().init());
+        example(wson, results, "EAnnotation", EAnnotation.class, new EAnnotation().init());
+        example(wson, results, "EArray", EArray.class, new EArray().init());
+        example(wson, results, "EBooleanNull", EBooleanNull.class, new EBooleanNull().init());
+        example(wson, results, "ECharString", ECharString.class, new ECharString().init());
+        example(wson, results, "ECycle", ECycle.class, new ECycle().init());
+        example(wson, results, "EInheritance", EChild.class, new EChild().init());
+        example(wson, results, "EList", EList.class, new EList().init());
+        example(wson, results, "EMapObject", EMapObject.class, new EMapObject().init());
+        example(wson, results, "ENumber", ENumber.class, new ENumber().init());
+
+        for (int n = 1; n <= maxN; n++) {
+            Node root = tree(n, n, new int[1]);
+            String json = wson.toJson(root);
+            measure(results, "toJson/tree-" + n, json.length(), () -> wson.toJson(root));
+            measure(results, "fromJson/tree-" + n, json.length(),
+                    () -> wson.fromJson(json, Node.class));
+        }
+
+        Files.write(file, wson.toJson(results).getBytes(StandardCharsets.UTF_8));
+        System.out.println("Ergebnisse: " + file.toAbsolutePath());
+    }
+
+    /**
+     * Misst toJson mit dem initialisierten Beispielobjekt und fromJson mit der Beispieldatei.
+     * 
+     * @param wson die zu messende Instanz
+     * @param results Ziel der Ergebnisse
+     * @param name Name des Beispiels und seiner Datei
+     * @param type Klasse, in die die Datei gelesen wird
+     * @param example das Beispielobjekt
+     * @throws IOException Fehler beim Lesen der Datei
+     * @throws JSONSyntaxException sollte nicht auftreten
+     */
+    private static void example(Wson wson, Results results, String name, Class<?> type,
+            Object example) throws IOException, JSONSyntaxException {
+        String json = new String(Files.readAllBytes(EXAMPLES.resolve(name + ".json")),
+                StandardCharsets.UTF_8);
+
+        measure(results, "toJson/" + name, json.length(), () -> wson.toJson(example));
+        measure(results, "fromJson/" + name, json.length(), () -> wson.fromJson(json, type));
+    }
+
+    /**
+     * Baut einen vollständigen Baum.
+     * 
+     * @param depth verbleibende Tiefe
+     * @param width Kinder je innerem Knoten
+     * @param ids Zähler für die Knotennummern
+     * @return die Wurzel
+     */
+    private static Node tree(int depth, int width, int[] ids) {
+        Node node = new Node();
+        node.id = ids[0]++;
+        node.label = "node " + node.id;
+        node.weight = node.id / (double) width;
+        if (depth > 0) {
+            node.children = new LinkedHashMap<>();
+            for (int i = 0; i < width; i++) {
+                node.children.put("c" + i, tree(depth - 1, width, ids));
+            }
+        }
+        return node;
+    }
+
+    /**
+     * Misst einen Fall, gibt ihn aus und legt das Ergebnis ab. Die Anzahl der Aufrufe pro Runde
+     * richtet sich nach der Größe des Dokumentes, damit kleine Fälle nicht nur den Zeitgeber
+     * messen.
+     * 
+     * @param results Ziel der Ergebnisse
+     * @param name Name des Falles
+     * @param chars Größe des Dokumentes in Zeichen
+     * @param op der Aufruf
+     * @throws JSONSyntaxException sollte nicht auftreten
+     */
+    private static void measure(Results results, String name, int chars, Operation op)
+            throws JSONSyntaxException {
+        int ops = Math.max(1, CHARS_PER_ROUND / Math.max(1, chars));
+        long thread = Thread.currentThread().getId();
+        boolean allocation = THREADS.isThreadAllocatedMemorySupported()
+                && THREADS.isThreadAllocatedMemoryEnabled();
+
+        long bestTime = Long.MAX_VALUE;
+        long bestBytes = Long.MAX_VALUE;
+        int sink = 0;
+        for (int r = 0; r < WARMUP + ROUNDS; r++) {
+            long bytes = allocation ? THREADS.getThreadAllocatedBytes(thread) : 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < ops; i++) {
+                sink += op.run().hashCode();
+            }
+            long time = System.nanoTime() - start;
+            bytes = allocation ? THREADS.getThreadAllocatedBytes(thread) - bytes : -ops;
+
+            if (r >= WARMUP) {
+                bestTime = Math.min(bestTime, time);
+                bestBytes = Math.min(bestBytes, bytes);
+            }
+        }
+
+        Result result = new Result();
+        result.chars = chars;
+        result.operations = ops;
+        result.nanosPerOp = (double) bestTime / ops;
+        result.bytesPerOp = bestBytes / ops;
+        results.cases.put(name, result);
+
+        System.out.printf("%-28s %8d %12.0f %12d (%d)%n", name, chars, result.nanosPerOp,
+                result.bytesPerOp, sink & 1);
+    }
+}